@@ -10,6 +10,17 @@ public interface IdGenerator {
      */
     Long nextId(String bizType);
 
+    /**
+     * Generates {@code count} IDs for the given business type in one call.
+     */
+    default long[] nextIds(String bizType, int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = nextId(bizType);
+        }
+        return ids;
+    }
+
     /**
      * Returns the generator type identifier.
      */
@@ -8,4 +8,9 @@ public interface IdService {
      * Returns the next distributed ID for the given business type.
      */
     Long nextId(String bizType);
+
+    /**
+     * Returns {@code count} distributed IDs for the given business type, ascending.
+     */
+    long[] nextIds(String bizType, int count);
 }
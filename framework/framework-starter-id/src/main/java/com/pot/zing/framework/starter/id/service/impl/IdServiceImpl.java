@@ -18,4 +18,12 @@ public class IdServiceImpl implements IdService {
     public Long nextId(String bizType) {
         return idGenerator.nextId(bizType);
     }
+
+    @Override
+    public long[] nextIds(String bizType, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        return idGenerator.nextIds(bizType, count);
+    }
 }
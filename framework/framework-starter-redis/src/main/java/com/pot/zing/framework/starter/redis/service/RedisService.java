@@ -50,6 +50,12 @@ public interface RedisService {
      */
     <T> T get(String key, Class<T> clazz);
 
+    /**
+     * Gets several values in one round trip. The result is aligned with
+     * {@code keys}, with {@code null} for missing keys; it is empty if the call failed.
+     */
+    <T> List<T> multiGet(List<String> keys, Class<T> clazz);
+
     /**
      * Deletes a key.
      */
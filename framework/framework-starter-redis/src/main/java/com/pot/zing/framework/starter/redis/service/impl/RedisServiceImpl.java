@@ -94,6 +94,23 @@ public class RedisServiceImpl implements RedisService {
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> multiGet(List<String> keys, Class<T> clazz) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            List<Object> values = redisTemplate.opsForValue().multiGet(keys.stream()
+                    .map(this::buildKey)
+                    .collect(Collectors.toList()));
+            return values == null ? Collections.emptyList() : (List<T>) values;
+        } catch (Exception e) {
+            log.error("Redis multiGet failed: keys={}", keys.size(), e);
+            return Collections.emptyList();
+        }
+    }
+
     @Override
     public Boolean delete(String key) {
         try {
@@ -250,7 +267,7 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public Boolean hSetIfAbsent(String key, String field, Object value) {
         try {
-            return redisTemplate.opsForHash().putIfAbsent(key, field, value);
+            return redisTemplate.opsForHash().putIfAbsent(buildKey(key), field, value);
         } catch (Exception e) {
             log.error("Redis hSetIfAbsent operation failed, key: {}, field: {}", key, field, e);
             return false;
@@ -32,5 +32,6 @@ public class GatewayProperties {
          */
         private List<String> internalPathPrefixes = List.of(
                         "/internal/",
-                        "/member/internal/");
+                        "/member/internal/",
+                        "/im/internal/");
 }
@@ -65,6 +65,22 @@ class AuthorizationGatewayFilterTest {
         assertThat(invoked).isFalse();
     }
 
+    @Test
+    @DisplayName("IM service internal path returns 403 directly")
+    void filter_imInternalPath_returnsForbidden() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/im/internal/stats").build());
+        AtomicBoolean invoked = new AtomicBoolean(false);
+
+        filter.filter(exchange, requestExchange -> {
+            invoked.set(true);
+            return Mono.empty();
+        }).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(invoked).isFalse();
+    }
+
     @Test
     @DisplayName("Whitelisted path skips authentication")
     void filter_whitelistedPath_bypassesAuthentication() {
@@ -0,0 +1,5 @@
+-- Conversation summaries (ConversationSummaryCache) are written behind with one multi-row
+-- INSERT ... ON DUPLICATE KEY UPDATE per flush (ConversationMapper.upsertSummaries). Without
+-- this key every flush inserts a new row per conversation instead of updating the existing one.
+ALTER TABLE `im_conversation`
+    ADD UNIQUE KEY `uk_conversation_id` (`conversation_id`);
@@ -0,0 +1,20 @@
+-- Content-addressed storage behind im_file (see BlobStore). Each distinct SHA-256 is
+-- stored once; im_file rows with the same file_hash share its file_path, and ref_count
+-- tracks how many of them do. The bytes are deleted when ref_count drops to zero.
+CREATE TABLE IF NOT EXISTS `im_file_blob`
+(
+    `id`           BIGINT       NOT NULL AUTO_INCREMENT,
+    `gmt_create`   DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `gmt_modified` DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    `file_hash`    CHAR(64)     NOT NULL COMMENT 'Lower-case hex SHA-256 of the content',
+    `file_path`    VARCHAR(512) NOT NULL COMMENT 'Path relative to the storage root',
+    `file_size`    BIGINT       NOT NULL,
+    `ref_count`    INT          NOT NULL DEFAULT 1 COMMENT 'im_file rows pointing at this blob',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_file_hash` (`file_hash`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='Deduplicated file contents';
+
+-- Lets im_file rows be found by content, e.g. to audit blob reference counts.
+ALTER TABLE `im_file`
+    ADD KEY `idx_file_hash` (`file_hash`);
@@ -0,0 +1,12 @@
+-- Conversations a file was sent to (FileAccess). Whoever takes part in one of them may
+-- download the file, besides its uploader; a row is written when a message attaches the file.
+CREATE TABLE IF NOT EXISTS `im_file_share`
+(
+    `id`              BIGINT   NOT NULL AUTO_INCREMENT,
+    `gmt_create`      DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    `file_id`         BIGINT   NOT NULL,
+    `conversation_id` BIGINT   NOT NULL,
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_file_conversation` (`file_id`, `conversation_id`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='Conversations each file was shared to';
@@ -0,0 +1,11 @@
+-- Indexes the IM service relies on. Apply to existing installations; new schemas should
+-- declare them in the CREATE TABLE statements.
+
+-- Message history is paginated by keyset on (conversation_id, message_id) in both
+-- directions (MessageMapper.selectBefore / selectAfter). With this index every page is a
+-- bounded range scan that stops after LIMIT + 1 rows, however far back the client has
+-- scrolled; OFFSET paging would read and discard every skipped row, and the COUNT that
+-- usually goes with it scans the whole conversation. Drop any single-column index on
+-- conversation_id afterwards, it is a prefix of this one.
+ALTER TABLE `im_message`
+    ADD KEY `idx_conversation_message` (`conversation_id`, `message_id`);
@@ -0,0 +1,6 @@
+-- Unread counts (UnreadCounter) are written behind with one multi-row
+-- INSERT ... ON DUPLICATE KEY UPDATE per flush (UserConversationMapper.upsertUnread). Without
+-- this key every flush inserts a new row per user and conversation instead of updating the
+-- existing one.
+ALTER TABLE `im_user_conversation`
+    ADD UNIQUE KEY `uk_user_conversation` (`user_id`, `conversation_id`);
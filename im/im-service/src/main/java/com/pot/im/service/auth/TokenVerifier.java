@@ -0,0 +1,158 @@
+package com.pot.im.service.auth;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.pot.im.service.config.AuthConfig;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies access tokens locally with the gateway's RSA public key.
+ * <p>
+ * Successful verifications are cached until the token expires, so a client that
+ * reconnects with the same token costs a map lookup instead of an RSA check. The
+ * cache is keyed by the token's signature segment rather than its claimed id, so a
+ * forged token cannot borrow a cached verification by copying a valid {@code jti}.
+ * A secondary index from {@code jti} to signature makes revocation a direct removal.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenVerifier {
+
+    private static final String DEFAULT_USER_DOMAIN = "member";
+    private static final String CLAIM_USER_DOMAIN = "user_domain";
+
+    private final AuthConfig config;
+    private final ResourceLoader resourceLoader;
+
+    private final ConcurrentMap<String, String> signaturesByTokenId = new ConcurrentHashMap<>();
+    private Cache<String, VerifiedToken> cache;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(config.getTokenCacheMaxSize())
+                .expireAfterWrite(config.getTokenCacheTtlSeconds(), TimeUnit.SECONDS)
+                .removalListener(this::unindex)
+                .build();
+        try {
+            parser = Jwts.parser().verifyWith(loadPublicKey()).build();
+            log.info("[IM-Auth] JWT public key loaded");
+        } catch (Exception e) {
+            // Stay up but fail closed: every handshake is rejected until the key is configured.
+            log.error("[IM-Auth] Failed to load JWT public key, all authentication will be rejected", e);
+        }
+    }
+
+    /**
+     * @throws JwtException             if the token is malformed, forged or expired
+     * @throws IllegalArgumentException if the token is blank
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("Token is empty");
+        }
+        long now = System.currentTimeMillis();
+        String cacheKey = signatureOf(token);
+        VerifiedToken cached = cacheKey != null ? cache.getIfPresent(cacheKey) : null;
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached;
+            }
+            cache.invalidate(cacheKey);
+        }
+        if (parser == null) {
+            throw new JwtException("JWT public key is not configured");
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        String userId = claims.getSubject();
+        if (userId == null || userId.isBlank()) {
+            throw new JwtException("Token subject is missing");
+        }
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            throw new JwtException("Token expiration is missing");
+        }
+        String userDomain = claims.get(CLAIM_USER_DOMAIN, String.class);
+        VerifiedToken verified = new VerifiedToken(userId,
+                userDomain == null || userDomain.isBlank() ? DEFAULT_USER_DOMAIN : userDomain.toLowerCase(),
+                claims.getId(), expiration.getTime());
+        if (cacheKey != null) {
+            if (verified.tokenId() != null) {
+                signaturesByTokenId.put(verified.tokenId(), cacheKey);
+            }
+            cache.put(cacheKey, verified);
+        }
+        return verified;
+    }
+
+    /**
+     * Drops cached verifications for a revoked token.
+     */
+    public void invalidate(String tokenId) {
+        String signature = tokenId != null ? signaturesByTokenId.remove(tokenId) : null;
+        if (signature != null) {
+            cache.invalidate(signature);
+        }
+    }
+
+    public long cachedTokens() {
+        return cache.size();
+    }
+
+    private void unindex(RemovalNotification<String, VerifiedToken> removal) {
+        VerifiedToken token = removal.getValue();
+        // A replacement keeps the same signature, so its index entry is still valid.
+        if (token != null && token.tokenId() != null && removal.getCause() != RemovalCause.REPLACED) {
+            signaturesByTokenId.remove(token.tokenId(), removal.getKey());
+        }
+    }
+
+    private static String signatureOf(String token) {
+        int dot = token.lastIndexOf('.');
+        return dot > 0 && dot < token.length() - 1 ? token.substring(dot + 1) : null;
+    }
+
+    private PublicKey loadPublicKey() throws Exception {
+        String keyContent = config.getPublicKey();
+        if (keyContent == null || keyContent.isBlank()) {
+            Resource resource = resourceLoader.getResource(config.getPublicKeyLocation());
+            if (!resource.exists()) {
+                throw new IllegalStateException("JWT public key file not found: " + config.getPublicKeyLocation());
+            }
+            try (InputStream inputStream = resource.getInputStream()) {
+                keyContent = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        String publicKeyPEM = keyContent
+                .replace("-----BEGIN PUBLIC KEY-----", "")
+                .replace("-----END PUBLIC KEY-----", "")
+                .replaceAll("\\s", "");
+        byte[] keyBytes = Base64.getDecoder().decode(publicKeyPEM);
+        return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(keyBytes));
+    }
+}
@@ -0,0 +1,11 @@
+package com.pot.im.service.auth;
+
+/**
+ * Identity taken from a signature-checked access token.
+ */
+public record VerifiedToken(String userId, String userDomain, String tokenId, long expiresAtMillis) {
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+}
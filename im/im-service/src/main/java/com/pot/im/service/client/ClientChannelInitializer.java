@@ -1,6 +1,8 @@
 package com.pot.im.service.client;
 
 import com.pot.im.service.config.ClientConfig;
+import com.pot.im.service.protocol.serializer.FragmentationCodec;
+import com.pot.im.service.protocol.serializer.PayloadCompressionCodec;
 import com.pot.im.service.protocol.serializer.ProtocolDecoder;
 import com.pot.im.service.protocol.serializer.ProtocolEncoder;
 import io.netty.channel.ChannelInitializer;
@@ -32,8 +34,12 @@ public class ClientChannelInitializer extends ChannelInitializer<SocketChannel>
                 0,
                 TimeUnit.SECONDS));
 
-        pipeline.addLast(new ProtocolDecoder());
+        pipeline.addLast(new ProtocolDecoder(config.getMaxFrameLength(), true));
         pipeline.addLast(new ProtocolEncoder());
+        pipeline.addLast(new FragmentationCodec(config.getFragmentSize(),
+                config.getMaxMessageLength(), config.getMaxReassemblyBytes(), config.getReassemblyTimeoutMillis()));
+        pipeline.addLast(new PayloadCompressionCodec(config.getCompressionThreshold(),
+                config.getCompressionLevel(), config.getMaxDecompressedLength()));
 
         pipeline.addLast(clientHandler);
     }
@@ -1,7 +1,9 @@
 package com.pot.im.service.client;
 
 import com.pot.im.service.config.ClientConfig;
+import com.pot.im.service.protocol.payload.AuthRequest;
 import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
 import com.pot.im.service.protocol.serializer.ProtocolMessage;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
@@ -87,9 +89,14 @@ public class IMClient {
     }
 
         public CompletableFuture<Boolean> authenticate(String userId, String token) {
-        String authData = userId + ":" + token;
-        ProtocolMessage authMessage = new ProtocolMessage(MessageType.AUTH_REQUEST, authData.getBytes());
-        return sendMessage(authMessage);
+        try {
+            ProtocolMessage authMessage = PayloadCodec.encode(MessageType.AUTH_REQUEST,
+                    new AuthRequest(userId, token), config.getSerializer());
+            return sendMessage(authMessage);
+        } catch (Exception e) {
+            log.error("Failed to encode authentication request", e);
+            return CompletableFuture.completedFuture(false);
+        }
     }
 
         public CompletableFuture<Boolean> sendHeartbeat() {
@@ -1,6 +1,8 @@
 package com.pot.im.service.client;
 
+import com.pot.im.service.protocol.payload.AuthResponse;
 import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
 import com.pot.im.service.protocol.serializer.ProtocolMessage;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -70,12 +72,12 @@ public class IMClientHandler extends SimpleChannelInboundHandler<ProtocolMessage
         ctx.close();
     }
 
-    private void handleAuthResponse(ProtocolMessage msg) {
-        String response = new String(msg.getData());
-        if ("AUTH_SUCCESS".equals(response)) {
+    private void handleAuthResponse(ProtocolMessage msg) throws Exception {
+        AuthResponse response = PayloadCodec.decode(msg, AuthResponse.class);
+        if (response.isSuccess()) {
             log.info("Authentication successful");
         } else {
-            log.warn("Authentication failed: {}", response);
+            log.warn("Authentication failed: {}", response.getMessage());
         }
     }
 
@@ -0,0 +1,92 @@
+package com.pot.im.service.cluster;
+
+import com.pot.im.service.protocol.payload.ChatMessage;
+import com.pot.im.service.protocol.payload.FileProcessedNotify;
+import com.pot.im.service.protocol.payload.ForwardBatch;
+import com.pot.im.service.protocol.payload.ForwardEnvelope;
+import com.pot.im.service.protocol.payload.ReadReceiptNotify;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.protocol.serializer.SerializerFactory;
+import com.pot.im.service.protocol.serializer.SerializerType;
+import com.pot.im.service.server.ConnectionManager;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivers batches forwarded by peer nodes to the local connections.
+ * <p>
+ * The sending node cannot see which serializer a remote user negotiated, so
+ * pushes are re-encoded here when the recipient's connection uses another one.
+ */
+@Slf4j
+@ChannelHandler.Sharable
+@RequiredArgsConstructor
+class ClusterForwardHandler extends SimpleChannelInboundHandler<ProtocolMessage> {
+
+    /**
+     * Payload class of each server push that may arrive forwarded, by unsigned type code.
+     */
+    private static final Class<?>[] PUSH_PAYLOADS = new Class<?>[256];
+
+    static {
+        PUSH_PAYLOADS[MessageType.PRIVATE_MESSAGE.index()] = ChatMessage.class;
+        PUSH_PAYLOADS[MessageType.GROUP_MESSAGE.index()] = ChatMessage.class;
+        PUSH_PAYLOADS[MessageType.READ_RECEIPT_NOTIFY.index()] = ReadReceiptNotify.class;
+        PUSH_PAYLOADS[MessageType.FILE_PROCESSED.index()] = FileProcessedNotify.class;
+    }
+
+    private final ConnectionManager connectionManager;
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ProtocolMessage message) throws Exception {
+        if (message.getHeader().getMsgType() != MessageType.CLUSTER_FORWARD.getCode()) {
+            log.warn("Unexpected message type {} on cluster link from {}",
+                    message.getHeader().getMsgType(), ctx.channel().remoteAddress());
+            return;
+        }
+        ForwardBatch batch = PayloadCodec.decode(message, ForwardBatch.class);
+        if (batch.getEnvelopes() == null) {
+            return;
+        }
+        int missed = 0;
+        for (ForwardEnvelope envelope : batch.getEnvelopes()) {
+            ProtocolMessage forwarded = envelope.toMessage();
+            reencode(forwarded, connectionManager.serializerOf(envelope.getUserId()));
+            if (!connectionManager.deliverLocal(envelope.getUserId(), forwarded)) {
+                // The user left this node after the sender resolved the route; keep it for their next sync.
+                connectionManager.storeOffline(envelope.getUserId(), forwarded);
+                missed++;
+            }
+        }
+        if (missed > 0) {
+            log.debug("{} of {} messages forwarded by node {} found no local connection and went to the inbox",
+                    missed, batch.getEnvelopes().size(), batch.getSourceNodeId());
+        }
+    }
+
+    private static void reencode(ProtocolMessage message, SerializerType target) {
+        Class<?> payloadType = PUSH_PAYLOADS[message.getHeader().getMsgType() & 0xFF];
+        if (payloadType == null || message.getHeader().getSerializerType() == target) {
+            return;
+        }
+        try {
+            Object payload = PayloadCodec.decode(message, payloadType);
+            message.setData(SerializerFactory.getSerializer(target).serialize(payload));
+            message.getHeader().setSerializerType(target);
+        } catch (Exception e) {
+            log.warn("Failed to re-encode forwarded {} frame as {}, delivering as sent: {}",
+                    message.getHeader().getMsgType(), target, e.getMessage());
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.error("Cluster link exception [{}]: {}", ctx.channel().remoteAddress(), cause.getMessage());
+        ctx.close();
+    }
+}
@@ -0,0 +1,87 @@
+package com.pot.im.service.cluster;
+
+import com.pot.im.service.config.ClusterConfig;
+import com.pot.im.service.protocol.serializer.ProtocolDecoder;
+import com.pot.im.service.protocol.serializer.ProtocolEncoder;
+import com.pot.im.service.server.ConnectionManager;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listens for node-to-node links on {@code im.cluster.bind-host}:{@code im.cluster.port}.
+ * Each link must open with a valid {@code CLUSTER_HELLO} before any forward is accepted.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "im.cluster", name = "enabled", havingValue = "true")
+public class ClusterServer implements ApplicationRunner {
+
+    private final ClusterConfig config;
+    private final ClusterForwardHandler forwardHandler;
+    private final PeerAuthenticator authenticator;
+
+    private EventLoopGroup eventLoopGroup;
+    private Channel serverChannel;
+
+    public ClusterServer(ClusterConfig config, ConnectionManager connectionManager) {
+        this.config = config;
+        this.forwardHandler = new ClusterForwardHandler(connectionManager);
+        this.authenticator = new PeerAuthenticator(config.getSharedSecret(), config.getAuthMaxSkewMillis());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        start();
+    }
+
+    public void start() throws InterruptedException {
+        String bindHost = config.getBindHost() != null ? config.getBindHost() : config.getAdvertiseHost();
+        eventLoopGroup = new MultiThreadIoEventLoopGroup(config.getLinkThreads(),
+                new DefaultThreadFactory("im-cluster-server"), NioIoHandler.newFactory());
+        serverChannel = new ServerBootstrap()
+                .group(eventLoopGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new ProtocolDecoder(config.getLinkMaxFrameLength()));
+                        ch.pipeline().addLast(new ProtocolEncoder());
+                        ch.pipeline().addLast(new PeerAuthHandler(authenticator, config.getAuthMaxSkewMillis()));
+                        ch.pipeline().addLast(forwardHandler);
+                    }
+                })
+                .bind(bindHost, config.getPort())
+                .sync()
+                .channel();
+        log.info("Cluster link server started on {}:{} for node {}", bindHost, config.getPort(), config.getNodeId());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (serverChannel != null && serverChannel.isOpen()) {
+            serverChannel.close();
+        }
+        if (eventLoopGroup != null && !eventLoopGroup.isShutdown()) {
+            eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        }
+    }
+}
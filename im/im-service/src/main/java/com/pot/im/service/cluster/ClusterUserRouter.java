@@ -0,0 +1,187 @@
+package com.pot.im.service.cluster;
+
+import com.pot.im.service.config.ClusterConfig;
+import com.pot.im.service.protocol.payload.ForwardEnvelope;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * {@link UserRouter} for a multi-node deployment.
+ * <p>
+ * Local bindings are written to the {@link UserLocationRegistry} from a single
+ * background thread, which keeps registry I/O off the event loops and applies
+ * bind/unbind for a user in the order they happened.
+ * <p>
+ * Forwarding only touches the registry on a cache miss, and then from a single
+ * lookup thread that resolves all missed users of a message in one batch. The
+ * lookup thread sends before it caches a location, so a later message that hits
+ * the cache cannot overtake an earlier one still waiting for its lookup.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "im.cluster", name = "enabled", havingValue = "true")
+public class ClusterUserRouter implements UserRouter {
+
+    private final ClusterConfig config;
+    private final UserLocationRegistry registry;
+    private final NodeLinkManager linkManager;
+    private final RemoteLocationCache locationCache;
+    private final ScheduledExecutorService registryExecutor;
+    private final ExecutorService lookupExecutor;
+
+    public ClusterUserRouter(ClusterConfig config, UserLocationRegistry registry, NodeLinkManager linkManager) {
+        this.config = config;
+        this.registry = registry;
+        this.linkManager = linkManager;
+        this.locationCache = new RemoteLocationCache(config.getLocationCacheTtlMillis(),
+                config.getLocationMissTtlMillis(), config.getLocationCacheMaxSize());
+        this.registryExecutor = Executors.newSingleThreadScheduledExecutor(
+                new DefaultThreadFactory("im-cluster-registry", true));
+        this.lookupExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(config.getLookupQueueCapacity()),
+                new DefaultThreadFactory("im-cluster-lookup", true));
+    }
+
+    @PostConstruct
+    public void init() {
+        NodeAddress self = new NodeAddress(config.getNodeId(), config.getAdvertiseHost(), config.getPort());
+        Duration ttl = Duration.ofSeconds(config.getNodeTtlSeconds());
+        registryExecutor.scheduleAtFixedRate(() -> heartbeat(self, ttl),
+                0, config.getHeartbeatIntervalSeconds(), TimeUnit.SECONDS);
+        log.info("Cluster routing enabled for node {} at {}", self.nodeId(), self.toAddressString());
+    }
+
+    @Override
+    public void userBound(String userId) {
+        locationCache.invalidate(userId);
+        submit(() -> registry.register(userId, config.getNodeId()));
+    }
+
+    @Override
+    public void userUnbound(String userId) {
+        submit(() -> registry.unregister(userId, config.getNodeId()));
+    }
+
+    @Override
+    public void forward(List<String> userIds, ProtocolMessage message, Consumer<List<String>> unreachable) {
+        if (userIds.isEmpty()) {
+            unreachable.accept(List.of());
+            return;
+        }
+        ForwardEnvelope template = ForwardEnvelope.of(null, message);
+        List<String> undelivered = new ArrayList<>();
+        List<String> missed = new ArrayList<>();
+        for (String userId : userIds) {
+            String nodeId = locationCache.get(userId);
+            if (nodeId == null) {
+                missed.add(userId);
+            } else if (RemoteLocationCache.isNowhere(nodeId)) {
+                undelivered.add(userId);
+            } else if (!linkManager.trySend(nodeId, template.forUser(userId))) {
+                // No open link yet, or it is full: let the lookup thread resolve and (re)open it.
+                locationCache.invalidate(userId);
+                missed.add(userId);
+            }
+        }
+        if (missed.isEmpty()) {
+            unreachable.accept(undelivered);
+            return;
+        }
+        try {
+            lookupExecutor.execute(() -> resolveAndSend(missed, template, undelivered, unreachable));
+        } catch (RejectedExecutionException e) {
+            log.warn("Cluster lookup queue is full, treating {} users as unreachable", missed.size());
+            undelivered.addAll(missed);
+            unreachable.accept(undelivered);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdown();
+        registryExecutor.shutdown();
+        try {
+            if (!lookupExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                lookupExecutor.shutdownNow();
+            }
+            if (!registryExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                registryExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            lookupExecutor.shutdownNow();
+            registryExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        registry.removeNode(config.getNodeId());
+    }
+
+    private void resolveAndSend(List<String> userIds, ForwardEnvelope template,
+                                List<String> undelivered, Consumer<List<String>> unreachable) {
+        List<String> nodeIds = null;
+        try {
+            nodeIds = registry.locateAll(userIds);
+        } catch (Exception e) {
+            log.warn("Cluster location lookup failed for {} users: {}", userIds.size(), e.getMessage());
+        }
+        for (int i = 0; i < userIds.size(); i++) {
+            String userId = userIds.get(i);
+            String nodeId = nodeIds != null ? nodeIds.get(i) : null;
+            if (nodeId == null || nodeId.equals(config.getNodeId())) {
+                // Only a definite answer is cached; a failed lookup is retried on the next message.
+                if (nodeIds != null) {
+                    locationCache.putNowhere(userId);
+                }
+                undelivered.add(userId);
+            } else if (linkManager.send(nodeId, template.forUser(userId))) {
+                locationCache.put(userId, nodeId);
+            } else {
+                locationCache.invalidateNode(nodeId);
+                undelivered.add(userId);
+            }
+        }
+        try {
+            unreachable.accept(undelivered);
+        } catch (Exception e) {
+            log.error("Failed to handle {} unreachable users", undelivered.size(), e);
+        }
+    }
+
+    private void heartbeat(NodeAddress self, Duration ttl) {
+        try {
+            registry.heartbeat(self, ttl);
+        } catch (Exception e) {
+            log.warn("Cluster heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            registryExecutor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.warn("Cluster registry update failed: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Cluster router is shutting down, registry update skipped");
+        }
+    }
+}
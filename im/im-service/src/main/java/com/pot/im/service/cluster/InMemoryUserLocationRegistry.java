@@ -0,0 +1,61 @@
+package com.pot.im.service.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-JVM {@link UserLocationRegistry} with the same semantics as the Redis
+ * one. Used as a Redis stand-in when several IM nodes run in one process.
+ */
+@Component
+@ConditionalOnExpression("${im.cluster.enabled:false} and '${im.cluster.registry:redis}' == 'memory'")
+public class InMemoryUserLocationRegistry implements UserLocationRegistry {
+
+    private final Map<String, String> locations = new ConcurrentHashMap<>();
+    private final Map<String, LiveNode> nodes = new ConcurrentHashMap<>();
+
+    @Override
+    public void register(String userId, String nodeId) {
+        locations.put(userId, nodeId);
+    }
+
+    @Override
+    public void unregister(String userId, String nodeId) {
+        locations.remove(userId, nodeId);
+    }
+
+    @Override
+    public String locate(String userId) {
+        return locations.get(userId);
+    }
+
+    @Override
+    public void heartbeat(NodeAddress node, Duration ttl) {
+        nodes.put(node.nodeId(), new LiveNode(node, System.nanoTime() + ttl.toNanos()));
+    }
+
+    @Override
+    public void removeNode(String nodeId) {
+        nodes.remove(nodeId);
+    }
+
+    @Override
+    public NodeAddress resolveNode(String nodeId) {
+        LiveNode node = nodes.get(nodeId);
+        if (node == null) {
+            return null;
+        }
+        if (node.expiresAtNanos() - System.nanoTime() < 0) {
+            nodes.remove(nodeId, node);
+            return null;
+        }
+        return node.address();
+    }
+
+    private record LiveNode(NodeAddress address, long expiresAtNanos) {
+    }
+}
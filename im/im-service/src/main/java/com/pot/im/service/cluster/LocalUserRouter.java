@@ -0,0 +1,29 @@
+package com.pot.im.service.cluster;
+
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link UserRouter} for a standalone node: nothing to publish, nowhere to forward.
+ */
+@Component
+@ConditionalOnProperty(prefix = "im.cluster", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class LocalUserRouter implements UserRouter {
+
+    @Override
+    public void userBound(String userId) {
+    }
+
+    @Override
+    public void userUnbound(String userId) {
+    }
+
+    @Override
+    public void forward(List<String> userIds, ProtocolMessage message, Consumer<List<String>> unreachable) {
+        unreachable.accept(userIds);
+    }
+}
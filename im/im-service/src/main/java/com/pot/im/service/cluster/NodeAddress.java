@@ -0,0 +1,20 @@
+package com.pot.im.service.cluster;
+
+/**
+ * Internal forwarding endpoint of an IM node.
+ */
+public record NodeAddress(String nodeId, String host, int port) {
+
+    public String toAddressString() {
+        return host + ":" + port;
+    }
+
+    public static NodeAddress parse(String nodeId, String address) {
+        int separator = address.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid node address: " + address);
+        }
+        return new NodeAddress(nodeId, address.substring(0, separator),
+                Integer.parseInt(address.substring(separator + 1)));
+    }
+}
@@ -0,0 +1,154 @@
+package com.pot.im.service.cluster;
+
+import com.pot.im.service.protocol.payload.ForwardBatch;
+import com.pot.im.service.protocol.payload.ForwardEnvelope;
+import com.pot.im.service.protocol.serializer.MessagePriority;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.protocol.serializer.SerializerType;
+import io.netty.channel.Channel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent connection to one peer node that batches forwarded frames.
+ * <p>
+ * Any thread may enqueue; batches are built and written on the link's event
+ * loop, either when {@code batchSize} envelopes are waiting or after
+ * {@code flushIntervalMillis}, whichever comes first. A batch is also capped at
+ * {@code maxBatchBytes} of payload so it stays under the peer's frame limit.
+ */
+@Slf4j
+class NodeLink {
+
+    private final String localNodeId;
+    private final String peerNodeId;
+    private final Channel channel;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final int maxPending;
+    private final int maxBatchBytes;
+
+    private final Queue<ForwardEnvelope> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+    NodeLink(String localNodeId, String peerNodeId, Channel channel,
+             int batchSize, long flushIntervalMillis, int maxPending, int maxBatchBytes) {
+        this.localNodeId = localNodeId;
+        this.peerNodeId = peerNodeId;
+        this.channel = channel;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxPending = maxPending;
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    boolean enqueue(ForwardEnvelope envelope) {
+        if (!channel.isOpen()) {
+            return false;
+        }
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            log.warn("Forward queue to node {} is full, rejecting message for user {}",
+                    peerNodeId, envelope.getUserId());
+            return false;
+        }
+        queue.add(envelope);
+        if (pending.get() >= batchSize) {
+            // One immediate flush in flight is enough: it drains everything queued until it runs.
+            if (flushQueued.compareAndSet(false, true)) {
+                channel.eventLoop().execute(this::flush);
+            }
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            channel.eventLoop().schedule(this::flush, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    void close() {
+        channel.close();
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        if (!channel.isActive()) {
+            if (channel.isOpen()) {
+                // Still connecting; try again shortly. flushQueued stays set so
+                // enqueues until then do not each queue another flush.
+                if (flushScheduled.compareAndSet(false, true)) {
+                    channel.eventLoop().schedule(this::flush, flushIntervalMillis, TimeUnit.MILLISECONDS);
+                }
+            } else {
+                discardPending();
+            }
+            return;
+        }
+        flushQueued.set(false);
+        boolean written = false;
+        while (pending.get() > 0) {
+            List<ForwardEnvelope> batch = new ArrayList<>(Math.min(pending.get(), batchSize));
+            int batchBytes = 0;
+            ForwardEnvelope envelope;
+            // Only this event loop polls, so peek-then-poll takes the envelope just inspected.
+            while (batch.size() < batchSize && (envelope = queue.peek()) != null) {
+                int size = envelope.getData() != null ? envelope.getData().length : 0;
+                if (!batch.isEmpty() && batchBytes + size > maxBatchBytes) {
+                    break;
+                }
+                queue.poll();
+                batch.add(envelope);
+                batchBytes += size;
+                pending.decrementAndGet();
+            }
+            if (batch.isEmpty()) {
+                break;
+            }
+            write(batch);
+            written = true;
+        }
+        if (written) {
+            channel.flush();
+        }
+    }
+
+    private void write(List<ForwardEnvelope> batch) {
+        try {
+            ProtocolMessage message = PayloadCodec.encode(MessageType.CLUSTER_FORWARD,
+                    new ForwardBatch(localNodeId, batch), SerializerType.PROTOBUF);
+            message.getHeader().setMessagePriority(MessagePriority.HIGH);
+            channel.write(message).addListener(future -> {
+                if (!future.isSuccess()) {
+                    log.warn("Failed to forward {} messages to node {}: {}",
+                            batch.size(), peerNodeId, future.cause().getMessage());
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to encode forward batch for node {}", peerNodeId, e);
+        }
+    }
+
+    private void discardPending() {
+        int dropped = 0;
+        while (queue.poll() != null) {
+            pending.decrementAndGet();
+            dropped++;
+        }
+        if (dropped > 0) {
+            log.warn("Link to node {} closed, dropped {} forwarded messages", peerNodeId, dropped);
+        }
+    }
+}
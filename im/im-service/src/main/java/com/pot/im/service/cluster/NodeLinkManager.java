@@ -0,0 +1,161 @@
+package com.pot.im.service.cluster;
+
+import com.pot.im.service.config.ClusterConfig;
+import com.pot.im.service.protocol.payload.ForwardEnvelope;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolDecoder;
+import com.pot.im.service.protocol.serializer.ProtocolEncoder;
+import com.pot.im.service.protocol.serializer.SerializerType;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the persistent node-to-node links used to forward messages to users
+ * connected elsewhere. Links are opened lazily on first use and dropped when
+ * their channel closes, so the next forward re-resolves the peer's address.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "im.cluster", name = "enabled", havingValue = "true")
+public class NodeLinkManager {
+
+    private final ClusterConfig config;
+    private final UserLocationRegistry registry;
+    private final PeerAuthenticator authenticator;
+    private final EventLoopGroup eventLoopGroup;
+    private final Bootstrap bootstrap;
+    private final Map<String, NodeLink> links = new ConcurrentHashMap<>();
+
+    public NodeLinkManager(ClusterConfig config, UserLocationRegistry registry) {
+        this.config = config;
+        this.registry = registry;
+        this.authenticator = new PeerAuthenticator(config.getSharedSecret(), config.getAuthMaxSkewMillis());
+        this.eventLoopGroup = new MultiThreadIoEventLoopGroup(config.getLinkThreads(),
+                new DefaultThreadFactory("im-cluster-link"), NioIoHandler.newFactory());
+        this.bootstrap = new Bootstrap()
+                .group(eventLoopGroup)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.getLinkConnectTimeoutMs())
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new ProtocolDecoder(config.getLinkMaxFrameLength()));
+                        ch.pipeline().addLast(new ProtocolEncoder());
+                        ch.pipeline().addLast(new LinkHandler(authenticator, config.getNodeId()));
+                    }
+                });
+    }
+
+    /**
+     * Queues an envelope on an already open link to {@code nodeId}; never touches
+     * the registry, so it is safe on any thread.
+     *
+     * @return {@code false} if there is no open link to the node or it cannot take more
+     */
+    public boolean trySend(String nodeId, ForwardEnvelope envelope) {
+        NodeLink link = links.get(nodeId);
+        return link != null && link.enqueue(envelope);
+    }
+
+    /**
+     * Queues an envelope on the link to {@code nodeId}, opening the link first if
+     * needed. Opening resolves the peer's address in the registry, so call this off
+     * the event loops.
+     *
+     * @return {@code false} if the node is not alive or its link cannot take more
+     */
+    public boolean send(String nodeId, ForwardEnvelope envelope) {
+        NodeLink link = links.get(nodeId);
+        if (link == null || !link.isOpen()) {
+            // Resolve before compute: the registry call must not run under the map's bin lock.
+            NodeAddress address = registry.resolveNode(nodeId);
+            if (address == null) {
+                log.debug("Node {} is not alive, cannot open link", nodeId);
+                return false;
+            }
+            link = links.compute(nodeId, (id, existing) ->
+                    existing != null && existing.isOpen() ? existing : open(id, address));
+        }
+        return link.enqueue(envelope);
+    }
+
+    private NodeLink open(String nodeId, NodeAddress address) {
+        ChannelFuture future = bootstrap.connect(address.host(), address.port());
+        NodeLink link = new NodeLink(config.getNodeId(), nodeId, future.channel(),
+                config.getForwardBatchSize(), config.getForwardFlushIntervalMillis(), config.getMaxPendingForwards(),
+                config.getForwardBatchMaxBytes());
+        future.addListener(f -> {
+            if (f.isSuccess()) {
+                log.info("Cluster link established to node {} at {}", nodeId, address.toAddressString());
+            } else {
+                log.warn("Failed to connect to node {} at {}: {}",
+                        nodeId, address.toAddressString(), f.cause().getMessage());
+            }
+        });
+        future.channel().closeFuture().addListener(f -> links.remove(nodeId, link));
+        return link;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        links.values().forEach(NodeLink::close);
+        links.clear();
+        eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+    }
+
+    private static class LinkHandler extends ChannelInboundHandlerAdapter {
+
+        private final PeerAuthenticator authenticator;
+        private final String nodeId;
+
+        LinkHandler(PeerAuthenticator authenticator, String nodeId) {
+            this.authenticator = authenticator;
+            this.nodeId = nodeId;
+        }
+
+        /**
+         * Sends the hello before anything else: {@link NodeLink} only writes once the
+         * channel is active, and that happens on this event loop after this callback.
+         */
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            ctx.writeAndFlush(PayloadCodec.encode(MessageType.CLUSTER_HELLO,
+                    authenticator.hello(nodeId), SerializerType.PROTOBUF));
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            // Links are one-way; peers do not reply on them.
+            ReferenceCountUtil.release(msg);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.warn("Cluster link to {} failed: {}", ctx.channel().remoteAddress(), cause.getMessage());
+            ctx.close();
+        }
+    }
+}
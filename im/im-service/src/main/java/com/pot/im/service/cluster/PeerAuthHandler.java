@@ -0,0 +1,72 @@
+package com.pot.im.service.cluster;
+
+import com.pot.im.service.protocol.payload.ClusterHello;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guards an inbound node link until the peer has sent a valid
+ * {@code CLUSTER_HELLO}, then removes itself. Any other first frame, a bad
+ * hello, or no hello within the timeout closes the link, so nothing reaches
+ * {@link ClusterForwardHandler} from an unauthenticated peer.
+ */
+@Slf4j
+class PeerAuthHandler extends ChannelInboundHandlerAdapter {
+
+    private final PeerAuthenticator authenticator;
+    private final long timeoutMillis;
+    private ScheduledFuture<?> timeout;
+
+    PeerAuthHandler(PeerAuthenticator authenticator, long timeoutMillis) {
+        this.authenticator = authenticator;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        timeout = ctx.executor().schedule(() -> {
+            log.warn("Cluster link from {} sent no hello within {} ms, closing",
+                    ctx.channel().remoteAddress(), timeoutMillis);
+            ctx.close();
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        try {
+            if (msg instanceof ProtocolMessage message
+                    && message.getHeader().getMsgType() == MessageType.CLUSTER_HELLO.getCode()) {
+                ClusterHello hello = PayloadCodec.decode(message, ClusterHello.class);
+                if (authenticator.verify(hello)) {
+                    log.info("Cluster link from node {} at {} authenticated",
+                            hello.getNodeId(), ctx.channel().remoteAddress());
+                    ctx.pipeline().remove(this);
+                    return;
+                }
+            }
+            log.warn("Rejecting unauthenticated cluster link from {}", ctx.channel().remoteAddress());
+            ctx.close();
+        } catch (Exception e) {
+            log.warn("Rejecting cluster link from {}: {}", ctx.channel().remoteAddress(), e.getMessage());
+            ctx.close();
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.pot.im.service.cluster;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.pot.im.service.protocol.payload.ClusterHello;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signs and checks the {@link ClusterHello} that opens every node link, so only
+ * nodes holding {@code im.cluster.shared-secret} can forward messages.
+ * <p>
+ * A hello is accepted once: its timestamp must be within {@code maxSkewMillis}
+ * of this node's clock and its nonce must not have been seen in that window,
+ * which keeps a captured hello from being replayed.
+ */
+class PeerAuthenticator {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int NONCE_BYTES = 16;
+
+    private final SecretKeySpec key;
+    private final long maxSkewMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final Cache<String, Boolean> seenNonces;
+
+    PeerAuthenticator(String sharedSecret, long maxSkewMillis) {
+        if (sharedSecret == null || sharedSecret.isBlank()) {
+            throw new IllegalStateException("im.cluster.shared-secret must be set when clustering is enabled");
+        }
+        this.key = new SecretKeySpec(sharedSecret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.maxSkewMillis = maxSkewMillis;
+        this.seenNonces = CacheBuilder.newBuilder()
+                .expireAfterWrite(2 * maxSkewMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    ClusterHello hello(String nodeId) {
+        byte[] nonceBytes = new byte[NONCE_BYTES];
+        random.nextBytes(nonceBytes);
+        String nonce = Base64.getEncoder().encodeToString(nonceBytes);
+        long timestamp = System.currentTimeMillis();
+        return new ClusterHello(nodeId, timestamp, nonce, mac(nodeId, timestamp, nonce));
+    }
+
+    /**
+     * @return {@code true} if the hello carries a valid MAC, a fresh timestamp and an unseen nonce
+     */
+    boolean verify(ClusterHello hello) {
+        if (hello == null || hello.getNodeId() == null || hello.getNonce() == null || hello.getMac() == null) {
+            return false;
+        }
+        if (Math.abs(System.currentTimeMillis() - hello.getTimestamp()) > maxSkewMillis) {
+            return false;
+        }
+        byte[] expected = mac(hello.getNodeId(), hello.getTimestamp(), hello.getNonce());
+        if (!MessageDigest.isEqual(expected, hello.getMac())) {
+            return false;
+        }
+        return seenNonces.asMap().putIfAbsent(hello.getNonce(), Boolean.TRUE) == null;
+    }
+
+    private byte[] mac(String nodeId, long timestamp, String nonce) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal((nodeId + '\n' + timestamp + '\n' + nonce).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is unavailable", e);
+        }
+    }
+}
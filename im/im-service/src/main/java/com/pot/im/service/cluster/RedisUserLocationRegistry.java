@@ -0,0 +1,79 @@
+package com.pot.im.service.cluster;
+
+import com.pot.zing.framework.starter.redis.service.RedisService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link UserLocationRegistry} backed by Redis.
+ * <p>
+ * User locations have no TTL; instead every node keeps a short-lived liveness
+ * key refreshed by heartbeat, and locations pointing at an expired node are
+ * ignored. This keeps Redis traffic proportional to logins, not online users.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("${im.cluster.enabled:false} and '${im.cluster.registry:redis}' == 'redis'")
+public class RedisUserLocationRegistry implements UserLocationRegistry {
+
+    private static final String USER_KEY_PREFIX = "im:route:user:";
+    private static final String NODE_KEY_PREFIX = "im:route:node:";
+
+    private static final RedisScript<Long> COMPARE_AND_DELETE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final RedisService redisService;
+
+    @Override
+    public void register(String userId, String nodeId) {
+        if (!Boolean.TRUE.equals(redisService.set(USER_KEY_PREFIX + userId, nodeId))) {
+            log.warn("Failed to register location of user {} on node {}", userId, nodeId);
+        }
+    }
+
+    @Override
+    public void unregister(String userId, String nodeId) {
+        redisService.execute(COMPARE_AND_DELETE, List.of(USER_KEY_PREFIX + userId), nodeId);
+    }
+
+    @Override
+    public String locate(String userId) {
+        return redisService.get(USER_KEY_PREFIX + userId, String.class);
+    }
+
+    @Override
+    public List<String> locateAll(List<String> userIds) {
+        List<String> keys = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            keys.add(USER_KEY_PREFIX + userId);
+        }
+        List<String> nodeIds = redisService.multiGet(keys, String.class);
+        return nodeIds.size() == userIds.size() ? nodeIds : null;
+    }
+
+    @Override
+    public void heartbeat(NodeAddress node, Duration ttl) {
+        redisService.set(NODE_KEY_PREFIX + node.nodeId(), node.toAddressString(), ttl);
+    }
+
+    @Override
+    public void removeNode(String nodeId) {
+        redisService.delete(NODE_KEY_PREFIX + nodeId);
+    }
+
+    @Override
+    public NodeAddress resolveNode(String nodeId) {
+        String address = redisService.get(NODE_KEY_PREFIX + nodeId, String.class);
+        return address == null ? null : NodeAddress.parse(nodeId, address);
+    }
+}
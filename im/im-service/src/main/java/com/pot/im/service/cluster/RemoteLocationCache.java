@@ -0,0 +1,78 @@
+package com.pot.im.service.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived local cache of remote user locations, so consecutive messages to
+ * the same remote user do not each query the registry.
+ * <p>
+ * Users the registry reported as not connected anywhere are cached too, under
+ * {@link #NOWHERE} and a shorter TTL, so messages to offline group members do not
+ * look them up again on every send.
+ */
+class RemoteLocationCache {
+
+    /**
+     * Location cached for a user that is not connected to any node.
+     */
+    static final String NOWHERE = "";
+
+    private final long ttlNanos;
+    private final long missTtlNanos;
+    private final int maxSize;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    RemoteLocationCache(long ttlMillis, long missTtlMillis, int maxSize) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.missTtlNanos = missTtlMillis * 1_000_000L;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the user's node id, {@link #NOWHERE}, or {@code null} if not cached
+     */
+    String get(String userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtNanos - System.nanoTime() < 0) {
+            entries.remove(userId, entry);
+            return null;
+        }
+        return entry.nodeId;
+    }
+
+    void put(String userId, String nodeId) {
+        store(userId, nodeId, ttlNanos);
+    }
+
+    void putNowhere(String userId) {
+        store(userId, NOWHERE, missTtlNanos);
+    }
+
+    void invalidate(String userId) {
+        entries.remove(userId);
+    }
+
+    void invalidateNode(String nodeId) {
+        entries.values().removeIf(entry -> entry.nodeId.equals(nodeId));
+    }
+
+    static boolean isNowhere(String nodeId) {
+        return NOWHERE.equals(nodeId);
+    }
+
+    private void store(String userId, String nodeId, long ttl) {
+        if (entries.size() >= maxSize) {
+            // Entries are only valid for a couple of seconds; dropping them all is
+            // cheaper than tracking recency.
+            entries.clear();
+        }
+        entries.put(userId, new Entry(nodeId, System.nanoTime() + ttl));
+    }
+
+    private record Entry(String nodeId, long expiresAtNanos) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.pot.im.service.cluster;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cluster-wide registry of which IM node holds each user's connection, and of
+ * the live nodes' forwarding addresses.
+ */
+public interface UserLocationRegistry {
+
+    /**
+     * Records that {@code userId} is connected to {@code nodeId}, replacing any
+     * previous location.
+     */
+    void register(String userId, String nodeId);
+
+    /**
+     * Removes the location only if it still points at {@code nodeId}, so a late
+     * disconnect cannot erase a newer login on another node.
+     */
+    void unregister(String userId, String nodeId);
+
+    /**
+     * Returns the node holding the user's connection, or {@code null}.
+     */
+    String locate(String userId);
+
+    /**
+     * Looks up several users at once. The result is aligned with {@code userIds},
+     * with {@code null} for users not connected anywhere; it is {@code null} itself
+     * if the registry could not be reached, so callers can tell "offline" from "unknown".
+     */
+    default List<String> locateAll(List<String> userIds) {
+        List<String> nodeIds = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            nodeIds.add(locate(userId));
+        }
+        return nodeIds;
+    }
+
+    /**
+     * Announces or refreshes a live node; the entry expires after {@code ttl}.
+     */
+    void heartbeat(NodeAddress node, Duration ttl);
+
+    void removeNode(String nodeId);
+
+    /**
+     * Returns the address of a live node, or {@code null} if it is unknown or expired.
+     */
+    NodeAddress resolveNode(String nodeId);
+}
@@ -0,0 +1,30 @@
+package com.pot.im.service.cluster;
+
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hook through which {@code ConnectionManager} publishes local user bindings and
+ * hands off messages for users that are not connected to this node.
+ */
+public interface UserRouter {
+
+    void userBound(String userId);
+
+    void userUnbound(String userId);
+
+    /**
+     * Forwards {@code message} to the nodes holding the listed users' connections.
+     * <p>
+     * Never blocks on the registry, so it is safe on an event loop: users whose
+     * location is not cached are looked up in one batch on a background thread.
+     * The message is copied before this returns, so the caller keeps ownership.
+     *
+     * @param unreachable called exactly once with the users not connected anywhere
+     *                    in the cluster (possibly empty), either before this returns
+     *                    or later on the lookup thread
+     */
+    void forward(List<String> userIds, ProtocolMessage message, Consumer<List<String>> unreachable);
+}
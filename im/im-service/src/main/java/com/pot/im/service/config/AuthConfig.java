@@ -0,0 +1,37 @@
+package com.pot.im.service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "im.auth")
+@Component
+@Data
+public class AuthConfig {
+
+    /**
+     * Resource location of the RSA public key the gateway also verifies access tokens with.
+     */
+    private String publicKeyLocation = "classpath:keys/jwt_public_key.pem";
+    /**
+     * Inline PEM content; takes precedence over {@link #publicKeyLocation}.
+     */
+    private String publicKey;
+
+    /**
+     * Connections that have not authenticated within this time are closed.
+     */
+    private long authTimeoutSeconds = 10;
+    /**
+     * Verified tokens kept in memory; the least recently used are evicted beyond this.
+     */
+    private int tokenCacheMaxSize = 200_000;
+    /**
+     * Longest a verification is cached, even for tokens that expire later.
+     */
+    private long tokenCacheTtlSeconds = 900;
+    /**
+     * Checks the gateway's Redis blacklist so revoked tokens cannot open a connection.
+     */
+    private boolean checkRevocation = true;
+}
@@ -1,5 +1,6 @@
 package com.pot.im.service.config;
 
+import com.pot.im.service.protocol.serializer.SerializerType;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
@@ -15,4 +16,13 @@ public class ClientConfig {
     private int writerIdleTime = 50;
     private int reconnectDelayMs = 3000;
     private int maxReconnectTimes = 5;
+    private SerializerType serializer = SerializerType.JSON;
+    private int compressionThreshold = 1024;
+    private int compressionLevel = 6;
+    private int maxDecompressedLength = 8 * 1024 * 1024;
+    private int maxFrameLength = 1024 * 1024;
+    private int fragmentSize = 64 * 1024;
+    private int maxMessageLength = 8 * 1024 * 1024;
+    private long maxReassemblyBytes = 16 * 1024 * 1024;
+    private long reassemblyTimeoutMillis = 30_000;
 }
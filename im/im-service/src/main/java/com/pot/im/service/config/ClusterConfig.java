@@ -0,0 +1,79 @@
+package com.pot.im.service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@ConfigurationProperties(prefix = "im.cluster")
+@Component
+@Data
+public class ClusterConfig {
+    private boolean enabled = false;
+
+    /**
+     * Unique id of this IM node; defaults to a random id per process.
+     */
+    private String nodeId = UUID.randomUUID().toString();
+    /**
+     * Address peers use to reach this node's internal forwarding port.
+     */
+    private String advertiseHost = "127.0.0.1";
+    /**
+     * Interface the forwarding port listens on; defaults to {@code advertiseHost}
+     * so the port is only reachable on the internal network.
+     */
+    private String bindHost;
+    private int port = 8889;
+    /**
+     * Secret every node of the cluster shares; a link is only accepted after the
+     * peer proves it knows it. Required when clustering is enabled.
+     */
+    private String sharedSecret;
+    /**
+     * Largest clock difference tolerated in a peer's hello, and how long an
+     * inbound link may stay open before sending one.
+     */
+    private long authMaxSkewMillis = 30_000;
+
+    /**
+     * Location registry backend: {@code redis}, or {@code memory} for a single
+     * JVM (tests and local runs with several in-process nodes).
+     */
+    private String registry = "redis";
+    private long nodeTtlSeconds = 30;
+    private long heartbeatIntervalSeconds = 10;
+    /**
+     * How long a looked-up remote location is trusted before asking the registry again.
+     */
+    private long locationCacheTtlMillis = 2_000;
+    /**
+     * How long a user the registry reported as not connected is trusted to stay
+     * offline; kept short so a fresh login elsewhere is picked up quickly.
+     */
+    private long locationMissTtlMillis = 500;
+    private int locationCacheMaxSize = 100_000;
+    /**
+     * Forwards waiting for a registry lookup before new ones are treated as unreachable.
+     */
+    private int lookupQueueCapacity = 10_000;
+
+    private int forwardBatchSize = 256;
+    private long forwardFlushIntervalMillis = 5;
+    /**
+     * Payload bytes per forward batch; a batch always takes at least one envelope.
+     */
+    private int forwardBatchMaxBytes = 4 * 1024 * 1024;
+    /**
+     * Largest frame accepted on a node link. Must exceed {@code forwardBatchMaxBytes}
+     * plus the largest single client message ({@code im.server.max-message-length}).
+     */
+    private int linkMaxFrameLength = 16 * 1024 * 1024;
+    /**
+     * Forwards queued per peer link before new ones are rejected.
+     */
+    private int maxPendingForwards = 65_536;
+    private int linkConnectTimeoutMs = 3_000;
+    private int linkThreads = 2;
+}
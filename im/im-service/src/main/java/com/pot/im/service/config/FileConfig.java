@@ -0,0 +1,70 @@
+package com.pot.im.service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "im.file")
+@Component
+@Data
+public class FileConfig {
+
+    /**
+     * Root directory for stored files; partial uploads live under {@code tmp/}.
+     */
+    private String storageDir = "data/im-files";
+    private long maxFileSize = 2L * 1024 * 1024 * 1024;
+
+    /**
+     * Data bytes per {@code FILE_UPLOAD_CHUNK}; must fit {@code im.server.max-frame-length}
+     * together with the 16-byte chunk prefix.
+     */
+    private int uploadChunkSize = 256 * 1024;
+    /**
+     * Unacknowledged chunks a client should keep in flight. Chunks must arrive in order;
+     * one that does not start at the stored offset is refused and the client rewinds.
+     */
+    private int uploadWindowChunks = 8;
+    /**
+     * Upload sessions idle for this long release their open file; the upload can still be resumed.
+     */
+    private long uploadIdleTimeoutMillis = 5 * 60_000;
+
+    /**
+     * File bytes per {@code FILE_DOWNLOAD_CHUNK}.
+     */
+    private int downloadChunkSize = 256 * 1024;
+    /**
+     * Download chunks written ahead of the socket per transfer. File regions do not count
+     * towards the write-buffer watermarks, so this is what bounds a transfer.
+     */
+    private int downloadInflightChunks = 4;
+
+    /**
+     * Sizing of the in-memory filter of stored content hashes that short-cuts the
+     * dedup lookup for content the service has never seen. Past the expected count
+     * the false-positive rate, and so the share of uploads costing a DB lookup, rises.
+     */
+    private long blobFilterExpectedEntries = 1_000_000;
+    private double blobFilterFpp = 0.01;
+    /**
+     * How often hashes stored by other nodes are added to the filter.
+     */
+    private long blobFilterRefreshMillis = 60_000;
+
+    /**
+     * Media post-processing (thumbnails, dimensions) runs on this many low-priority
+     * threads. Files arriving while {@code mediaQueueCapacity} are waiting are not
+     * processed, so a burst of uploads cannot take CPU from the event loops.
+     */
+    private int mediaWorkerThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+    private int mediaQueueCapacity = 1_000;
+    /**
+     * Longer edge of generated thumbnails, in pixels.
+     */
+    private int thumbnailMaxEdge = 320;
+    /**
+     * Images with more pixels only get their dimensions recorded, no thumbnail.
+     */
+    private long mediaMaxPixels = 100_000_000L;
+}
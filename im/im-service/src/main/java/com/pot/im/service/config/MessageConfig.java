@@ -0,0 +1,129 @@
+package com.pot.im.service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "im.message")
+@Component
+@Data
+public class MessageConfig {
+
+    /**
+     * Longest accepted text content, in characters.
+     */
+    private int maxContentLength = 8192;
+
+    /**
+     * Ids fetched per {@code IdService.nextIds} call by the prefetching id buffers.
+     */
+    private int idPrefetchBatchSize = 1000;
+    /**
+     * Ids left in the current batch when the next batch is requested in the background.
+     */
+    private int idPrefetchLowWaterMark = 300;
+
+    /**
+     * Largest page of the message history API.
+     */
+    private int historyMaxPageSize = 100;
+
+    /**
+     * Rows per group-committed insert into {@code im_message}.
+     */
+    private int persistBatchSize = 500;
+    /**
+     * Longest a message waits for its batch to fill before being written anyway.
+     */
+    private long persistFlushIntervalMillis = 5;
+    /**
+     * Messages waiting to be written before new sends are refused.
+     */
+    private int persistQueueCapacity = 100_000;
+
+    /**
+     * Conversation ids kept in memory; the least recently used are evicted beyond this.
+     */
+    private int conversationCacheMaxSize = 200_000;
+
+    /**
+     * How often pending unread deltas and read cursors are written to {@code im_user_conversation}.
+     */
+    private long unreadFlushIntervalMillis = 1_000;
+    private int unreadFlushBatchSize = 500;
+    /**
+     * How long a flushed unread count is served from memory before it is re-read, picking
+     * up deltas written by other nodes.
+     */
+    private long unreadBaseTtlMillis = 30_000;
+    /**
+     * Counters untouched for this long with nothing pending are dropped from memory.
+     */
+    private long unreadIdleEvictMillis = 10 * 60_000;
+
+    /**
+     * How often changed conversation summaries are written to {@code im_conversation}.
+     */
+    private long conversationFlushIntervalMillis = 1_000;
+    private int conversationFlushBatchSize = 500;
+    /**
+     * Summaries and per-user conversation lists untouched for this long are dropped from memory.
+     */
+    private long conversationIdleEvictMillis = 10 * 60_000;
+    /**
+     * How long a loaded summary or conversation list is served from memory before it is
+     * re-read, picking up messages, pins, mutes and hides from other nodes.
+     */
+    private long conversationReloadMillis = 30_000;
+    /**
+     * Largest page of a user's conversation list.
+     */
+    private int conversationListMaxSize = 500;
+
+    /**
+     * Read receipts from one user for one conversation within this window move the cursor once.
+     */
+    private long readReceiptWindowMillis = 500;
+    /**
+     * Conversations whose read cursors are kept in memory for read-by counts; the least
+     * recently used are evicted beyond this.
+     */
+    private int readCursorCacheMaxSize = 50_000;
+    /**
+     * How long cached cursors are trusted before being merged with a fresh read, picking
+     * up cursors moved on other nodes.
+     */
+    private long readCursorReloadMillis = 10_000;
+
+    /**
+     * Groups whose member lists are kept in memory.
+     */
+    private int groupCacheMaxSize = 10_000;
+    /**
+     * How often a cached member list re-checks its version in Redis.
+     */
+    private long groupVersionCheckIntervalMillis = 1_000;
+
+    /**
+     * Entries kept per user inbox; older ones are trimmed and must be fetched from history.
+     */
+    private int offlineInboxMaxSize = 1000;
+    private long offlineInboxTtlSeconds = 7 * 24 * 3600;
+    /**
+     * Inbox writes waiting for Redis before new offline messages are refused.
+     */
+    private int offlineQueueCapacity = 100_000;
+    /**
+     * Groups up to this size also store messages in offline members' inboxes; larger
+     * groups are synced from the group timeline.
+     */
+    private int groupOfflineInboxMaxMembers = 500;
+    /**
+     * Inbox entries per {@code SYNC_RESPONSE} frame.
+     */
+    private int syncBatchSize = 100;
+    /**
+     * Frames sent per {@code SYNC_REQUEST}; the client asks again while {@code hasMore} is set.
+     */
+    private int syncMaxBatches = 10;
+}
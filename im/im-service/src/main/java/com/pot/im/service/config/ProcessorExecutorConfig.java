@@ -0,0 +1,35 @@
+package com.pot.im.service.config;
+
+import com.pot.im.service.message.AsyncProcessorExecutor;
+import com.pot.im.service.message.KeyedSerialExecutor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The executor async processors run on, shared with processors that continue
+ * their own work after an asynchronous step.
+ */
+@Configuration
+public class ProcessorExecutorConfig {
+
+    /**
+     * Shut down by {@code MessageProcessorFactory}, which then drains its ordered lanes.
+     */
+    @Bean(destroyMethod = "")
+    public AsyncProcessorExecutor asyncProcessorExecutor(ServerConfig config) {
+        return new AsyncProcessorExecutor(config.getAsyncExecutor());
+    }
+
+    /**
+     * Per-key ordered lanes over {@link #asyncProcessorExecutor}. Lanes must never run on
+     * the submitting thread (an event loop or the message writer), whatever the rejection
+     * policy, so they submit through {@code tryExecute}. Shut down by {@code MessageProcessorFactory}.
+     */
+    @Bean(destroyMethod = "")
+    public KeyedSerialExecutor orderedProcessorExecutor(AsyncProcessorExecutor asyncProcessorExecutor,
+                                                        ServerConfig config) {
+        ServerConfig.AsyncExecutor executorConfig = config.getAsyncExecutor();
+        return new KeyedSerialExecutor(asyncProcessorExecutor::tryExecute,
+                executorConfig.getOrderingStripes(), executorConfig.getMaxOrderedPending());
+    }
+}
@@ -0,0 +1,19 @@
+package com.pot.im.service.config;
+
+import com.pot.im.service.protocol.serializer.PayloadCompressionCodec;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Shared, stateless protocol codecs used by the server pipeline and by code that
+ * pre-encodes frames.
+ */
+@Configuration
+public class ProtocolCodecConfig {
+
+    @Bean
+    public PayloadCompressionCodec payloadCompressionCodec(ServerConfig config) {
+        return new PayloadCompressionCodec(config.getCompressionThreshold(),
+                config.getCompressionLevel(), config.getMaxDecompressedLength());
+    }
+}
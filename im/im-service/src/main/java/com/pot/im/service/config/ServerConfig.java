@@ -13,4 +13,136 @@ public class ServerConfig {
     private int workerThreads = Runtime.getRuntime().availableProcessors();
     private int backlog = 1024;
     private int readerIdleTime = 60;
+
+    /**
+     * Socket transport; {@code AUTO} uses native epoll when available.
+     */
+    private TransportType transport = TransportType.AUTO;
+    /**
+     * Binds {@link #acceptorCount} listening sockets with SO_REUSEPORT so the
+     * kernel spreads accepts across them (epoll only).
+     */
+    private boolean reusePort = false;
+    private int acceptorCount = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Payloads of at least this many bytes are deflated; {@code 0} disables compression.
+     */
+    private int compressionThreshold = 1024;
+    private int compressionLevel = 6;
+    private int maxDecompressedLength = 8 * 1024 * 1024;
+
+    /**
+     * Largest payload accepted in one frame; larger messages must be fragmented.
+     */
+    private int maxFrameLength = 1024 * 1024;
+    private int fragmentSize = 64 * 1024;
+    private int maxMessageLength = 8 * 1024 * 1024;
+    /**
+     * In-flight reassembly budget per connection.
+     */
+    private long maxReassemblyBytes = 16 * 1024 * 1024;
+    private long reassemblyTimeoutMillis = 30_000;
+
+    /**
+     * Consecutive times a queued lower-priority frame may be bypassed before it is sent.
+     */
+    private int priorityStarvationThreshold = 16;
+
+    /**
+     * Outbound buffer watermarks: the channel turns unwritable above the high mark
+     * and writable again below the low mark.
+     */
+    private int writeBufferLowWaterMark = 64 * 1024;
+    private int writeBufferHighWaterMark = 256 * 1024;
+    /**
+     * How long a channel may stay unwritable before it is treated as a slow consumer.
+     */
+    private long slowConsumerThresholdMillis = 5_000;
+    /**
+     * Frames held back per channel before the slow-consumer policy applies regardless of time.
+     */
+    private int maxPendingWrites = 1024;
+    private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DROP_LOW_PRIORITY;
+
+    /**
+     * Coalesces flushes issued within one event-loop tick into a single write syscall.
+     */
+    private boolean flushConsolidationEnabled = true;
+    /**
+     * Upper bound of flushes held back while a read is in progress.
+     */
+    private int explicitFlushAfterFlushes = 256;
+    /**
+     * Also consolidate flushes issued outside of a read, e.g. pushes from business threads.
+     */
+    private boolean consolidateWhenNoReadInProgress = true;
+
+    /**
+     * Channels written per event-loop task during broadcast and group fan-out.
+     */
+    private int fanoutChunkSize = 512;
+
+    /**
+     * Executor for processors that report {@code isAsync()}.
+     */
+    private AsyncExecutor asyncExecutor = new AsyncExecutor();
+
+    public enum SlowConsumerPolicy {
+        /**
+         * Discard queued and new frames below {@code HIGH} priority until the channel drains.
+         */
+        DROP_LOW_PRIORITY,
+        /**
+         * Hand queued and new chat messages to the offline store; other frames, and chat
+         * messages that cannot be stored, follow {@code DROP_LOW_PRIORITY}.
+         */
+        SPILL_OFFLINE,
+        CLOSE
+    }
+
+    public enum TransportType {
+        AUTO,
+        NIO,
+        EPOLL
+    }
+
+    @Data
+    public static class AsyncExecutor {
+        private Mode mode = Mode.BOUNDED;
+        private int coreThreads = Runtime.getRuntime().availableProcessors();
+        private int maxThreads = Runtime.getRuntime().availableProcessors() * 4;
+        private int queueCapacity = 10_000;
+        private long keepAliveSeconds = 60;
+        /**
+         * Concurrent tasks allowed in {@code VIRTUAL} mode before rejecting.
+         */
+        private int maxConcurrency = 10_000;
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+        /**
+         * Serial lanes for ordered processing; tasks with the same ordering key share a lane.
+         */
+        private int orderingStripes = 1024;
+        /**
+         * Tasks waiting in ordering lanes before new submissions are rejected.
+         */
+        private int maxOrderedPending = 100_000;
+
+        public enum Mode {
+            BOUNDED,
+            VIRTUAL
+        }
+
+        public enum RejectionPolicy {
+            /**
+             * Run on the submitting event loop, which throttles reads from that connection.
+             * Ordered lanes never run there; a rejected lane is retried shortly instead.
+             */
+            CALLER_RUNS,
+            /**
+             * Fail the submission; the message is dropped and the connection kept.
+             */
+            ABORT
+        }
+    }
 }
@@ -1,10 +1,32 @@
 package com.pot.im.service.controller;
 
+import com.pot.im.service.conversation.ConversationListItem;
+import com.pot.im.service.filter.UserContextFilter;
+import com.pot.im.service.service.ConversationService;
+import com.pot.zing.framework.common.model.R;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/conversation")
+@RequiredArgsConstructor
 public class ConversationController {
 
+    private final ConversationService conversationService;
+
+    /**
+     * The calling user's conversation list, served from memory.
+     */
+    @GetMapping("/list")
+    public R<List<ConversationListItem>> listConversations(
+            @RequestAttribute(UserContextFilter.ATTR_USER_ID) Long userId,
+            @RequestParam(defaultValue = "100") int limit) {
+        return R.success(conversationService.listConversations(userId, limit));
+    }
 }
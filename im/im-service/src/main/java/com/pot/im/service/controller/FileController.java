@@ -1,10 +1,40 @@
 package com.pot.im.service.controller;
 
+import com.pot.im.service.file.FileUploadManager;
+import com.pot.im.service.filter.UserContextFilter;
+import com.pot.zing.framework.common.model.R;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+
+@Slf4j
 @RestController
 @RequestMapping("/file")
+@RequiredArgsConstructor
 public class FileController {
 
+    private final FileUploadManager uploadManager;
+
+    /**
+     * Deletes one of the calling user's files, or abandons an unfinished upload.
+     */
+    @DeleteMapping("/{fileId}")
+    public R<Void> deleteFile(@RequestAttribute(UserContextFilter.ATTR_USER_ID) Long userId,
+                              @PathVariable Long fileId) {
+        try {
+            if (!uploadManager.delete(userId, fileId)) {
+                return R.fail("File not found");
+            }
+        } catch (IOException e) {
+            log.error("Failed to delete file {}", fileId, e);
+            return R.fail("File not deleted, retry later");
+        }
+        return R.success();
+    }
 }
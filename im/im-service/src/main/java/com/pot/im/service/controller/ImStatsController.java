@@ -0,0 +1,63 @@
+package com.pot.im.service.controller;
+
+import com.pot.im.service.auth.TokenVerifier;
+import com.pot.im.service.conversation.ConversationSummaryCache;
+import com.pot.im.service.conversation.UnreadCounter;
+import com.pot.im.service.file.BlobStore;
+import com.pot.im.service.group.GroupMembershipCache;
+import com.pot.im.service.media.MediaProcessingPipeline;
+import com.pot.im.service.message.MessageProcessorFactory;
+import com.pot.im.service.offline.OfflineInbox;
+import com.pot.im.service.persistence.MessageWriter;
+import com.pot.im.service.receipt.ReadReceiptCoalescer;
+import com.pot.im.service.server.ConnectionManager;
+import com.pot.zing.framework.common.model.R;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runtime counters of this node's queues, caches and write-behind buffers, for monitoring
+ * to poll. Every value is read from memory; nothing here touches Redis or the database.
+ * <p>
+ * Served under {@code /internal/}, which the gateway refuses as {@code /im/internal/**},
+ * so only monitoring inside the network can reach it.
+ */
+@RestController
+@RequestMapping("/internal/stats")
+@RequiredArgsConstructor
+public class ImStatsController {
+
+    private final ConnectionManager connectionManager;
+    private final MessageProcessorFactory processorFactory;
+    private final MessageWriter messageWriter;
+    private final OfflineInbox offlineInbox;
+    private final UnreadCounter unreadCounter;
+    private final ConversationSummaryCache summaryCache;
+    private final ReadReceiptCoalescer receiptCoalescer;
+    private final GroupMembershipCache membershipCache;
+    private final TokenVerifier tokenVerifier;
+    private final BlobStore blobStore;
+    private final MediaProcessingPipeline mediaPipeline;
+
+    @GetMapping
+    public R<Map<String, Object>> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connectionManager.getStats());
+        stats.put("processorExecutor", processorFactory.getAsyncExecutorStats());
+        stats.put("messageWriter", messageWriter.stats());
+        stats.put("offlineInbox", offlineInbox.stats());
+        stats.put("unread", unreadCounter.stats());
+        stats.put("conversations", summaryCache.stats());
+        stats.put("readReceipts", receiptCoalescer.stats());
+        stats.put("cachedGroups", membershipCache.cachedGroups());
+        stats.put("cachedTokens", tokenVerifier.cachedTokens());
+        stats.put("blobs", blobStore.stats());
+        stats.put("media", mediaPipeline.stats());
+        return R.success(stats);
+    }
+}
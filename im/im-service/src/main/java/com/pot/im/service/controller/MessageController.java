@@ -1,10 +1,42 @@
 package com.pot.im.service.controller;
 
+import com.pot.im.service.filter.UserContextFilter;
+import com.pot.im.service.history.MessageHistoryPage;
+import com.pot.im.service.service.ConversationService;
+import com.pot.im.service.service.MessageService;
+import com.pot.zing.framework.common.model.R;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/message")
+@RequiredArgsConstructor
 public class MessageController {
 
+    private final MessageService messageService;
+    private final ConversationService conversationService;
+
+    /**
+     * Conversation history, latest page first; follow {@code beforeCursor} to scroll back.
+     * Only participants of the conversation may read it.
+     */
+    @GetMapping("/{conversationId}/history")
+    public R<MessageHistoryPage> getHistory(@RequestAttribute(UserContextFilter.ATTR_USER_ID) Long userId,
+                                            @PathVariable Long conversationId,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "50") int limit) {
+        if (!conversationService.isParticipant(userId, conversationId)) {
+            return R.fail("Not a participant of this conversation");
+        }
+        try {
+            return R.success(messageService.getHistory(conversationId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return R.fail(e.getMessage());
+        }
+    }
 }
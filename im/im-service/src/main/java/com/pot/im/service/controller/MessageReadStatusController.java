@@ -1,10 +1,41 @@
 package com.pot.im.service.controller;
 
+import com.pot.im.service.filter.UserContextFilter;
+import com.pot.im.service.service.MessageReadStatusService;
+import com.pot.zing.framework.common.model.R;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/messageReadStatus")
+@RequiredArgsConstructor
 public class MessageReadStatusController {
 
+    /**
+     * Upper bound of messages per read-count request.
+     */
+    private static final int MAX_MESSAGES_PER_REQUEST = 200;
+
+    private final MessageReadStatusService messageReadStatusService;
+
+    /**
+     * Reader counts keyed by message id, not counting the calling user (normally the sender asking).
+     */
+    @GetMapping("/{conversationId}/readCount")
+    public R<Map<Long, Integer>> countReaders(@PathVariable Long conversationId,
+                                              @RequestAttribute(UserContextFilter.ATTR_USER_ID) Long userId,
+                                              @RequestParam List<Long> messageIds) {
+        if (messageIds.size() > MAX_MESSAGES_PER_REQUEST) {
+            return R.fail("At most " + MAX_MESSAGES_PER_REQUEST + " messages per request");
+        }
+        return R.success(messageReadStatusService.countReaders(conversationId, messageIds, userId));
+    }
 }
@@ -1,10 +1,61 @@
 package com.pot.im.service.controller;
 
+import com.pot.im.service.filter.UserContextFilter;
+import com.pot.im.service.service.UserConversationService;
+import com.pot.zing.framework.common.model.R;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/userConversation")
+@RequiredArgsConstructor
 public class UserConversationController {
 
+    /**
+     * Upper bound of conversations per unread-count request.
+     */
+    private static final int MAX_CONVERSATIONS_PER_REQUEST = 500;
+
+    private final UserConversationService userConversationService;
+
+    /**
+     * Unread count of one conversation for the calling user.
+     */
+    @GetMapping("/unread/{conversationId}")
+    public R<Long> getUnreadCount(@RequestAttribute(UserContextFilter.ATTR_USER_ID) Long userId,
+                                  @PathVariable Long conversationId) {
+        return R.success(userConversationService.getUnreadCount(userId, conversationId));
+    }
+
+    /**
+     * Unread counts keyed by conversation id.
+     */
+    @GetMapping("/unread")
+    public R<Map<Long, Long>> getUnreadCounts(@RequestAttribute(UserContextFilter.ATTR_USER_ID) Long userId,
+                                              @RequestParam List<Long> conversationIds) {
+        if (conversationIds.size() > MAX_CONVERSATIONS_PER_REQUEST) {
+            return R.fail("At most " + MAX_CONVERSATIONS_PER_REQUEST + " conversations per request");
+        }
+        return R.success(userConversationService.getUnreadCounts(userId, conversationIds));
+    }
+
+    /**
+     * Marks a conversation read up to the given message.
+     */
+    @PostMapping("/read/{conversationId}")
+    public R<Void> markRead(@RequestAttribute(UserContextFilter.ATTR_USER_ID) Long userId,
+                            @PathVariable Long conversationId,
+                            @RequestParam Long messageId) {
+        userConversationService.markRead(userId, conversationId, messageId);
+        return R.success();
+    }
 }
@@ -0,0 +1,86 @@
+package com.pot.im.service.conversation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.id.ImIdAllocator;
+import com.pot.zing.framework.starter.redis.service.RedisService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps a pair of users, or a group, to its conversation id.
+ * <p>
+ * The mapping lives in Redis hashes so every node agrees on it; the first message
+ * of a conversation allocates the id with {@code HSETNX}. Resolved ids never change
+ * and the most recently used are kept in memory, so steady-state sends do not
+ * touch Redis.
+ * <p>
+ * Ids are read back as {@link Number}: the JSON value serializer returns ids
+ * that fit in an int as {@code Integer}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConversationIdResolver {
+
+    private static final String PRIVATE_KEY = "im:conv:private";
+    private static final String GROUP_KEY = "im:conv:group";
+
+    private final RedisService redisService;
+    private final ImIdAllocator idAllocator;
+    private final MessageConfig config;
+
+    private Cache<String, Long> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(config.getConversationCacheMaxSize())
+                .build();
+    }
+
+    public Long resolvePrivate(Long userId, Long peerId) {
+        return resolve(PRIVATE_KEY, privateField(userId, peerId), true);
+    }
+
+    /**
+     * Like {@link #resolvePrivate} but never allocates: {@code null} if the two users have not talked yet.
+     */
+    public Long findPrivate(Long userId, Long peerId) {
+        return resolve(PRIVATE_KEY, privateField(userId, peerId), false);
+    }
+
+    public Long resolveGroup(Long groupId) {
+        return resolve(GROUP_KEY, "g:" + groupId, true);
+    }
+
+    private static String privateField(Long userId, Long peerId) {
+        return Math.min(userId, peerId) + ":" + Math.max(userId, peerId);
+    }
+
+    private Long resolve(String key, String field, boolean allocate) {
+        Long cached = cache.getIfPresent(field);
+        if (cached != null) {
+            return cached;
+        }
+        Long conversationId = read(key, field);
+        if (conversationId == null && allocate) {
+            Long allocated = idAllocator.nextConversationId();
+            if (Boolean.TRUE.equals(redisService.hSetIfAbsent(key, field, allocated))) {
+                conversationId = allocated;
+            } else {
+                conversationId = read(key, field);
+            }
+        }
+        if (conversationId != null) {
+            cache.put(field, conversationId);
+        }
+        return conversationId;
+    }
+
+    private Long read(String key, String field) {
+        Number value = redisService.hGet(key, field, Number.class);
+        return value != null ? value.longValue() : null;
+    }
+}
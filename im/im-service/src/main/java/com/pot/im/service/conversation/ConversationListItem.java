@@ -0,0 +1,24 @@
+package com.pot.im.service.conversation;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * One row of a user's conversation list.
+ */
+@Data
+@Builder
+public class ConversationListItem {
+    private Long conversationId;
+    private Integer type;
+    /**
+     * The other user of a private conversation, or the group.
+     */
+    private Long targetId;
+    private Long lastMessageId;
+    private Long lastMessageTime;
+    private String lastMessageContent;
+    private Long unreadCount;
+    private boolean pinned;
+    private boolean muted;
+}
@@ -0,0 +1,513 @@
+package com.pot.im.service.conversation;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.entity.Conversation;
+import com.pot.im.service.entity.Message;
+import com.pot.im.service.entity.UserConversation;
+import com.pot.im.service.group.GroupMembers;
+import com.pot.im.service.group.GroupMembershipCache;
+import com.pot.im.service.mapper.ConversationMapper;
+import com.pot.im.service.mapper.UserConversationMapper;
+import com.pot.zing.framework.common.util.JacksonUtils;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Conversation summaries (last message, message count) and per-user conversation
+ * lists, kept in memory and written behind to {@code im_conversation}.
+ * <p>
+ * The send path updates the summary in memory only. Every
+ * {@code conversationFlushIntervalMillis} the changed summaries are written as one
+ * multi-row upsert, so a busy conversation costs one row write per interval instead
+ * of one per message; the newest message wins and counts are added up. A user's
+ * list is built from an index of their conversations, loaded from
+ * {@code im_user_conversation}, with missing summaries fetched in a single query,
+ * and sorted in memory: pinned first, then by last message time. Indexes and
+ * summaries older than {@code conversationReloadMillis} are re-read on the next
+ * list, so changes made through other nodes show up however often the list is read.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConversationSummaryCache {
+
+    public static final int TYPE_PRIVATE = 1;
+    public static final int TYPE_GROUP = 2;
+    private static final int STATUS_NORMAL = 0;
+    private static final int PREVIEW_LENGTH = 100;
+    private static final int LOAD_CHUNK_SIZE = 1000;
+    private static final UserEntry DEFAULT_ENTRY = new UserEntry(false, false, false);
+
+    private static final Comparator<ConversationListItem> LIST_ORDER = Comparator
+            .comparing(ConversationListItem::isPinned).reversed()
+            .thenComparing(ConversationListItem::getLastMessageTime, Comparator.reverseOrder())
+            .thenComparing(ConversationListItem::getConversationId, Comparator.reverseOrder());
+
+    private final ConversationMapper conversationMapper;
+    private final UserConversationMapper userConversationMapper;
+    private final UnreadCounter unreadCounter;
+    private final GroupMembershipCache groupMembershipCache;
+    private final MessageConfig config;
+
+    private final ConcurrentMap<Long, Summary> summaries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, UserIndex> userIndexes = new ConcurrentHashMap<>();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("im-conversation-flusher", true));
+        long interval = Math.max(config.getConversationFlushIntervalMillis(), 10);
+        flusher.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+    }
+
+    public void onPrivateMessage(Message message, long receiverId, long timestamp) {
+        long senderId = message.getSenderId();
+        update(message, TYPE_PRIVATE, null, new long[]{Math.min(senderId, receiverId), Math.max(senderId, receiverId)},
+                timestamp);
+        addToIndex(senderId, message.getConversationId());
+        addToIndex(receiverId, message.getConversationId());
+    }
+
+    public void onGroupMessage(Message message, long groupId, long[] memberIds, long timestamp) {
+        update(message, TYPE_GROUP, groupId, null, timestamp);
+        for (long memberId : memberIds) {
+            addToIndex(memberId, message.getConversationId());
+        }
+    }
+
+    /**
+     * The user's conversations, pinned first and then most recent first; hidden and
+     * deleted ones are left out.
+     */
+    public List<ConversationListItem> list(long userId, int limit) {
+        long now = System.currentTimeMillis();
+        UserIndex index = index(userId, now);
+        index.lastAccessMillis = now;
+        List<Long> stale = new ArrayList<>();
+        for (Long conversationId : index.entries.keySet()) {
+            Summary summary = summaries.get(conversationId);
+            if (summary == null || summary.isStale(now, config.getConversationReloadMillis())) {
+                stale.add(conversationId);
+            }
+        }
+        loadSummaries(stale, now);
+
+        List<ConversationListItem> items = new ArrayList<>(index.entries.size());
+        for (Map.Entry<Long, UserEntry> mapEntry : index.entries.entrySet()) {
+            UserEntry entry = mapEntry.getValue();
+            Summary summary = summaries.get(mapEntry.getKey());
+            if (entry.hidden() || summary == null) {
+                continue;
+            }
+            items.add(summary.toItem(userId, entry));
+        }
+        items.sort(LIST_ORDER);
+        List<ConversationListItem> page = items.size() > limit ? new ArrayList<>(items.subList(0, limit)) : items;
+
+        Map<Long, Long> unread = unreadCounter.unread(userId,
+                page.stream().map(ConversationListItem::getConversationId).toList());
+        page.forEach(item -> item.setUnreadCount(unread.getOrDefault(item.getConversationId(), 0L)));
+        return page;
+    }
+
+    /**
+     * Id of the newest message in the conversation, or 0 if it has none.
+     */
+    public long lastMessageId(long conversationId) {
+        Summary summary = summary(conversationId);
+        return summary != null ? summary.lastMessageId() : 0;
+    }
+
+    /**
+     * Whether the user takes part in the conversation: one of the two users of a private
+     * conversation, or a current member of the group.
+     */
+    public boolean isParticipant(long userId, long conversationId) {
+        Summary summary = summary(conversationId);
+        if (summary == null) {
+            return false;
+        }
+        if (summary.type == TYPE_GROUP) {
+            GroupMembers members = summary.targetId != null ? groupMembershipCache.get(summary.targetId) : null;
+            return members != null && members.isMember(userId);
+        }
+        if (summary.participants != null) {
+            return summary.participants[0] == userId || summary.participants[1] == userId;
+        }
+        // Private conversations stored before their participants were recorded.
+        Long rows = userConversationMapper.selectCount(Wrappers.<UserConversation>lambdaQuery()
+                .eq(UserConversation::getUserId, userId)
+                .eq(UserConversation::getConversationId, conversationId));
+        return rows != null && rows > 0;
+    }
+
+    /**
+     * Drops the user's index so pin, mute or hide changes made in the database are picked up.
+     */
+    public void invalidateUser(long userId) {
+        userIndexes.remove(userId);
+    }
+
+    public SummaryStats stats() {
+        return new SummaryStats(summaries.size(), userIndexes.size(), flushedRows.sum(), failedRows.sum());
+    }
+
+    private void update(Message message, int type, Long targetId, long[] participants, long timestamp) {
+        long conversationId = message.getConversationId();
+        String preview = preview(message.getContent());
+        for (;;) {
+            Summary summary = summaries.computeIfAbsent(conversationId,
+                    id -> new Summary(id, type, targetId, participants));
+            synchronized (summary) {
+                if (summary.retired) {
+                    continue;
+                }
+                summary.pendingCount++;
+                if (message.getMessageId() > summary.lastMessageId) {
+                    summary.lastMessageId = message.getMessageId();
+                    summary.lastMessageTime = timestamp;
+                    summary.lastMessageContent = preview;
+                }
+                summary.dirty = true;
+                summary.lastAccessMillis = timestamp;
+                return;
+            }
+        }
+    }
+
+    private Summary summary(long conversationId) {
+        long now = System.currentTimeMillis();
+        Summary summary = summaries.get(conversationId);
+        if (summary == null || summary.isStale(now, config.getConversationReloadMillis())) {
+            loadSummaries(List.of(conversationId), now);
+            summary = summaries.get(conversationId);
+        }
+        return summary;
+    }
+
+    private void addToIndex(long userId, long conversationId) {
+        UserIndex index = userIndexes.get(userId);
+        if (index != null) {
+            index.add(conversationId);
+        }
+    }
+
+    /**
+     * The user's index, re-read if it is missing or older than {@code conversationReloadMillis}.
+     * The query runs outside {@link #userIndexes} so it does not hold one of its bin locks.
+     */
+    private UserIndex index(long userId, long now) {
+        UserIndex index = userIndexes.get(userId);
+        if (index != null && now - index.loadedAt < config.getConversationReloadMillis()) {
+            return index;
+        }
+        UserIndex loaded = loadIndex(userId, now);
+        if (index != null) {
+            index.added.forEach(loaded::add);
+        }
+        userIndexes.put(userId, loaded);
+        return loaded;
+    }
+
+    private UserIndex loadIndex(long userId, long now) {
+        List<UserConversation> rows = userConversationMapper.selectList(Wrappers.<UserConversation>lambdaQuery()
+                .select(UserConversation::getConversationId, UserConversation::getIsPinned,
+                        UserConversation::getIsMuted, UserConversation::getIsHidden)
+                .eq(UserConversation::getUserId, userId)
+                .isNull(UserConversation::getDeletedAt));
+        UserIndex index = new UserIndex(now);
+        for (UserConversation row : rows) {
+            index.entries.put(row.getConversationId(),
+                    new UserEntry(isSet(row.getIsPinned()), isSet(row.getIsMuted()), isSet(row.getIsHidden())));
+        }
+        return index;
+    }
+
+    /**
+     * Loads missing summaries and merges newer database state into cached ones.
+     */
+    private void loadSummaries(List<Long> conversationIds, long now) {
+        for (int from = 0; from < conversationIds.size(); from += LOAD_CHUNK_SIZE) {
+            List<Long> chunk = conversationIds.subList(from, Math.min(from + LOAD_CHUNK_SIZE, conversationIds.size()));
+            List<Conversation> rows = conversationMapper.selectList(Wrappers.<Conversation>lambdaQuery()
+                    .in(Conversation::getConversationId, chunk));
+            Map<Long, Conversation> byId = new HashMap<>(rows.size() * 2);
+            for (Conversation row : rows) {
+                byId.put(row.getConversationId(), row);
+            }
+            for (Long conversationId : chunk) {
+                Conversation row = byId.get(conversationId);
+                Summary cached = summaries.get(conversationId);
+                if (cached != null) {
+                    // Not written yet if there is no row; the flush will create it.
+                    cached.merge(row, now);
+                } else if (row != null) {
+                    summaries.putIfAbsent(conversationId, Summary.of(row, now));
+                }
+            }
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Conversation summary flush failed", e);
+        }
+    }
+
+    private void flush() {
+        long now = System.currentTimeMillis();
+        int batchSize = Math.max(config.getConversationFlushBatchSize(), 1);
+        long idleMillis = config.getConversationIdleEvictMillis();
+        List<Conversation> rows = new ArrayList<>(batchSize);
+        List<Summary> batch = new ArrayList<>(batchSize);
+        for (Summary summary : summaries.values()) {
+            Conversation row = summary.drain(now, idleMillis);
+            if (row == null) {
+                if (summary.retired) {
+                    summaries.remove(summary.conversationId, summary);
+                }
+                continue;
+            }
+            rows.add(row);
+            batch.add(summary);
+            if (rows.size() == batchSize) {
+                write(rows, batch);
+                rows.clear();
+                batch.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            write(rows, batch);
+        }
+        userIndexes.values().removeIf(index -> now - index.lastAccessMillis > idleMillis);
+    }
+
+    private void write(List<Conversation> rows, List<Summary> batch) {
+        boolean written;
+        try {
+            conversationMapper.upsertSummaries(rows);
+            flushedRows.add(rows.size());
+            written = true;
+        } catch (Exception e) {
+            failedRows.add(rows.size());
+            log.error("Failed to write {} conversation summaries, retrying next flush", rows.size(), e);
+            written = false;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(rows.get(i), written);
+        }
+    }
+
+    private static String preview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, PREVIEW_LENGTH);
+    }
+
+    private static boolean isSet(Integer flag) {
+        return flag != null && flag == 1;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static final class Summary {
+
+        final long conversationId;
+        final int type;
+        final Long targetId;
+        /**
+         * Both users of a private conversation, ascending; {@code null} for groups.
+         */
+        final long[] participants;
+
+        // Guarded by this.
+        long lastMessageId;
+        long lastMessageTime;
+        String lastMessageContent;
+        /**
+         * Messages not yet added to {@code message_count}.
+         */
+        long pendingCount;
+        long inFlightCount;
+        boolean dirty;
+        boolean retired;
+        long lastAccessMillis = System.currentTimeMillis();
+        long loadedAt = lastAccessMillis;
+
+        Summary(long conversationId, int type, Long targetId, long[] participants) {
+            this.conversationId = conversationId;
+            this.type = type;
+            this.targetId = targetId;
+            this.participants = participants;
+        }
+
+        static Summary of(Conversation row, long now) {
+            int type = row.getType() != null ? row.getType() : TYPE_PRIVATE;
+            long[] participants = null;
+            if (type == TYPE_PRIVATE && row.getExtendJson() != null) {
+                JsonNode users = JacksonUtils.parseTree(row.getExtendJson()).path("participants");
+                if (users.isArray() && users.size() == 2) {
+                    participants = new long[]{users.get(0).asLong(), users.get(1).asLong()};
+                }
+            }
+            Summary summary = new Summary(row.getConversationId(), type, row.getTargetId(), participants);
+            summary.lastMessageId = row.getLastMessageId() != null ? row.getLastMessageId() : 0;
+            summary.lastMessageTime = toMillis(row.getLastMessageTime());
+            summary.lastMessageContent = row.getLastMessageContent();
+            summary.loadedAt = now;
+            return summary;
+        }
+
+        synchronized boolean isStale(long now, long reloadMillis) {
+            return now - loadedAt >= reloadMillis;
+        }
+
+        /**
+         * Adopts the stored last message if it is newer than the cached one, as happens
+         * when the conversation is active on another node.
+         */
+        synchronized void merge(Conversation row, long now) {
+            if (row != null && row.getLastMessageId() != null && row.getLastMessageId() > lastMessageId) {
+                lastMessageId = row.getLastMessageId();
+                lastMessageTime = toMillis(row.getLastMessageTime());
+                lastMessageContent = row.getLastMessageContent();
+            }
+            loadedAt = now;
+        }
+
+        synchronized long lastMessageId() {
+            return lastMessageId;
+        }
+
+        synchronized ConversationListItem toItem(long userId, UserEntry entry) {
+            lastAccessMillis = System.currentTimeMillis();
+            Long target = targetId;
+            if (participants != null) {
+                target = participants[0] == userId ? participants[1] : participants[0];
+            }
+            return ConversationListItem.builder()
+                    .conversationId(conversationId)
+                    .type(type)
+                    .targetId(target)
+                    .lastMessageId(lastMessageId)
+                    .lastMessageTime(lastMessageTime)
+                    .lastMessageContent(lastMessageContent)
+                    .pinned(entry.pinned())
+                    .muted(entry.muted())
+                    .build();
+        }
+
+        /**
+         * Returns the row to write if the summary changed since the last flush, or
+         * {@code null}; retires the summary if it has been idle.
+         */
+        synchronized Conversation drain(long now, long idleMillis) {
+            if (retired) {
+                return null;
+            }
+            if (!dirty) {
+                if (now - lastAccessMillis > idleMillis) {
+                    retired = true;
+                }
+                return null;
+            }
+            dirty = false;
+            inFlightCount = pendingCount;
+            pendingCount = 0;
+            Conversation row = new Conversation();
+            row.setConversationId(conversationId);
+            row.setType(type);
+            row.setTargetId(targetId);
+            row.setLastMessageId(lastMessageId);
+            row.setLastMessageTime(toDateTime(lastMessageTime));
+            row.setLastMessageContent(lastMessageContent);
+            row.setMessageCount(inFlightCount);
+            row.setStatus(STATUS_NORMAL);
+            if (participants != null) {
+                row.setExtendJson(JacksonUtils.toJson(Map.of("participants", participants)));
+            }
+            return row;
+        }
+
+        synchronized void complete(Conversation row, boolean written) {
+            if (!written) {
+                // The newest message is re-read at the next drain; only the count has to be carried over.
+                pendingCount += inFlightCount;
+                dirty = true;
+            }
+            inFlightCount = 0;
+        }
+    }
+
+    private record UserEntry(boolean pinned, boolean muted, boolean hidden) {
+    }
+
+    private static final class UserIndex {
+        final ConcurrentMap<Long, UserEntry> entries = new ConcurrentHashMap<>();
+        /**
+         * Conversations added by messages since the load, carried into the next index
+         * until their {@code im_user_conversation} row has been written.
+         */
+        final Set<Long> added = ConcurrentHashMap.newKeySet();
+        final long loadedAt;
+        volatile long lastAccessMillis;
+
+        UserIndex(long loadedAt) {
+            this.loadedAt = loadedAt;
+            this.lastAccessMillis = loadedAt;
+        }
+
+        void add(long conversationId) {
+            if (entries.putIfAbsent(conversationId, DEFAULT_ENTRY) == null) {
+                added.add(conversationId);
+            }
+        }
+    }
+
+    public record SummaryStats(int summaries, int userIndexes, long flushedRows, long failedRows) {
+    }
+}
@@ -0,0 +1,358 @@
+package com.pot.im.service.conversation;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.entity.UserConversation;
+import com.pot.im.service.mapper.MessageMapper;
+import com.pot.im.service.mapper.UserConversationMapper;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Unread counts per user and conversation, kept in memory and written behind to
+ * {@code im_user_conversation}.
+ * <p>
+ * A new message only bumps a {@link LongAdder}, so a hot group costs no database
+ * writes on the send path. Every {@code unreadFlushIntervalMillis} the accumulated
+ * deltas are written as one multi-row upsert, however many messages arrived in
+ * between; a read moves the cursor and sets the count in the same upsert.
+ * Counts are read as the last flushed value plus what is still pending. The flushed
+ * value is loaded from the database once per {@code unreadBaseTtlMillis}, which
+ * also picks up deltas written by other nodes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UnreadCounter {
+
+    private static final long UNKNOWN = -1;
+
+    private final UserConversationMapper userConversationMapper;
+    private final MessageMapper messageMapper;
+    private final MessageConfig config;
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("im-unread-flusher", true));
+        long interval = Math.max(config.getUnreadFlushIntervalMillis(), 10);
+        flusher.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+    }
+
+    public void increment(long userId, long conversationId) {
+        Key key = new Key(userId, conversationId);
+        for (;;) {
+            Entry entry = entries.computeIfAbsent(key, k -> new Entry());
+            entry.pending.increment();
+            if (!entry.retired) {
+                return;
+            }
+            // Lost the race with eviction: take the increment back and retry on the replacement.
+            entry.pending.decrement();
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Counts one new message for every user in {@code userIds} except the sender.
+     */
+    public void incrementAll(long[] userIds, long senderId, long conversationId) {
+        for (long userId : userIds) {
+            if (userId != senderId) {
+                increment(userId, conversationId);
+            }
+        }
+    }
+
+    /**
+     * Marks the conversation read up to {@code messageId} for the user who just sent it: the
+     * count drops to zero and the cursor moves forward.
+     */
+    public void markRead(long userId, long conversationId, long messageId) {
+        moveCursor(new Key(userId, conversationId), messageId, 0);
+    }
+
+    /**
+     * Marks the conversation read up to {@code messageId}; a cursor behind the current one is
+     * ignored. The count only drops to zero if {@code messageId} reaches
+     * {@code lastMessageId}, the newest message of the conversation. A cursor short of it is
+     * recounted from the messages stored after it, so what the user has not scrolled to yet
+     * stays unread.
+     */
+    public void markRead(long userId, long conversationId, long messageId, long lastMessageId) {
+        long remaining = 0;
+        if (messageId < lastMessageId) {
+            remaining = messageMapper.countAfter(conversationId, messageId, userId);
+        }
+        moveCursor(new Key(userId, conversationId), messageId, remaining);
+    }
+
+    private void moveCursor(Key key, long messageId, long remaining) {
+        long now = System.currentTimeMillis();
+        for (;;) {
+            Entry entry = entries.computeIfAbsent(key, k -> new Entry());
+            synchronized (entry) {
+                if (entry.retired) {
+                    continue;
+                }
+                if (messageId <= entry.readMessageId) {
+                    return;
+                }
+                // The absolute count rides in pending and is written together with the cursor.
+                entry.pending.reset();
+                entry.pending.add(remaining);
+                entry.inFlight = 0;
+                entry.base = 0;
+                entry.baseLoadedAt = now;
+                entry.reset = true;
+                entry.seq++;
+                entry.readMessageId = messageId;
+                entry.readAtMillis = now;
+                entry.lastAccessMillis = now;
+                return;
+            }
+        }
+    }
+
+    public long unread(long userId, long conversationId) {
+        return unread(userId, List.of(conversationId)).getOrDefault(conversationId, 0L);
+    }
+
+    /**
+     * Counts for several conversations of one user; entries whose flushed value is missing
+     * or older than {@code unreadBaseTtlMillis} are refreshed with a single query.
+     */
+    public Map<Long, Long> unread(long userId, Collection<Long> conversationIds) {
+        long now = System.currentTimeMillis();
+        Map<Long, Long> counts = new HashMap<>(conversationIds.size() * 2);
+        Map<Long, Snapshot> stale = new HashMap<>();
+        for (Long conversationId : conversationIds) {
+            Entry entry = entries.computeIfAbsent(new Key(userId, conversationId), k -> new Entry());
+            entry.lastAccessMillis = now;
+            long base = entry.base;
+            if (base != UNKNOWN && now - entry.baseLoadedAt < config.getUnreadBaseTtlMillis()) {
+                counts.put(conversationId, base + entry.inFlight + entry.pending.sum());
+            } else {
+                stale.put(conversationId, entry.snapshot());
+            }
+        }
+        if (!stale.isEmpty()) {
+            Map<Long, Long> loaded = load(userId, stale.keySet());
+            stale.forEach((conversationId, snapshot) -> {
+                long flushed = loaded.getOrDefault(conversationId, 0L);
+                counts.put(conversationId, snapshot.entry.refresh(snapshot.seq, flushed, now));
+            });
+        }
+        return counts;
+    }
+
+    public UnreadStats stats() {
+        long pending = 0;
+        for (Entry entry : entries.values()) {
+            pending += entry.pending.sum();
+        }
+        return new UnreadStats(entries.size(), pending, flushedRows.sum(), failedRows.sum());
+    }
+
+    private Map<Long, Long> load(long userId, Collection<Long> conversationIds) {
+        List<UserConversation> rows = userConversationMapper.selectList(Wrappers.<UserConversation>lambdaQuery()
+                .select(UserConversation::getConversationId, UserConversation::getUnreadCount)
+                .eq(UserConversation::getUserId, userId)
+                .in(UserConversation::getConversationId, conversationIds));
+        Map<Long, Long> loaded = new HashMap<>(rows.size() * 2);
+        for (UserConversation row : rows) {
+            loaded.put(row.getConversationId(), row.getUnreadCount() != null ? row.getUnreadCount().longValue() : 0L);
+        }
+        return loaded;
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Unread counter flush failed", e);
+        }
+    }
+
+    private void flush() {
+        long now = System.currentTimeMillis();
+        int batchSize = Math.max(config.getUnreadFlushBatchSize(), 1);
+        List<UserConversation> rows = new ArrayList<>(batchSize);
+        List<Entry> batch = new ArrayList<>(batchSize);
+        for (Map.Entry<Key, Entry> mapEntry : entries.entrySet()) {
+            Key key = mapEntry.getKey();
+            Entry entry = mapEntry.getValue();
+            UserConversation row = entry.drain(key, now, config.getUnreadIdleEvictMillis());
+            if (row == null) {
+                if (entry.retired) {
+                    entries.remove(key, entry);
+                }
+                continue;
+            }
+            rows.add(row);
+            batch.add(entry);
+            if (rows.size() == batchSize) {
+                write(rows, batch, now);
+                rows.clear();
+                batch.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            write(rows, batch, now);
+        }
+    }
+
+    private void write(List<UserConversation> rows, List<Entry> batch, long now) {
+        boolean written;
+        try {
+            userConversationMapper.upsertUnread(rows);
+            flushedRows.add(rows.size());
+            written = true;
+        } catch (Exception e) {
+            failedRows.add(rows.size());
+            log.error("Failed to write {} unread count(s), retrying next flush", rows.size(), e);
+            written = false;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(rows.get(i), written, now);
+        }
+    }
+
+    private record Key(long userId, long conversationId) {
+    }
+
+    private record Snapshot(Entry entry, long seq) {
+    }
+
+    private static final class Entry {
+
+        /**
+         * Messages counted since the last drain; updated without locking.
+         */
+        final LongAdder pending = new LongAdder();
+        /**
+         * Set when the entry left the map; incrementers that see it move to a fresh entry.
+         */
+        volatile boolean retired;
+        volatile long lastAccessMillis = System.currentTimeMillis();
+        /**
+         * Count as last written to the database, or {@link #UNKNOWN}.
+         */
+        volatile long base = UNKNOWN;
+        volatile long baseLoadedAt;
+        /**
+         * Drained from {@link #pending} and being written.
+         */
+        volatile long inFlight;
+
+        // Guarded by this.
+        long seq;
+        boolean reset;
+        long readMessageId;
+        long readAtMillis;
+
+        synchronized Snapshot snapshot() {
+            return new Snapshot(this, seq);
+        }
+
+        /**
+         * Adopts a freshly loaded flushed value unless a drain or write overlapped the query.
+         */
+        synchronized long refresh(long loadedAtSeq, long flushed, long now) {
+            if (seq == loadedAtSeq && inFlight == 0 && !reset) {
+                base = flushed;
+                baseLoadedAt = now;
+            }
+            long known = base != UNKNOWN ? base : flushed;
+            return known + inFlight + pending.sum();
+        }
+
+        /**
+         * Moves the pending delta into {@link #inFlight} and returns the row to write, or
+         * {@code null} if there is nothing to write; retires the entry if it has been idle.
+         */
+        synchronized UserConversation drain(Key key, long now, long idleEvictMillis) {
+            if (retired || inFlight != 0) {
+                return null;
+            }
+            long delta = pending.sum();
+            if (delta == 0 && !reset) {
+                if (now - lastAccessMillis > idleEvictMillis) {
+                    retired = true;
+                    if (pending.sum() != 0) {
+                        retired = false;
+                    }
+                }
+                return null;
+            }
+            // Read then subtract instead of sumThenReset, so readers never see the delta in neither place.
+            inFlight = delta;
+            pending.add(-delta);
+            seq++;
+            UserConversation row = new UserConversation();
+            row.setUserId(key.userId());
+            row.setConversationId(key.conversationId());
+            row.setUnreadCount((int) Math.min(delta, Integer.MAX_VALUE));
+            if (reset) {
+                // Written as an absolute count together with the cursor, see upsertUnread.
+                row.setLastReadMessageId(readMessageId);
+                row.setLastReadTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(readAtMillis), ZoneId.systemDefault()));
+                reset = false;
+            }
+            return row;
+        }
+
+        synchronized void complete(UserConversation row, boolean written, long now) {
+            seq++;
+            if (written) {
+                if (base != UNKNOWN) {
+                    base += inFlight;
+                }
+            } else {
+                pending.add(inFlight);
+                if (row.getLastReadMessageId() != null && !reset) {
+                    reset = true;
+                }
+            }
+            inFlight = 0;
+            lastAccessMillis = Math.max(lastAccessMillis, now);
+        }
+    }
+
+    public record UnreadStats(int entries, long pending, long flushedRows, long failedRows) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.pot.im.service.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@ToString
+@TableName("im_file_blob")
+public class FileBlob implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+        @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+        @TableField(value = "gmt_create", fill = FieldFill.INSERT)
+    private LocalDateTime gmtCreate;
+
+        @TableField(value = "gmt_modified", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime gmtModified;
+
+        @TableField("file_hash")
+    private String fileHash;
+
+        @TableField("file_path")
+    private String filePath;
+
+        @TableField("file_size")
+    private Long fileSize;
+
+        @TableField("ref_count")
+    private Integer refCount;
+}
@@ -0,0 +1,32 @@
+package com.pot.im.service.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@ToString
+@TableName("im_file_share")
+public class FileShare implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+        @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+        @TableField(value = "gmt_create", fill = FieldFill.INSERT)
+    private LocalDateTime gmtCreate;
+
+        @TableField("file_id")
+    private Long fileId;
+
+        @TableField("conversation_id")
+    private Long conversationId;
+}
@@ -0,0 +1,192 @@
+package com.pot.im.service.file;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.pot.im.service.config.FileConfig;
+import com.pot.im.service.entity.FileBlob;
+import com.pot.im.service.mapper.FileBlobMapper;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed storage: each distinct SHA-256 is stored once in {@code im_file_blob}
+ * and every {@code im_file} row with that hash points at the same path, counted in
+ * {@code ref_count}.
+ * <p>
+ * Most uploads are new content, so lookups go through an in-memory Bloom filter of the
+ * stored hashes first and only a possible match costs a query. The filter is filled from
+ * the table at startup and topped up periodically with hashes other nodes stored; until
+ * the first fill completes every lookup goes to the database. A hash the filter has not
+ * seen yet only means a duplicate gets uploaded again, and {@link #register} still folds
+ * it into the existing blob.
+ * <p>
+ * Only uploads whose bytes have been received and hashed are matched against stored
+ * content, so a hash alone never grants a reference. Each {@code im_file} row holds one
+ * reference, dropped when the file is deleted; the content and its thumbnail go once
+ * the last one is.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BlobStore {
+
+    private static final Pattern SHA_256_HEX = Pattern.compile("[0-9a-fA-F]{64}");
+    private static final int LOAD_BATCH_SIZE = 1_000;
+    private static final int REGISTER_ATTEMPTS = 3;
+
+    private final FileBlobMapper blobMapper;
+    private final FileStorage storage;
+    private final FileConfig config;
+
+    private final LongAdder filterSkips = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    private BloomFilter<CharSequence> filter;
+    private volatile boolean filterReady;
+    private long lastLoadedId;
+    private ScheduledExecutorService refresher;
+
+    @PostConstruct
+    public void init() {
+        filter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.US_ASCII),
+                config.getBlobFilterExpectedEntries(), config.getBlobFilterFpp());
+        refresher = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("im-blob-filter", true));
+        refresher.scheduleWithFixedDelay(this::loadNewHashes, 0, config.getBlobFilterRefreshMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Lower-cases a hex SHA-256, or returns {@code null} if {@code hash} is not one.
+     */
+    public static String normalize(String hash) {
+        return hash != null && SHA_256_HEX.matcher(hash).matches() ? hash.toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * Takes a reference on stored content with this hash and size. Only for content the
+     * caller has received and hashed itself.
+     *
+     * @return the blob, or {@code null} if the content has to be uploaded
+     */
+    public FileBlob acquire(String hash, long fileSize) {
+        if (filterReady && !filter.mightContain(hash)) {
+            filterSkips.increment();
+            return null;
+        }
+        lookups.increment();
+        FileBlob blob = blobMapper.selectOne(Wrappers.<FileBlob>lambdaQuery().eq(FileBlob::getFileHash, hash));
+        if (blob == null || blob.getFileSize() == null || blob.getFileSize() != fileSize) {
+            return null;
+        }
+        if (blobMapper.retain(hash) == 0) {
+            // Released to zero and being removed; store a fresh copy instead.
+            return null;
+        }
+        hits.increment();
+        return blob;
+    }
+
+    /**
+     * Records a newly stored file as the blob for {@code hash}. If another upload stored
+     * the same content first, a reference is taken on that blob instead and its path is
+     * returned; the caller then deletes its own copy.
+     *
+     * @return the path every row with this hash should use
+     */
+    public String register(String hash, String filePath, long fileSize) {
+        for (int attempt = 0; attempt < REGISTER_ATTEMPTS; attempt++) {
+            FileBlob blob = new FileBlob();
+            blob.setFileHash(hash);
+            blob.setFilePath(filePath);
+            blob.setFileSize(fileSize);
+            if (blobMapper.insertIfAbsent(blob) == 1) {
+                filter.put(hash);
+                return filePath;
+            }
+            FileBlob existing = blobMapper.selectOne(
+                    Wrappers.<FileBlob>lambdaQuery().eq(FileBlob::getFileHash, hash));
+            if (existing != null && blobMapper.retain(hash) == 1) {
+                filter.put(hash);
+                hits.increment();
+                return existing.getFilePath();
+            }
+        }
+        throw new IllegalStateException("Could not register blob " + hash);
+    }
+
+    /**
+     * Drops one reference and deletes the content once nothing refers to it.
+     */
+    public void release(String hash) {
+        if (blobMapper.release(hash) == 0) {
+            return;
+        }
+        FileBlob blob = blobMapper.selectOne(Wrappers.<FileBlob>lambdaQuery().eq(FileBlob::getFileHash, hash));
+        if (blob == null || blob.getRefCount() == null || blob.getRefCount() > 0) {
+            return;
+        }
+        if (blobMapper.deleteUnreferenced(hash) == 1) {
+            try {
+                storage.delete(blob.getFilePath());
+                storage.delete(storage.thumbnailPath(hash));
+            } catch (IOException e) {
+                log.warn("Failed to delete unreferenced blob {} at {}: {}", hash, blob.getFilePath(), e.getMessage());
+            }
+        }
+    }
+
+    public BlobStats stats() {
+        return new BlobStats(filterReady, filter.approximateElementCount(), filterSkips.sum(), lookups.sum(),
+                hits.sum());
+    }
+
+    /**
+     * Adds hashes stored since the last run. Ids are assigned at insert and rows can
+     * commit out of order, so a hash is occasionally skipped; see the class comment.
+     */
+    private void loadNewHashes() {
+        try {
+            List<FileBlob> batch;
+            do {
+                batch = blobMapper.selectHashesAfter(lastLoadedId, LOAD_BATCH_SIZE);
+                for (FileBlob blob : batch) {
+                    filter.put(blob.getFileHash());
+                    lastLoadedId = blob.getId();
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+            if (!filterReady) {
+                filterReady = true;
+                log.info("Blob filter loaded with ~{} hashes", filter.approximateElementCount());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load blob hashes after id {}: {}", lastLoadedId, e.getMessage());
+        }
+    }
+
+    /**
+     * {@code lookups} is how many dedup checks reached the database, {@code hits} how many found content to share.
+     */
+    public record BlobStats(boolean filterReady, long filterEntries, long filterSkips, long lookups, long hits) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.pot.im.service.file;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.pot.im.service.conversation.ConversationSummaryCache;
+import com.pot.im.service.entity.File;
+import com.pot.im.service.entity.FileShare;
+import com.pot.im.service.mapper.FileShareMapper;
+import com.pot.im.service.service.FileService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Who may read a stored file: its uploader, and everyone taking part in a conversation
+ * the file was sent to. Sending a message with a file records the conversation in
+ * {@code im_file_share}; only someone who may read the file can send it on, so a file
+ * id alone grants nothing.
+ */
+@Component
+@RequiredArgsConstructor
+public class FileAccess {
+
+    private final FileService fileService;
+    private final FileShareMapper shareMapper;
+    private final ConversationSummaryCache summaryCache;
+
+    public boolean canRead(long userId, File file) {
+        if (file.getUploaderId() != null && file.getUploaderId() == userId) {
+            return true;
+        }
+        for (Long conversationId : shareMapper.selectConversationIds(file.getFileId())) {
+            if (summaryCache.isParticipant(userId, conversationId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the user may attach the file to a message: it is complete and they may read it.
+     */
+    public boolean canShare(long userId, long fileId) {
+        File file = fileService.getByFileId(fileId);
+        return file != null && file.getStatus() != null && file.getStatus() == FileStatus.READY
+                && canRead(userId, file);
+    }
+
+    /**
+     * Lets the participants of the conversation read the file.
+     */
+    public void share(long fileId, long conversationId) {
+        shareMapper.insertIfAbsent(fileId, conversationId);
+    }
+
+    /**
+     * Forgets every conversation the file was sent to, once the file is deleted.
+     */
+    public void unshareAll(long fileId) {
+        shareMapper.delete(Wrappers.<FileShare>lambdaQuery().eq(FileShare::getFileId, fileId));
+    }
+}
@@ -0,0 +1,205 @@
+package com.pot.im.service.file;
+
+import com.pot.im.service.protocol.serializer.ByteBufProtocolMessage;
+import com.pot.im.service.protocol.serializer.MessagePriority;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.ProtocolEncoder;
+import com.pot.im.service.protocol.serializer.ProtocolHeader;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams a byte range of a stored file as {@code FILE_DOWNLOAD_CHUNK} frames, each
+ * carrying {@code [fileId:long][offset:long]} followed by the chunk.
+ * <p>
+ * Without TLS the chunk is written as a {@link DefaultFileRegion}, so the kernel sends
+ * it straight from the page cache; such frames set
+ * {@link ProtocolHeader#isChecksumOmitted()} and the client verifies the file hash
+ * instead. With an {@link SslHandler} in the pipeline the bytes have to be encrypted
+ * in user space anyway, so chunks are read into a pooled buffer and sent as ordinary
+ * frames. At most {@code maxInflight} chunks are outstanding; the next one is written
+ * when an earlier one completes, which keeps a large download from filling the
+ * outbound buffer.
+ * <p>
+ * The file is opened once per stream and every chunk reads from that channel; it is
+ * closed once the stream has ended and no chunk is still being written.
+ * <p>
+ * All state is confined to the channel's event loop.
+ */
+@Slf4j
+public final class FileDownloadStream {
+
+    private static final int CHUNK_PREFIX_LENGTH = 2 * Long.BYTES;
+
+    private final ChannelHandlerContext ctx;
+    private final long fileId;
+    private final Path path;
+    private final long end;
+    private final int chunkSize;
+    private final int maxInflight;
+    private final boolean zeroCopy;
+
+    private FileChannel channel;
+    private long position;
+    private int inflight;
+    private boolean done;
+
+    private FileDownloadStream(ChannelHandlerContext ctx, long fileId, Path path, long offset, long length,
+                               int chunkSize, int maxInflight) {
+        this.ctx = ctx;
+        this.fileId = fileId;
+        this.path = path;
+        this.position = offset;
+        this.end = offset + length;
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.maxInflight = Math.max(maxInflight, 1);
+        this.zeroCopy = ctx.pipeline().get(SslHandler.class) == null;
+    }
+
+    /**
+     * Starts streaming {@code length} bytes from {@code offset}; safe to call from any thread.
+     */
+    public static void start(ChannelHandlerContext ctx, long fileId, Path path, long offset, long length,
+                             int chunkSize, int maxInflight) {
+        FileDownloadStream stream = new FileDownloadStream(ctx, fileId, path, offset, length, chunkSize, maxInflight);
+        ctx.executor().execute(stream::pump);
+    }
+
+    private void pump() {
+        boolean wrote = false;
+        while (!done && inflight < maxInflight && position < end) {
+            if (!ctx.channel().isActive()) {
+                abort(null);
+                return;
+            }
+            int length = (int) Math.min(chunkSize, end - position);
+            ChannelFuture future;
+            try {
+                future = zeroCopy ? writeRegion(position, length) : writeCopy(position, length);
+            } catch (IOException e) {
+                abort(e);
+                return;
+            }
+            position += length;
+            inflight++;
+            wrote = true;
+            future.addListener(this::chunkWritten);
+        }
+        if (wrote) {
+            ctx.flush();
+        }
+        if (!done && position >= end && inflight == 0) {
+            done = true;
+            closeChannel();
+            log.debug("Download of file {} to {} complete", fileId, ctx.channel().remoteAddress());
+        }
+    }
+
+    private void chunkWritten(Future<? super Void> future) {
+        inflight--;
+        if (!future.isSuccess()) {
+            abort(future.cause());
+        } else if (!done) {
+            pump();
+        }
+        if (done && inflight == 0) {
+            closeChannel();
+        }
+    }
+
+    private ChannelFuture writeRegion(long offset, int length) throws IOException {
+        FileChannel file = channel();
+        ProtocolHeader header = chunkHeader(length);
+        header.setChecksumOmitted(true);
+        ByteBuf head = ctx.alloc().ioBuffer(ProtocolHeader.HEADER_LENGTH + CHUNK_PREFIX_LENGTH);
+        ProtocolEncoder.writeHeader(header, head);
+        head.writeLong(fileId).writeLong(offset);
+        ctx.write(head, ctx.voidPromise());
+        return ctx.write(new SharedFileRegion(file, offset, length));
+    }
+
+    private ChannelFuture writeCopy(long offset, int length) throws IOException {
+        FileChannel file = channel();
+        ByteBuf content = ctx.alloc().ioBuffer(CHUNK_PREFIX_LENGTH + length);
+        try {
+            content.writeLong(fileId).writeLong(offset);
+            int read = 0;
+            while (read < length) {
+                int n = content.writeBytes(file, offset + read, length - read);
+                if (n < 0) {
+                    throw new IOException("File " + fileId + " shrank during download");
+                }
+                read += n;
+            }
+        } catch (IOException e) {
+            content.release();
+            throw e;
+        }
+        return ctx.write(new ByteBufProtocolMessage(chunkHeader(length), content));
+    }
+
+    private ProtocolHeader chunkHeader(int length) {
+        ProtocolHeader header = new ProtocolHeader();
+        header.setMsgType(MessageType.FILE_DOWNLOAD_CHUNK.getCode());
+        header.setMessagePriority(MessagePriority.BULK);
+        header.setTimestamp(System.currentTimeMillis());
+        header.setLength(CHUNK_PREFIX_LENGTH + length);
+        return header;
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+        return channel;
+    }
+
+    private void abort(Throwable cause) {
+        if (done) {
+            return;
+        }
+        done = true;
+        if (inflight == 0) {
+            closeChannel();
+        }
+        if (cause != null) {
+            log.warn("Download of file {} to {} aborted at offset {}: {}",
+                    fileId, ctx.channel().remoteAddress(), position, cause.getMessage());
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Failed to close file {}: {}", fileId, e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * A region over the stream's shared channel; releasing it leaves the channel open.
+     */
+    private static final class SharedFileRegion extends DefaultFileRegion {
+
+        SharedFileRegion(FileChannel file, long position, long count) {
+            super(file, position, count);
+        }
+
+        @Override
+        protected void deallocate() {
+        }
+    }
+}
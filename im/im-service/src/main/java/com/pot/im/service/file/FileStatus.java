@@ -0,0 +1,17 @@
+package com.pot.im.service.file;
+
+/**
+ * Values of {@code im_file.status}.
+ */
+public final class FileStatus {
+
+    /**
+     * Row created, bytes still arriving in the part file.
+     */
+    public static final int UPLOADING = 0;
+    public static final int READY = 1;
+
+    private FileStatus() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+}
@@ -0,0 +1,77 @@
+package com.pot.im.service.file;
+
+import com.pot.im.service.config.FileConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Layout of stored files on local disk: partial uploads under {@code tmp/}, finished
+ * files under {@code yyyy/MM/dd/}. {@code im_file.file_path} holds the path relative to
+ * the storage root, so the root can move.
+ */
+@Component
+@RequiredArgsConstructor
+public class FileStorage {
+
+    private static final DateTimeFormatter DAY_DIRS = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    private final FileConfig config;
+
+    private Path root;
+    private Path tmp;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Path.of(config.getStorageDir()).toAbsolutePath().normalize();
+        tmp = root.resolve("tmp");
+        Files.createDirectories(tmp);
+    }
+
+    public Path partPath(long fileId) {
+        return tmp.resolve(fileId + ".part");
+    }
+
+    /**
+     * Moves a finished part file into place.
+     *
+     * @return the path relative to the storage root
+     */
+    public String commit(long fileId) throws IOException {
+        String relative = LocalDate.now().format(DAY_DIRS) + "/" + fileId;
+        Path target = root.resolve(relative);
+        Files.createDirectories(target.getParent());
+        Files.move(partPath(fileId), target, StandardCopyOption.ATOMIC_MOVE);
+        return relative;
+    }
+
+    /**
+     * Relative path of the thumbnail of the content with this hash, shared by every file that stores it.
+     */
+    public String thumbnailPath(String fileHash) {
+        return "thumbs/" + fileHash.substring(0, 2) + "/" + fileHash + ".jpg";
+    }
+
+    public void delete(String relative) throws IOException {
+        Files.deleteIfExists(resolve(relative));
+    }
+
+    /**
+     * Resolves a stored relative path, refusing anything outside the storage root.
+     */
+    public Path resolve(String relative) {
+        Path path = root.resolve(relative).normalize();
+        if (!path.startsWith(root)) {
+            throw new UncheckedIOException(new IOException("Path escapes storage root: " + relative));
+        }
+        return path;
+    }
+}
@@ -0,0 +1,385 @@
+package com.pot.im.service.file;
+
+import com.pot.im.service.config.FileConfig;
+import com.pot.im.service.entity.File;
+import com.pot.im.service.entity.FileBlob;
+import com.pot.im.service.id.ImIdAllocator;
+import com.pot.im.service.media.MediaProcessingPipeline;
+import com.pot.im.service.media.MediaProcessingPipeline.MediaJob;
+import com.pot.im.service.protocol.payload.FileUploadRequest;
+import com.pot.im.service.protocol.payload.FileUploadResponse;
+import com.pot.im.service.service.FileService;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumable chunked uploads, streamed to a part file on disk.
+ * <p>
+ * Each chunk is written from the inbound buffer straight to the file channel and fed
+ * to a running SHA-256, so no file is ever held in heap. Chunks must arrive in order;
+ * every chunk is answered with the stored offset, which is also what a resumed upload
+ * starts from. The {@code im_file} row is created in {@code UPLOADING} state up front,
+ * so an upload survives a reconnect or restart: the part file length is the offset, the
+ * digest is rebuilt from it, and the hash the client declared is kept on the row so a
+ * resumed upload is still checked against it. The last chunk moves the file into place and marks
+ * the row {@code READY}.
+ * <p>
+ * Content is deduplicated through {@link BlobStore} once all bytes have arrived: an
+ * upload whose content turns out to be stored already is linked to it and its copy
+ * discarded. A declared hash is only checked against the received bytes, so it neither
+ * grants access to stored content nor reveals whether that content exists. Completed
+ * files are handed to the {@link MediaProcessingPipeline}; deleting one drops its
+ * reference on the blob.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FileUploadManager {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final FileService fileService;
+    private final FileStorage storage;
+    private final BlobStore blobStore;
+    private final FileAccess fileAccess;
+    private final MediaProcessingPipeline mediaPipeline;
+    private final ImIdAllocator idAllocator;
+    private final FileConfig config;
+
+    private final ConcurrentMap<Long, UploadSession> sessions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void init() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("im-upload-sweeper", true));
+        long period = Math.max(config.getUploadIdleTimeoutMillis() / 2, 1_000);
+        sweeper.scheduleWithFixedDelay(this::closeIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        sessions.values().forEach(UploadSession::close);
+        sessions.clear();
+    }
+
+    public FileUploadResponse begin(long uploaderId, FileUploadRequest request, String uploadIp) throws IOException {
+        if (request.getFileId() != null) {
+            return resume(uploaderId, request.getFileId());
+        }
+        String invalid = validate(request);
+        if (invalid != null) {
+            return failure(null, invalid, 0);
+        }
+        String declaredHash = BlobStore.normalize(request.getFileHash());
+        long fileId = idAllocator.nextFileId();
+        Files.deleteIfExists(storage.partPath(fileId));
+        UploadSession session = open(fileId, uploaderId, request.getFileSize(), request.getMimeType(), declaredHash);
+        fileService.createUpload(fileId, uploaderId, request.getOriginalName(), request.getFileSize(),
+                request.getMimeType(), uploadIp, declaredHash);
+        sessions.put(fileId, session);
+        return progress(session);
+    }
+
+    /**
+     * Writes the readable bytes of {@code data} at {@code offset}, which must be the stored offset.
+     */
+    public FileUploadResponse append(long uploaderId, long fileId, long offset, ByteBuf data) throws IOException {
+        UploadSession session = sessions.get(fileId);
+        if (session == null) {
+            FileUploadResponse resumed = resume(uploaderId, fileId);
+            session = sessions.get(fileId);
+            if (session == null) {
+                return resumed;
+            }
+        }
+        synchronized (session) {
+            if (session.uploaderId != uploaderId) {
+                return failure(fileId, "Not your upload", 0);
+            }
+            if (session.closed) {
+                // Swept while we waited for the lock; reopen from disk.
+                sessions.remove(fileId, session);
+                return append(uploaderId, fileId, offset, data);
+            }
+            if (offset != session.position) {
+                return failure(fileId, "Expected offset " + session.position, session.position);
+            }
+            int length = data.readableBytes();
+            if (length == 0 || session.position + length > session.fileSize) {
+                return failure(fileId, "Chunk exceeds declared file size", session.position);
+            }
+            int index = data.readerIndex();
+            long position = session.position;
+            int remaining = length;
+            while (remaining > 0) {
+                int written = data.getBytes(index, session.channel, position, remaining);
+                index += written;
+                position += written;
+                remaining -= written;
+            }
+            for (ByteBuffer buffer : data.nioBuffers(data.readerIndex(), length)) {
+                session.digest.update(buffer);
+            }
+            session.position += length;
+            session.lastActiveMillis = System.currentTimeMillis();
+            if (session.position < session.fileSize) {
+                return progress(session);
+            }
+            return complete(session);
+        }
+    }
+
+    private FileUploadResponse resume(long uploaderId, long fileId) throws IOException {
+        UploadSession session = sessions.get(fileId);
+        if (session != null && !session.closed) {
+            synchronized (session) {
+                return session.uploaderId == uploaderId ? progress(session) : failure(fileId, "Not your upload", 0);
+            }
+        }
+        File file = fileService.getByFileId(fileId);
+        if (file == null || file.getUploaderId() == null || file.getUploaderId() != uploaderId) {
+            return failure(fileId, "Unknown upload", 0);
+        }
+        if (file.getStatus() != null && file.getStatus() == FileStatus.READY) {
+            return completed(fileId, file.getFileSize(), file.getFileHash());
+        }
+        UploadSession restored = open(fileId, uploaderId, file.getFileSize(), file.getMimeType(),
+                BlobStore.normalize(file.getFileHash()));
+        UploadSession existing = sessions.putIfAbsent(fileId, restored);
+        if (existing != null && !existing.closed) {
+            restored.close();
+            return resume(uploaderId, fileId);
+        }
+        if (existing != null) {
+            sessions.put(fileId, restored);
+        }
+        synchronized (restored) {
+            return progress(restored);
+        }
+    }
+
+    /**
+     * Opens the part file for appending and replays what is already there into the digest.
+     */
+    private UploadSession open(long fileId, long uploaderId, long fileSize, String mimeType, String expectedHash)
+            throws IOException {
+        Path part = storage.partPath(fileId);
+        FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        UploadSession session = new UploadSession(fileId, uploaderId, fileSize, mimeType, expectedHash, channel,
+                sha256());
+        try {
+            long size = Math.min(channel.size(), fileSize);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            long read = 0;
+            while (read < size) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), size - read));
+                int n = channel.read(buffer, read);
+                if (n < 0) {
+                    break;
+                }
+                buffer.flip();
+                session.digest.update(buffer);
+                read += n;
+            }
+            session.position = read;
+        } catch (IOException e) {
+            session.close();
+            throw e;
+        }
+        return session;
+    }
+
+    private FileUploadResponse complete(UploadSession session) throws IOException {
+        session.channel.force(true);
+        session.close();
+        sessions.remove(session.fileId, session);
+        String hash = HEX.formatHex(session.digest.digest());
+        if (session.expectedHash != null && !session.expectedHash.equalsIgnoreCase(hash)) {
+            // Corrupt or wrong data; start over rather than serve it.
+            Files.deleteIfExists(storage.partPath(session.fileId));
+            return failure(session.fileId, "Checksum mismatch, upload again", 0);
+        }
+        String path;
+        FileBlob stored = blobStore.acquire(hash, session.fileSize);
+        if (stored != null) {
+            Files.deleteIfExists(storage.partPath(session.fileId));
+            path = stored.getFilePath();
+        } else {
+            String committed = storage.commit(session.fileId);
+            path = blobStore.register(hash, committed, session.fileSize);
+            if (!path.equals(committed)) {
+                storage.delete(committed);
+            }
+        }
+        if (!fileService.markReady(session.fileId, path, hash)) {
+            // Deleted while the last chunk was being written; nothing will point at the blob.
+            blobStore.release(hash);
+            return failure(session.fileId, "Unknown upload", 0);
+        }
+        log.info("Upload {} complete: {} bytes stored at {}", session.fileId, session.fileSize, path);
+        mediaPipeline.submit(new MediaJob(session.fileId, session.uploaderId, session.mimeType, path, hash));
+        return completed(session.fileId, session.fileSize, hash);
+    }
+
+    /**
+     * Deletes one of the user's files, finished or not. A finished file releases its blob,
+     * which is removed from disk once no other file shares it.
+     *
+     * @return {@code false} if the user has no such file
+     */
+    public boolean delete(long uploaderId, long fileId) throws IOException {
+        File file = fileService.getByFileId(fileId);
+        if (file == null || file.getUploaderId() == null || file.getUploaderId() != uploaderId) {
+            return false;
+        }
+        if (file.getStatus() == null || file.getStatus() != FileStatus.READY) {
+            UploadSession session = sessions.remove(fileId);
+            if (session != null) {
+                synchronized (session) {
+                    session.close();
+                }
+            }
+            if (fileService.deleteByFileId(fileId, FileStatus.UPLOADING)) {
+                Files.deleteIfExists(storage.partPath(fileId));
+                return true;
+            }
+            // Completed in the meantime.
+            file = fileService.getByFileId(fileId);
+            if (file == null) {
+                return false;
+            }
+        }
+        if (!fileService.deleteByFileId(fileId, FileStatus.READY)) {
+            return false;
+        }
+        fileAccess.unshareAll(fileId);
+        if (file.getFileHash() != null) {
+            blobStore.release(file.getFileHash());
+        }
+        log.info("File {} deleted by {}", fileId, uploaderId);
+        return true;
+    }
+
+    private void closeIdle() {
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(session -> {
+            synchronized (session) {
+                if (now - session.lastActiveMillis < config.getUploadIdleTimeoutMillis()) {
+                    return false;
+                }
+                session.close();
+                return true;
+            }
+        });
+    }
+
+    private String validate(FileUploadRequest request) {
+        if (request.getOriginalName() == null || request.getOriginalName().isBlank()) {
+            return "File name is required";
+        }
+        if (request.getFileSize() == null || request.getFileSize() <= 0) {
+            return "File size is required";
+        }
+        if (request.getFileSize() > config.getMaxFileSize()) {
+            return "File exceeds " + config.getMaxFileSize() + " bytes";
+        }
+        return null;
+    }
+
+    private FileUploadResponse progress(UploadSession session) {
+        return FileUploadResponse.builder()
+                .fileId(session.fileId)
+                .success(true)
+                .offset(session.position)
+                .chunkSize(config.getUploadChunkSize())
+                .windowChunks(config.getUploadWindowChunks())
+                .build();
+    }
+
+    private static FileUploadResponse completed(long fileId, long fileSize, String hash) {
+        return FileUploadResponse.builder()
+                .fileId(fileId)
+                .success(true)
+                .offset(fileSize)
+                .complete(true)
+                .fileHash(hash)
+                .build();
+    }
+
+    private FileUploadResponse failure(Long fileId, String reason, long offset) {
+        return FileUploadResponse.builder()
+                .fileId(fileId)
+                .success(false)
+                .reason(reason)
+                .offset(offset)
+                .chunkSize(config.getUploadChunkSize())
+                .windowChunks(config.getUploadWindowChunks())
+                .build();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class UploadSession {
+
+        final long fileId;
+        final long uploaderId;
+        final long fileSize;
+        final String mimeType;
+        final String expectedHash;
+        final FileChannel channel;
+        final MessageDigest digest;
+
+        // Guarded by this.
+        long position;
+        long lastActiveMillis = System.currentTimeMillis();
+        boolean closed;
+
+        UploadSession(long fileId, long uploaderId, long fileSize, String mimeType, String expectedHash,
+                      FileChannel channel, MessageDigest digest) {
+            this.fileId = fileId;
+            this.uploaderId = uploaderId;
+            this.fileSize = fileSize;
+            this.mimeType = mimeType;
+            this.expectedHash = expectedHash;
+            this.channel = channel;
+            this.digest = digest;
+        }
+
+        void close() {
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close part file of upload {}: {}", fileId, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.pot.im.service.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Reads the {@code X-User-Id} header injected by the API gateway and exposes
+ * it as a {@code userId} request attribute so controllers can use
+ * {@code @RequestAttribute(UserContextFilter.ATTR_USER_ID)} instead of trusting
+ * a user id from the path or query.
+ */
+@Component
+@Order(1)
+public class UserContextFilter extends OncePerRequestFilter {
+
+    public static final String ATTR_USER_ID = "userId";
+
+    private static final String HEADER_USER_ID = "X-User-Id";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        String userIdHeader = request.getHeader(HEADER_USER_ID);
+        if (userIdHeader != null && !userIdHeader.isBlank()) {
+            try {
+                request.setAttribute(ATTR_USER_ID, Long.parseLong(userIdHeader));
+            } catch (NumberFormatException ignored) {
+                // Malformed header — leave attribute unset; controller will reject if required
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
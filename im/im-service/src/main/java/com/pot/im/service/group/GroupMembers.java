@@ -0,0 +1,78 @@
+package com.pot.im.service.group;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of a group's active members, laid out for fan-out: sorted id
+ * arrays for membership and mute checks by binary search, and the ids pre-rendered
+ * as the string keys {@code ConnectionManager} uses.
+ */
+public final class GroupMembers {
+
+    private final long groupId;
+    private final long version;
+    private final long ownerId;
+    private final boolean muteAll;
+    private final long[] userIds;
+    private final long[] muteUntilMillis;
+    private final String[] userKeys;
+
+    /**
+     * @param userIds         ascending member ids
+     * @param muteUntilMillis per member, aligned with {@code userIds}; {@code 0} if not muted
+     */
+    GroupMembers(long groupId, long version, long ownerId, boolean muteAll, long[] userIds, long[] muteUntilMillis) {
+        this.groupId = groupId;
+        this.version = version;
+        this.ownerId = ownerId;
+        this.muteAll = muteAll;
+        this.userIds = userIds;
+        this.muteUntilMillis = muteUntilMillis;
+        this.userKeys = Arrays.stream(userIds).mapToObj(String::valueOf).toArray(String[]::new);
+    }
+
+    public long groupId() {
+        return groupId;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return userIds.length;
+    }
+
+    public boolean isMember(long userId) {
+        return Arrays.binarySearch(userIds, userId) >= 0;
+    }
+
+    /**
+     * Whether the member may post now: not muted individually, and not covered by a
+     * group-wide mute (the owner is exempt).
+     */
+    public boolean canSend(long userId, long nowMillis) {
+        int index = Arrays.binarySearch(userIds, userId);
+        if (index < 0) {
+            return false;
+        }
+        if (muteAll && userId != ownerId) {
+            return false;
+        }
+        return muteUntilMillis[index] <= nowMillis;
+    }
+
+    /**
+     * Ascending member ids; shared, do not modify.
+     */
+    public long[] userIds() {
+        return userIds;
+    }
+
+    /**
+     * Member ids as connection keys; shared, do not modify.
+     */
+    public String[] userKeys() {
+        return userKeys;
+    }
+}
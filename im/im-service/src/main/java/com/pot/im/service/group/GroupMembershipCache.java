@@ -0,0 +1,146 @@
+package com.pot.im.service.group;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.entity.Group;
+import com.pot.im.service.entity.GroupMember;
+import com.pot.im.service.mapper.GroupMapper;
+import com.pot.im.service.mapper.GroupMemberMapper;
+import com.pot.zing.framework.starter.redis.service.RedisService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * In-memory member lists per group, invalidated by a version counter in Redis.
+ * <p>
+ * Every membership change bumps {@code im:group:member:version:{groupId}}. A cached
+ * snapshot re-reads that counter at most once per {@code groupVersionCheckIntervalMillis}
+ * and reloads the members from {@code im_group_member} only when it moved, so a group
+ * message costs at most one small Redis read instead of a query per recipient. The node
+ * that made the change drops its copy immediately; other nodes converge within the interval.
+ * At most {@code groupCacheMaxSize} groups are kept, evicting the least recently used.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GroupMembershipCache {
+
+    /**
+     * {@code im_group_member.status} of a member still in the group; others have left or been removed.
+     */
+    public static final int MEMBER_STATUS_ACTIVE = 1;
+    private static final String VERSION_KEY_PREFIX = "im:group:member:version:";
+
+    private final GroupMapper groupMapper;
+    private final GroupMemberMapper groupMemberMapper;
+    private final RedisService redisService;
+    private final MessageConfig config;
+
+    private Cache<Long, Entry> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(config.getGroupCacheMaxSize())
+                .build();
+    }
+
+    /**
+     * @return the group's members, or {@code null} if the group does not exist
+     */
+    public GroupMembers get(long groupId) {
+        long now = System.currentTimeMillis();
+        Entry entry = cache.getIfPresent(groupId);
+        if (entry != null && now - entry.checkedAt < config.getGroupVersionCheckIntervalMillis()) {
+            return entry.members;
+        }
+        long version = currentVersion(groupId);
+        if (entry != null && entry.members.version() == version) {
+            entry.checkedAt = now;
+            return entry.members;
+        }
+        GroupMembers members = load(groupId, version);
+        if (members == null) {
+            cache.invalidate(groupId);
+            return null;
+        }
+        cache.put(groupId, new Entry(members, now));
+        return members;
+    }
+
+    /**
+     * Publishes a membership change: bumps the shared version and drops the local copy.
+     */
+    public void invalidate(long groupId) {
+        try {
+            redisService.increment(VERSION_KEY_PREFIX + groupId);
+        } catch (Exception e) {
+            log.error("Failed to bump member version of group {}, other nodes may serve stale members for up to {} ms",
+                    groupId, config.getGroupVersionCheckIntervalMillis(), e);
+        }
+        cache.invalidate(groupId);
+    }
+
+    public long cachedGroups() {
+        return cache.size();
+    }
+
+    /**
+     * The counter is written by {@code INCR}, so the JSON value serializer reads it back
+     * as a plain number ({@code Integer} while small), never as a String.
+     */
+    private long currentVersion(long groupId) {
+        Number version = redisService.get(VERSION_KEY_PREFIX + groupId, Number.class);
+        return version == null ? 0L : version.longValue();
+    }
+
+    private GroupMembers load(long groupId, long version) {
+        Group group = groupMapper.selectOne(Wrappers.<Group>lambdaQuery()
+                .select(Group::getGroupId, Group::getOwnerId, Group::getMuteAll)
+                .eq(Group::getGroupId, groupId));
+        if (group == null) {
+            return null;
+        }
+        List<GroupMember> rows = groupMemberMapper.selectList(Wrappers.<GroupMember>lambdaQuery()
+                .select(GroupMember::getUserId, GroupMember::getMuteUntil)
+                .eq(GroupMember::getGroupId, groupId)
+                .eq(GroupMember::getStatus, MEMBER_STATUS_ACTIVE));
+        rows.sort(Comparator.comparing(GroupMember::getUserId));
+
+        long[] userIds = new long[rows.size()];
+        long[] muteUntil = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            GroupMember row = rows.get(i);
+            userIds[i] = row.getUserId();
+            muteUntil[i] = toMillis(row.getMuteUntil());
+        }
+        log.debug("Loaded {} members of group {} at version {}", userIds.length, groupId, version);
+        return new GroupMembers(groupId, version,
+                group.getOwnerId() != null ? group.getOwnerId() : 0L,
+                group.getMuteAll() != null && group.getMuteAll() == 1,
+                userIds, muteUntil);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? 0L : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Entry {
+        private final GroupMembers members;
+        private volatile long checkedAt;
+
+        private Entry(GroupMembers members, long checkedAt) {
+            this.members = members;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.pot.im.service.history;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a conversation's history: the message id to continue from and which way.
+ * <p>
+ * Clients treat the encoded form as opaque. It names its conversation, so a cursor
+ * cannot be replayed against another one, and it carries a version prefix so the
+ * format can change without breaking cursors already handed out.
+ */
+public record HistoryCursor(long conversationId, long messageId, Direction direction) {
+
+    private static final String VERSION = "v1";
+
+    public enum Direction {
+        /**
+         * Messages older than {@code messageId}.
+         */
+        BEFORE,
+        /**
+         * Messages newer than {@code messageId}.
+         */
+        AFTER
+    }
+
+    public String encode() {
+        String raw = VERSION + ":" + conversationId + ":" + messageId + ":" + (direction == Direction.BEFORE ? 'b' : 'a');
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is malformed or belongs to another conversation
+     */
+    public static HistoryCursor decode(String token, long conversationId) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed history cursor", e);
+        }
+        if (parts.length != 4 || !VERSION.equals(parts[0]) || (!"b".equals(parts[3]) && !"a".equals(parts[3]))) {
+            throw new IllegalArgumentException("Malformed history cursor");
+        }
+        HistoryCursor cursor;
+        try {
+            cursor = new HistoryCursor(Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                    "b".equals(parts[3]) ? Direction.BEFORE : Direction.AFTER);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed history cursor", e);
+        }
+        if (cursor.conversationId != conversationId) {
+            throw new IllegalArgumentException("History cursor belongs to another conversation");
+        }
+        return cursor;
+    }
+}
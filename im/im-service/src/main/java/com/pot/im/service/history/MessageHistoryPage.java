@@ -0,0 +1,25 @@
+package com.pot.im.service.history;
+
+import com.pot.im.service.entity.Message;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a conversation's history, oldest message first. There is no total
+ * count; a {@code null} cursor means there is nothing further in that direction.
+ */
+@Data
+@Builder
+public class MessageHistoryPage {
+    private List<Message> messages;
+    /**
+     * Continues with older messages.
+     */
+    private String beforeCursor;
+    /**
+     * Continues with newer messages, e.g. after jumping to an older message.
+     */
+    private String afterCursor;
+}
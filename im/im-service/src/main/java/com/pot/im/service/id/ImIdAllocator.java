@@ -0,0 +1,62 @@
+package com.pot.im.service.id;
+
+import com.pot.im.service.config.MessageConfig;
+import com.pot.zing.framework.starter.id.service.IdService;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Message and conversation ids for the IM send path, served from prefetched batches.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImIdAllocator {
+
+    private static final String MESSAGE_BIZ_TYPE = "im_message";
+    private static final String CONVERSATION_BIZ_TYPE = "im_conversation";
+    private static final String FILE_BIZ_TYPE = "im_file";
+
+    private final IdService idService;
+    private final MessageConfig config;
+
+    private ExecutorService refillExecutor;
+    private PrefetchingIdBuffer messageIds;
+    private PrefetchingIdBuffer conversationIds;
+    private PrefetchingIdBuffer fileIds;
+
+    @PostConstruct
+    public void init() {
+        refillExecutor = Executors.newSingleThreadExecutor(new DefaultThreadFactory("im-id-prefetch", true));
+        messageIds = new PrefetchingIdBuffer(idService, MESSAGE_BIZ_TYPE,
+                config.getIdPrefetchBatchSize(), config.getIdPrefetchLowWaterMark(), refillExecutor);
+        // Conversations and files are created far less often than messages; keep their batches small.
+        int conversationBatch = Math.max(config.getIdPrefetchBatchSize() / 10, 1);
+        conversationIds = new PrefetchingIdBuffer(idService, CONVERSATION_BIZ_TYPE,
+                conversationBatch, conversationBatch / 3, refillExecutor);
+        fileIds = new PrefetchingIdBuffer(idService, FILE_BIZ_TYPE,
+                conversationBatch, conversationBatch / 3, refillExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
+    }
+
+    public long nextMessageId() {
+        return messageIds.next();
+    }
+
+    public long nextConversationId() {
+        return conversationIds.next();
+    }
+
+    public long nextFileId() {
+        return fileIds.next();
+    }
+}
@@ -0,0 +1,135 @@
+package com.pot.im.service.id;
+
+import com.pot.zing.framework.starter.id.service.IdService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out ids from a locally held batch and fetches the next batch in the background.
+ * <p>
+ * {@link #next()} is an atomic increment plus an array read. Once the current batch
+ * drops to {@code lowWaterMark} remaining ids, the next one is requested from
+ * {@link IdService#nextIds} on {@code refillExecutor}; by the time the batch runs
+ * out the spare is normally ready and is swapped in. Only if it is not does a
+ * caller fetch synchronously, which {@link #syncFetches()} counts.
+ * <p>
+ * Fetches never overlap: a caller that runs out while the background refill is in
+ * flight waits for it and takes its batch, so batches are handed out in the order
+ * they were fetched and ids never go backwards.
+ */
+@Slf4j
+public class PrefetchingIdBuffer {
+
+    private final IdService idService;
+    private final String bizType;
+    private final int batchSize;
+    private final int lowWaterMark;
+    private final Executor refillExecutor;
+
+    private final Object fetchLock = new Object();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final LongAdder syncFetches = new LongAdder();
+    private volatile Segment current = Segment.EMPTY;
+    private volatile Segment spare;
+
+    public PrefetchingIdBuffer(IdService idService, String bizType, int batchSize, int lowWaterMark,
+                               Executor refillExecutor) {
+        this.idService = idService;
+        this.bizType = bizType;
+        this.batchSize = Math.max(batchSize, 1);
+        this.lowWaterMark = Math.min(Math.max(lowWaterMark, 0), this.batchSize - 1);
+        this.refillExecutor = refillExecutor;
+    }
+
+    public long next() {
+        Segment segment = current;
+        for (;;) {
+            int index = segment.cursor.getAndIncrement();
+            if (index < segment.ids.length) {
+                if (index == segment.refillAt) {
+                    scheduleRefill();
+                }
+                return segment.ids[index];
+            }
+            segment = advance(segment);
+        }
+    }
+
+    /**
+     * Times a caller had to wait for {@link IdService} because no spare batch was ready.
+     */
+    public long syncFetches() {
+        return syncFetches.sum();
+    }
+
+    private synchronized Segment advance(Segment exhausted) {
+        if (current != exhausted) {
+            return current;
+        }
+        Segment next;
+        synchronized (fetchLock) {
+            next = spare;
+            spare = null;
+            if (next == null) {
+                syncFetches.increment();
+                next = fetch();
+            }
+        }
+        current = next;
+        if (next.refillAt < 0) {
+            scheduleRefill();
+        }
+        return next;
+    }
+
+    private void scheduleRefill() {
+        if (spare != null || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refillExecutor.execute(() -> {
+                try {
+                    synchronized (fetchLock) {
+                        if (spare == null) {
+                            spare = fetch();
+                        }
+                    }
+                } catch (Exception e) {
+                    log.warn("Background id prefetch failed for {}, next batch will be fetched inline: {}",
+                            bizType, e.getMessage());
+                } finally {
+                    refilling.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refilling.set(false);
+        }
+    }
+
+    private Segment fetch() {
+        return new Segment(idService.nextIds(bizType, batchSize), lowWaterMark);
+    }
+
+    private static final class Segment {
+
+        static final Segment EMPTY = new Segment(new long[0], 0);
+
+        final long[] ids;
+        /**
+         * Index whose hand-out triggers the background refill; {@code -1} if the
+         * batch is smaller than the low-water mark and the refill is due at once.
+         */
+        final int refillAt;
+        final AtomicInteger cursor = new AtomicInteger();
+
+        Segment(long[] ids, int lowWaterMark) {
+            this.ids = ids;
+            this.refillAt = ids.length > lowWaterMark ? ids.length - lowWaterMark - 1 : -1;
+        }
+    }
+}
@@ -2,7 +2,16 @@ package com.pot.im.service.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.pot.im.service.entity.Conversation;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 public interface ConversationMapper extends BaseMapper<Conversation> {
 
+    /**
+     * Applies conversation summaries with one multi-row upsert keyed by the unique
+     * {@code conversation_id} index ({@code im/db/conversation.sql}): the last message is replaced only by a newer one
+     * and {@code messageCount} is added to the stored count.
+     */
+    int upsertSummaries(@Param("list") List<Conversation> rows);
 }
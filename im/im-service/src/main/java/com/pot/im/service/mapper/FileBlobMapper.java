@@ -0,0 +1,34 @@
+package com.pot.im.service.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.pot.im.service.entity.FileBlob;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+public interface FileBlobMapper extends BaseMapper<FileBlob> {
+
+    /**
+     * Inserts a blob with one reference unless its hash is already stored.
+     *
+     * @return {@code 1} if inserted, {@code 0} if another upload stored it first
+     */
+    int insertIfAbsent(FileBlob blob);
+
+    /**
+     * Adds a reference to a live blob; returns {@code 0} if the blob is gone or being removed.
+     */
+    int retain(@Param("fileHash") String fileHash);
+
+    int release(@Param("fileHash") String fileHash);
+
+    /**
+     * Deletes the blob row once nothing references it.
+     */
+    int deleteUnreferenced(@Param("fileHash") String fileHash);
+
+    /**
+     * Keyset scan of stored hashes, used to fill the in-memory filter.
+     */
+    List<FileBlob> selectHashesAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+}
@@ -0,0 +1,17 @@
+package com.pot.im.service.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.pot.im.service.entity.FileShare;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+public interface FileShareMapper extends BaseMapper<FileShare> {
+
+    /**
+     * Records that the file was sent to the conversation; a repeat is a no-op.
+     */
+    int insertIfAbsent(@Param("fileId") Long fileId, @Param("conversationId") Long conversationId);
+
+    List<Long> selectConversationIds(@Param("fileId") Long fileId);
+}
@@ -2,7 +2,37 @@ package com.pot.im.service.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.pot.im.service.entity.Message;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 public interface MessageMapper extends BaseMapper<Message> {
 
+    /**
+     * Inserts all rows with one multi-row {@code INSERT} statement.
+     */
+    int insertBatch(@Param("list") List<Message> messages);
+
+    /**
+     * Up to {@code limit} messages older than {@code beforeMessageId}, or the newest ones if it
+     * is {@code null}, newest first. A range scan on {@code (conversation_id, message_id)}.
+     */
+    List<Message> selectBefore(@Param("conversationId") Long conversationId,
+                               @Param("beforeMessageId") Long beforeMessageId,
+                               @Param("limit") int limit);
+
+    /**
+     * Up to {@code limit} messages newer than {@code afterMessageId}, oldest first.
+     */
+    List<Message> selectAfter(@Param("conversationId") Long conversationId,
+                              @Param("afterMessageId") Long afterMessageId,
+                              @Param("limit") int limit);
+
+    /**
+     * Messages newer than {@code afterMessageId} not sent by {@code excludeSenderId}: the unread
+     * count of a cursor at {@code afterMessageId}.
+     */
+    long countAfter(@Param("conversationId") Long conversationId,
+                    @Param("afterMessageId") Long afterMessageId,
+                    @Param("excludeSenderId") Long excludeSenderId);
 }
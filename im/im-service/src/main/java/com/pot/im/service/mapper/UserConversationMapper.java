@@ -2,7 +2,18 @@ package com.pot.im.service.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.pot.im.service.entity.UserConversation;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 public interface UserConversationMapper extends BaseMapper<UserConversation> {
 
+    /**
+     * Applies unread counts with one multi-row upsert keyed by the unique
+     * {@code (user_id, conversation_id)} index
+     * ({@code im/db/user_conversation.sql}). Rows without {@code lastReadMessageId} add
+     * {@code unreadCount} to the stored count; rows with it replace the count and move the
+     * read cursor, never backwards.
+     */
+    int upsertUnread(@Param("list") List<UserConversation> rows);
 }
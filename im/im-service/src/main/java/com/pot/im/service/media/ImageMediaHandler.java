@@ -0,0 +1,89 @@
+package com.pot.im.service.media;
+
+import com.pot.im.service.config.FileConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+
+/**
+ * Reads image dimensions from the header and renders a JPEG thumbnail whose longer edge
+ * is {@code thumbnailMaxEdge}. Large images are subsampled while decoding, so the full
+ * resolution raster is never held in memory; images above {@code mediaMaxPixels} only
+ * get their dimensions.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImageMediaHandler implements MediaHandler {
+
+    private final FileConfig config;
+
+    @Override
+    public boolean supports(String mimeType) {
+        return mimeType != null && mimeType.startsWith("image/")
+                && ImageIO.getImageReadersByMIMEType(mimeType).hasNext();
+    }
+
+    @Override
+    public MediaInfo process(Path source, Path thumbnail) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Not a readable image: " + source.getFileName());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > config.getMediaMaxPixels()) {
+                    return new MediaInfo(width, height, null, false);
+                }
+                int maxEdge = Math.max(config.getThumbnailMaxEdge(), 1);
+                // Decode at no less than twice the thumbnail size; the final scale smooths it.
+                int step = Math.max(1, Math.max(width, height) / (maxEdge * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                writeThumbnail(reader.read(0, param), maxEdge, thumbnail);
+                return new MediaInfo(width, height, null, true);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static void writeThumbnail(BufferedImage image, int maxEdge, Path target) throws IOException {
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        BufferedImage thumb = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = thumb.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            // JPEG has no alpha; flatten transparent images onto white.
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        Files.createDirectories(target.getParent());
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        if (!ImageIO.write(thumb, "jpg", tmp.toFile())) {
+            throw new IOException("No JPEG writer available");
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,18 @@
+package com.pot.im.service.media;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Post-processes one kind of media after upload. Implementations are Spring beans and
+ * are picked by {@link #supports}; they run on the media workers, never on an event loop.
+ */
+public interface MediaHandler {
+
+    boolean supports(String mimeType);
+
+    /**
+     * Reads {@code source} and, if the type has one, writes a thumbnail to {@code thumbnail}.
+     */
+    MediaInfo process(Path source, Path thumbnail) throws IOException;
+}
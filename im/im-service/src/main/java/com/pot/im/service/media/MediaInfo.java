@@ -0,0 +1,8 @@
+package com.pot.im.service.media;
+
+/**
+ * What a {@link MediaHandler} extracted from a file. Absent values are {@code null};
+ * {@code duration} is in seconds.
+ */
+public record MediaInfo(Integer width, Integer height, Integer duration, boolean thumbnail) {
+}
@@ -0,0 +1,176 @@
+package com.pot.im.service.media;
+
+import com.pot.im.service.config.FileConfig;
+import com.pot.im.service.entity.File;
+import com.pot.im.service.file.FileStorage;
+import com.pot.im.service.protocol.payload.FileProcessedNotify;
+import com.pot.im.service.protocol.serializer.MessagePriority;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.protocol.serializer.SerializerType;
+import com.pot.im.service.server.ConnectionManager;
+import com.pot.im.service.service.FileService;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Post-processes stored files in the background: the first {@link MediaHandler} that
+ * supports the MIME type extracts dimensions and renders a thumbnail, the
+ * {@code im_file} row is updated and the uploader gets a {@code FILE_PROCESSED} push.
+ * <p>
+ * Work runs on a fixed pool of low-priority daemon threads behind a bounded queue.
+ * {@link #submit} never blocks: when the queue is full the file is left unprocessed
+ * and counted as rejected, so a burst of media uploads sheds work instead of piling
+ * it up or stealing threads from the event loops. Content that was processed before
+ * under another file id, e.g. a forwarded image, reuses that result.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MediaProcessingPipeline {
+
+    private final List<MediaHandler> handlers;
+    private final FileService fileService;
+    private final FileStorage storage;
+    private final ConnectionManager connectionManager;
+    private final FileConfig config;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+
+    private ThreadPoolExecutor workers;
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(config.getMediaWorkerThreads(), 1);
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(config.getMediaQueueCapacity(), 1)),
+                new DefaultThreadFactory("im-media", true, Thread.MIN_PRIORITY));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                int dropped = workers.shutdownNow().size();
+                log.warn("Media pipeline stopped with {} files unprocessed", dropped);
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues post-processing of a stored file.
+     *
+     * @return {@code false} if no handler supports the type or the backlog is full
+     */
+    public boolean submit(MediaJob job) {
+        MediaHandler handler = handlerFor(job.mimeType());
+        if (handler == null || job.fileHash() == null) {
+            return false;
+        }
+        submitted.increment();
+        try {
+            workers.execute(() -> process(job, handler));
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            long total = rejected.sum();
+            if (total == 1 || total % 1000 == 0) {
+                log.warn("Media pipeline backlog full [capacity: {}, rejected so far: {}]",
+                        config.getMediaQueueCapacity(), total);
+            }
+            return false;
+        }
+    }
+
+    public MediaStats stats() {
+        long done = processed.sum();
+        return new MediaStats(workers.getQueue().size(), workers.getActiveCount(), submitted.sum(), rejected.sum(),
+                done, reused.sum(), failed.sum(), done > 0 ? processingNanos.sum() / done / 1_000_000 : 0);
+    }
+
+    private MediaHandler handlerFor(String mimeType) {
+        for (MediaHandler handler : handlers) {
+            if (handler.supports(mimeType)) {
+                return handler;
+            }
+        }
+        return null;
+    }
+
+    private void process(MediaJob job, MediaHandler handler) {
+        long start = System.nanoTime();
+        try {
+            String thumbnailPath = storage.thumbnailPath(job.fileHash());
+            File done = fileService.findProcessed(job.fileHash(), job.fileId());
+            MediaInfo info;
+            if (done != null) {
+                info = new MediaInfo(done.getWidth(), done.getHeight(), done.getDuration(),
+                        done.getThumbnailPath() != null);
+                reused.increment();
+            } else {
+                Path thumbnail = storage.resolve(thumbnailPath);
+                info = handler.process(storage.resolve(job.filePath()), thumbnail);
+                if (info.thumbnail() && !Files.exists(thumbnail)) {
+                    info = new MediaInfo(info.width(), info.height(), info.duration(), false);
+                }
+                processed.increment();
+                processingNanos.add(System.nanoTime() - start);
+            }
+            fileService.updateMedia(job.fileId(), info.thumbnail() ? thumbnailPath : null, null,
+                    info.width(), info.height(), info.duration());
+            notifyUploader(job, new FileProcessedNotify(job.fileId(), true, info.thumbnail(),
+                    info.width(), info.height(), info.duration()));
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("Media processing of file {} ({}) failed: {}", job.fileId(), job.mimeType(), e.getMessage());
+            notifyUploader(job, new FileProcessedNotify(job.fileId(), false, false, null, null, null));
+        }
+    }
+
+    private void notifyUploader(MediaJob job, FileProcessedNotify payload) {
+        try {
+            ProtocolMessage notify = PayloadCodec.encode(MessageType.FILE_PROCESSED, payload, SerializerType.JSON);
+            notify.getHeader().setMessagePriority(MessagePriority.BULK);
+            connectionManager.sendIfOnline(String.valueOf(job.uploaderId()), notify);
+        } catch (Exception e) {
+            log.warn("Failed to notify {} that file {} was processed: {}", job.uploaderId(), job.fileId(),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * A stored file to post-process; {@code filePath} is relative to the storage root.
+     */
+    public record MediaJob(long fileId, long uploaderId, String mimeType, String filePath, String fileHash) {
+    }
+
+    /**
+     * {@code averageMillis} covers files actually processed, not those that reused an earlier result.
+     */
+    public record MediaStats(int queued, int active, long submitted, long rejected, long processed, long reused,
+                             long failed, long averageMillis) {
+    }
+}
@@ -0,0 +1,178 @@
+package com.pot.im.service.message;
+
+import com.pot.im.service.config.ServerConfig;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded executor for async {@link MessageProcessor}s.
+ * <p>
+ * {@code BOUNDED} mode is a thread pool with a fixed-capacity queue;
+ * {@code VIRTUAL} mode starts a virtual thread per task but caps the number of
+ * tasks in flight. Either way, overload goes to the configured rejection
+ * policy instead of growing threads or memory without limit.
+ * <p>
+ * Once shut down, every submission throws {@link RejectedExecutionException}
+ * regardless of policy, so the submitter can release whatever the task holds.
+ */
+@Slf4j
+public class AsyncProcessorExecutor implements Executor {
+
+    private static final String THREAD_PREFIX = "im-processor";
+
+    private final ServerConfig.AsyncExecutor config;
+    private final ExecutorService delegate;
+    private final BlockingQueue<Runnable> queue;
+    private final Semaphore permits;
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+
+    public AsyncProcessorExecutor(ServerConfig.AsyncExecutor config) {
+        this.config = config;
+        if (config.getMode() == ServerConfig.AsyncExecutor.Mode.VIRTUAL) {
+            this.queue = null;
+            this.permits = new Semaphore(config.getMaxConcurrency());
+            this.delegate = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(THREAD_PREFIX + "-vt-", 0).factory());
+        } else {
+            this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+            this.permits = null;
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                    config.getCoreThreads(),
+                    Math.max(config.getCoreThreads(), config.getMaxThreads()),
+                    config.getKeepAliveSeconds(), TimeUnit.SECONDS,
+                    queue,
+                    new DefaultThreadFactory(THREAD_PREFIX, true));
+            pool.allowCoreThreadTimeOut(false);
+            this.delegate = pool;
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (!submit(command)) {
+            reject(tracked(command, false));
+        }
+    }
+
+    /**
+     * Like {@link #execute}, but never runs the task on the calling thread: when
+     * saturated it throws whatever the rejection policy. For submitters that must not
+     * run foreign work on their thread, such as ordered lanes draining other
+     * connections' tasks.
+     *
+     * @throws RejectedExecutionException if saturated or shut down
+     */
+    public void tryExecute(Runnable command) {
+        if (!submit(command)) {
+            countRejection();
+            throw new RejectedExecutionException("Async processor executor saturated");
+        }
+    }
+
+    public ExecutorStats stats() {
+        return ExecutorStats.builder()
+                .mode(config.getMode().name())
+                .activeCount(active.get())
+                .queueDepth(queue != null ? queue.size() : 0)
+                .queueCapacity(queue != null ? config.getQueueCapacity() : 0)
+                .submittedCount(submitted.sum())
+                .completedCount(completed.sum())
+                .rejectedCount(rejected.sum())
+                .callerRunsCount(callerRuns.sum())
+                .build();
+    }
+
+    public void shutdown() {
+        delegate.shutdown();
+        try {
+            if (!delegate.awaitTermination(5, TimeUnit.SECONDS)) {
+                delegate.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            delegate.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return {@code false} if saturated
+     * @throws RejectedExecutionException if shut down
+     */
+    private boolean submit(Runnable command) {
+        submitted.increment();
+        if (permits != null && !permits.tryAcquire()) {
+            return false;
+        }
+        try {
+            delegate.execute(tracked(command, permits != null));
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (permits != null) {
+                permits.release();
+            }
+            if (delegate.isShutdown()) {
+                // Never drop silently: the submitter owns the task's retained message and must release it.
+                throw new RejectedExecutionException("Async processor executor is shut down", e);
+            }
+            return false;
+        }
+    }
+
+    private Runnable tracked(Runnable command, boolean holdsPermit) {
+        return () -> {
+            active.incrementAndGet();
+            try {
+                command.run();
+            } finally {
+                active.decrementAndGet();
+                completed.increment();
+                if (holdsPermit) {
+                    permits.release();
+                }
+            }
+        };
+    }
+
+    private void reject(Runnable task) {
+        countRejection();
+        switch (config.getRejectionPolicy()) {
+            case CALLER_RUNS -> {
+                callerRuns.increment();
+                task.run();
+            }
+            case ABORT -> throw new RejectedExecutionException("Async processor executor saturated");
+        }
+    }
+
+    private void countRejection() {
+        rejected.increment();
+        long total = rejected.sum();
+        if (total == 1 || total % 1000 == 0) {
+            log.warn("Async processor executor saturated [policy: {}, rejected so far: {}]",
+                    config.getRejectionPolicy(), total);
+        }
+    }
+
+    @Builder
+    public record ExecutorStats(String mode, int activeCount, int queueDepth, int queueCapacity,
+                                long submittedCount, long completedCount, long rejectedCount,
+                                long callerRunsCount) {
+    }
+}
@@ -1,41 +1,122 @@
 package com.pot.im.service.message;
 
+import com.pot.im.service.auth.TokenVerifier;
+import com.pot.im.service.auth.VerifiedToken;
+import com.pot.im.service.config.AuthConfig;
+import com.pot.im.service.protocol.payload.AuthRequest;
+import com.pot.im.service.protocol.payload.AuthResponse;
+import com.pot.im.service.protocol.serializer.MessagePriority;
 import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
 import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.server.ConnectionManager;
+import com.pot.zing.framework.starter.redis.service.RedisService;
+import io.jsonwebtoken.JwtException;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
 
 /**
- * Processes client authentication messages.
+ * Authenticates a connection from the access token in {@code AUTH_REQUEST} and binds
+ * the user to it. Runs off the event loop since the revocation check goes to Redis.
  */
+@Component
+@RequiredArgsConstructor
+@Slf4j
 public class AuthRequestProcessor implements MessageProcessor {
 
+    /**
+     * Redis key prefix for revoked access tokens, shared with the gateway.
+     */
+    private static final String BLACKLIST_KEY_PREFIX = "auth:blacklist:";
+
+    private final TokenVerifier tokenVerifier;
+    private final ConnectionManager connectionManager;
+    private final RedisService redisService;
+    private final AuthConfig config;
+
     @Override
     public void process(ChannelHandlerContext ctx, ProtocolMessage message) throws ProcessingException {
-        byte[] data = message.getData();
-        if (data == null || data.length == 0) {
-            throw new ProcessingException("Authentication data is empty", null);
-        }
-
-        // Authentication verification is not wired yet, so requests are rejected by
-        // default.
-        boolean isAuthenticated = false;
-        ProtocolMessage response = new ProtocolMessage();
-        response.getHeader().setMsgType(MessageType.AUTH_RESPONSE.getCode());
-        response.getHeader().setSequence(message.getHeader().getSequence());
-        response.getHeader().setTimestamp(System.currentTimeMillis());
-
-        if (isAuthenticated) {
-            response.setData("Authentication successful".getBytes());
-            ctx.writeAndFlush(response);
-        } else {
-            response.setData("Authentication failed".getBytes());
-            ctx.writeAndFlush(response);
-            ctx.close();
+        AuthRequest request;
+        try {
+            request = PayloadCodec.decode(message, AuthRequest.class);
+        } catch (Exception e) {
+            throw new ProcessingException("Malformed authentication request", e);
+        }
+        if (request == null || request.getToken() == null || request.getToken().isEmpty()) {
+            reject(ctx, message, "Authentication data is empty");
+            return;
+        }
+
+        VerifiedToken token;
+        try {
+            token = tokenVerifier.verify(request.getToken());
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("[IM-Auth] Token validation failed — remote={}, error={}",
+                    ctx.channel().remoteAddress(), e.getMessage());
+            reject(ctx, message, "Authentication failed");
+            return;
+        }
+        if (request.getUserId() != null && !request.getUserId().equals(token.userId())) {
+            log.warn("[IM-Auth] Token subject does not match requested user — userId={}, subject={}",
+                    request.getUserId(), token.userId());
+            reject(ctx, message, "Authentication failed");
+            return;
         }
+        if (isRevoked(token.tokenId())) {
+            tokenVerifier.invalidate(token.tokenId());
+            log.warn("[IM-Auth] Token has been revoked — tokenId={}", token.tokenId());
+            reject(ctx, message, "Authentication failed");
+            return;
+        }
+        if (!ctx.channel().isActive()) {
+            return;
+        }
+
+        connectionManager.bindUser(token.userId(), ctx.channel(), message.getHeader().getSerializerType());
+        ctx.writeAndFlush(response(message, new AuthResponse(true, "Authentication successful")));
     }
 
     @Override
     public MessageType[] getSupportedTypes() {
-        return new MessageType[0];
+        return new MessageType[]{MessageType.AUTH_REQUEST};
+    }
+
+    @Override
+    public boolean isAsync() {
+        return true;
+    }
+
+    private boolean isRevoked(String tokenId) {
+        if (!config.isCheckRevocation() || tokenId == null || tokenId.isBlank()) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(redisService.exists(BLACKLIST_KEY_PREFIX + tokenId));
+        } catch (Exception e) {
+            // Fail closed like the gateway: an unreachable revocation store must not admit revoked tokens.
+            log.error("[IM-Auth] Blacklist check failed — treating token as revoked, tokenId={}, error={}",
+                    tokenId, e.getMessage());
+            return true;
+        }
+    }
+
+    private void reject(ChannelHandlerContext ctx, ProtocolMessage request, String reason)
+            throws ProcessingException {
+        ctx.writeAndFlush(response(request, new AuthResponse(false, reason)))
+                .addListener(ChannelFutureListener.CLOSE);
+    }
+
+    private ProtocolMessage response(ProtocolMessage request, AuthResponse payload) throws ProcessingException {
+        ProtocolMessage response;
+        try {
+            response = PayloadCodec.reply(request, MessageType.AUTH_RESPONSE, payload);
+        } catch (Exception e) {
+            throw new ProcessingException("Failed to encode authentication response", e);
+        }
+        response.getHeader().setMessagePriority(MessagePriority.HIGH);
+        return response;
     }
 }
@@ -0,0 +1,146 @@
+package com.pot.im.service.message;
+
+import com.pot.im.service.config.FileConfig;
+import com.pot.im.service.entity.File;
+import com.pot.im.service.file.FileAccess;
+import com.pot.im.service.file.FileDownloadStream;
+import com.pot.im.service.file.FileStatus;
+import com.pot.im.service.file.FileStorage;
+import com.pot.im.service.protocol.payload.FileDownloadRequest;
+import com.pot.im.service.protocol.payload.FileDownloadResponse;
+import com.pot.im.service.protocol.serializer.MessagePriority;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.server.ConnectionManager;
+import com.pot.im.service.service.FileService;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Answers {@code FILE_DOWNLOAD_REQUEST} with a {@code FILE_DOWNLOAD_RESPONSE} describing
+ * the range, then streams it as {@code FILE_DOWNLOAD_CHUNK} frames. A request with an
+ * offset resumes an interrupted download; one with {@code thumbnail} set fetches the
+ * thumbnail generated by the media pipeline. Only users {@link FileAccess} lets read the
+ * file get it; anyone else is told it does not exist.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FileDownloadProcessor implements MessageProcessor {
+
+    private static final String THUMBNAIL_MIME_TYPE = "image/jpeg";
+
+    private final FileService fileService;
+    private final FileStorage storage;
+    private final FileAccess fileAccess;
+    private final ConnectionManager connectionManager;
+    private final FileConfig config;
+
+    @Override
+    public void process(ChannelHandlerContext ctx, ProtocolMessage message) throws ProcessingException {
+        Long userId = parseUserId(connectionManager.getChannelUser(ctx.channel().id()));
+        if (userId == null) {
+            return;
+        }
+        FileDownloadRequest request;
+        try {
+            request = PayloadCodec.decode(message, FileDownloadRequest.class);
+        } catch (Exception e) {
+            throw new ProcessingException("Malformed download request", e);
+        }
+        if (request == null || request.getFileId() == null) {
+            reply(ctx, message, failure(null, "File id is required"));
+            return;
+        }
+        Long fileId = request.getFileId();
+        File file = fileService.getByFileId(fileId);
+        if (file == null || file.getStatus() == null || file.getStatus() != FileStatus.READY
+                || !fileAccess.canRead(userId, file)) {
+            reply(ctx, message, failure(fileId, "File not found"));
+            return;
+        }
+        if (request.isThumbnail() && file.getThumbnailPath() == null) {
+            reply(ctx, message, failure(fileId, "No thumbnail"));
+            return;
+        }
+        Path path = storage.resolve(request.isThumbnail() ? file.getThumbnailPath() : file.getFilePath());
+        long fileSize;
+        try {
+            fileSize = request.isThumbnail() ? Files.size(path) : file.getFileSize();
+        } catch (IOException e) {
+            log.error("Thumbnail of file {} is missing at {}", fileId, path);
+            reply(ctx, message, failure(fileId, "File not available"));
+            return;
+        }
+        long offset = request.getOffset();
+        long length = request.getLength() != null ? request.getLength() : fileSize - offset;
+        if (offset < 0 || length < 0 || offset + length > fileSize) {
+            reply(ctx, message, failure(fileId, "Range outside file"));
+            return;
+        }
+        if (!Files.isReadable(path)) {
+            log.error("Stored file {} is missing at {}", fileId, path);
+            reply(ctx, message, failure(fileId, "File not available"));
+            return;
+        }
+        ChannelFuture replied = reply(ctx, message, FileDownloadResponse.builder()
+                .fileId(fileId)
+                .success(true)
+                .offset(offset)
+                .length(length)
+                .fileSize(fileSize)
+                .mimeType(request.isThumbnail() ? THUMBNAIL_MIME_TYPE : file.getMimeType())
+                .fileHash(request.isThumbnail() ? null : file.getFileHash())
+                .build());
+        if (length > 0) {
+            // Chunks bypass the priority queue, so hold them until the response is on the wire.
+            replied.addListener(future -> {
+                if (future.isSuccess()) {
+                    FileDownloadStream.start(ctx, fileId, path, offset, length,
+                            config.getDownloadChunkSize(), config.getDownloadInflightChunks());
+                }
+            });
+        }
+    }
+
+    @Override
+    public MessageType[] getSupportedTypes() {
+        return new MessageType[]{MessageType.FILE_DOWNLOAD_REQUEST};
+    }
+
+    @Override
+    public boolean isAsync() {
+        return true;
+    }
+
+    private static Long parseUserId(String userId) {
+        try {
+            return userId != null ? Long.valueOf(userId) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static FileDownloadResponse failure(Long fileId, String reason) {
+        return FileDownloadResponse.builder().fileId(fileId).success(false).reason(reason).build();
+    }
+
+    private static ChannelFuture reply(ChannelHandlerContext ctx, ProtocolMessage request,
+                                       FileDownloadResponse payload) throws ProcessingException {
+        try {
+            ProtocolMessage response = PayloadCodec.reply(request, MessageType.FILE_DOWNLOAD_RESPONSE, payload);
+            response.getHeader().setMessagePriority(MessagePriority.NORMAL);
+            return ctx.writeAndFlush(response);
+        } catch (Exception e) {
+            throw new ProcessingException("Failed to answer download request", e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.pot.im.service.message;
+
+import com.pot.im.service.file.FileUploadManager;
+import com.pot.im.service.protocol.payload.FileUploadRequest;
+import com.pot.im.service.protocol.payload.FileUploadResponse;
+import com.pot.im.service.protocol.serializer.ByteBufProtocolMessage;
+import com.pot.im.service.protocol.serializer.MessagePriority;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.server.ConnectionManager;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * Handles uploads: {@code FILE_UPLOAD_REQUEST} starts or resumes one, and each
+ * {@code FILE_UPLOAD_CHUNK} ({@code [fileId:long][offset:long]} followed by raw bytes)
+ * is written to disk straight from the inbound buffer. Every frame is answered with a
+ * {@code FILE_UPLOAD_RESPONSE} carrying the stored offset, which the client uses to
+ * slide its window of {@code windowChunks} unacknowledged chunks.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FileUploadProcessor implements MessageProcessor {
+
+    private static final int CHUNK_PREFIX_LENGTH = 2 * Long.BYTES;
+
+    private final FileUploadManager uploadManager;
+    private final ConnectionManager connectionManager;
+
+    @Override
+    public void process(ChannelHandlerContext ctx, ProtocolMessage message) throws ProcessingException {
+        Long userId = parseUserId(connectionManager.getChannelUser(ctx.channel().id()));
+        if (userId == null) {
+            return;
+        }
+        try {
+            if (message.getHeader().getMsgType() == MessageType.FILE_UPLOAD_CHUNK.getCode()) {
+                ByteBuf content = message instanceof ByteBufProtocolMessage bufMessage
+                        ? bufMessage.content()
+                        : Unpooled.wrappedBuffer(message.getData());
+                reply(ctx, message, chunk(userId, content));
+            } else {
+                FileUploadRequest request = PayloadCodec.decode(message, FileUploadRequest.class);
+                reply(ctx, message, uploadManager.begin(userId, request, hostOf(ctx.channel().remoteAddress())));
+            }
+        } catch (Exception e) {
+            throw new ProcessingException("Upload failed for user " + userId, e);
+        }
+    }
+
+    @Override
+    public MessageType[] getSupportedTypes() {
+        return new MessageType[]{MessageType.FILE_UPLOAD_REQUEST, MessageType.FILE_UPLOAD_CHUNK};
+    }
+
+    @Override
+    public boolean isAsync() {
+        return true;
+    }
+
+    private FileUploadResponse chunk(long userId, ByteBuf content) throws Exception {
+        if (content.readableBytes() < CHUNK_PREFIX_LENGTH) {
+            return FileUploadResponse.builder().success(false).reason("Malformed chunk").build();
+        }
+        int index = content.readerIndex();
+        long fileId = content.getLong(index);
+        long offset = content.getLong(index + Long.BYTES);
+        ByteBuf data = content.slice(index + CHUNK_PREFIX_LENGTH, content.readableBytes() - CHUNK_PREFIX_LENGTH);
+        return uploadManager.append(userId, fileId, offset, data);
+    }
+
+    private static void reply(ChannelHandlerContext ctx, ProtocolMessage request, FileUploadResponse payload)
+            throws Exception {
+        ProtocolMessage response = PayloadCodec.reply(request, MessageType.FILE_UPLOAD_RESPONSE, payload);
+        response.getHeader().setMessagePriority(MessagePriority.NORMAL);
+        ctx.writeAndFlush(response);
+    }
+
+    private static String hostOf(SocketAddress address) {
+        return address instanceof InetSocketAddress inet ? inet.getHostString() : null;
+    }
+
+    private static Long parseUserId(String userId) {
+        try {
+            return userId != null ? Long.valueOf(userId) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.pot.im.service.message;
+
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.conversation.ConversationIdResolver;
+import com.pot.im.service.conversation.ConversationSummaryCache;
+import com.pot.im.service.conversation.UnreadCounter;
+import com.pot.im.service.entity.Message;
+import com.pot.im.service.file.FileAccess;
+import com.pot.im.service.group.GroupMembers;
+import com.pot.im.service.group.GroupMembershipCache;
+import com.pot.im.service.id.ImIdAllocator;
+import com.pot.im.service.persistence.MessageWriter;
+import com.pot.im.service.protocol.payload.ChatMessage;
+import com.pot.im.service.protocol.payload.GroupMessageRequest;
+import com.pot.im.service.protocol.payload.MessageAck;
+import com.pot.im.service.protocol.serializer.MessagePriority;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.protocol.serializer.SerializerType;
+import com.pot.im.service.server.ConnectionManager;
+import com.pot.zing.framework.common.util.JacksonUtils;
+import io.netty.channel.ChannelHandlerContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Send path for group messages.
+ * <p>
+ * The message is stored once, as a single row on the group's conversation timeline;
+ * members read it from there rather than from per-recipient copies. Recipients come
+ * from {@link GroupMembershipCache}, so fan-out needs no database reads, and delivery
+ * goes through {@link ConnectionManager#multicast}, which encodes the frame once,
+ * writes it in chunks on each member's event loop, and resolves members on other
+ * nodes in one batched registry lookup.
+ * <p>
+ * As in {@link PrivateMessageProcessor}, the post-commit work continues on the
+ * connection's ordered lane: never on the writer's thread, never rejected once the
+ * row is committed, and in the order the sender's messages were stored.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GroupMessageProcessor implements MessageProcessor {
+
+    private static final int TYPE_TEXT = 1;
+
+    private final ConnectionManager connectionManager;
+    private final GroupMembershipCache membershipCache;
+    private final ConversationIdResolver conversationResolver;
+    private final MessageWriter messageWriter;
+    private final UnreadCounter unreadCounter;
+    private final ConversationSummaryCache summaryCache;
+    private final FileAccess fileAccess;
+    private final ImIdAllocator idAllocator;
+    private final MessageConfig config;
+    private final KeyedSerialExecutor orderedExecutor;
+
+    @Override
+    public void process(ChannelHandlerContext ctx, ProtocolMessage message) throws ProcessingException {
+        GroupMessageRequest request;
+        try {
+            request = PayloadCodec.decode(message, GroupMessageRequest.class);
+        } catch (Exception e) {
+            throw new ProcessingException("Malformed group message", e);
+        }
+        String senderKey = connectionManager.getChannelUser(ctx.channel().id());
+        Long senderId = parseUserId(senderKey);
+        GroupMembers members = request != null && request.getGroupId() != null
+                ? membershipCache.get(request.getGroupId()) : null;
+        String invalid = validate(senderId, request, members);
+        if (invalid != null) {
+            ack(ctx, message, MessageAck.builder()
+                    .clientMsgId(request != null ? request.getClientMsgId() : null)
+                    .success(false)
+                    .reason(invalid)
+                    .timestamp(System.currentTimeMillis())
+                    .build());
+            return;
+        }
+
+        Message entity = new Message();
+        entity.setMessageId(idAllocator.nextMessageId());
+        entity.setConversationId(conversationResolver.resolveGroup(request.getGroupId()));
+        entity.setSenderId(senderId);
+        entity.setMessageType(request.getMessageType() != null ? request.getMessageType() : TYPE_TEXT);
+        entity.setContent(request.getContent());
+        entity.setExtraData(request.getExtraData());
+        entity.setReplyToMessageId(request.getReplyToMessageId());
+        entity.setAtUsers(request.getAtUsers() != null && !request.getAtUsers().isEmpty()
+                ? JacksonUtils.toJson(request.getAtUsers()) : null);
+        entity.setStatus(PrivateMessageProcessor.STATUS_NORMAL);
+        entity.setReadCount(0);
+        long timestamp = System.currentTimeMillis();
+        if (request.getFileId() != null && !share(request.getFileId(), entity.getConversationId())) {
+            ack(ctx, message, MessageAck.builder()
+                    .clientMsgId(request.getClientMsgId())
+                    .success(false)
+                    .reason("Attachment not shared, retry later")
+                    .timestamp(timestamp)
+                    .build());
+            return;
+        }
+
+        // The fan-out's Redis work (unread counters, offline inbox) stays off the writer thread and event loops.
+        messageWriter.append(entity).whenComplete((ignored, failure) -> orderedExecutor.executeAlways(
+                ctx.channel().id(), () -> afterStore(ctx, message, request, entity, members, senderKey, senderId,
+                        timestamp, failure)));
+    }
+
+    private void afterStore(ChannelHandlerContext ctx, ProtocolMessage message, GroupMessageRequest request,
+                            Message entity, GroupMembers members, String senderKey, Long senderId,
+                            long timestamp, Throwable failure) {
+        if (failure != null) {
+            log.warn("Failed to store group message [sender: {}, group: {}, clientMsgId: {}]: {}",
+                    senderId, request.getGroupId(), request.getClientMsgId(), failure.getMessage());
+            ack(ctx, message, MessageAck.builder()
+                    .clientMsgId(request.getClientMsgId())
+                    .success(false)
+                    .reason("Message not stored, retry later")
+                    .timestamp(System.currentTimeMillis())
+                    .build());
+            return;
+        }
+        unreadCounter.incrementAll(members.userIds(), senderId, entity.getConversationId());
+        unreadCounter.markRead(senderId, entity.getConversationId(), entity.getMessageId());
+        summaryCache.onGroupMessage(entity, request.getGroupId(), members.userIds(), timestamp);
+        fanOut(members, senderKey, request, entity, timestamp);
+        ack(ctx, message, MessageAck.builder()
+                .clientMsgId(request.getClientMsgId())
+                .success(true)
+                .messageId(entity.getMessageId())
+                .conversationId(entity.getConversationId())
+                .serverSeq(entity.getMessageId())
+                .timestamp(timestamp)
+                .build());
+    }
+
+    @Override
+    public MessageType[] getSupportedTypes() {
+        return new MessageType[]{MessageType.GROUP_MESSAGE};
+    }
+
+    @Override
+    public boolean isAsync() {
+        return true;
+    }
+
+    private String validate(Long senderId, GroupMessageRequest request, GroupMembers members) {
+        if (senderId == null) {
+            return "Not authenticated";
+        }
+        if (request == null || request.getGroupId() == null) {
+            return "Group is required";
+        }
+        if (members == null || !members.isMember(senderId)) {
+            return "Not a member of this group";
+        }
+        if (!members.canSend(senderId, System.currentTimeMillis())) {
+            return "Muted in this group";
+        }
+        String content = request.getContent();
+        if (content == null || content.isBlank()) {
+            return "Content is empty";
+        }
+        if (content.length() > config.getMaxContentLength()) {
+            return "Content exceeds " + config.getMaxContentLength() + " characters";
+        }
+        if (request.getFileId() != null && !fileAccess.canShare(senderId, request.getFileId())) {
+            return "Unknown file";
+        }
+        return null;
+    }
+
+    /**
+     * Lets the conversation's participants download the attached file, before anyone is
+     * told about the message.
+     */
+    private boolean share(long fileId, long conversationId) {
+        try {
+            fileAccess.share(fileId, conversationId);
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to share file {} to conversation {}: {}", fileId, conversationId, e.getMessage());
+            return false;
+        }
+    }
+
+    private void fanOut(GroupMembers members, String senderKey, GroupMessageRequest request,
+                        Message entity, long timestamp) {
+        ChatMessage payload = ChatMessage.builder()
+                .messageId(entity.getMessageId())
+                .conversationId(entity.getConversationId())
+                .senderId(entity.getSenderId())
+                .groupId(request.getGroupId())
+                .messageType(entity.getMessageType())
+                .content(entity.getContent())
+                .extraData(entity.getExtraData())
+                .replyToMessageId(entity.getReplyToMessageId())
+                .atUsers(request.getAtUsers())
+                .timestamp(timestamp)
+                .build();
+        try {
+            ProtocolMessage push = PayloadCodec.encode(MessageType.GROUP_MESSAGE, payload, SerializerType.JSON);
+            push.getHeader().setTimestamp(timestamp);
+            connectionManager.multicast(members.userKeys(), senderKey, push, offline -> {
+                if (!offline.isEmpty() && members.size() <= config.getGroupOfflineInboxMaxMembers()) {
+                    offline.forEach(userId -> connectionManager.storeOffline(userId, push));
+                }
+                log.debug("Group message {} fanned out to {} members of group {}, {} offline",
+                        entity.getMessageId(), members.size() - 1, members.groupId(), offline.size());
+            });
+        } catch (Exception e) {
+            log.error("Failed to fan out group message {} to group {}",
+                    entity.getMessageId(), request.getGroupId(), e);
+        }
+    }
+
+    private void ack(ChannelHandlerContext ctx, ProtocolMessage request, MessageAck ack) {
+        try {
+            ProtocolMessage response = PayloadCodec.reply(request, MessageType.GROUP_MESSAGE_ACK, ack);
+            response.getHeader().setMessagePriority(MessagePriority.HIGH);
+            ctx.writeAndFlush(response);
+        } catch (Exception e) {
+            log.error("Failed to encode group message ACK", e);
+        }
+    }
+
+    private static Long parseUserId(String userId) {
+        try {
+            return userId != null ? Long.valueOf(userId) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
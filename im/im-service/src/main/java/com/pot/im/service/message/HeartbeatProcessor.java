@@ -1,5 +1,6 @@
 package com.pot.im.service.message;
 
+import com.pot.im.service.protocol.serializer.MessagePriority;
 import com.pot.im.service.protocol.serializer.MessageType;
 import com.pot.im.service.protocol.serializer.ProtocolMessage;
 import io.netty.channel.ChannelHandlerContext;
@@ -15,6 +16,8 @@ public class HeartbeatProcessor implements MessageProcessor {
         ProtocolMessage response = new ProtocolMessage();
         response.getHeader().setMsgType(MessageType.HEARTBEAT_ACK.getCode());
         response.getHeader().setSequence(message.getHeader().getSequence());
+        response.getHeader().setSerializerType(message.getHeader().getSerializerType());
+        response.getHeader().setMessagePriority(MessagePriority.CRITICAL);
         response.getHeader().setTimestamp(System.currentTimeMillis());
         response.setData(new byte[0]);
 
@@ -0,0 +1,177 @@
+package com.pot.im.service.message;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks in submission order per key while different keys run in parallel on a shared executor.
+ * <p>
+ * Keys are hashed onto a fixed number of serial lanes, so no per-key state needs cleaning
+ * up; two keys sharing a lane are simply serialized together. Each lane occupies at most
+ * one delegate thread at a time and yields after {@value #BATCH_SIZE} tasks so a busy key
+ * cannot monopolize a worker.
+ * <p>
+ * A lane is never run on the submitting thread: the delegate must reject rather
+ * than run the lane itself (see {@link AsyncProcessorExecutor#tryExecute}), and a
+ * rejected lane keeps its tasks and is retried after {@value #RETRY_DELAY_MILLIS}ms.
+ * Backpressure comes from {@code maxPending}, which fails new submissions so the
+ * submitter can release what the task holds.
+ */
+@Slf4j
+public class KeyedSerialExecutor {
+
+    private static final int BATCH_SIZE = 64;
+    private static final long RETRY_DELAY_MILLIS = 10;
+
+    private final Executor delegate;
+    private final Lane[] lanes;
+    private final int mask;
+    private final int maxPending;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ScheduledExecutorService retryTimer = Executors.newSingleThreadScheduledExecutor(
+            new DefaultThreadFactory("im-ordered-retry", true));
+
+    public KeyedSerialExecutor(Executor delegate, int stripes, int maxPending) {
+        this.delegate = delegate;
+        int size = Integer.highestOneBit(Math.max(stripes, 1) * 2 - 1);
+        this.lanes = new Lane[size];
+        for (int i = 0; i < size; i++) {
+            lanes[i] = new Lane();
+        }
+        this.mask = size - 1;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * @throws RejectedExecutionException if too many tasks are waiting or the executor is shut down
+     */
+    public void execute(Object key, Runnable task) {
+        if (retryTimer.isShutdown()) {
+            throw new RejectedExecutionException("Ordered executor is shut down");
+        }
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            throw new RejectedExecutionException("Ordered executor backlog full: " + maxPending);
+        }
+        laneFor(key).enqueue(task);
+    }
+
+    /**
+     * Like {@link #execute} but never rejects, for work that must run once its cause
+     * has happened, such as acknowledging a message that is already committed. The
+     * task is not held to {@code maxPending} and still never runs on the calling
+     * thread, unless the executor is shut down, in which case it runs there at once.
+     */
+    public void executeAlways(Object key, Runnable task) {
+        if (retryTimer.isShutdown()) {
+            runSafely(task);
+            return;
+        }
+        pending.incrementAndGet();
+        Lane lane = laneFor(key);
+        lane.enqueue(task);
+        if (retryTimer.isShutdown()) {
+            // Raced with shutdown(), which may already have drained this lane.
+            lane.drainAll();
+        }
+    }
+
+    /**
+     * Tasks accepted but not yet started.
+     */
+    public int pendingTasks() {
+        return pending.get();
+    }
+
+    /**
+     * Stops retrying rejected lanes and runs whatever is still queued on the calling
+     * thread, so no task is left holding a retained message. Call after the delegate
+     * has shut down.
+     */
+    public void shutdown() {
+        retryTimer.shutdownNow();
+        for (Lane lane : lanes) {
+            lane.drainAll();
+        }
+    }
+
+    private Lane laneFor(Object key) {
+        int h = key.hashCode();
+        return lanes[(h ^ (h >>> 16)) & mask];
+    }
+
+    private final class Lane implements Runnable {
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void enqueue(Runnable task) {
+            tasks.add(task);
+            if (scheduled.compareAndSet(false, true)) {
+                schedule();
+            }
+        }
+
+        /**
+         * Called with {@code scheduled} set; keeps it set until the lane runs.
+         */
+        private void schedule() {
+            try {
+                delegate.execute(this);
+            } catch (RejectedExecutionException e) {
+                try {
+                    retryTimer.schedule(this::schedule, RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException shutDown) {
+                    // Shutting down: drainAll() picks the tasks up.
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        void drainAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                pending.decrementAndGet();
+                runSafely(task);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    Runnable task = tasks.poll();
+                    if (task == null) {
+                        break;
+                    }
+                    pending.decrementAndGet();
+                    runSafely(task);
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+                schedule();
+            }
+        }
+
+    }
+
+    private static void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            log.error("Ordered task failed", t);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.pot.im.service.message;
 
+import com.pot.im.service.protocol.serializer.ByteBufProtocolMessage;
 import com.pot.im.service.protocol.serializer.MessageType;
 import com.pot.im.service.protocol.serializer.ProtocolMessage;
 import io.netty.channel.ChannelHandlerContext;
@@ -8,6 +9,15 @@ public interface MessageProcessor {
 
         void process(ChannelHandlerContext ctx, ProtocolMessage message) throws ProcessingException;
 
+    /**
+     * Processes a decoded frame whose payload is still in the inbound buffer.
+     * Override to read {@link ByteBufProtocolMessage#content()} without copying; the
+     * message is only valid until this method returns unless retained.
+     */
+    default void process(ChannelHandlerContext ctx, ByteBufProtocolMessage message) throws ProcessingException {
+        process(ctx, (ProtocolMessage) message);
+    }
+
         MessageType[] getSupportedTypes();
 
         default int getPriority() {
@@ -18,6 +28,14 @@ public interface MessageProcessor {
         return false;
     }
 
+    /**
+     * Async messages with equal keys are processed one at a time in arrival order.
+     * Defaults to the connection; override to order per conversation instead.
+     */
+    default Object orderingKey(ChannelHandlerContext ctx, ProtocolMessage message) {
+        return ctx.channel().id();
+    }
+
         class ProcessingException extends Exception {
         public ProcessingException(String message, Throwable cause) {
             super(message, cause);
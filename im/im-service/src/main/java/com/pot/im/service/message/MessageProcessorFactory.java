@@ -2,15 +2,14 @@ package com.pot.im.service.message;
 
 import com.pot.im.service.protocol.serializer.MessageType;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 @Component
@@ -19,19 +18,21 @@ import java.util.stream.Collectors;
 public class MessageProcessorFactory {
 
     private final List<MessageProcessor> processors;
-    private final Map<MessageType, List<MessageProcessor>> processorMap = new ConcurrentHashMap<>();
-        @Getter
-    private final Executor asyncExecutor = Executors.newCachedThreadPool(r -> {
-        Thread thread = new Thread(r, "MessageProcessor-Async");
-        thread.setDaemon(true);
-        return thread;
-    });
+    private final Map<MessageType, List<MessageProcessor>> processorMap = new EnumMap<>(MessageType.class);
+    /**
+     * Highest-priority processor per unsigned type code; written once in {@link #init()}.
+     */
+    private final MessageProcessor[] primaryByCode = new MessageProcessor[256];
+    private final AsyncProcessorExecutor asyncProcessorExecutor;
+    private final KeyedSerialExecutor orderedExecutor;
 
     @PostConstruct
     public void init() {
         log.info("Initializing MessageProcessorFactory with {} processors", processors.size());
 
         processors.forEach(this::registerProcessor);
+        processorMap.replaceAll((type, list) -> List.copyOf(list));
+        processorMap.forEach((type, list) -> primaryByCode[type.index()] = list.get(0));
 
         log.info("MessageProcessor registration completed: {}",
                 processorMap.entrySet().stream()
@@ -40,13 +41,46 @@ public class MessageProcessorFactory {
                                 entry -> entry.getValue().size())));
     }
 
+    @PreDestroy
+    public void shutdown() {
+        asyncProcessorExecutor.shutdown();
+        orderedExecutor.shutdown();
+    }
+
+        public Executor getAsyncExecutor() {
+        return asyncProcessorExecutor;
+    }
+
+    /**
+     * Executor that keeps async processing ordered per {@link MessageProcessor#orderingKey}.
+     */
+    public KeyedSerialExecutor getOrderedExecutor() {
+        return orderedExecutor;
+    }
+
+        public AsyncProcessorExecutor.ExecutorStats getAsyncExecutorStats() {
+        return asyncProcessorExecutor.stats();
+    }
+
         public List<MessageProcessor> getProcessors(MessageType messageType) {
         return processorMap.getOrDefault(messageType, Collections.emptyList());
     }
 
         public MessageProcessor getPrimaryProcessor(MessageType messageType) {
-        return getProcessors(messageType).stream().findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("No processor found for type: " + messageType));
+        MessageProcessor processor = primaryByCode[messageType.index()];
+        if (processor == null) {
+            throw new IllegalArgumentException("No processor found for type: " + messageType);
+        }
+        return processor;
+    }
+
+    /**
+     * Per-frame dispatch: a single array read keyed by the raw header byte.
+     *
+     * @return the primary processor, or {@code null} if the type is unknown or unhandled
+     */
+    public MessageProcessor lookupPrimaryProcessor(byte msgType) {
+        return primaryByCode[msgType & 0xFF];
     }
 
     private void registerProcessor(MessageProcessor processor) {
@@ -58,4 +92,4 @@ public class MessageProcessorFactory {
         processorMap.values().forEach(list ->
                 list.sort(Comparator.comparingInt(MessageProcessor::getPriority)));
     }
-}
\ No newline at end of file
+}
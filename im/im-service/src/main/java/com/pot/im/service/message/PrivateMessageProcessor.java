@@ -0,0 +1,219 @@
+package com.pot.im.service.message;
+
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.conversation.ConversationIdResolver;
+import com.pot.im.service.conversation.ConversationSummaryCache;
+import com.pot.im.service.conversation.UnreadCounter;
+import com.pot.im.service.entity.Message;
+import com.pot.im.service.file.FileAccess;
+import com.pot.im.service.id.ImIdAllocator;
+import com.pot.im.service.persistence.MessageWriter;
+import com.pot.im.service.protocol.payload.ChatMessage;
+import com.pot.im.service.protocol.payload.MessageAck;
+import com.pot.im.service.protocol.payload.PrivateMessageRequest;
+import com.pot.im.service.protocol.serializer.MessagePriority;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.server.ConnectionManager;
+import io.netty.channel.ChannelHandlerContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Send path for one-to-one messages: validate, assign an id, group-commit to
+ * {@code im_message}, then push to the recipient and ACK the sender.
+ * <p>
+ * Nothing is pushed or acknowledged before the row is committed, so a client that
+ * sees the ACK can rely on the message being in history. Ordered per connection by
+ * the async executor, and the writer keeps submission order, so one sender's
+ * messages are stored and delivered in the order sent.
+ * <p>
+ * The post-commit work (counters, push, ACK) continues on the connection's ordered
+ * lane, never on the writer's flusher thread: pushing may touch Redis, and the
+ * flusher must stay free for the next batch. The writer completes messages in
+ * submission order and the lane runs them in that order, so pushes and ACKs keep
+ * the order sent; the lane never rejects, so a committed message is always
+ * pushed and acknowledged.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PrivateMessageProcessor implements MessageProcessor {
+
+    static final int STATUS_NORMAL = 0;
+    private static final int TYPE_TEXT = 1;
+
+    private final ConnectionManager connectionManager;
+    private final ConversationIdResolver conversationResolver;
+    private final MessageWriter messageWriter;
+    private final UnreadCounter unreadCounter;
+    private final ConversationSummaryCache summaryCache;
+    private final FileAccess fileAccess;
+    private final ImIdAllocator idAllocator;
+    private final MessageConfig config;
+    private final KeyedSerialExecutor orderedExecutor;
+
+    @Override
+    public void process(ChannelHandlerContext ctx, ProtocolMessage message) throws ProcessingException {
+        PrivateMessageRequest request;
+        try {
+            request = PayloadCodec.decode(message, PrivateMessageRequest.class);
+        } catch (Exception e) {
+            throw new ProcessingException("Malformed private message", e);
+        }
+        Long senderId = senderOf(ctx);
+        String invalid = validate(senderId, request);
+        if (invalid != null) {
+            ack(ctx, message, MessageAck.builder()
+                    .clientMsgId(request != null ? request.getClientMsgId() : null)
+                    .success(false)
+                    .reason(invalid)
+                    .timestamp(System.currentTimeMillis())
+                    .build());
+            return;
+        }
+
+        Message entity = new Message();
+        entity.setMessageId(idAllocator.nextMessageId());
+        entity.setConversationId(conversationResolver.resolvePrivate(senderId, request.getReceiverId()));
+        entity.setSenderId(senderId);
+        entity.setMessageType(request.getMessageType() != null ? request.getMessageType() : TYPE_TEXT);
+        entity.setContent(request.getContent());
+        entity.setExtraData(request.getExtraData());
+        entity.setReplyToMessageId(request.getReplyToMessageId());
+        entity.setStatus(STATUS_NORMAL);
+        entity.setReadCount(0);
+        long timestamp = System.currentTimeMillis();
+        if (request.getFileId() != null && !share(request.getFileId(), entity.getConversationId())) {
+            ack(ctx, message, MessageAck.builder()
+                    .clientMsgId(request.getClientMsgId())
+                    .success(false)
+                    .reason("Attachment not shared, retry later")
+                    .timestamp(timestamp)
+                    .build());
+            return;
+        }
+
+        messageWriter.append(entity).whenComplete((ignored, failure) -> orderedExecutor.executeAlways(
+                ctx.channel().id(), () -> afterStore(ctx, message, request, entity, senderId, timestamp, failure)));
+    }
+
+    private void afterStore(ChannelHandlerContext ctx, ProtocolMessage message, PrivateMessageRequest request,
+                            Message entity, Long senderId, long timestamp, Throwable failure) {
+        if (failure != null) {
+            log.warn("Failed to store private message [sender: {}, clientMsgId: {}]: {}",
+                    senderId, request.getClientMsgId(), failure.getMessage());
+            ack(ctx, message, MessageAck.builder()
+                    .clientMsgId(request.getClientMsgId())
+                    .success(false)
+                    .reason("Message not stored, retry later")
+                    .timestamp(System.currentTimeMillis())
+                    .build());
+            return;
+        }
+        unreadCounter.increment(request.getReceiverId(), entity.getConversationId());
+        // Sending implies having read the conversation; this also gives the sender a list entry.
+        unreadCounter.markRead(senderId, entity.getConversationId(), entity.getMessageId());
+        summaryCache.onPrivateMessage(entity, request.getReceiverId(), timestamp);
+        push(request.getReceiverId(), entity, timestamp);
+        ack(ctx, message, MessageAck.builder()
+                .clientMsgId(request.getClientMsgId())
+                .success(true)
+                .messageId(entity.getMessageId())
+                .conversationId(entity.getConversationId())
+                .serverSeq(entity.getMessageId())
+                .timestamp(timestamp)
+                .build());
+    }
+
+    @Override
+    public MessageType[] getSupportedTypes() {
+        return new MessageType[]{MessageType.PRIVATE_MESSAGE};
+    }
+
+    @Override
+    public boolean isAsync() {
+        return true;
+    }
+
+    private Long senderOf(ChannelHandlerContext ctx) {
+        String userId = connectionManager.getChannelUser(ctx.channel().id());
+        try {
+            return userId != null ? Long.valueOf(userId) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String validate(Long senderId, PrivateMessageRequest request) {
+        if (senderId == null) {
+            return "Not authenticated";
+        }
+        if (request == null || request.getReceiverId() == null) {
+            return "Receiver is required";
+        }
+        if (request.getReceiverId().equals(senderId)) {
+            return "Cannot send to yourself";
+        }
+        String content = request.getContent();
+        if (content == null || content.isBlank()) {
+            return "Content is empty";
+        }
+        if (content.length() > config.getMaxContentLength()) {
+            return "Content exceeds " + config.getMaxContentLength() + " characters";
+        }
+        if (request.getFileId() != null && !fileAccess.canShare(senderId, request.getFileId())) {
+            return "Unknown file";
+        }
+        return null;
+    }
+
+    /**
+     * Lets the conversation's participants download the attached file, before anyone is
+     * told about the message.
+     */
+    private boolean share(long fileId, long conversationId) {
+        try {
+            fileAccess.share(fileId, conversationId);
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to share file {} to conversation {}: {}", fileId, conversationId, e.getMessage());
+            return false;
+        }
+    }
+
+    private void push(Long receiverId, Message entity, long timestamp) {
+        ChatMessage payload = ChatMessage.builder()
+                .messageId(entity.getMessageId())
+                .conversationId(entity.getConversationId())
+                .senderId(entity.getSenderId())
+                .receiverId(receiverId)
+                .messageType(entity.getMessageType())
+                .content(entity.getContent())
+                .extraData(entity.getExtraData())
+                .replyToMessageId(entity.getReplyToMessageId())
+                .timestamp(timestamp)
+                .build();
+        try {
+            String receiver = String.valueOf(receiverId);
+            ProtocolMessage push = PayloadCodec.encode(MessageType.PRIVATE_MESSAGE, payload,
+                    connectionManager.serializerOf(receiver));
+            push.getHeader().setTimestamp(timestamp);
+            connectionManager.sendToUser(receiver, push);
+        } catch (Exception e) {
+            log.error("Failed to push private message {} to {}", entity.getMessageId(), receiverId, e);
+        }
+    }
+
+    private void ack(ChannelHandlerContext ctx, ProtocolMessage request, MessageAck ack) {
+        try {
+            ProtocolMessage response = PayloadCodec.reply(request, MessageType.PRIVATE_MESSAGE_ACK, ack);
+            response.getHeader().setMessagePriority(MessagePriority.HIGH);
+            ctx.writeAndFlush(response);
+        } catch (Exception e) {
+            log.error("Failed to encode private message ACK", e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.pot.im.service.message;
+
+import com.pot.im.service.conversation.ConversationIdResolver;
+import com.pot.im.service.conversation.ConversationSummaryCache;
+import com.pot.im.service.group.GroupMembers;
+import com.pot.im.service.group.GroupMembershipCache;
+import com.pot.im.service.protocol.payload.ReadReceipt;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.receipt.ReadReceiptCoalescer;
+import com.pot.im.service.server.ConnectionManager;
+import io.netty.channel.ChannelHandlerContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Accepts {@code READ_RECEIPT} frames. The conversation is derived from the peer or
+ * group rather than taken from the client, so a user can only move their own cursor
+ * in conversations they belong to, and the message id is clamped to the conversation's
+ * newest message, so a receipt cannot mark messages read before they exist. Receipts
+ * are not acknowledged.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReadReceiptProcessor implements MessageProcessor {
+
+    private final ConnectionManager connectionManager;
+    private final ConversationIdResolver conversationResolver;
+    private final GroupMembershipCache membershipCache;
+    private final ConversationSummaryCache summaryCache;
+    private final ReadReceiptCoalescer coalescer;
+
+    @Override
+    public void process(ChannelHandlerContext ctx, ProtocolMessage message) throws ProcessingException {
+        ReadReceipt receipt;
+        try {
+            receipt = PayloadCodec.decode(message, ReadReceipt.class);
+        } catch (Exception e) {
+            throw new ProcessingException("Malformed read receipt", e);
+        }
+        Long userId = parseUserId(connectionManager.getChannelUser(ctx.channel().id()));
+        if (userId == null || receipt == null || receipt.getMessageId() <= 0) {
+            return;
+        }
+        if (receipt.getPeerId() != null) {
+            if (receipt.getPeerId().equals(userId)) {
+                return;
+            }
+            Long conversationId = conversationResolver.findPrivate(userId, receipt.getPeerId());
+            if (conversationId == null) {
+                return;
+            }
+            submit(userId, conversationId, receipt.getMessageId(), receipt.getPeerId());
+        } else if (receipt.getGroupId() != null) {
+            GroupMembers members = membershipCache.get(receipt.getGroupId());
+            if (members == null || !members.isMember(userId)) {
+                log.debug("Ignoring read receipt from {} for group {} they are not in", userId, receipt.getGroupId());
+                return;
+            }
+            Long conversationId = conversationResolver.resolveGroup(receipt.getGroupId());
+            submit(userId, conversationId, receipt.getMessageId(), null);
+        }
+    }
+
+    @Override
+    public MessageType[] getSupportedTypes() {
+        return new MessageType[]{MessageType.READ_RECEIPT};
+    }
+
+    @Override
+    public boolean isAsync() {
+        return true;
+    }
+
+    private void submit(long userId, long conversationId, long messageId, Long peerId) {
+        long readUpTo = Math.min(messageId, summaryCache.lastMessageId(conversationId));
+        if (readUpTo <= 0) {
+            return;
+        }
+        coalescer.submit(userId, conversationId, readUpTo, peerId);
+    }
+
+    private static Long parseUserId(String userId) {
+        try {
+            return userId != null ? Long.valueOf(userId) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.pot.im.service.message;
+
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.offline.OfflineInbox;
+import com.pot.im.service.protocol.payload.SyncAck;
+import com.pot.im.service.protocol.payload.SyncEntry;
+import com.pot.im.service.protocol.payload.SyncRequest;
+import com.pot.im.service.protocol.payload.SyncResponse;
+import com.pot.im.service.protocol.serializer.MessagePriority;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.server.ConnectionManager;
+import io.netty.channel.ChannelHandlerContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Replays the offline inbox to a reconnecting client.
+ * <p>
+ * {@code SYNC_REQUEST} carries the last sequence the client has; older entries are
+ * trimmed and newer ones are sent as up to {@code syncMaxBatches} {@code SYNC_RESPONSE}
+ * frames, flushed together. {@code SYNC_ACK} trims what the client confirmed in between.
+ * The response is marked truncated when the inbox's sequence counter shows entries after
+ * {@code lastSeq} that are no longer held, including when all of them expired.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SyncProcessor implements MessageProcessor {
+
+    private final OfflineInbox inbox;
+    private final ConnectionManager connectionManager;
+    private final MessageConfig config;
+
+    @Override
+    public void process(ChannelHandlerContext ctx, ProtocolMessage message) throws ProcessingException {
+        String userId = connectionManager.getChannelUser(ctx.channel().id());
+        if (userId == null) {
+            return;
+        }
+        try {
+            if (message.getHeader().getMsgType() == MessageType.SYNC_ACK.getCode()) {
+                inbox.acknowledge(userId, PayloadCodec.decode(message, SyncAck.class).getSeq());
+            } else {
+                sync(ctx, message, userId, PayloadCodec.decode(message, SyncRequest.class).getLastSeq());
+            }
+        } catch (ProcessingException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ProcessingException("Sync failed for user " + userId, e);
+        }
+    }
+
+    @Override
+    public MessageType[] getSupportedTypes() {
+        return new MessageType[]{MessageType.SYNC_REQUEST, MessageType.SYNC_ACK};
+    }
+
+    @Override
+    public boolean isAsync() {
+        return true;
+    }
+
+    private void sync(ChannelHandlerContext ctx, ProtocolMessage request, String userId, long lastSeq)
+            throws Exception {
+        inbox.acknowledge(userId, lastSeq);
+
+        // Read before fetching: anything appended meanwhile gets a higher sequence and is still held.
+        long storedSeq = inbox.lastSeq(userId);
+        int batchSize = Math.max(config.getSyncBatchSize(), 1);
+        long cursor = lastSeq;
+        boolean truncated = false;
+        boolean hasMore = false;
+        for (int batch = 0; batch < config.getSyncMaxBatches(); batch++) {
+            List<SyncEntry> entries = inbox.fetch(userId, cursor, batchSize);
+            if (batch == 0) {
+                long firstHeld = entries.isEmpty() ? storedSeq + 1 : entries.get(0).getSeq();
+                truncated = firstHeld > lastSeq + 1;
+            }
+            hasMore = entries.size() == batchSize && batch == config.getSyncMaxBatches() - 1;
+            if (entries.isEmpty() && batch > 0) {
+                break;
+            }
+            ctx.write(response(request, new SyncResponse(entries, hasMore, truncated)));
+            if (entries.size() < batchSize) {
+                break;
+            }
+            cursor = entries.get(entries.size() - 1).getSeq();
+        }
+        ctx.flush();
+        log.debug("Synced inbox of user {} after seq {} (truncated: {}, more: {})", userId, lastSeq, truncated, hasMore);
+    }
+
+    private static ProtocolMessage response(ProtocolMessage request, SyncResponse payload) throws Exception {
+        ProtocolMessage response = PayloadCodec.reply(request, MessageType.SYNC_RESPONSE, payload);
+        response.getHeader().setMessagePriority(MessagePriority.NORMAL);
+        return response;
+    }
+}
@@ -0,0 +1,194 @@
+package com.pot.im.service.offline;
+
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.persistence.WriteBehindBatcher;
+import com.pot.im.service.protocol.payload.SyncEntry;
+import com.pot.im.service.protocol.serializer.ByteBufProtocolMessage;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.zing.framework.starter.redis.service.RedisService;
+import io.netty.buffer.ByteBufUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-user offline inbox in Redis, ordered by a per-user sequence.
+ * <p>
+ * {@code im:inbox:seq:{userId}} is a counter that never expires, so sequences stay
+ * monotonic across inbox expiry. {@code im:inbox:{userId}} is a sorted set scored by
+ * sequence whose members carry the frame as {@code seq:type:serializer:timestamp:base64}.
+ * Both keys carry the user id as their hash tag, so they share a cluster slot, and take
+ * the global prefix from {@link RedisService#buildKey}, as every other IM key does.
+ * Appending, capping and refreshing the TTL happen in one script. Writes are queued and
+ * issued from a background thread as one pipelined round trip per batch, so
+ * {@link #store} never blocks the caller; entries Redis rejected fail their futures.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OfflineInbox implements OfflineMessageStore {
+
+    private static final String INBOX_KEY_PREFIX = "im:inbox:{";
+    private static final String SEQ_KEY_PREFIX = "im:inbox:seq:{";
+
+    private static final byte[] APPEND = """
+            local seq = redis.call('incr', KEYS[2])
+            redis.call('zadd', KEYS[1], seq, seq .. ':' .. ARGV[1])
+            redis.call('zremrangebyrank', KEYS[1], 0, -(tonumber(ARGV[2]) + 1))
+            redis.call('expire', KEYS[1], ARGV[3])
+            return seq
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisService redisService;
+    private final MessageConfig config;
+
+    private WriteBehindBatcher<PendingEntry> writer;
+
+    @PostConstruct
+    public void init() {
+        writer = new WriteBehindBatcher<>("im-offline-inbox", 256, 5,
+                config.getOfflineQueueCapacity(), this::append);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.close();
+    }
+
+    @Override
+    public boolean store(String userId, ProtocolMessage message) {
+        byte[] data = message instanceof ByteBufProtocolMessage bufMessage
+                ? ByteBufUtil.getBytes(bufMessage.content())
+                : message.getData();
+        String body = message.getHeader().getMsgType() + ":" + message.getHeader().getSerializerType().getCode()
+                + ":" + message.getHeader().getTimestamp() + ":"
+                + Base64.getEncoder().encodeToString(data != null ? data : new byte[0]);
+        return !writer.submit(new PendingEntry(userId, body)).isCompletedExceptionally();
+    }
+
+    /**
+     * Entries with a sequence greater than {@code afterSeq}, oldest first.
+     */
+    public List<SyncEntry> fetch(String userId, long afterSeq, int limit) {
+        Set<String> members = redisTemplate.opsForZSet()
+                .rangeByScore(inboxKey(userId), afterSeq + 1, Double.POSITIVE_INFINITY, 0, limit);
+        if (members == null || members.isEmpty()) {
+            return List.of();
+        }
+        List<SyncEntry> entries = new ArrayList<>(members.size());
+        for (String member : members) {
+            SyncEntry entry = parse(member);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * The last sequence handed out to {@code userId}, whether or not its entry is still
+     * held; {@code 0} if nothing was ever stored.
+     */
+    public long lastSeq(String userId) {
+        String seq = redisTemplate.opsForValue().get(seqKey(userId));
+        return seq != null ? Long.parseLong(seq) : 0L;
+    }
+
+    /**
+     * Removes entries up to and including {@code seq}.
+     */
+    public void acknowledge(String userId, long seq) {
+        if (seq > 0) {
+            redisTemplate.opsForZSet().removeRangeByScore(inboxKey(userId), 0, seq);
+        }
+    }
+
+    public WriteBehindBatcher.BatcherStats stats() {
+        return writer.stats();
+    }
+
+    private void append(List<PendingEntry> entries) {
+        byte[] maxSize = bytes(String.valueOf(config.getOfflineInboxMaxSize()));
+        byte[] ttl = bytes(String.valueOf(config.getOfflineInboxTtlSeconds()));
+        List<Object> results;
+        try {
+            // The script is short, so plain EVAL keeps the pipeline free of NOSCRIPT retries.
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (PendingEntry entry : entries) {
+                    connection.scriptingCommands().eval(APPEND, ReturnType.INTEGER, 2,
+                            bytes(inboxKey(entry.userId())), bytes(seqKey(entry.userId())),
+                            bytes(entry.body()), maxSize, ttl);
+                }
+                return null;
+            });
+        } catch (RedisPipelineException e) {
+            results = e.getPipelineResult();
+        }
+        Throwable[] causes = new Throwable[entries.size()];
+        int failed = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Object result = i < results.size() ? results.get(i) : null;
+            if (result instanceof Throwable cause) {
+                causes[i] = cause;
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            log.error("Failed to append {} of {} offline messages, first error: {}",
+                    failed, entries.size(), firstMessage(causes));
+            throw new WriteBehindBatcher.BatchWriteException("Offline inbox append failed", causes);
+        }
+    }
+
+    private String inboxKey(String userId) {
+        return redisService.buildKey(INBOX_KEY_PREFIX + userId + "}");
+    }
+
+    private String seqKey(String userId) {
+        return redisService.buildKey(SEQ_KEY_PREFIX + userId + "}");
+    }
+
+    private static String firstMessage(Throwable[] causes) {
+        for (Throwable cause : causes) {
+            if (cause != null) {
+                return cause.getMessage();
+            }
+        }
+        return null;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static SyncEntry parse(String member) {
+        String[] parts = member.split(":", 5);
+        if (parts.length != 5) {
+            log.warn("Skipping malformed inbox entry: {}", member);
+            return null;
+        }
+        try {
+            return new SyncEntry(Long.parseLong(parts[0]), Byte.parseByte(parts[1]), Byte.parseByte(parts[2]),
+                    Long.parseLong(parts[3]), Base64.getDecoder().decode(parts[4]));
+        } catch (IllegalArgumentException e) {
+            log.warn("Skipping malformed inbox entry: {}", member);
+            return null;
+        }
+    }
+
+    private record PendingEntry(String userId, String body) {
+    }
+}
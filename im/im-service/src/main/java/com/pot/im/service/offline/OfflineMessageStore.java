@@ -0,0 +1,18 @@
+package com.pot.im.service.offline;
+
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+
+/**
+ * Holds messages for users that cannot receive them right now.
+ */
+public interface OfflineMessageStore {
+
+    /**
+     * Stores a message for later delivery. May be called on an event loop, so
+     * implementations must not block; the caller keeps ownership of {@code message}
+     * and may release it as soon as this returns.
+     *
+     * @return {@code false} if the message was not accepted
+     */
+    boolean store(String userId, ProtocolMessage message);
+}
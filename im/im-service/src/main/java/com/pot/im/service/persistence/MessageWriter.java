@@ -0,0 +1,48 @@
+package com.pot.im.service.persistence;
+
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.entity.Message;
+import com.pot.im.service.mapper.MessageMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Appends chat messages to {@code im_message} through a {@link WriteBehindBatcher}, so
+ * concurrent sends share one multi-row insert instead of one round trip each.
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageWriter {
+
+    private final MessageMapper messageMapper;
+    private final MessageConfig config;
+
+    private WriteBehindBatcher<Message> batcher;
+
+    @PostConstruct
+    public void init() {
+        batcher = new WriteBehindBatcher<>("im-message-writer",
+                config.getPersistBatchSize(), config.getPersistFlushIntervalMillis(),
+                config.getPersistQueueCapacity(), messageMapper::insertBatch);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batcher.close();
+    }
+
+    /**
+     * Completes once the message is committed.
+     */
+    public CompletableFuture<Void> append(Message message) {
+        return batcher.submit(message);
+    }
+
+    public WriteBehindBatcher.BatcherStats stats() {
+        return batcher.stats();
+    }
+}
@@ -0,0 +1,181 @@
+package com.pot.im.service.persistence;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Group-commits items on a dedicated thread: a batch is written once it reaches
+ * {@code batchSize} items or its first item has waited {@code flushIntervalMillis}.
+ * <p>
+ * Each {@link #submit} returns a future that completes when the batch holding the item
+ * has been written, or fails with the sink's exception, so callers can acknowledge
+ * only what is durable. A sink that can tell which items of a batch failed throws
+ * {@link BatchWriteException} so only those futures fail. Items are written in
+ * submission order. Futures complete on the flusher thread; keep continuations short.
+ */
+@Slf4j
+public class WriteBehindBatcher<T> implements AutoCloseable {
+
+    private final String name;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Consumer<List<T>> sink;
+    private final BlockingQueue<Entry<T>> queue;
+    private final Thread flusher;
+    private final LongAdder flushedBatches = new LongAdder();
+    private final LongAdder flushedItems = new LongAdder();
+    private final LongAdder failedItems = new LongAdder();
+    private volatile boolean running = true;
+
+    public WriteBehindBatcher(String name, int batchSize, long flushIntervalMillis, int capacity,
+                              Consumer<List<T>> sink) {
+        this.name = name;
+        this.batchSize = Math.max(batchSize, 1);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(flushIntervalMillis, 1));
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.flusher = new DefaultThreadFactory(name, true).newThread(this::run);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues an item; the returned future fails with {@link RejectedExecutionException}
+     * if the queue is full or the batcher is closed.
+     */
+    public CompletableFuture<Void> submit(T item) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!running || !queue.offer(new Entry<>(item, future))) {
+            future.completeExceptionally(new RejectedExecutionException(name + " write-behind queue is full"));
+        }
+        return future;
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    public BatcherStats stats() {
+        return new BatcherStats(queue.size(), flushedBatches.sum(), flushedItems.sum(), failedItems.sum());
+    }
+
+    /**
+     * Stops accepting items and writes what is already queued.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Entry<T>> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<Entry<T>> batch) throws InterruptedException {
+        if (!running) {
+            queue.drainTo(batch, batchSize);
+            return;
+        }
+        Entry<T> first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Entry<T> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Entry<T>> batch) {
+        List<T> items = new ArrayList<>(batch.size());
+        for (Entry<T> entry : batch) {
+            items.add(entry.item());
+        }
+        try {
+            sink.accept(items);
+            flushedBatches.increment();
+            flushedItems.add(items.size());
+            batch.forEach(entry -> entry.future().complete(null));
+        } catch (BatchWriteException e) {
+            flushedBatches.increment();
+            for (int i = 0; i < batch.size(); i++) {
+                Throwable cause = e.causeOf(i);
+                if (cause == null) {
+                    flushedItems.increment();
+                    batch.get(i).future().complete(null);
+                } else {
+                    failedItems.increment();
+                    batch.get(i).future().completeExceptionally(cause);
+                }
+            }
+        } catch (Exception e) {
+            failedItems.add(items.size());
+            log.error("{} failed to write batch of {} item(s)", name, items.size(), e);
+            batch.forEach(entry -> entry.future().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Thrown by a sink when only some items of a batch failed; the others count as written.
+     */
+    public static class BatchWriteException extends RuntimeException {
+
+        private final Throwable[] causes;
+
+        /**
+         * @param causes aligned with the batch's items; {@code null} for items that were written
+         */
+        public BatchWriteException(String message, Throwable[] causes) {
+            super(message);
+            this.causes = causes;
+        }
+
+        Throwable causeOf(int index) {
+            return index < causes.length ? causes[index] : null;
+        }
+    }
+
+    private record Entry<T>(T item, CompletableFuture<Void> future) {
+    }
+
+    public record BatcherStats(int queued, long flushedBatches, long flushedItems, long failedItems) {
+    }
+}
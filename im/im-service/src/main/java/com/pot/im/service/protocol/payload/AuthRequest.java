@@ -0,0 +1,16 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payload of {@code AUTH_REQUEST}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthRequest {
+    private String userId;
+    private String token;
+}
@@ -0,0 +1,16 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payload of {@code AUTH_RESPONSE}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthResponse {
+    private boolean success;
+    private String message;
+}
@@ -0,0 +1,29 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A stored chat message as pushed to its recipients.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessage {
+    private Long messageId;
+    private Long conversationId;
+    private Long senderId;
+    private Long receiverId;
+    private Long groupId;
+    private Integer messageType;
+    private String content;
+    private String extraData;
+    private Long replyToMessageId;
+    private List<Long> atUsers;
+    private long timestamp;
+}
@@ -0,0 +1,20 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payload of {@code CLUSTER_HELLO}, the first frame a node sends on a link. The
+ * MAC is an HMAC-SHA256 over node id, timestamp and nonce keyed with the
+ * cluster's shared secret.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterHello {
+    private String nodeId;
+    private long timestamp;
+    private String nonce;
+    private byte[] mac;
+}
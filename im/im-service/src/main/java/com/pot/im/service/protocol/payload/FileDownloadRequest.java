@@ -0,0 +1,16 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.Data;
+
+/**
+ * Payload of {@code FILE_DOWNLOAD_REQUEST}: bytes {@code [offset, offset + length)} of the
+ * file, or to its end if {@code length} is {@code null}. With {@code thumbnail} set the
+ * range refers to the file's thumbnail instead.
+ */
+@Data
+public class FileDownloadRequest {
+    private Long fileId;
+    private long offset;
+    private Long length;
+    private boolean thumbnail;
+}
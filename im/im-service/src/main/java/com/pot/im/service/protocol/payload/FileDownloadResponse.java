@@ -0,0 +1,21 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Payload of {@code FILE_DOWNLOAD_RESPONSE}, sent before the {@code FILE_DOWNLOAD_CHUNK}
+ * frames of the requested range.
+ */
+@Data
+@Builder
+public class FileDownloadResponse {
+    private Long fileId;
+    private boolean success;
+    private String reason;
+    private long offset;
+    private long length;
+    private long fileSize;
+    private String mimeType;
+    private String fileHash;
+}
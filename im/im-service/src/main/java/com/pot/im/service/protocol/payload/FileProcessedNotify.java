@@ -0,0 +1,22 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payload of {@code FILE_PROCESSED}, pushed to the uploader once post-processing of
+ * {@code fileId} finished. The thumbnail, if any, is fetched with a
+ * {@code FILE_DOWNLOAD_REQUEST} that sets {@code thumbnail}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileProcessedNotify {
+    private long fileId;
+    private boolean success;
+    private boolean thumbnail;
+    private Integer width;
+    private Integer height;
+    private Integer duration;
+}
@@ -0,0 +1,19 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.Data;
+
+/**
+ * Payload of {@code FILE_UPLOAD_REQUEST}: starts an upload, or resumes the one named by
+ * {@code fileId}, in which case only that field is read.
+ */
+@Data
+public class FileUploadRequest {
+    private Long fileId;
+    private String originalName;
+    private Long fileSize;
+    private String mimeType;
+    /**
+     * SHA-256 of the whole file, hex; optional, checked once the upload completes.
+     */
+    private String fileHash;
+}
@@ -0,0 +1,23 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Payload of {@code FILE_UPLOAD_RESPONSE}, sent for every request and every chunk.
+ * <p>
+ * {@code offset} is how many bytes are stored; the client sends the next chunk from
+ * there and keeps at most {@code windowChunks} chunks unacknowledged.
+ */
+@Data
+@Builder
+public class FileUploadResponse {
+    private Long fileId;
+    private boolean success;
+    private String reason;
+    private long offset;
+    private int chunkSize;
+    private int windowChunks;
+    private boolean complete;
+    private String fileHash;
+}
@@ -0,0 +1,18 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Payload of {@code CLUSTER_FORWARD}: envelopes batched on a node-to-node link.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForwardBatch {
+    private String sourceNodeId;
+    private List<ForwardEnvelope> envelopes;
+}
@@ -0,0 +1,48 @@
+package com.pot.im.service.protocol.payload;
+
+import com.pot.im.service.protocol.serializer.ProtocolHeader;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A client frame forwarded to the IM node that holds the recipient's connection.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForwardEnvelope {
+    private String userId;
+    private byte msgType;
+    private byte flags;
+    private byte reserved;
+    private long sequence;
+    private long timestamp;
+    private byte[] data;
+
+    public static ForwardEnvelope of(String userId, ProtocolMessage message) {
+        ProtocolHeader header = message.getHeader();
+        return new ForwardEnvelope(userId, header.getMsgType(), header.getFlags(), header.getReserved(),
+                header.getSequence(), header.getTimestamp(), message.getData());
+    }
+
+    /**
+     * Returns a copy addressed to {@code userId}; the payload array is shared.
+     */
+    public ForwardEnvelope forUser(String userId) {
+        return new ForwardEnvelope(userId, msgType, flags, reserved, sequence, timestamp, data);
+    }
+
+    public ProtocolMessage toMessage() {
+        ProtocolMessage message = new ProtocolMessage();
+        ProtocolHeader header = message.getHeader();
+        header.setMsgType(msgType);
+        header.setFlags(flags);
+        header.setReserved(reserved);
+        header.setSequence(sequence);
+        header.setTimestamp(timestamp);
+        message.setData(data != null ? data : new byte[0]);
+        return message;
+    }
+}
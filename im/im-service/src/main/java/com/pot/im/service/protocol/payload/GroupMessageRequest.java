@@ -0,0 +1,28 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Payload of {@code GROUP_MESSAGE} sent by a client.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupMessageRequest {
+    private String clientMsgId;
+    private Long groupId;
+    private Integer messageType;
+    private String content;
+    private String extraData;
+    private Long replyToMessageId;
+    private List<Long> atUsers;
+    /**
+     * Stored file the message carries, also referenced from {@code extraData}; sending it lets
+     * the recipients download it. The sender must be allowed to read the file.
+     */
+    private Long fileId;
+}
@@ -0,0 +1,26 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Server acknowledgement of a client send ({@code PRIVATE_MESSAGE_ACK}, {@code GROUP_MESSAGE_ACK}).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageAck {
+    private String clientMsgId;
+    private boolean success;
+    private String reason;
+    private Long messageId;
+    private Long conversationId;
+    /**
+     * Server-assigned order of the message; message ids are allocated monotonically.
+     */
+    private Long serverSeq;
+    private long timestamp;
+}
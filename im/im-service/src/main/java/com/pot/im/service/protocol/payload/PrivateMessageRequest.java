@@ -0,0 +1,29 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payload of {@code PRIVATE_MESSAGE} sent by a client. The sender is the
+ * authenticated user of the connection, never a field of the request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrivateMessageRequest {
+    /**
+     * Client-generated id echoed in the ACK so the client can match it to its outbox.
+     */
+    private String clientMsgId;
+    private Long receiverId;
+    private Integer messageType;
+    private String content;
+    private String extraData;
+    private Long replyToMessageId;
+    /**
+     * Stored file the message carries, also referenced from {@code extraData}; sending it lets
+     * the recipients download it. The sender must be allowed to read the file.
+     */
+    private Long fileId;
+}
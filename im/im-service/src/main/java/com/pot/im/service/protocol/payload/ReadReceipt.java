@@ -0,0 +1,18 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payload of {@code READ_RECEIPT}: the sender has read the conversation with
+ * {@code peerId}, or of {@code groupId}, up to and including {@code messageId}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadReceipt {
+    private Long peerId;
+    private Long groupId;
+    private long messageId;
+}
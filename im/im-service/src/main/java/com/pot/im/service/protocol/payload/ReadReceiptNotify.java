@@ -0,0 +1,19 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payload of {@code READ_RECEIPT_NOTIFY}: {@code userId} has read the private
+ * conversation up to {@code messageId}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadReceiptNotify {
+    private long conversationId;
+    private long userId;
+    private long messageId;
+    private long readAt;
+}
@@ -0,0 +1,15 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payload of {@code SYNC_ACK}: inbox entries up to and including {@code seq} were received.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncAck {
+    private long seq;
+}
@@ -0,0 +1,19 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One stored frame of a user's offline inbox, replayed as it would have been pushed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncEntry {
+    private long seq;
+    private byte msgType;
+    private byte serializerType;
+    private long timestamp;
+    private byte[] data;
+}
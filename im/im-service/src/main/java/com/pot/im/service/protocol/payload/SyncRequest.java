@@ -0,0 +1,16 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payload of {@code SYNC_REQUEST}: everything after {@code lastSeq} is requested, and
+ * everything up to it is acknowledged.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncRequest {
+    private long lastSeq;
+}
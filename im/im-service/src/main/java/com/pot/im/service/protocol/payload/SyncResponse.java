@@ -0,0 +1,25 @@
+package com.pot.im.service.protocol.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Payload of {@code SYNC_RESPONSE}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponse {
+    private List<SyncEntry> entries;
+    /**
+     * More entries are waiting; request again from the last {@code seq} received.
+     */
+    private boolean hasMore;
+    /**
+     * Entries after the requested sequence were trimmed from the inbox; fetch history to fill the gap.
+     */
+    private boolean truncated;
+}
@@ -0,0 +1,104 @@
+package com.pot.im.service.protocol.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCounted;
+
+import java.util.Objects;
+
+/**
+ * {@link ProtocolMessage} whose payload is a retained slice of the inbound buffer.
+ * <p>
+ * Processors should read {@link #content()} directly; {@link #getData()} is kept
+ * for legacy callers and copies the payload on first access. {@link #setData} swaps
+ * in a heap-backed payload.
+ */
+public class ByteBufProtocolMessage extends ProtocolMessage implements ReferenceCounted {
+
+    private ByteBuf content;
+
+    public ByteBufProtocolMessage(ProtocolHeader header, ByteBuf content) {
+        Objects.requireNonNull(header, "Header cannot be null");
+        this.content = Objects.requireNonNull(content, "Content cannot be null");
+        setHeader(header);
+    }
+
+    public ByteBuf content() {
+        if (content.refCnt() <= 0) {
+            throw new IllegalStateException("Payload has already been released");
+        }
+        return content;
+    }
+
+    @Override
+    public byte[] getData() {
+        byte[] data = super.getData();
+        if (data == null) {
+            data = ByteBufUtil.getBytes(content(), content.readerIndex(), content.readableBytes(), false);
+            super.setData(data);
+        }
+        return data;
+    }
+
+    /**
+     * Replaces the payload with {@code data}. The new payload takes over the reference
+     * count of the old one, which is released, so retains taken earlier stay balanced.
+     */
+    @Override
+    public void setData(byte[] data) {
+        ByteBuf old = content();
+        int refs = old.refCnt();
+        ByteBuf replacement = data != null && data.length > 0 ? Unpooled.wrappedBuffer(data) : Unpooled.buffer(0);
+        if (refs > 1) {
+            replacement.retain(refs - 1);
+        }
+        content = replacement;
+        super.setData(data != null ? data : new byte[0]);
+        old.release(refs);
+    }
+
+    @Override
+    public String toString() {
+        return "ByteBufProtocolMessage(header=" + getHeader() + ", content=" + content + ")";
+    }
+
+    @Override
+    public int refCnt() {
+        return content.refCnt();
+    }
+
+    @Override
+    public ByteBufProtocolMessage retain() {
+        content.retain();
+        return this;
+    }
+
+    @Override
+    public ByteBufProtocolMessage retain(int increment) {
+        content.retain(increment);
+        return this;
+    }
+
+    @Override
+    public ByteBufProtocolMessage touch() {
+        content.touch();
+        return this;
+    }
+
+    @Override
+    public ByteBufProtocolMessage touch(Object hint) {
+        content.touch(hint);
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return content.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return content.release(decrement);
+    }
+}
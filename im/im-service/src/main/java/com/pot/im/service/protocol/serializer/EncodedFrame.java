@@ -0,0 +1,69 @@
+package com.pot.im.service.protocol.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+
+/**
+ * A fully encoded frame (header and payload) that is written as-is.
+ * <p>
+ * Used to serialize a message once and share it between many channels: each
+ * channel gets a {@link #retainedDuplicate()}, so the bytes are never copied.
+ * The priority keeps the frame schedulable by the priority write stage.
+ */
+public class EncodedFrame extends DefaultByteBufHolder {
+
+    private final MessagePriority priority;
+
+    public EncodedFrame(ByteBuf content, MessagePriority priority) {
+        super(content);
+        this.priority = priority;
+    }
+
+    public MessagePriority priority() {
+        return priority;
+    }
+
+    @Override
+    public EncodedFrame copy() {
+        return replace(content().copy());
+    }
+
+    @Override
+    public EncodedFrame duplicate() {
+        return replace(content().duplicate());
+    }
+
+    @Override
+    public EncodedFrame retainedDuplicate() {
+        return replace(content().retainedDuplicate());
+    }
+
+    @Override
+    public EncodedFrame replace(ByteBuf content) {
+        return new EncodedFrame(content, priority);
+    }
+
+    @Override
+    public EncodedFrame retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public EncodedFrame retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public EncodedFrame touch() {
+        super.touch();
+        return this;
+    }
+
+    @Override
+    public EncodedFrame touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+}
@@ -0,0 +1,223 @@
+package com.pot.im.service.protocol.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits large outbound payloads into bounded fragments and reassembles inbound
+ * fragments per sequence.
+ * <p>
+ * Every fragment carries the fragmented flag and an 8-byte prefix of
+ * {@code totalLength, offset}. Fragments of one sequence arrive in order on a
+ * connection but may interleave with other sequences. Reassembly keeps retained
+ * slices of the inbound buffers in a composite, reserves the declared total up
+ * front against a per-connection budget, and drops sets that are oversized,
+ * over budget, out of order or idle past the timeout. Idle sets are swept lazily
+ * when the next fragment arrives, at most every half timeout, rather than by a
+ * timer per connection; what an idle connection holds is bounded by the budget and
+ * released when the channel closes.
+ * <p>
+ * One instance per channel; all state is confined to the channel's event loop.
+ */
+@Slf4j
+public class FragmentationCodec extends MessageToMessageCodec<ProtocolMessage, ProtocolMessage> {
+
+    static final int FRAGMENT_PREFIX = 2 * Integer.BYTES;
+    private static final int MAX_COMPONENTS = 1024;
+
+    private final int fragmentSize;
+    private final int maxMessageLength;
+    private final long maxReassemblyBytes;
+    private final long timeoutMillis;
+
+    private final Map<Long, Reassembly> inFlight = new HashMap<>();
+    private final long sweepIntervalNanos;
+    private long reservedBytes;
+    private long lastSweepNanos = System.nanoTime();
+
+    /**
+     * @param fragmentSize       maximum payload bytes per outbound fragment (excluding the prefix)
+     * @param maxMessageLength   largest reassembled payload accepted
+     * @param maxReassemblyBytes in-flight reassembly budget for the connection
+     * @param timeoutMillis      a fragment set idle for longer than this is dropped
+     */
+    public FragmentationCodec(int fragmentSize, int maxMessageLength, long maxReassemblyBytes, long timeoutMillis) {
+        if (fragmentSize <= 0) {
+            throw new IllegalArgumentException("fragmentSize must be positive: " + fragmentSize);
+        }
+        this.fragmentSize = fragmentSize;
+        this.maxMessageLength = maxMessageLength;
+        this.maxReassemblyBytes = maxReassemblyBytes;
+        this.timeoutMillis = timeoutMillis;
+        this.sweepIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(timeoutMillis / 2, 1));
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        inFlight.values().forEach(Reassembly::release);
+        inFlight.clear();
+        reservedBytes = 0;
+        super.handlerRemoved(ctx);
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ProtocolMessage msg, List<Object> out) {
+        ByteBuf payload = payloadOf(msg);
+        int total = payload.readableBytes();
+        if (total <= fragmentSize || msg.getHeader().isFragmented()) {
+            out.add(ReferenceCountUtil.retain(msg));
+            return;
+        }
+        for (int offset = 0; offset < total; offset += fragmentSize) {
+            int length = Math.min(fragmentSize, total - offset);
+            ByteBuf prefix = ctx.alloc().buffer(FRAGMENT_PREFIX);
+            prefix.writeInt(total).writeInt(offset);
+
+            CompositeByteBuf content = ctx.alloc().compositeBuffer(2);
+            content.addComponents(true, prefix, payload.retainedSlice(payload.readerIndex() + offset, length));
+
+            ProtocolHeader header = msg.getHeader().copy();
+            header.setFragmented(true);
+            out.add(new ByteBufProtocolMessage(header, content));
+        }
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ProtocolMessage msg, List<Object> out) {
+        if (!msg.getHeader().isFragmented()) {
+            out.add(ReferenceCountUtil.retain(msg));
+            return;
+        }
+        ByteBuf content = payloadOf(msg);
+        if (content.readableBytes() < FRAGMENT_PREFIX) {
+            log.warn("Dropping fragment without prefix, sequence {}", msg.getHeader().getSequence());
+            return;
+        }
+        long now = System.nanoTime();
+        if (!inFlight.isEmpty() && now - lastSweepNanos >= sweepIntervalNanos) {
+            expireStale(now);
+        }
+        long sequence = msg.getHeader().getSequence();
+        int total = content.getInt(content.readerIndex());
+        int offset = content.getInt(content.readerIndex() + Integer.BYTES);
+        ByteBuf chunk = content.slice(content.readerIndex() + FRAGMENT_PREFIX, content.readableBytes() - FRAGMENT_PREFIX);
+
+        Reassembly reassembly = inFlight.get(sequence);
+        if (reassembly == null) {
+            if (offset != 0) {
+                // Remainder of a set that was already dropped.
+                return;
+            }
+            reassembly = start(ctx, msg.getHeader(), total);
+            if (reassembly == null) {
+                return;
+            }
+        }
+        if (offset != reassembly.received || total != reassembly.total
+                || reassembly.received + chunk.readableBytes() > total) {
+            log.warn("Dropping out-of-order fragment set, sequence {} offset {} expected {}",
+                    sequence, offset, reassembly.received);
+            drop(sequence);
+            return;
+        }
+
+        reassembly.append(chunk.retain());
+        if (reassembly.received == total) {
+            inFlight.remove(sequence);
+            reservedBytes -= total;
+            ProtocolHeader header = reassembly.header;
+            header.setFragmented(false);
+            header.setLength(total);
+            out.add(new ByteBufProtocolMessage(header, reassembly.content));
+        }
+    }
+
+    private Reassembly start(ChannelHandlerContext ctx, ProtocolHeader header, int total) {
+        if (total <= 0 || total > maxMessageLength) {
+            log.warn("Dropping oversized fragment set from {}, sequence {} length {}",
+                    ctx.channel().remoteAddress(), header.getSequence(), total);
+            return null;
+        }
+        if (reservedBytes + total > maxReassemblyBytes) {
+            expireStale(System.nanoTime());
+        }
+        if (reservedBytes + total > maxReassemblyBytes) {
+            log.warn("Reassembly budget exhausted for {}, dropping sequence {} ({} of {} bytes in flight)",
+                    ctx.channel().remoteAddress(), header.getSequence(), reservedBytes, maxReassemblyBytes);
+            return null;
+        }
+        Reassembly reassembly = new Reassembly(header.copy(), total,
+                ctx.alloc().compositeBuffer(MAX_COMPONENTS));
+        inFlight.put(header.getSequence(), reassembly);
+        reservedBytes += total;
+        return reassembly;
+    }
+
+    private void drop(long sequence) {
+        Reassembly reassembly = inFlight.remove(sequence);
+        if (reassembly != null) {
+            reservedBytes -= reassembly.total;
+            reassembly.release();
+        }
+    }
+
+    private void expireStale(long now) {
+        lastSweepNanos = now;
+        long deadline = now - TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Iterator<Map.Entry<Long, Reassembly>> iterator = inFlight.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Reassembly> entry = iterator.next();
+            Reassembly reassembly = entry.getValue();
+            if (reassembly.lastUpdateNanos - deadline < 0) {
+                iterator.remove();
+                reservedBytes -= reassembly.total;
+                reassembly.release();
+                log.warn("Dropping abandoned fragment set, sequence {} ({} of {} bytes)",
+                        entry.getKey(), reassembly.received, reassembly.total);
+            }
+        }
+    }
+
+    private static ByteBuf payloadOf(ProtocolMessage msg) {
+        if (msg instanceof ByteBufProtocolMessage bufMessage) {
+            return bufMessage.content();
+        }
+        byte[] data = msg.getData();
+        return data == null ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(data);
+    }
+
+    private static final class Reassembly {
+        private final ProtocolHeader header;
+        private final int total;
+        private final CompositeByteBuf content;
+        private int received;
+        private long lastUpdateNanos = System.nanoTime();
+
+        private Reassembly(ProtocolHeader header, int total, CompositeByteBuf content) {
+            this.header = header;
+            this.total = total;
+            this.content = content;
+        }
+
+        private void append(ByteBuf chunk) {
+            content.addComponent(true, chunk);
+            received += chunk.readableBytes();
+            lastUpdateNanos = System.nanoTime();
+        }
+
+        private void release() {
+            content.release();
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.pot.im.service.protocol.serializer;
 
 import com.pot.zing.framework.common.util.JacksonUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+
+import java.io.InputStream;
 
 public class JsonSerializer implements Serializer {
 
@@ -18,4 +22,15 @@ public class JsonSerializer implements Serializer {
     public <T> T deserialize(byte[] data, Class<T> clazz) throws Exception {
         return JacksonUtils.toObject(data, clazz);
     }
+
+    @Override
+    public <T> T deserialize(ByteBuf data, Class<T> clazz) throws Exception {
+        if (data.hasArray()) {
+            return JacksonUtils.getMapper().readValue(
+                    data.array(), data.arrayOffset() + data.readerIndex(), data.readableBytes(), clazz);
+        }
+        try (InputStream in = new ByteBufInputStream(data.duplicate())) {
+            return JacksonUtils.getMapper().readValue(in, clazz);
+        }
+    }
 }
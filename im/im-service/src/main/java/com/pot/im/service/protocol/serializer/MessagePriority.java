@@ -0,0 +1,25 @@
+package com.pot.im.service.protocol.serializer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outbound scheduling priority carried in the two priority bits of
+ * {@link ProtocolHeader#getFlags()}. Higher levels are written first.
+ */
+@AllArgsConstructor
+@Getter
+public enum MessagePriority {
+    BULK((byte) 0),
+    NORMAL((byte) 1),
+    HIGH((byte) 2),
+    CRITICAL((byte) 3);
+
+    private static final MessagePriority[] BY_LEVEL = values();
+
+    private final byte level;
+
+    public static MessagePriority fromLevel(byte level) {
+        return BY_LEVEL[level & 0x03];
+    }
+}
@@ -27,17 +27,51 @@ public enum MessageType {
     FILE_UPLOAD_RESPONSE((byte) 0x51),
     FILE_DOWNLOAD_REQUEST((byte) 0x52),
     FILE_DOWNLOAD_RESPONSE((byte) 0x53),
+    FILE_UPLOAD_CHUNK((byte) 0x54),
+    FILE_DOWNLOAD_CHUNK((byte) 0x55),
+    FILE_PROCESSED((byte) 0x56),
+
+    CLUSTER_FORWARD((byte) 0x60),
+    CLUSTER_HELLO((byte) 0x61),
+
+    SYNC_REQUEST((byte) 0x70),
+    SYNC_RESPONSE((byte) 0x71),
+    SYNC_ACK((byte) 0x72),
+
+    READ_RECEIPT((byte) 0x80),
+    READ_RECEIPT_NOTIFY((byte) 0x81),
 
     ERROR((byte) 0xFF);
 
     private final byte code;
 
-    public static MessageType fromCode(byte code) {
+    private static final MessageType[] BY_CODE = new MessageType[256];
+
+    static {
         for (MessageType type : values()) {
-            if (type.code == code) {
-                return type;
-            }
+            BY_CODE[type.code & 0xFF] = type;
+        }
+    }
+
+    /**
+     * Unsigned table index of this type's wire code.
+     */
+    public int index() {
+        return code & 0xFF;
+    }
+
+    /**
+     * Table lookup for the hot path; returns {@code null} for unknown codes instead of throwing.
+     */
+    public static MessageType lookup(byte code) {
+        return BY_CODE[code & 0xFF];
+    }
+
+    public static MessageType fromCode(byte code) {
+        MessageType type = BY_CODE[code & 0xFF];
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown message type: " + code);
         }
-        throw new IllegalArgumentException("Unknown message type: " + code);
+        return type;
     }
 }
@@ -0,0 +1,42 @@
+package com.pot.im.service.protocol.serializer;
+
+/**
+ * Converts between payload objects and {@link ProtocolMessage}s using the
+ * serializer negotiated in each frame header.
+ */
+public final class PayloadCodec {
+
+    private PayloadCodec() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Reads the payload of {@code message} with the serializer named in its header.
+     */
+    public static <T> T decode(ProtocolMessage message, Class<T> type) throws Exception {
+        Serializer serializer = SerializerFactory.getSerializer(message.getHeader());
+        if (message instanceof ByteBufProtocolMessage bufMessage) {
+            return serializer.deserialize(bufMessage.content(), type);
+        }
+        return serializer.deserialize(message.getData(), type);
+    }
+
+    public static ProtocolMessage encode(MessageType messageType, Object payload, SerializerType serializerType)
+            throws Exception {
+        ProtocolMessage message = new ProtocolMessage(messageType,
+                SerializerFactory.getSerializer(serializerType).serialize(payload));
+        message.getHeader().setSerializerType(serializerType);
+        return message;
+    }
+
+    /**
+     * Builds a response that echoes the request sequence and answers in the
+     * serializer the client used.
+     */
+    public static ProtocolMessage reply(ProtocolMessage request, MessageType messageType, Object payload)
+            throws Exception {
+        ProtocolMessage response = encode(messageType, payload, request.getHeader().getSerializerType());
+        response.getHeader().setSequence(request.getHeader().getSequence());
+        return response;
+    }
+}
@@ -0,0 +1,244 @@
+package com.pot.im.service.protocol.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.ReferenceCountUtil;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflates outbound payloads above a size threshold and inflates inbound frames
+ * that carry the compressed flag.
+ * <p>
+ * A compressed payload is the original length (int) followed by raw deflate
+ * data. Output goes to pooled buffers.
+ * <p>
+ * {@link #compress} also runs on business and virtual threads (broadcasts are
+ * pre-encoded off the event loop), so Deflater/Inflater instances come from a
+ * small bounded pool shared by all callers rather than from thread locals. An
+ * instance that does not fit back into its pool is {@code end()}ed at once, so
+ * short-lived threads never leave native zlib streams waiting for GC.
+ */
+@ChannelHandler.Sharable
+public class PayloadCompressionCodec extends MessageToMessageCodec<ProtocolMessage, ProtocolMessage>
+        implements AutoCloseable {
+
+    private static final int LENGTH_FIELD = Integer.BYTES;
+
+    private final int threshold;
+    private final int level;
+    private final int maxDecompressedLength;
+    private final BlockingQueue<Deflater> deflaters;
+    private final BlockingQueue<Inflater> inflaters;
+    private volatile boolean closed;
+
+    /**
+     * @param threshold             payloads shorter than this are sent as-is; {@code <= 0} disables compression
+     * @param level                 deflate level (0-9)
+     * @param maxDecompressedLength upper bound accepted for an inflated inbound payload
+     */
+    public PayloadCompressionCodec(int threshold, int level, int maxDecompressedLength) {
+        this(threshold, level, maxDecompressedLength, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * @param poolSize idle Deflaters and Inflaters kept for reuse, each
+     */
+    public PayloadCompressionCodec(int threshold, int level, int maxDecompressedLength, int poolSize) {
+        this.threshold = threshold;
+        this.level = level;
+        this.maxDecompressedLength = maxDecompressedLength;
+        this.deflaters = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        this.inflaters = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+    }
+
+    /**
+     * Ends the pooled zlib streams. Instances in use are ended when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
+        Inflater inflater;
+        while ((inflater = inflaters.poll()) != null) {
+            inflater.end();
+        }
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ProtocolMessage msg, List<Object> out) {
+        ProtocolMessage compressed = compress(ctx.alloc(), msg);
+        out.add(compressed != null ? compressed : ReferenceCountUtil.retain(msg));
+    }
+
+    /**
+     * Returns a compressed copy of {@code msg}, or {@code null} when it is below the
+     * threshold or does not shrink. The caller keeps ownership of {@code msg}.
+     */
+    public ProtocolMessage compress(ByteBufAllocator alloc, ProtocolMessage msg) {
+        ByteBuf compressed = shouldCompress(msg) ? deflate(alloc, msg) : null;
+        if (compressed == null) {
+            return null;
+        }
+        ProtocolHeader header = msg.getHeader().copy();
+        header.setCompressed(true);
+        return new ByteBufProtocolMessage(header, compressed);
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ProtocolMessage msg, List<Object> out) throws Exception {
+        if (!msg.getHeader().isCompressed()) {
+            out.add(ReferenceCountUtil.retain(msg));
+            return;
+        }
+        ProtocolHeader header = msg.getHeader().copy();
+        header.setCompressed(false);
+        ByteBuf inflated = decompress(ctx, payloadOf(msg));
+        header.setLength(inflated.readableBytes());
+        out.add(new ByteBufProtocolMessage(header, inflated));
+    }
+
+    private boolean shouldCompress(ProtocolMessage msg) {
+        ProtocolHeader header = msg.getHeader();
+        return threshold > 0
+                && !header.isCompressed()
+                && !header.isFragmented()
+                && payloadLength(msg) >= Math.max(threshold, LENGTH_FIELD + 1);
+    }
+
+    /**
+     * Returns the compressed payload, or {@code null} when deflating does not make
+     * it smaller.
+     */
+    private ByteBuf deflate(ByteBufAllocator alloc, ProtocolMessage msg) {
+        int length = payloadLength(msg);
+        ByteBuf compressed = alloc.buffer(length);
+        try {
+            compressed.writeInt(length);
+            ByteBuffer target = compressed.nioBuffer(LENGTH_FIELD, length - LENGTH_FIELD);
+
+            Deflater deflater = acquireDeflater();
+            try {
+                deflater.setInput(sourceOf(msg));
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflater.deflate(target);
+                    if (!target.hasRemaining() && !deflater.finished()) {
+                        compressed.release();
+                        return null;
+                    }
+                }
+            } finally {
+                releaseDeflater(deflater);
+            }
+            compressed.writerIndex(LENGTH_FIELD + target.position());
+            return compressed;
+        } catch (RuntimeException e) {
+            compressed.release();
+            throw e;
+        }
+    }
+
+    private ByteBuf decompress(ChannelHandlerContext ctx, ByteBuf payload) throws DataFormatException {
+        if (payload.readableBytes() < LENGTH_FIELD) {
+            throw new CorruptedFrameException("Compressed payload is missing its length prefix");
+        }
+        int length = payload.getInt(payload.readerIndex());
+        if (length < 0 || length > maxDecompressedLength) {
+            throw new TooLongFrameException("Decompressed payload length " + length
+                    + " exceeds limit " + maxDecompressedLength);
+        }
+        // One spare byte lets the inflater reach the end-of-stream marker and
+        // exposes payloads that inflate past their declared length.
+        ByteBuf inflated = ctx.alloc().buffer(length + 1);
+        try {
+            ByteBuffer target = inflated.nioBuffer(0, length + 1);
+            Inflater inflater = acquireInflater();
+            boolean finished;
+            try {
+                inflater.setInput(payload.nioBuffer(payload.readerIndex() + LENGTH_FIELD,
+                        payload.readableBytes() - LENGTH_FIELD));
+                while (!inflater.finished()) {
+                    if (inflater.inflate(target) == 0 && !inflater.finished()) {
+                        break;
+                    }
+                }
+                finished = inflater.finished();
+            } finally {
+                releaseInflater(inflater);
+            }
+            if (!finished || target.position() != length) {
+                throw new CorruptedFrameException("Compressed payload does not match its declared length " + length);
+            }
+            inflated.writerIndex(length);
+            return inflated;
+        } catch (DataFormatException | RuntimeException e) {
+            inflated.release();
+            throw e;
+        }
+    }
+
+    private Deflater acquireDeflater() {
+        Deflater deflater = deflaters.poll();
+        return deflater != null ? deflater : new Deflater(level, true);
+    }
+
+    private void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        if (closed || !deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private Inflater acquireInflater() {
+        Inflater inflater = inflaters.poll();
+        return inflater != null ? inflater : new Inflater(true);
+    }
+
+    private void releaseInflater(Inflater inflater) {
+        inflater.reset();
+        if (closed || !inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    int idleDeflaters() {
+        return deflaters.size();
+    }
+
+    private static int payloadLength(ProtocolMessage msg) {
+        if (msg instanceof ByteBufProtocolMessage bufMessage) {
+            return bufMessage.content().readableBytes();
+        }
+        return msg.getData() == null ? 0 : msg.getData().length;
+    }
+
+    private static ByteBuffer sourceOf(ProtocolMessage msg) {
+        if (msg instanceof ByteBufProtocolMessage bufMessage) {
+            return bufMessage.content().nioBuffer();
+        }
+        return ByteBuffer.wrap(msg.getData());
+    }
+
+    private static ByteBuf payloadOf(ProtocolMessage msg) {
+        if (msg instanceof ByteBufProtocolMessage bufMessage) {
+            return bufMessage.content();
+        }
+        return Unpooled.wrappedBuffer(msg.getData());
+    }
+}
@@ -0,0 +1,75 @@
+package com.pot.im.service.protocol.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtobufIOUtil;
+import io.protostuff.Schema;
+import io.protostuff.runtime.RuntimeSchema;
+
+import java.io.InputStream;
+
+/**
+ * Protobuf wire-format serializer for IM payload POJOs.
+ * <p>
+ * Schemas are derived from the payload classes by protostuff and cached, so the
+ * same types work with both JSON and protobuf frames. Field numbers follow the
+ * declaration order; append new fields at the end to stay wire compatible.
+ * <p>
+ * {@link ProtobufIOUtil} writes standard protobuf (nested messages are length
+ * delimited, not protostuff groups), so clients can decode frames with code
+ * generated from {@code proto/im_payload.proto}. Keep that file in step with
+ * the payload classes.
+ */
+public class ProtobufSerializer implements Serializer {
+
+    private static final int BUFFER_SIZE = 512;
+
+    private static final FastThreadLocal<LinkedBuffer> BUFFER = new FastThreadLocal<>() {
+        @Override
+        protected LinkedBuffer initialValue() {
+            return LinkedBuffer.allocate(BUFFER_SIZE);
+        }
+    };
+
+    @Override
+    public byte getType() {
+        return SerializerType.PROTOBUF.getCode();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> byte[] serialize(T obj) throws Exception {
+        Schema<T> schema = RuntimeSchema.getSchema((Class<T>) obj.getClass());
+        LinkedBuffer buffer = BUFFER.get();
+        try {
+            return ProtobufIOUtil.toByteArray(obj, schema, buffer);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] data, Class<T> clazz) throws Exception {
+        Schema<T> schema = RuntimeSchema.getSchema(clazz);
+        T message = schema.newMessage();
+        ProtobufIOUtil.mergeFrom(data, message, schema);
+        return message;
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuf data, Class<T> clazz) throws Exception {
+        Schema<T> schema = RuntimeSchema.getSchema(clazz);
+        T message = schema.newMessage();
+        if (data.hasArray()) {
+            ProtobufIOUtil.mergeFrom(data.array(), data.arrayOffset() + data.readerIndex(),
+                    data.readableBytes(), message, schema);
+        } else {
+            try (InputStream in = new ByteBufInputStream(data.duplicate())) {
+                ProtobufIOUtil.mergeFrom(in, message, schema);
+            }
+        }
+        return message;
+    }
+}
@@ -0,0 +1,44 @@
+package com.pot.im.service.protocol.serializer;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * CRC32 helpers shared by the protocol codecs.
+ */
+public final class ProtocolChecksum {
+
+    private ProtocolChecksum() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    public static int of(byte[] data) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(data);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * Computes the checksum of the readable bytes without copying them or moving
+     * the reader index.
+     */
+    public static int of(ByteBuf data) {
+        CRC32 crc32 = new CRC32();
+        if (data.hasArray()) {
+            crc32.update(data.array(), data.arrayOffset() + data.readerIndex(), data.readableBytes());
+        } else if (data.nioBufferCount() == 1) {
+            crc32.update(data.nioBuffer());
+        } else {
+            for (ByteBuffer buffer : data.nioBuffers()) {
+                crc32.update(buffer);
+            }
+        }
+        return (int) crc32.getValue();
+    }
+
+    public static boolean matches(ProtocolHeader header, ByteBuf data) {
+        return of(data) == header.getCheckSum();
+    }
+}
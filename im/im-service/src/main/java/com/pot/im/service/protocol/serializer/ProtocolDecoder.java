@@ -6,12 +6,47 @@ import io.netty.handler.codec.ByteToMessageDecoder;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
-import java.util.zip.CRC32;
 
+/**
+ * Decodes frames into {@link ByteBufProtocolMessage}s whose payload is a retained
+ * slice of the cumulation buffer, so no bytes are copied on the inbound path.
+ * <p>
+ * Every frame's checksum is verified. Only the client side of a connection may accept
+ * {@link ProtocolHeader#isChecksumOmitted()}, and then only on server-sent
+ * {@code FILE_DOWNLOAD_CHUNK} frames, whose file hash the client checks end to end;
+ * anything else carrying the flag closes the connection.
+ */
 @Slf4j
 public class ProtocolDecoder extends ByteToMessageDecoder {
-    private static final int HEADER_LENGTH = 32;
-    private static final int MAGIC_NUMBER = 0x12345678;
+    private static final int HEADER_LENGTH = ProtocolHeader.HEADER_LENGTH;
+    private static final int MAGIC_NUMBER = ProtocolHeader.MAGIC_NUMBER;
+    private static final int DEFAULT_MAX_FRAME_LENGTH = 8 * 1024 * 1024;
+
+    private final int maxFrameLength;
+    private final boolean acceptStreamedChunks;
+
+    public ProtocolDecoder() {
+        this(DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param maxFrameLength largest payload accepted in a single frame; bigger
+     *                       messages must be sent as fragments
+     */
+    public ProtocolDecoder(int maxFrameLength) {
+        this(maxFrameLength, false);
+    }
+
+    /**
+     * @param maxFrameLength       largest payload accepted in a single frame; bigger
+     *                             messages must be sent as fragments
+     * @param acceptStreamedChunks whether {@code FILE_DOWNLOAD_CHUNK} frames may omit their
+     *                             checksum; only for pipelines that read from a server
+     */
+    public ProtocolDecoder(int maxFrameLength, boolean acceptStreamedChunks) {
+        this.maxFrameLength = maxFrameLength;
+        this.acceptStreamedChunks = acceptStreamedChunks;
+    }
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
@@ -23,6 +58,7 @@ public class ProtocolDecoder extends ByteToMessageDecoder {
         int magicNumber = in.readInt();
         if (magicNumber != MAGIC_NUMBER) {
             log.error("invalid magic number: {}", Integer.toHexString(magicNumber));
+            in.skipBytes(in.readableBytes());
             ctx.close();
             return;
         }
@@ -35,8 +71,15 @@ public class ProtocolDecoder extends ByteToMessageDecoder {
         header.setTimestamp(in.readLong());
         header.setCheckSum(in.readInt());
         header.setLength(in.readInt());
-        if (header.getLength() < 0 || in.readableBytes() < header.getLength()) {
+        if (header.getLength() < 0 || header.getLength() > maxFrameLength) {
             log.error("invalid data length: {}", header.getLength());
+            in.skipBytes(in.readableBytes());
+            ctx.close();
+            return;
+        }
+        if (header.isChecksumOmitted() && !mayOmitChecksum(header)) {
+            log.error("Checksum omitted on frame type {}", header.getMsgType());
+            in.skipBytes(in.readableBytes());
             ctx.close();
             return;
         }
@@ -44,25 +87,19 @@ public class ProtocolDecoder extends ByteToMessageDecoder {
             in.resetReaderIndex();
             return;
         }
-        byte[] data = new byte[header.getLength()];
-        in.readBytes(data);
+        ByteBuf payload = in.readRetainedSlice(header.getLength());
 
-        if (!verifyChecksum(header, data)) {
+        if (!header.isChecksumOmitted() && !ProtocolChecksum.matches(header, payload)) {
+            payload.release();
             log.error("Checksum verification failed");
             ctx.close();
             return;
         }
 
-        ProtocolMessage message = new ProtocolMessage();
-        message.setHeader(header);
-        message.setData(data);
-
-        out.add(message);
+        out.add(new ByteBufProtocolMessage(header, payload));
     }
 
-    private boolean verifyChecksum(ProtocolHeader header, byte[] data) {
-        CRC32 crc32 = new CRC32();
-        crc32.update(data);
-        return crc32.getValue() == (header.getCheckSum() & 0xFFFFFFFFL);
+    private boolean mayOmitChecksum(ProtocolHeader header) {
+        return acceptStreamedChunks && header.getMsgType() == MessageType.FILE_DOWNLOAD_CHUNK.getCode();
     }
 }
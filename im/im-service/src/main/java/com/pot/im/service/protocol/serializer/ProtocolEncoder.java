@@ -1,31 +1,71 @@
 package com.pot.im.service.protocol.serializer;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
 
-import java.util.zip.CRC32;
+import java.util.List;
 
-public class ProtocolEncoder extends MessageToByteEncoder<ProtocolMessage> {
+/**
+ * Encodes a {@link ProtocolMessage} as a composite of a freshly written header and
+ * the payload, which is wrapped (byte[]) or retained (ByteBuf) rather than copied.
+ * {@link EncodedFrame}s are already encoded and only unwrapped.
+ */
+public class ProtocolEncoder extends MessageToMessageEncoder<Object> {
 
     @Override
-    protected void encode(ChannelHandlerContext ctx, ProtocolMessage msg, ByteBuf out) throws Exception {
-        CRC32 crc32 = new CRC32();
-        crc32.update(msg.getData());
-        msg.getHeader().setCheckSum((int) crc32.getValue());
-
-        msg.getHeader().setLength(msg.getData().length);
-
-        out.writeInt(msg.getHeader().getMagicNumber());
-        out.writeByte(msg.getHeader().getVersion());
-        out.writeByte(msg.getHeader().getMsgType());
-        out.writeByte(msg.getHeader().getFlags());
-        out.writeByte(msg.getHeader().getReserved());
-        out.writeLong(msg.getHeader().getSequence());
-        out.writeLong(msg.getHeader().getTimestamp());
-        out.writeInt(msg.getHeader().getCheckSum());
-        out.writeInt(msg.getHeader().getLength());
-
-        out.writeBytes(msg.getData());
+    public boolean acceptOutboundMessage(Object msg) {
+        return msg instanceof ProtocolMessage || msg instanceof EncodedFrame;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+        if (msg instanceof EncodedFrame frame) {
+            out.add(frame.content().retain());
+            return;
+        }
+        out.add(encode(ctx.alloc(), (ProtocolMessage) msg));
+    }
+
+    /**
+     * Encodes a complete frame. The returned buffer holds its own reference to the
+     * payload, so the caller still owns {@code msg}.
+     */
+    public static ByteBuf encode(ByteBufAllocator alloc, ProtocolMessage msg) {
+        ByteBuf payload = payloadOf(msg);
+        ProtocolHeader header = msg.getHeader();
+        header.setCheckSum(ProtocolChecksum.of(payload));
+        header.setLength(payload.readableBytes());
+
+        ByteBuf headerBuf = alloc.buffer(ProtocolHeader.HEADER_LENGTH);
+        writeHeader(header, headerBuf);
+
+        CompositeByteBuf frame = alloc.compositeBuffer(2);
+        frame.addComponents(true, headerBuf, payload);
+        return frame;
+    }
+
+    public static void writeHeader(ProtocolHeader header, ByteBuf out) {
+        out.writeInt(header.getMagicNumber());
+        out.writeByte(header.getVersion());
+        out.writeByte(header.getMsgType());
+        out.writeByte(header.getFlags());
+        out.writeByte(header.getReserved());
+        out.writeLong(header.getSequence());
+        out.writeLong(header.getTimestamp());
+        out.writeInt(header.getCheckSum());
+        out.writeInt(header.getLength());
+    }
+
+    private static ByteBuf payloadOf(ProtocolMessage msg) {
+        if (msg instanceof ByteBufProtocolMessage bufMessage) {
+            // The encoder releases msg after encode, so the frame needs its own reference.
+            return bufMessage.content().retainedDuplicate();
+        }
+        byte[] data = msg.getData();
+        return data == null || data.length == 0 ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(data);
     }
 }
@@ -4,13 +4,16 @@ import lombok.Data;
 
 @Data
 public class ProtocolHeader {
-        private int magicNumber = 0x12345678;
+    public static final int HEADER_LENGTH = 32;
+    public static final int MAGIC_NUMBER = 0x12345678;
+
+        private int magicNumber = MAGIC_NUMBER;
 
         private byte version = 1;
 
         private byte msgType;
 
-        private byte flags;
+        private byte flags = (byte) (MessagePriority.NORMAL.getLevel() << 3);
 
         private byte reserved;
 
@@ -22,6 +25,20 @@ public class ProtocolHeader {
 
         private int length;
 
+    public ProtocolHeader copy() {
+        ProtocolHeader copy = new ProtocolHeader();
+        copy.magicNumber = magicNumber;
+        copy.version = version;
+        copy.msgType = msgType;
+        copy.flags = flags;
+        copy.reserved = reserved;
+        copy.sequence = sequence;
+        copy.timestamp = timestamp;
+        copy.checkSum = checkSum;
+        copy.length = length;
+        return copy;
+    }
+
     public boolean isCompressed() {
         return (flags & 0x01) != 0;
     }
@@ -58,6 +75,22 @@ public class ProtocolHeader {
         }
     }
 
+    /**
+     * Set on frames whose payload is streamed from disk without passing through memory;
+     * {@link #getCheckSum()} is not computed and integrity is checked end to end instead.
+     */
+    public boolean isChecksumOmitted() {
+        return (flags & 0x20) != 0;
+    }
+
+    public void setChecksumOmitted(boolean omitted) {
+        if (omitted) {
+            flags |= 0x20;
+        } else {
+            flags &= ~0x20;
+        }
+    }
+
     public byte getPriority() {
         return (byte) ((flags >> 3) & 0x03);
     }
@@ -66,6 +99,14 @@ public class ProtocolHeader {
         flags = (byte) ((flags & 0xE7) | ((priority & 0x03) << 3));
     }
 
+    public MessagePriority getMessagePriority() {
+        return MessagePriority.fromLevel(getPriority());
+    }
+
+    public void setMessagePriority(MessagePriority priority) {
+        setPriority(priority.getLevel());
+    }
+
     public byte getProtocolExtension() {
         return (byte) ((reserved >> 4) & 0x0F);
     }
@@ -74,9 +115,13 @@ public class ProtocolHeader {
         reserved = (byte) ((reserved & 0x0F) | ((extension & 0x0F) << 4));
     }
 
+    /**
+     * Returns the payload serializer of this frame; frames that leave the bits
+     * unset are treated as JSON.
+     */
     public SerializerType getSerializerType() {
         byte code = (byte) (reserved & 0x0F);
-        return SerializerType.fromCode(code);
+        return code == 0 ? SerializerType.JSON : SerializerType.fromCode(code);
     }
 
     public void setSerializerType(SerializerType type) {
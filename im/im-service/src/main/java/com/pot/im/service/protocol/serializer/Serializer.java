@@ -1,9 +1,20 @@
 package com.pot.im.service.protocol.serializer;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
 public interface Serializer {
         byte getType();
 
         <T> byte[] serialize(T obj) throws Exception;
 
         <T> T deserialize(byte[] data, Class<T> clazz) throws Exception;
+
+    /**
+     * Deserializes the readable bytes of {@code data} without changing its indices.
+     * Implementations should override this to read the buffer in place.
+     */
+    default <T> T deserialize(ByteBuf data, Class<T> clazz) throws Exception {
+        return deserialize(ByteBufUtil.getBytes(data, data.readerIndex(), data.readableBytes(), false), clazz);
+    }
 }
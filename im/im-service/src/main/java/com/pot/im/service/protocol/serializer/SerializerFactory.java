@@ -1,16 +1,31 @@
 package com.pot.im.service.protocol.serializer;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 public class SerializerFactory {
-    private static final Map<Byte, Serializer> map = new ConcurrentHashMap<>();
+    private static final Serializer[] SERIALIZERS = new Serializer[16];
 
     static {
-        map.put(SerializerType.JSON.getCode(), new JsonSerializer());
+        register(new JsonSerializer());
+        register(new ProtobufSerializer());
+    }
+
+    private static void register(Serializer serializer) {
+        SERIALIZERS[serializer.getType() & 0x0F] = serializer;
     }
 
     public static Serializer getSerializer(byte type) {
-        return map.get(type);
+        return SERIALIZERS[type & 0x0F];
+    }
+
+    public static Serializer getSerializer(SerializerType type) {
+        return getSerializer(type.getCode());
+    }
+
+    /**
+     * Returns the serializer negotiated for a single frame.
+     *
+     * @throws IllegalArgumentException if the frame names an unsupported serializer
+     */
+    public static Serializer getSerializer(ProtocolHeader header) {
+        return getSerializer(header.getSerializerType());
     }
 }
@@ -0,0 +1,160 @@
+package com.pot.im.service.receipt;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.entity.UserConversation;
+import com.pot.im.service.mapper.UserConversationMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read cursors of every participant, per conversation, for "read by" counts.
+ * <p>
+ * A message is read by everyone whose cursor is at or past its id, so the count
+ * comes from a sorted snapshot of the cursors by binary search instead of from one
+ * row per reader. Conversations are loaded from {@code im_user_conversation} on first
+ * use and re-read every {@code readCursorReloadMillis}; cursors moved locally in the
+ * meantime are kept, since a cursor only moves forward. At most
+ * {@code readCursorCacheMaxSize} conversations are kept; the least recently used
+ * make room for new ones.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReadCursorStore {
+
+    private final UserConversationMapper userConversationMapper;
+    private final MessageConfig config;
+
+    private Cache<Long, Cursors> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(config.getReadCursorCacheMaxSize())
+                .build();
+    }
+
+    /**
+     * Moves a cached cursor forward; conversations not in memory pick it up from the
+     * database once the counter flush has written it.
+     */
+    public void advance(long conversationId, long userId, long messageId) {
+        Cursors cursors = cache.getIfPresent(conversationId);
+        if (cursors != null) {
+            cursors.advance(userId, messageId);
+        }
+    }
+
+    /**
+     * Readers of each message other than {@code excludeUserId}, normally the sender.
+     */
+    public Map<Long, Integer> readBy(long conversationId, Collection<Long> messageIds, long excludeUserId) {
+        Cursors cursors = get(conversationId);
+        long[] sorted = cursors.sorted();
+        long excluded = cursors.cursorOf(excludeUserId);
+        Map<Long, Integer> counts = new HashMap<>(messageIds.size() * 2);
+        for (Long messageId : messageIds) {
+            int readers = sorted.length - lowerBound(sorted, messageId);
+            if (excluded >= messageId) {
+                readers--;
+            }
+            counts.put(messageId, readers);
+        }
+        return counts;
+    }
+
+    private Cursors get(long conversationId) {
+        long now = System.currentTimeMillis();
+        Cursors cached = cache.getIfPresent(conversationId);
+        if (cached != null && now - cached.loadedAt < config.getReadCursorReloadMillis()) {
+            return cached;
+        }
+        Cursors loaded = load(conversationId, now);
+        if (cached != null) {
+            cached.byUser.forEach(loaded::advance);
+        }
+        cache.put(conversationId, loaded);
+        return loaded;
+    }
+
+    private Cursors load(long conversationId, long now) {
+        List<UserConversation> rows = userConversationMapper.selectList(Wrappers.<UserConversation>lambdaQuery()
+                .select(UserConversation::getUserId, UserConversation::getLastReadMessageId)
+                .eq(UserConversation::getConversationId, conversationId)
+                .isNotNull(UserConversation::getLastReadMessageId));
+        Cursors cursors = new Cursors(now);
+        for (UserConversation row : rows) {
+            cursors.advance(row.getUserId(), row.getLastReadMessageId());
+        }
+        return cursors;
+    }
+
+    private static int lowerBound(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class Cursors {
+
+        final ConcurrentMap<Long, Long> byUser = new ConcurrentHashMap<>();
+        final AtomicLong version = new AtomicLong();
+        final long loadedAt;
+        /**
+         * Ascending cursor values as of {@link Snapshot#version}, rebuilt lazily after a move.
+         */
+        volatile Snapshot snapshot = new Snapshot(-1, new long[0]);
+
+        Cursors(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+
+        void advance(long userId, long messageId) {
+            Long previous = byUser.get(userId);
+            if (previous != null && previous >= messageId) {
+                return;
+            }
+            byUser.merge(userId, messageId, Math::max);
+            version.incrementAndGet();
+        }
+
+        long cursorOf(long userId) {
+            return byUser.getOrDefault(userId, 0L);
+        }
+
+        long[] sorted() {
+            Snapshot current = snapshot;
+            long expected = version.get();
+            if (current.version != expected) {
+                long[] values = byUser.values().stream().mapToLong(Long::longValue).toArray();
+                Arrays.sort(values);
+                current = new Snapshot(expected, values);
+                snapshot = current;
+            }
+            return current.values;
+        }
+    }
+
+    private record Snapshot(long version, long[] values) {
+    }
+}
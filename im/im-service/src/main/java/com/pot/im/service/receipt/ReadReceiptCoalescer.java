@@ -0,0 +1,137 @@
+package com.pot.im.service.receipt;
+
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.conversation.ConversationSummaryCache;
+import com.pot.im.service.conversation.UnreadCounter;
+import com.pot.im.service.protocol.payload.ReadReceiptNotify;
+import com.pot.im.service.protocol.serializer.MessagePriority;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.protocol.serializer.SerializerType;
+import com.pot.im.service.server.ConnectionManager;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Turns read receipts into read-cursor moves.
+ * <p>
+ * Clients report reads as they scroll, often several per second. Receipts are held
+ * per user and conversation for {@code readReceiptWindowMillis}, keeping only the
+ * highest message id, and each window ends in a single cursor move: the
+ * {@link ReadCursorStore} is advanced, the {@link UnreadCounter} recounts what is
+ * left unread and writes the cursor with its next batch, and the peer of a private chat
+ * gets one {@code READ_RECEIPT_NOTIFY}. Nothing is stored per message.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReadReceiptCoalescer {
+
+    private final ReadCursorStore cursorStore;
+    private final UnreadCounter unreadCounter;
+    private final ConversationSummaryCache summaryCache;
+    private final ConnectionManager connectionManager;
+    private final MessageConfig config;
+
+    private final ConcurrentMap<Key, Pending> pending = new ConcurrentHashMap<>();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("im-read-receipts", true));
+        long window = Math.max(config.getReadReceiptWindowMillis(), 10);
+        scheduler.scheduleWithFixedDelay(this::drainSafely, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drainSafely();
+    }
+
+    /**
+     * @param messageId read up to and including this id; moves beyond the conversation's
+     *                  newest message are clamped to it when applied
+     * @param peerId    the other user of a private conversation, notified of the move; {@code null} for groups
+     */
+    public void submit(long userId, long conversationId, long messageId, Long peerId) {
+        received.increment();
+        pending.merge(new Key(userId, conversationId), new Pending(messageId, peerId),
+                (current, next) -> next.messageId > current.messageId ? next : current);
+    }
+
+    public ReceiptStats stats() {
+        return new ReceiptStats(pending.size(), received.sum(), applied.sum());
+    }
+
+    private void drainSafely() {
+        try {
+            drain();
+        } catch (Exception e) {
+            log.error("Read receipt drain failed", e);
+        }
+    }
+
+    private void drain() {
+        long now = System.currentTimeMillis();
+        for (Key key : pending.keySet()) {
+            Pending receipt = pending.remove(key);
+            if (receipt == null) {
+                continue;
+            }
+            applied.increment();
+            long lastMessageId = summaryCache.lastMessageId(key.conversationId());
+            long readUpTo = Math.min(receipt.messageId(), lastMessageId);
+            cursorStore.advance(key.conversationId(), key.userId(), readUpTo);
+            unreadCounter.markRead(key.userId(), key.conversationId(), readUpTo, lastMessageId);
+            if (receipt.peerId() != null) {
+                notifyPeer(key, readUpTo, receipt.peerId(), now);
+            }
+        }
+    }
+
+    private void notifyPeer(Key key, long messageId, long peerId, long now) {
+        try {
+            ProtocolMessage notify = PayloadCodec.encode(MessageType.READ_RECEIPT_NOTIFY,
+                    new ReadReceiptNotify(key.conversationId(), key.userId(), messageId, now),
+                    SerializerType.JSON);
+            notify.getHeader().setMessagePriority(MessagePriority.BULK);
+            connectionManager.sendIfOnline(String.valueOf(peerId), notify);
+        } catch (Exception e) {
+            log.warn("Failed to notify {} of read receipt in conversation {}: {}",
+                    peerId, key.conversationId(), e.getMessage());
+        }
+    }
+
+    private record Key(long userId, long conversationId) {
+    }
+
+    private record Pending(long messageId, Long peerId) {
+    }
+
+    /**
+     * @param received receipts reported by clients
+     * @param applied  cursor moves made from them
+     */
+    public record ReceiptStats(int pending, long received, long applied) {
+    }
+}
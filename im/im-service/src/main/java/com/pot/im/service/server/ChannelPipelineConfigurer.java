@@ -1,9 +1,12 @@
 package com.pot.im.service.server;
 
 import com.pot.im.service.config.ServerConfig;
+import com.pot.im.service.protocol.serializer.FragmentationCodec;
+import com.pot.im.service.protocol.serializer.PayloadCompressionCodec;
 import com.pot.im.service.protocol.serializer.ProtocolDecoder;
 import com.pot.im.service.protocol.serializer.ProtocolEncoder;
 import io.netty.channel.ChannelPipeline;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.timeout.IdleStateHandler;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -16,13 +19,25 @@ public class ChannelPipelineConfigurer {
 
     private final ServerConfig config;
     private final IMServerHandler serverHandler;
+    private final PayloadCompressionCodec compressionCodec;
+    private final ConnectionManager connectionManager;
 
     public void configure(ChannelPipeline pipeline) {
+        if (config.isFlushConsolidationEnabled()) {
+            pipeline.addLast("flushConsolidation", new FlushConsolidationHandler(
+                    config.getExplicitFlushAfterFlushes(), config.isConsolidateWhenNoReadInProgress()));
+        }
         pipeline.addLast("idle", new IdleStateHandler(
                 config.getReaderIdleTime(), 0, 0, TimeUnit.SECONDS));
 
-        pipeline.addLast("decoder", new ProtocolDecoder());
+        pipeline.addLast("decoder", new ProtocolDecoder(config.getMaxFrameLength()));
         pipeline.addLast("encoder", new ProtocolEncoder());
+        pipeline.addLast("fragmentation", new FragmentationCodec(config.getFragmentSize(),
+                config.getMaxMessageLength(), config.getMaxReassemblyBytes(), config.getReassemblyTimeoutMillis()));
+        pipeline.addLast("compression", compressionCodec);
+        // Above fragmentation and compression, so whole uncompressed messages are queued and
+        // reordered; the fragments of one message are always written back to back.
+        pipeline.addLast("priority", new PriorityWriteHandler(config, connectionManager));
 
         pipeline.addLast("handler", serverHandler);
     }
@@ -1,27 +1,64 @@
 package com.pot.im.service.server;
 
+import com.pot.im.service.cluster.UserRouter;
+import com.pot.im.service.config.ServerConfig;
+import com.pot.im.service.offline.OfflineMessageStore;
+import com.pot.im.service.protocol.serializer.ByteBufProtocolMessage;
+import com.pot.im.service.protocol.serializer.EncodedFrame;
+import com.pot.im.service.protocol.serializer.PayloadCompressionCodec;
+import com.pot.im.service.protocol.serializer.ProtocolEncoder;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.protocol.serializer.SerializerType;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelId;
+import io.netty.channel.EventLoop;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
 import lombok.Builder;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
-public class ConnectionManager {
+public class ConnectionManager implements SlowConsumerListener {
+
+    /**
+     * Serializer the client authenticated with; server-initiated pushes use it too.
+     */
+    private static final AttributeKey<SerializerType> SERIALIZER = AttributeKey.valueOf("im.serializer");
+
+    private final ServerConfig config;
+    private final PayloadCompressionCodec compressionCodec;
+    private final UserRouter userRouter;
+    private final ObjectProvider<OfflineMessageStore> offlineStore;
 
     private final ConcurrentMap<ChannelId, Channel> channels = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, Channel> userChannels = new ConcurrentHashMap<>();
     private final ConcurrentMap<ChannelId, String> channelUsers = new ConcurrentHashMap<>();
     private final AtomicLong connectionCount = new AtomicLong(0);
+    private final Set<ChannelId> slowConsumers = ConcurrentHashMap.newKeySet();
+    private final LongAdder slowConsumerEvents = new LongAdder();
+    private final LongAdder slowConsumerCloses = new LongAdder();
+    private final LongAdder droppedFrames = new LongAdder();
+    private final LongAdder spilledFrames = new LongAdder();
 
         public void addConnection(Channel channel) {
         Objects.requireNonNull(channel, "Channel cannot be null");
@@ -35,6 +72,7 @@ public class ConnectionManager {
         public void removeConnection(ChannelId channelId) {
         Channel channel = channels.remove(channelId);
         if (channel != null) {
+            slowConsumers.remove(channelId);
             cleanupUserMapping(channelId);
             long count = connectionCount.decrementAndGet();
             log.info("Connection removed: {} [Total: {}]", channelId, count);
@@ -42,13 +80,23 @@ public class ConnectionManager {
     }
 
         public void bindUser(String userId, Channel channel) {
+        bindUser(userId, channel, SerializerType.JSON);
+    }
+
+    /**
+     * Binds the user and records the serializer their client negotiated, so frames
+     * pushed to them unprompted are encoded the way they can read.
+     */
+    public void bindUser(String userId, Channel channel, SerializerType serializerType) {
         Objects.requireNonNull(userId, "UserId cannot be null");
         Objects.requireNonNull(channel, "Channel cannot be null");
+        channel.attr(SERIALIZER).set(serializerType);
 
         handleUserReconnection(userId, channel);
 
         userChannels.put(userId, channel);
         channelUsers.put(channel.id(), userId);
+        userRouter.userBound(userId);
 
         log.info("User bound: {} -> {}", userId, channel.id());
     }
@@ -63,6 +111,17 @@ public class ConnectionManager {
         return channelUsers.get(channelId);
     }
 
+    /**
+     * Serializer to push to the user in: the one they authenticated with if they are
+     * connected to this node, otherwise JSON. Forwarded frames are re-encoded by the
+     * node holding the connection.
+     */
+    public SerializerType serializerOf(String userId) {
+        Channel channel = getUserChannel(userId);
+        SerializerType type = channel != null ? channel.attr(SERIALIZER).get() : null;
+        return type != null ? type : SerializerType.JSON;
+    }
+
         public boolean isUserOnline(String userId) {
         return getUserChannel(userId) != null;
     }
@@ -75,36 +134,325 @@ public class ConnectionManager {
         return ConnectionStats.builder()
                 .totalConnections(connectionCount.get())
                 .authenticatedUsers(userChannels.size())
+                .slowConsumers(slowConsumers.size())
+                .slowConsumerEvents(slowConsumerEvents.sum())
+                .slowConsumerCloses(slowConsumerCloses.sum())
+                .droppedFrames(droppedFrames.sum())
+                .spilledFrames(spilledFrames.sum())
                 .build();
     }
 
+    @Override
+    public void slowConsumerDetected(Channel channel, int pendingWrites) {
+        slowConsumers.add(channel.id());
+        slowConsumerEvents.increment();
+        log.warn("Slow consumer detected: {} [user: {}, pending writes: {}]",
+                channel.id(), channelUsers.get(channel.id()), pendingWrites);
+    }
+
+    @Override
+    public void slowConsumerRecovered(Channel channel) {
+        if (slowConsumers.remove(channel.id())) {
+            log.info("Slow consumer recovered: {}", channel.id());
+        }
+    }
+
+    @Override
+    public void slowConsumerClosed(Channel channel) {
+        slowConsumers.remove(channel.id());
+        slowConsumerCloses.increment();
+    }
+
+    @Override
+    public void frameDropped(Channel channel) {
+        droppedFrames.increment();
+    }
+
+    @Override
+    public boolean spill(Channel channel, ProtocolMessage message) {
+        String userId = channelUsers.get(channel.id());
+        if (userId == null || !storeOffline(userId, message)) {
+            return false;
+        }
+        spilledFrames.increment();
+        return true;
+    }
+
         public void broadcast(Object message) {
         broadcast(message, null);
     }
 
-        public void broadcast(Object message, Consumer<String> userFilter) {
-        userChannels.entrySet().parallelStream()
-                .filter(entry -> entry.getValue().isActive())
-                .filter(entry -> userFilter == null || filterUser(entry.getKey(), userFilter))
-                .forEach(entry -> entry.getValue().writeAndFlush(message));
+        /**
+     * Sends {@code message} to every matching online user. A {@link ProtocolMessage}
+     * is compressed and encoded once and each channel receives a retained duplicate
+     * of the same frame; writes are handed to each event loop in chunked batches.
+     * The caller keeps ownership of {@code message}.
+     */
+    public void broadcast(Object message, Consumer<String> userFilter) {
+        fanOut(groupByEventLoop(userFilter), message);
     }
 
-        public boolean sendToUser(String userId, Object message) {
+        /**
+     * Sends {@code message} to the listed users: local connections share one encoded
+     * frame as in {@link #broadcast}, users on other nodes are forwarded in one
+     * batch. The caller keeps ownership of {@code message}.
+     *
+     * @param excludeUserId user to skip, typically the sender; may be {@code null}
+     * @param undelivered   called once with the users neither connected here nor
+     *                      reachable on another node; see {@link UserRouter#forward}
+     *                      for the thread it runs on
+     */
+    public void multicast(String[] userIds, String excludeUserId, ProtocolMessage message,
+                          Consumer<List<String>> undelivered) {
+        Map<EventLoop, List<Channel>> local = new IdentityHashMap<>();
+        List<String> remote = new ArrayList<>();
+        for (String userId : userIds) {
+            if (userId.equals(excludeUserId)) {
+                continue;
+            }
+            Channel channel = userChannels.get(userId);
+            if (channel != null && channel.isActive()) {
+                local.computeIfAbsent(channel.eventLoop(), k -> new ArrayList<>()).add(channel);
+            } else {
+                remote.add(userId);
+            }
+        }
+        fanOut(local, message);
+        userRouter.forward(remote, message, undelivered);
+    }
+
+        /**
+     * Sends to the user's local connection, or forwards to the node holding it; a
+     * user connected nowhere gets the message in their offline inbox.
+     *
+     * @return {@code true} if delivered to a local connection; forwarding and the
+     *         offline fallback may complete after this returns
+     */
+    public boolean sendToUser(String userId, Object message) {
+        if (deliverLocal(userId, message)) {
+            return true;
+        }
+        if (message instanceof ProtocolMessage protocolMessage) {
+            // The inbox write may run on the router's lookup thread after the caller is done with the message.
+            ProtocolMessage offlineCopy = detached(protocolMessage);
+            userRouter.forward(List.of(userId), protocolMessage, unreachable -> {
+                if (!unreachable.isEmpty() && !storeOffline(userId, offlineCopy)) {
+                    log.warn("User {} is offline, message not sent", userId);
+                }
+            });
+            return false;
+        }
+        log.warn("User {} is offline, message not sent", userId);
+        return false;
+    }
+
+        /**
+     * Sends to the user wherever they are connected, without an offline copy; for
+     * notifications that are worthless once the user is gone.
+     *
+     * @return {@code true} if delivered to a local connection
+     */
+    public boolean sendIfOnline(String userId, ProtocolMessage message) {
+        if (deliverLocal(userId, message)) {
+            return true;
+        }
+        userRouter.forward(List.of(userId), message, unreachable -> {
+        });
+        return false;
+    }
+
+        /**
+     * Keeps a message in the user's offline inbox for the next {@code SYNC}.
+     *
+     * @return {@code false} if no offline store is configured or it refused the message
+     */
+    public boolean storeOffline(String userId, ProtocolMessage message) {
+        OfflineMessageStore store = offlineStore.getIfAvailable();
+        return store != null && store.store(userId, message);
+    }
+
+        /**
+     * Sends to the user only if connected to this node; never forwards.
+     */
+    public boolean deliverLocal(String userId, Object message) {
         return Optional.ofNullable(getUserChannel(userId))
                 .map(channel -> {
                     channel.writeAndFlush(message);
                     return true;
                 })
-                .orElseGet(() -> {
-                    log.warn("User {} is offline, message not sent", userId);
-                    return false;
-                });
+                .orElse(false);
+    }
+
+        /**
+     * Queues a message for the user without flushing; pair with
+     * {@link #flushUser(String)} to send a burst in one write.
+     */
+    public boolean writeToUser(String userId, Object message) {
+        Channel channel = getUserChannel(userId);
+        if (channel == null) {
+            log.warn("User {} is offline, message not sent", userId);
+            return false;
+        }
+        channel.write(message);
+        return true;
+    }
+
+        public void flushUser(String userId) {
+        Optional.ofNullable(getUserChannel(userId)).ifPresent(Channel::flush);
+    }
+
+    /**
+     * Writes one message to many channels. Each event loop gets its channels in chunks of
+     * {@code fanoutChunkSize}, so a large fan-out does not hold one loop for long.
+     */
+    private void fanOut(Map<EventLoop, List<Channel>> recipients, Object message) {
+        if (recipients.isEmpty()) {
+            return;
+        }
+        int chunkSize = Math.max(config.getFanoutChunkSize(), 1);
+        EncodedFrame frame = message instanceof ProtocolMessage protocolMessage ? encodeOnce(protocolMessage) : null;
+        if (frame == null) {
+            // Too large to share one frame: each channel fragments and encodes its own copy.
+            Object template = copyOf(message);
+            try {
+                recipients.forEach((eventLoop, channels) -> forEachChunk(channels, chunkSize, chunk -> {
+                    Object shared = ReferenceCountUtil.retain(template);
+                    if (!dispatch(eventLoop, () -> writeCopies(shared, chunk))) {
+                        ReferenceCountUtil.release(shared);
+                    }
+                }));
+            } finally {
+                ReferenceCountUtil.release(template);
+            }
+            return;
+        }
+        try {
+            recipients.forEach((eventLoop, channels) -> forEachChunk(channels, chunkSize, chunk -> {
+                frame.retain();
+                if (!dispatch(eventLoop, () -> writeShared(frame, chunk))) {
+                    frame.release();
+                }
+            }));
+        } finally {
+            frame.release();
+        }
+    }
+
+    private static void forEachChunk(List<Channel> channels, int chunkSize, Consumer<List<Channel>> action) {
+        for (int from = 0; from < channels.size(); from += chunkSize) {
+            action.accept(channels.subList(from, Math.min(from + chunkSize, channels.size())));
+        }
+    }
+
+    private Map<EventLoop, List<Channel>> groupByEventLoop(Consumer<String> userFilter) {
+        Map<EventLoop, List<Channel>> groups = new IdentityHashMap<>();
+        userChannels.forEach((userId, channel) -> {
+            if (channel.isActive() && (userFilter == null || filterUser(userId, userFilter))) {
+                groups.computeIfAbsent(channel.eventLoop(), k -> new ArrayList<>()).add(channel);
+            }
+        });
+        return groups;
+    }
+
+    /**
+     * Encodes a broadcast frame once, or returns {@code null} when the payload is
+     * large enough to need per-channel fragmentation.
+     */
+    private EncodedFrame encodeOnce(ProtocolMessage message) {
+        ProtocolMessage compressed = compressionCodec.compress(ByteBufAllocator.DEFAULT, message);
+        ProtocolMessage source = compressed != null ? compressed : message;
+        try {
+            if (payloadLength(source) > config.getFragmentSize()) {
+                return null;
+            }
+            return new EncodedFrame(ProtocolEncoder.encode(ByteBufAllocator.DEFAULT, source),
+                    source.getHeader().getMessagePriority());
+        } finally {
+            ReferenceCountUtil.release(compressed);
+        }
+    }
+
+    /**
+     * Runs on the channels' event loop and consumes one reference of {@code frame}.
+     */
+    private void writeShared(EncodedFrame frame, List<Channel> channels) {
+        try {
+            for (Channel channel : channels) {
+                channel.write(frame.retainedDuplicate());
+            }
+            for (Channel channel : channels) {
+                channel.flush();
+            }
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * Runs on the channels' event loop and consumes one reference of {@code template}.
+     */
+    private static void writeCopies(Object template, List<Channel> channels) {
+        try {
+            for (Channel channel : channels) {
+                channel.write(copyOf(template));
+            }
+            for (Channel channel : channels) {
+                channel.flush();
+            }
+        } finally {
+            ReferenceCountUtil.release(template);
+        }
+    }
+
+    /**
+     * A copy the pipeline may consume: the encoder releases the message and writes its
+     * header, so channels must not share either.
+     */
+    private static Object copyOf(Object message) {
+        if (message instanceof ByteBufProtocolMessage bufMessage) {
+            return new ByteBufProtocolMessage(bufMessage.getHeader().copy(), bufMessage.content().retainedDuplicate());
+        }
+        if (message instanceof ProtocolMessage protocolMessage) {
+            ProtocolMessage copy = new ProtocolMessage();
+            copy.setHeader(protocolMessage.getHeader().copy());
+            copy.setData(protocolMessage.getData());
+            return copy;
+        }
+        return ReferenceCountUtil.retain(message);
+    }
+
+    private static ProtocolMessage detached(ProtocolMessage message) {
+        if (!(message instanceof ByteBufProtocolMessage)) {
+            return message;
+        }
+        ProtocolMessage copy = new ProtocolMessage();
+        copy.setHeader(message.getHeader().copy());
+        copy.setData(message.getData());
+        return copy;
+    }
+
+    private boolean dispatch(EventLoop eventLoop, Runnable task) {
+        try {
+            eventLoop.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Event loop rejected broadcast batch, skipping its channels: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static int payloadLength(ProtocolMessage message) {
+        if (message instanceof ByteBufProtocolMessage bufMessage) {
+            return bufMessage.content().readableBytes();
+        }
+        return message.getData() == null ? 0 : message.getData().length;
     }
 
     private void cleanupUserMapping(ChannelId channelId) {
         Optional.ofNullable(channelUsers.remove(channelId))
                 .ifPresent(userId -> {
                     userChannels.remove(userId);
+                    userRouter.userUnbound(userId);
                     log.info("User disconnected: {}", userId);
                 });
     }
@@ -129,6 +477,8 @@ public class ConnectionManager {
     }
 
     @Builder
-    public record ConnectionStats(long totalConnections, int authenticatedUsers) {
+    public record ConnectionStats(long totalConnections, int authenticatedUsers,
+                                  int slowConsumers, long slowConsumerEvents, long slowConsumerCloses,
+                                  long droppedFrames, long spilledFrames) {
     }
 }
\ No newline at end of file
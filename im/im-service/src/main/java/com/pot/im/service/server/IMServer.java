@@ -3,9 +3,8 @@ package com.pot.im.service.server;
 import com.pot.im.service.config.ServerConfig;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -13,6 +12,8 @@ import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 @Component
@@ -25,7 +26,7 @@ public class IMServer implements ApplicationRunner {
 
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
-    private Channel serverChannel;
+    private final List<Channel> serverChannels = new CopyOnWriteArrayList<>();
 
     @Override
     public void run(ApplicationArguments args) throws Exception {
@@ -33,18 +34,28 @@ public class IMServer implements ApplicationRunner {
     }
 
     private void startServer() {
-        bossGroup = new NioEventLoopGroup(config.getBossThreads());
-        workerGroup = new NioEventLoopGroup(config.getWorkerThreads());
-
-        try {
-            ServerBootstrap bootstrap = createServerBootstrap();
-            ChannelFuture future = bootstrap.bind(config.getPort()).sync();
+        ServerTransport transport = ServerTransport.resolve(config.getTransport());
+        boolean reusePort = config.isReusePort() && transport.supportsReusePort();
+        if (config.isReusePort() && !reusePort) {
+            log.warn("SO_REUSEPORT requires the epoll transport, falling back to a single acceptor");
+        }
+        int acceptors = reusePort ? Math.max(config.getAcceptorCount(), 1) : 1;
 
-            serverChannel = future.channel();
-            log.info("IM Server started successfully on port {}", config.getPort());
+        bossGroup = transport.newEventLoopGroup(Math.max(config.getBossThreads(), acceptors), "im-boss");
+        workerGroup = transport.newEventLoopGroup(config.getWorkerThreads(), "im-worker");
 
-            future.channel().closeFuture().addListener(f ->
-                    log.info("IM Server stopped gracefully"));
+        try {
+            ServerBootstrap bootstrap = createServerBootstrap(transport, reusePort);
+            // With SO_REUSEPORT every bind creates an independent listening socket on
+            // its own boss event loop, and the kernel balances accepts between them.
+            for (int i = 0; i < acceptors; i++) {
+                ChannelFuture future = bootstrap.bind(config.getPort()).sync();
+                serverChannels.add(future.channel());
+                future.channel().closeFuture().addListener(f ->
+                        log.info("IM Server acceptor {} stopped gracefully", future.channel().localAddress()));
+            }
+            log.info("IM Server started successfully on port {} [transport: {}, acceptors: {}]",
+                    config.getPort(), transport, acceptors);
 
         } catch (InterruptedException e) {
             log.error("Failed to start IM Server", e);
@@ -53,27 +64,34 @@ public class IMServer implements ApplicationRunner {
         }
     }
 
-    private ServerBootstrap createServerBootstrap() {
-        return new ServerBootstrap()
+    private ServerBootstrap createServerBootstrap(ServerTransport transport, boolean reusePort) {
+        ServerBootstrap bootstrap = new ServerBootstrap()
                 .group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
+                .channel(transport.serverChannelClass())
                 .option(ChannelOption.SO_BACKLOG, config.getBacklog())
                 .option(ChannelOption.SO_REUSEADDR, true)
                 .childOption(ChannelOption.TCP_NODELAY, true)
                 .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                        config.getWriteBufferLowWaterMark(), config.getWriteBufferHighWaterMark()))
                 .childHandler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel ch) {
                         pipelineConfigurer.configure(ch.pipeline());
                     }
                 });
+        if (reusePort) {
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+        return bootstrap;
     }
 
     @PreDestroy
     public void shutdown() {
         log.info("Shutting down IM Server...");
 
-        closeChannel(serverChannel);
+        serverChannels.forEach(this::closeChannel);
+        serverChannels.clear();
         shutdownEventLoopGroup(workerGroup, "Worker");
         shutdownEventLoopGroup(bossGroup, "Boss");
 
@@ -1,32 +1,51 @@
 package com.pot.im.service.server;
 
+import com.pot.im.service.config.AuthConfig;
 import com.pot.im.service.message.MessageProcessor;
 import com.pot.im.service.message.MessageProcessorFactory;
+import com.pot.im.service.protocol.serializer.ByteBufProtocolMessage;
 import com.pot.im.service.protocol.serializer.MessageType;
 import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @Component
+@ChannelHandler.Sharable
 @RequiredArgsConstructor
 @Slf4j
 public class IMServerHandler extends SimpleChannelInboundHandler<ProtocolMessage> {
 
+    /**
+     * Frame types accepted before the connection has authenticated, indexed by unsigned type code.
+     */
+    private static final boolean[] ALLOWED_BEFORE_AUTH = new boolean[256];
+
+    static {
+        ALLOWED_BEFORE_AUTH[MessageType.CONNECT_REQUEST.index()] = true;
+        ALLOWED_BEFORE_AUTH[MessageType.HEARTBEAT.index()] = true;
+        ALLOWED_BEFORE_AUTH[MessageType.AUTH_REQUEST.index()] = true;
+    }
+
     private final ConnectionManager connectionManager;
     private final MessageProcessorFactory processorFactory;
+    private final AuthConfig authConfig;
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) {
         connectionManager.addConnection(ctx.channel());
         log.debug("Client connected: {}", ctx.channel().remoteAddress());
+        scheduleAuthTimeout(ctx);
     }
 
     @Override
@@ -38,8 +57,19 @@ public class IMServerHandler extends SimpleChannelInboundHandler<ProtocolMessage
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, ProtocolMessage message) {
         try {
-            MessageType messageType = MessageType.fromCode(message.getHeader().getMsgType());
-            processMessage(ctx, message, messageType);
+            byte msgType = message.getHeader().getMsgType();
+            if (!ALLOWED_BEFORE_AUTH[msgType & 0xFF] && connectionManager.getChannelUser(ctx.channel().id()) == null) {
+                log.warn("Unauthenticated client sent message type {}, closing: {}",
+                        msgType, ctx.channel().remoteAddress());
+                ctx.close();
+                return;
+            }
+            MessageProcessor processor = processorFactory.lookupPrimaryProcessor(msgType);
+            if (processor == null) {
+                log.warn("No processor found for message type: {} ({})", MessageType.lookup(msgType), msgType);
+                return;
+            }
+            executeProcessor(ctx, message, processor);
         } catch (Exception e) {
             handleProcessingError(ctx, message, e);
         }
@@ -61,22 +91,36 @@ public class IMServerHandler extends SimpleChannelInboundHandler<ProtocolMessage
         ctx.close();
     }
 
-    private void processMessage(ChannelHandlerContext ctx, ProtocolMessage message, MessageType messageType) {
-        Optional.ofNullable(processorFactory.getPrimaryProcessor(messageType))
-                .ifPresentOrElse(
-                        processor -> executeProcessor(ctx, message, processor),
-                        () -> log.warn("No processor found for message type: {}", messageType)
-                );
+    private void scheduleAuthTimeout(ChannelHandlerContext ctx) {
+        long timeout = authConfig.getAuthTimeoutSeconds();
+        if (timeout <= 0) {
+            return;
+        }
+        ctx.executor().schedule(() -> {
+            if (ctx.channel().isActive() && connectionManager.getChannelUser(ctx.channel().id()) == null) {
+                log.info("Client did not authenticate within {}s, closing: {}", timeout, ctx.channel().remoteAddress());
+                ctx.close();
+            }
+        }, timeout, TimeUnit.SECONDS);
     }
 
     private void executeProcessor(ChannelHandlerContext ctx, ProtocolMessage message, MessageProcessor processor) {
         if (processor.isAsync()) {
-            CompletableFuture.runAsync(() -> safeProcess(ctx, message, processor),
-                            processorFactory.getAsyncExecutor())
-                    .exceptionally(throwable -> {
-                        log.error("Async processing failed", throwable);
-                        return null;
-                    });
+            // channelRead0 releases the inbound buffer on return, so keep it alive for the task.
+            ReferenceCountUtil.retain(message);
+            try {
+                processorFactory.getOrderedExecutor().execute(processor.orderingKey(ctx, message), () -> {
+                    try {
+                        safeProcess(ctx, message, processor);
+                    } finally {
+                        ReferenceCountUtil.release(message);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                ReferenceCountUtil.release(message);
+                log.warn("Async executor saturated, dropping message [type: {}, from: {}]",
+                        message.getHeader().getMsgType(), ctx.channel().remoteAddress());
+            }
         } else {
             safeProcess(ctx, message, processor);
         }
@@ -84,7 +128,11 @@ public class IMServerHandler extends SimpleChannelInboundHandler<ProtocolMessage
 
     private void safeProcess(ChannelHandlerContext ctx, ProtocolMessage message, MessageProcessor processor) {
         try {
-            processor.process(ctx, message);
+            if (message instanceof ByteBufProtocolMessage bufMessage) {
+                processor.process(ctx, bufMessage);
+            } else {
+                processor.process(ctx, message);
+            }
         } catch (MessageProcessor.ProcessingException e) {
             log.error("Message processing failed: {}", e.getMessage(), e);
         } catch (Exception e) {
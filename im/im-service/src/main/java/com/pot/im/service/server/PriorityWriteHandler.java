@@ -0,0 +1,315 @@
+package com.pot.im.service.server;
+
+import com.pot.im.service.config.ServerConfig;
+import com.pot.im.service.protocol.serializer.EncodedFrame;
+import com.pot.im.service.protocol.serializer.MessagePriority;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.ProtocolHeader;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues outbound {@link ProtocolMessage}s and {@link EncodedFrame}s by priority while the channel
+ * is not writable and drains higher priorities first once it is.
+ * <p>
+ * Writes pass straight through while the channel is writable and nothing is
+ * queued, so ordering only changes under congestion. Within a priority frames
+ * stay FIFO. A lower priority that has been bypassed {@code starvationThreshold}
+ * times in a row is served next, so bulk traffic still makes progress. The handler
+ * sits above fragmentation and compression, so it schedules whole messages and never
+ * splits a fragment set.
+ * <p>
+ * A channel that stays unwritable for {@code slowConsumerThresholdMillis}, or holds more than
+ * {@code maxPendingWrites} frames, is a slow consumer and the configured
+ * {@link ServerConfig.SlowConsumerPolicy} bounds what is kept for it until it drains.
+ * {@code SPILL_OFFLINE} only spills whole, uncompressed chat messages; everything
+ * else falls back to the drop rule. A spilled frame was not written, so its promise
+ * fails like a dropped one.
+ * <p>
+ * One instance per channel; all state is confined to the channel's event loop.
+ */
+@Slf4j
+public class PriorityWriteHandler extends ChannelDuplexHandler {
+
+    private static final int LEVELS = MessagePriority.values().length;
+    private static final int KEEP_LEVEL = MessagePriority.HIGH.getLevel();
+    private static final IOException SLOW_CONSUMER = new SlowConsumerException("Frame dropped: slow consumer");
+    private static final IOException SPILLED =
+            new SlowConsumerException("Frame moved to offline inbox: slow consumer");
+
+    private final int starvationThreshold;
+    private final ServerConfig.SlowConsumerPolicy policy;
+    private final long slowConsumerThresholdMillis;
+    private final int maxPendingWrites;
+    private final SlowConsumerListener listener;
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<PendingWrite>[] queues = new ArrayDeque[LEVELS];
+    private final int[] bypassed = new int[LEVELS];
+    private int pending;
+    private boolean slowConsumer;
+    private ScheduledFuture<?> slowConsumerCheck;
+
+    public PriorityWriteHandler(int starvationThreshold) {
+        this(starvationThreshold, ServerConfig.SlowConsumerPolicy.DROP_LOW_PRIORITY,
+                Long.MAX_VALUE, Integer.MAX_VALUE, null);
+    }
+
+    public PriorityWriteHandler(ServerConfig config, SlowConsumerListener listener) {
+        this(config.getPriorityStarvationThreshold(), config.getSlowConsumerPolicy(),
+                config.getSlowConsumerThresholdMillis(), config.getMaxPendingWrites(), listener);
+    }
+
+    public PriorityWriteHandler(int starvationThreshold, ServerConfig.SlowConsumerPolicy policy,
+                                long slowConsumerThresholdMillis, int maxPendingWrites,
+                                SlowConsumerListener listener) {
+        this.starvationThreshold = Math.max(starvationThreshold, 1);
+        this.policy = policy;
+        this.slowConsumerThresholdMillis = slowConsumerThresholdMillis;
+        this.maxPendingWrites = Math.max(maxPendingWrites, 1);
+        this.listener = listener;
+        for (int i = 0; i < LEVELS; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        int level = priorityOf(msg);
+        if (level < 0 || pending == 0 && ctx.channel().isWritable() || !ctx.channel().isActive()) {
+            ctx.write(msg, promise);
+            return;
+        }
+        if (slowConsumer && shed(ctx, msg, promise, level)) {
+            return;
+        }
+        queues[level].add(new PendingWrite(msg, promise));
+        pending++;
+        drain(ctx);
+        if (pending > maxPendingWrites) {
+            if (slowConsumer) {
+                closeSlowConsumer(ctx);
+            } else {
+                enterSlowConsumer(ctx);
+            }
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        drain(ctx);
+        ctx.flush();
+        maybeRecover(ctx);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            cancelSlowConsumerCheck();
+            if (pending > 0) {
+                drain(ctx);
+                ctx.flush();
+            }
+            maybeRecover(ctx);
+        } else if (slowConsumerCheck == null && !slowConsumer && slowConsumerThresholdMillis < Long.MAX_VALUE) {
+            slowConsumerCheck = ctx.executor().schedule(() -> {
+                slowConsumerCheck = null;
+                if (!ctx.channel().isWritable() && ctx.channel().isActive()) {
+                    enterSlowConsumer(ctx);
+                }
+            }, slowConsumerThresholdMillis, TimeUnit.MILLISECONDS);
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        cancelSlowConsumerCheck();
+        failPending(new ClosedChannelException());
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        cancelSlowConsumerCheck();
+        failPending(new ClosedChannelException());
+    }
+
+    /**
+     * Number of frames currently held back.
+     */
+    public int pendingWrites() {
+        return pending;
+    }
+
+    public boolean isSlowConsumer() {
+        return slowConsumer;
+    }
+
+    private void enterSlowConsumer(ChannelHandlerContext ctx) {
+        slowConsumer = true;
+        cancelSlowConsumerCheck();
+        if (listener != null) {
+            listener.slowConsumerDetected(ctx.channel(), pending);
+        }
+        if (policy == ServerConfig.SlowConsumerPolicy.CLOSE) {
+            closeSlowConsumer(ctx);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            Iterator<PendingWrite> it = queues[level].iterator();
+            while (it.hasNext()) {
+                PendingWrite write = it.next();
+                if (shed(ctx, write.message, write.promise, level)) {
+                    it.remove();
+                    pending--;
+                }
+            }
+        }
+        if (pending > maxPendingWrites) {
+            closeSlowConsumer(ctx);
+        }
+    }
+
+    /**
+     * Applies the policy to one frame; returns {@code true} if the frame was consumed.
+     */
+    private boolean shed(ChannelHandlerContext ctx, Object msg, ChannelPromise promise, int level) {
+        if (policy == ServerConfig.SlowConsumerPolicy.SPILL_OFFLINE
+                && isSpillable(msg)
+                && listener != null && listener.spill(ctx.channel(), (ProtocolMessage) msg)) {
+            ReferenceCountUtil.release(msg);
+            promise.tryFailure(SPILLED);
+            return true;
+        }
+        if (policy != ServerConfig.SlowConsumerPolicy.CLOSE && level < KEEP_LEVEL) {
+            ReferenceCountUtil.release(msg);
+            promise.tryFailure(SLOW_CONSUMER);
+            if (listener != null) {
+                listener.frameDropped(ctx.channel());
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void maybeRecover(ChannelHandlerContext ctx) {
+        if (slowConsumer && pending == 0 && ctx.channel().isWritable()) {
+            slowConsumer = false;
+            if (listener != null) {
+                listener.slowConsumerRecovered(ctx.channel());
+            }
+        }
+    }
+
+    private void closeSlowConsumer(ChannelHandlerContext ctx) {
+        log.warn("Closing slow consumer {} [pending writes: {}]", ctx.channel().remoteAddress(), pending);
+        if (listener != null) {
+            listener.slowConsumerClosed(ctx.channel());
+        }
+        failPending(SLOW_CONSUMER);
+        ctx.close();
+    }
+
+    private void cancelSlowConsumerCheck() {
+        if (slowConsumerCheck != null) {
+            slowConsumerCheck.cancel(false);
+            slowConsumerCheck = null;
+        }
+    }
+
+    private void drain(ChannelHandlerContext ctx) {
+        while (pending > 0 && ctx.channel().isWritable()) {
+            int level = nextLevel();
+            PendingWrite write = queues[level].poll();
+            pending--;
+            ctx.write(write.message, write.promise);
+        }
+    }
+
+    /**
+     * Only chat pushes can be replayed from the inbox by {@code SYNC}; ACKs, responses and
+     * download chunks are meaningless there, and compressed or fragmented frames are not
+     * in the form the inbox stores.
+     */
+    private static boolean isSpillable(Object msg) {
+        if (!(msg instanceof ProtocolMessage message)) {
+            return false;
+        }
+        ProtocolHeader header = message.getHeader();
+        if (header.isCompressed() || header.isFragmented()) {
+            return false;
+        }
+        MessageType type = MessageType.lookup(header.getMsgType());
+        return type == MessageType.PRIVATE_MESSAGE || type == MessageType.GROUP_MESSAGE;
+    }
+
+    private static int priorityOf(Object msg) {
+        if (msg instanceof ProtocolMessage message) {
+            return message.getHeader().getPriority();
+        }
+        if (msg instanceof EncodedFrame frame) {
+            return frame.priority().getLevel();
+        }
+        return -1;
+    }
+
+    private int nextLevel() {
+        for (int level = 0; level < LEVELS; level++) {
+            if (!queues[level].isEmpty() && bypassed[level] >= starvationThreshold) {
+                bypassed[level] = 0;
+                return level;
+            }
+        }
+        int chosen = LEVELS - 1;
+        while (queues[chosen].isEmpty()) {
+            chosen--;
+        }
+        bypassed[chosen] = 0;
+        for (int level = 0; level < chosen; level++) {
+            if (!queues[level].isEmpty()) {
+                bypassed[level]++;
+            }
+        }
+        return chosen;
+    }
+
+    private void failPending(Throwable cause) {
+        for (ArrayDeque<PendingWrite> queue : queues) {
+            PendingWrite write;
+            while ((write = queue.poll()) != null) {
+                ReferenceCountUtil.release(write.message);
+                write.promise.tryFailure(cause);
+            }
+        }
+        pending = 0;
+    }
+
+    private record PendingWrite(Object message, ChannelPromise promise) {
+    }
+
+    /**
+     * Shared, stackless failure for frames discarded or spilled by the slow-consumer policy.
+     */
+    private static final class SlowConsumerException extends IOException {
+
+        SlowConsumerException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.pot.im.service.server;
+
+import com.pot.im.service.config.ServerConfig;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.IoHandlerFactory;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollIoHandler;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * Socket transports the IM server can run on.
+ */
+enum ServerTransport {
+    NIO(NioIoHandler::newFactory, NioServerSocketChannel.class, false),
+    EPOLL(EpollIoHandler::newFactory, EpollServerSocketChannel.class, true);
+
+    private final Supplier<IoHandlerFactory> ioHandlerFactory;
+    private final Class<? extends ServerChannel> serverChannelClass;
+    private final boolean supportsReusePort;
+
+    ServerTransport(Supplier<IoHandlerFactory> ioHandlerFactory,
+                    Class<? extends ServerChannel> serverChannelClass,
+                    boolean supportsReusePort) {
+        this.ioHandlerFactory = ioHandlerFactory;
+        this.serverChannelClass = serverChannelClass;
+        this.supportsReusePort = supportsReusePort;
+    }
+
+    static ServerTransport resolve(ServerConfig.TransportType type) {
+        return switch (type) {
+            case NIO -> NIO;
+            case EPOLL -> {
+                Epoll.ensureAvailability();
+                yield EPOLL;
+            }
+            case AUTO -> Epoll.isAvailable() ? EPOLL : NIO;
+        };
+    }
+
+    EventLoopGroup newEventLoopGroup(int threads, String name) {
+        return new MultiThreadIoEventLoopGroup(threads, new DefaultThreadFactory(name), ioHandlerFactory.get());
+    }
+
+    Class<? extends ServerChannel> serverChannelClass() {
+        return serverChannelClass;
+    }
+
+    boolean supportsReusePort() {
+        return supportsReusePort;
+    }
+}
@@ -0,0 +1,27 @@
+package com.pot.im.service.server;
+
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import io.netty.channel.Channel;
+
+/**
+ * Callbacks from {@link PriorityWriteHandler} when a channel cannot keep up with its writes.
+ * All methods are invoked on the channel's event loop.
+ */
+public interface SlowConsumerListener {
+
+    void slowConsumerDetected(Channel channel, int pendingWrites);
+
+    void slowConsumerRecovered(Channel channel);
+
+    void slowConsumerClosed(Channel channel);
+
+    void frameDropped(Channel channel);
+
+    /**
+     * Moves an undeliverable message to offline storage. Only offered whole,
+     * uncompressed chat messages.
+     *
+     * @return {@code true} if stored; the caller still releases {@code message}
+     */
+    boolean spill(Channel channel, ProtocolMessage message);
+}
@@ -1,8 +1,20 @@
 package com.pot.im.service.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.pot.im.service.conversation.ConversationListItem;
 import com.pot.im.service.entity.Conversation;
 
+import java.util.List;
+
 public interface ConversationService extends IService<Conversation> {
 
+    /**
+     * The user's conversation list, pinned first and then most recent first, with unread counts.
+     */
+    List<ConversationListItem> listConversations(Long userId, int limit);
+
+    /**
+     * Whether the user is one of the two users of a private conversation or a member of its group.
+     */
+    boolean isParticipant(Long userId, Long conversationId);
 }
@@ -5,4 +5,30 @@ import com.pot.im.service.entity.File;
 
 public interface FileService extends IService<File> {
 
+    File getByFileId(Long fileId);
+
+    /**
+     * Records a new upload in {@code UPLOADING} state, with the hash the client declared, if
+     * any, so a resumed upload is verified against it too.
+     */
+    File createUpload(Long fileId, Long uploaderId, String originalName, long fileSize, String mimeType,
+                      String uploadIp, String declaredHash);
+
+    /**
+     * Marks an upload complete once its bytes are in place.
+     */
+    boolean markReady(Long fileId, String filePath, String fileHash);
+
+    /**
+     * Removes the file's row if it is still in {@code status}; only one caller wins.
+     */
+    boolean deleteByFileId(Long fileId, int status);
+
+    /**
+     * Another file with the same content whose media metadata is already filled in, if any.
+     */
+    File findProcessed(String fileHash, Long excludeFileId);
+
+    boolean updateMedia(Long fileId, String thumbnailPath, String previewPath, Integer width, Integer height,
+                        Integer duration);
 }
@@ -3,6 +3,22 @@ package com.pot.im.service.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.pot.im.service.entity.GroupMember;
 
+import java.time.LocalDateTime;
+
 public interface GroupMemberService extends IService<GroupMember> {
 
+    /**
+     * Adds a member and publishes the membership change.
+     */
+    boolean addMember(GroupMember member);
+
+    /**
+     * Marks a member as no longer in the group (left or removed).
+     */
+    boolean removeMember(Long groupId, Long userId, int status);
+
+    /**
+     * Mutes a member until {@code muteUntil}; {@code null} lifts the mute.
+     */
+    boolean muteMember(Long groupId, Long userId, LocalDateTime muteUntil);
 }
@@ -3,6 +3,14 @@ package com.pot.im.service.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.pot.im.service.entity.MessageReadStatus;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface MessageReadStatusService extends IService<MessageReadStatus> {
 
+    /**
+     * Number of participants other than {@code excludeUserId} who have read each message,
+     * computed from the conversation's read cursors.
+     */
+    Map<Long, Integer> countReaders(Long conversationId, Collection<Long> messageIds, Long excludeUserId);
 }
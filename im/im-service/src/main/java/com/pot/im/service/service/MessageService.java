@@ -2,7 +2,15 @@ package com.pot.im.service.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.pot.im.service.entity.Message;
+import com.pot.im.service.history.MessageHistoryPage;
 
 public interface MessageService extends IService<Message> {
 
+    /**
+     * A page of the conversation's history by keyset on {@code message_id}: the latest
+     * messages if {@code cursor} is {@code null}, otherwise the page the cursor points to.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or from another conversation
+     */
+    MessageHistoryPage getHistory(Long conversationId, String cursor, int limit);
 }
@@ -3,6 +3,24 @@ package com.pot.im.service.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.pot.im.service.entity.UserConversation;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface UserConversationService extends IService<UserConversation> {
 
+    /**
+     * Unread messages in one conversation, served from the in-memory counter.
+     */
+    long getUnreadCount(Long userId, Long conversationId);
+
+    /**
+     * Unread messages per conversation id.
+     */
+    Map<Long, Long> getUnreadCounts(Long userId, Collection<Long> conversationIds);
+
+    /**
+     * Marks the conversation read up to {@code messageId}; messages after it stay unread.
+     * Persisted on the next counter flush.
+     */
+    void markRead(Long userId, Long conversationId, Long messageId);
 }
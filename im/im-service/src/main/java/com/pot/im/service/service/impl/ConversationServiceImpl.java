@@ -1,12 +1,32 @@
 package com.pot.im.service.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.conversation.ConversationListItem;
+import com.pot.im.service.conversation.ConversationSummaryCache;
 import com.pot.im.service.entity.Conversation;
 import com.pot.im.service.mapper.ConversationMapper;
 import com.pot.im.service.service.ConversationService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
+@RequiredArgsConstructor
 public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Conversation> implements ConversationService {
 
+    private final ConversationSummaryCache summaryCache;
+    private final MessageConfig config;
+
+    @Override
+    public List<ConversationListItem> listConversations(Long userId, int limit) {
+        int size = Math.min(Math.max(limit, 1), config.getConversationListMaxSize());
+        return summaryCache.list(userId, size);
+    }
+
+    @Override
+    public boolean isParticipant(Long userId, Long conversationId) {
+        return summaryCache.isParticipant(userId, conversationId);
+    }
 }
@@ -1,7 +1,9 @@
 package com.pot.im.service.service.impl;
 
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.pot.im.service.entity.File;
+import com.pot.im.service.file.FileStatus;
 import com.pot.im.service.mapper.FileMapper;
 import com.pot.im.service.service.FileService;
 import org.springframework.stereotype.Service;
@@ -9,4 +11,77 @@ import org.springframework.stereotype.Service;
 @Service
 public class FileServiceImpl extends ServiceImpl<FileMapper, File> implements FileService {
 
+    @Override
+    public File getByFileId(Long fileId) {
+        return getOne(Wrappers.<File>lambdaQuery().eq(File::getFileId, fileId));
+    }
+
+    @Override
+    public File createUpload(Long fileId, Long uploaderId, String originalName, long fileSize, String mimeType,
+                             String uploadIp, String declaredHash) {
+        File file = newFile(fileId, uploaderId, originalName, fileSize, mimeType, uploadIp);
+        // Replaced by the computed hash in markReady.
+        file.setFileHash(declaredHash);
+        file.setStatus(FileStatus.UPLOADING);
+        save(file);
+        return file;
+    }
+
+    @Override
+    public boolean markReady(Long fileId, String filePath, String fileHash) {
+        return update(Wrappers.<File>lambdaUpdate()
+                .set(File::getFilePath, filePath)
+                .set(File::getFileHash, fileHash)
+                .set(File::getStatus, FileStatus.READY)
+                .eq(File::getFileId, fileId)
+                .eq(File::getStatus, FileStatus.UPLOADING));
+    }
+
+    @Override
+    public boolean deleteByFileId(Long fileId, int status) {
+        return remove(Wrappers.<File>lambdaQuery()
+                .eq(File::getFileId, fileId)
+                .eq(File::getStatus, status));
+    }
+
+    @Override
+    public File findProcessed(String fileHash, Long excludeFileId) {
+        return getOne(Wrappers.<File>lambdaQuery()
+                .eq(File::getFileHash, fileHash)
+                .ne(File::getFileId, excludeFileId)
+                .and(w -> w.isNotNull(File::getWidth).or().isNotNull(File::getDuration))
+                .last("LIMIT 1"));
+    }
+
+    @Override
+    public boolean updateMedia(Long fileId, String thumbnailPath, String previewPath, Integer width, Integer height,
+                               Integer duration) {
+        return update(Wrappers.<File>lambdaUpdate()
+                .set(File::getThumbnailPath, thumbnailPath)
+                .set(File::getPreviewPath, previewPath)
+                .set(File::getWidth, width)
+                .set(File::getHeight, height)
+                .set(File::getDuration, duration)
+                .eq(File::getFileId, fileId));
+    }
+
+    private static File newFile(Long fileId, Long uploaderId, String originalName, long fileSize, String mimeType,
+                                String uploadIp) {
+        File file = new File();
+        file.setFileId(fileId);
+        file.setFilename(String.valueOf(fileId));
+        file.setOriginalName(originalName);
+        file.setFileSize(fileSize);
+        file.setFileType(extensionOf(originalName));
+        file.setMimeType(mimeType);
+        file.setUploaderId(uploaderId);
+        file.setUploadIp(uploadIp);
+        file.setDownloadCount(0);
+        return file;
+    }
+
+    private static String extensionOf(String name) {
+        int dot = name != null ? name.lastIndexOf('.') : -1;
+        return dot >= 0 && dot < name.length() - 1 ? name.substring(dot + 1).toLowerCase() : null;
+    }
 }
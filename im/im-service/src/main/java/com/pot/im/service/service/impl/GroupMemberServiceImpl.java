@@ -1,12 +1,62 @@
 package com.pot.im.service.service.impl;
 
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.pot.im.service.entity.GroupMember;
+import com.pot.im.service.group.GroupMembershipCache;
 import com.pot.im.service.mapper.GroupMemberMapper;
 import com.pot.im.service.service.GroupMemberService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+
+/**
+ * Membership writes go through here so every change also invalidates the cached
+ * member lists used for fan-out.
+ */
 @Service
+@RequiredArgsConstructor
 public class GroupMemberServiceImpl extends ServiceImpl<GroupMemberMapper, GroupMember> implements GroupMemberService {
 
+    private final GroupMembershipCache membershipCache;
+
+    @Override
+    public boolean addMember(GroupMember member) {
+        if (member.getStatus() == null) {
+            member.setStatus(GroupMembershipCache.MEMBER_STATUS_ACTIVE);
+        }
+        if (member.getJoinTime() == null) {
+            member.setJoinTime(LocalDateTime.now());
+        }
+        boolean saved = save(member);
+        if (saved) {
+            membershipCache.invalidate(member.getGroupId());
+        }
+        return saved;
+    }
+
+    @Override
+    public boolean removeMember(Long groupId, Long userId, int status) {
+        boolean updated = update(Wrappers.<GroupMember>lambdaUpdate()
+                .set(GroupMember::getStatus, status)
+                .eq(GroupMember::getGroupId, groupId)
+                .eq(GroupMember::getUserId, userId));
+        if (updated) {
+            membershipCache.invalidate(groupId);
+        }
+        return updated;
+    }
+
+    @Override
+    public boolean muteMember(Long groupId, Long userId, LocalDateTime muteUntil) {
+        boolean updated = update(Wrappers.<GroupMember>lambdaUpdate()
+                .set(GroupMember::getMuteUntil, muteUntil)
+                .eq(GroupMember::getGroupId, groupId)
+                .eq(GroupMember::getUserId, userId));
+        if (updated) {
+            membershipCache.invalidate(groupId);
+        }
+        return updated;
+    }
 }
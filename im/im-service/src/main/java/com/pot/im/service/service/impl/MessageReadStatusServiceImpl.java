@@ -3,10 +3,25 @@ package com.pot.im.service.service.impl;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.pot.im.service.entity.MessageReadStatus;
 import com.pot.im.service.mapper.MessageReadStatusMapper;
+import com.pot.im.service.receipt.ReadCursorStore;
 import com.pot.im.service.service.MessageReadStatusService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Map;
+
 @Service
+@RequiredArgsConstructor
 public class MessageReadStatusServiceImpl extends ServiceImpl<MessageReadStatusMapper, MessageReadStatus> implements MessageReadStatusService {
 
+    private final ReadCursorStore cursorStore;
+
+    @Override
+    public Map<Long, Integer> countReaders(Long conversationId, Collection<Long> messageIds, Long excludeUserId) {
+        if (messageIds == null || messageIds.isEmpty()) {
+            return Map.of();
+        }
+        return cursorStore.readBy(conversationId, messageIds, excludeUserId != null ? excludeUserId : 0L);
+    }
 }
@@ -1,12 +1,70 @@
 package com.pot.im.service.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.pot.im.service.config.MessageConfig;
 import com.pot.im.service.entity.Message;
+import com.pot.im.service.history.HistoryCursor;
+import com.pot.im.service.history.MessageHistoryPage;
 import com.pot.im.service.mapper.MessageMapper;
 import com.pot.im.service.service.MessageService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 @Service
+@RequiredArgsConstructor
 public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> implements MessageService {
 
+    private final MessageConfig config;
+
+    @Override
+    public MessageHistoryPage getHistory(Long conversationId, String cursor, int limit) {
+        int size = Math.min(Math.max(limit, 1), config.getHistoryMaxPageSize());
+        HistoryCursor position = cursor != null && !cursor.isBlank()
+                ? HistoryCursor.decode(cursor, conversationId) : null;
+
+        // One extra row tells whether another page exists, in place of a COUNT query.
+        boolean forward = position != null && position.direction() == HistoryCursor.Direction.AFTER;
+        List<Message> rows;
+        boolean hasMore;
+        if (forward) {
+            rows = new ArrayList<>(baseMapper.selectAfter(conversationId, position.messageId(), size + 1));
+            hasMore = trim(rows, size);
+        } else {
+            rows = new ArrayList<>(baseMapper.selectBefore(conversationId,
+                    position != null ? position.messageId() : null, size + 1));
+            hasMore = trim(rows, size);
+            Collections.reverse(rows);
+        }
+
+        String before = null;
+        String after = null;
+        if (!rows.isEmpty()) {
+            long oldest = rows.get(0).getMessageId();
+            long newest = rows.get(rows.size() - 1).getMessageId();
+            // Paging forward started from an existing message, so older ones always exist.
+            if (forward || hasMore) {
+                before = new HistoryCursor(conversationId, oldest, HistoryCursor.Direction.BEFORE).encode();
+            }
+            after = new HistoryCursor(conversationId, newest, HistoryCursor.Direction.AFTER).encode();
+        } else if (forward) {
+            after = cursor;
+        }
+        return MessageHistoryPage.builder()
+                .messages(rows)
+                .beforeCursor(before)
+                .afterCursor(after)
+                .build();
+    }
+
+    private static boolean trim(List<Message> rows, int size) {
+        if (rows.size() <= size) {
+            return false;
+        }
+        rows.subList(size, rows.size()).clear();
+        return true;
+    }
 }
@@ -1,12 +1,39 @@
 package com.pot.im.service.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.pot.im.service.conversation.ConversationSummaryCache;
+import com.pot.im.service.conversation.UnreadCounter;
 import com.pot.im.service.entity.UserConversation;
 import com.pot.im.service.mapper.UserConversationMapper;
 import com.pot.im.service.service.UserConversationService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Map;
+
 @Service
+@RequiredArgsConstructor
 public class UserConversationServiceImpl extends ServiceImpl<UserConversationMapper, UserConversation> implements UserConversationService {
 
+    private final UnreadCounter unreadCounter;
+    private final ConversationSummaryCache summaryCache;
+
+    @Override
+    public long getUnreadCount(Long userId, Long conversationId) {
+        return unreadCounter.unread(userId, conversationId);
+    }
+
+    @Override
+    public Map<Long, Long> getUnreadCounts(Long userId, Collection<Long> conversationIds) {
+        if (conversationIds == null || conversationIds.isEmpty()) {
+            return Map.of();
+        }
+        return unreadCounter.unread(userId, conversationIds);
+    }
+
+    @Override
+    public void markRead(Long userId, Long conversationId, Long messageId) {
+        unreadCounter.markRead(userId, conversationId, messageId, summaryCache.lastMessageId(conversationId));
+    }
 }
@@ -0,0 +1,66 @@
+package com.pot.im.service.auth;
+
+import com.pot.im.service.config.AuthConfig;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TokenVerifier")
+class TokenVerifierTest {
+
+    private KeyPair keyPair;
+    private TokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        AuthConfig config = new AuthConfig();
+        config.setPublicKey("-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----");
+        config.setTokenCacheMaxSize(2);
+        verifier = new TokenVerifier(config, new DefaultResourceLoader());
+        verifier.init();
+    }
+
+    @Test
+    @DisplayName("Invalidating by token id drops only that token's cached verification")
+    void invalidate_tokenId_removesCachedEntry() {
+        verifier.verify(token("1", "jti-1"));
+        verifier.verify(token("2", "jti-2"));
+
+        verifier.invalidate("jti-1");
+
+        assertThat(verifier.cachedTokens()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("The cache stays within its maximum size")
+    void verify_beyondMaxSize_evicts() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(verifier.verify(token(String.valueOf(i), "jti-" + i)).userId()).isEqualTo(String.valueOf(i));
+        }
+
+        assertThat(verifier.cachedTokens()).isLessThanOrEqualTo(2);
+    }
+
+    private String token(String userId, String tokenId) {
+        return Jwts.builder()
+                .subject(userId)
+                .id(tokenId)
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(keyPair.getPrivate())
+                .compact();
+    }
+}
@@ -0,0 +1,165 @@
+package com.pot.im.service.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One history page at increasing depth: {@code OFFSET}/{@code LIMIT} plus {@code COUNT},
+ * as MyBatis-Plus paging issues it, against the keyset query of
+ * {@code MessageMapper.selectBefore}.
+ * <p>
+ * Runs on an in-memory H2 database in MySQL mode holding one long conversation among
+ * many short ones, indexed as in {@code im/db/indexes.sql}. Absolute numbers differ from
+ * InnoDB; the shape does not: the offset page slows down with depth, the keyset page
+ * stays flat. Run from the IDE via {@link #main}, or as {@code MessageDispatchBenchmark}
+ * describes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryPaginationBenchmark {
+
+    private static final long HOT_CONVERSATION = 1;
+    private static final int HOT_MESSAGES = 500_000;
+    private static final int OTHER_CONVERSATIONS = 1_000;
+    private static final int OTHER_MESSAGES = 500_000;
+    private static final int PAGE_SIZE = 50;
+    /**
+     * Gap between consecutive ids, as segment-allocated ids interleave across conversations.
+     */
+    private static final long ID_STRIDE = 7;
+    private static final String COLUMNS = "id, message_id, conversation_id, sender_id, message_type, content, status";
+
+    /**
+     * Messages between the newest one and the requested page.
+     */
+    @Param({"0", "10000", "250000", "490000"})
+    private int depth;
+
+    private Connection connection;
+    private PreparedStatement count;
+    private PreparedStatement offsetPage;
+    private PreparedStatement keysetPage;
+    private long anchorMessageId;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:history;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS im_message");
+            ddl.execute("CREATE TABLE im_message (id BIGINT AUTO_INCREMENT PRIMARY KEY, message_id BIGINT NOT NULL, "
+                    + "conversation_id BIGINT NOT NULL, sender_id BIGINT NOT NULL, message_type INT NOT NULL, "
+                    + "content VARCHAR(512), status INT NOT NULL)");
+            ddl.execute("CREATE INDEX idx_conversation_message ON im_message (conversation_id, message_id)");
+        }
+        populate();
+
+        // Skipping the `depth` newest messages: the page starts below the last one skipped.
+        anchorMessageId = messageIdAt(HOT_MESSAGES - depth);
+
+        count = connection.prepareStatement("SELECT COUNT(*) FROM im_message WHERE conversation_id = ?");
+        offsetPage = connection.prepareStatement("SELECT " + COLUMNS + " FROM im_message WHERE conversation_id = ? "
+                + "ORDER BY message_id DESC LIMIT ? OFFSET ?");
+        keysetPage = connection.prepareStatement("SELECT " + COLUMNS + " FROM im_message WHERE conversation_id = ? "
+                + "AND message_id < ? ORDER BY message_id DESC LIMIT ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE im_message");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public void offsetWithCount(Blackhole bh) throws SQLException {
+        count.setLong(1, HOT_CONVERSATION);
+        try (ResultSet rs = count.executeQuery()) {
+            rs.next();
+            bh.consume(rs.getLong(1));
+        }
+        offsetPage.setLong(1, HOT_CONVERSATION);
+        offsetPage.setInt(2, PAGE_SIZE + 1);
+        offsetPage.setInt(3, depth);
+        consume(offsetPage, bh);
+    }
+
+    @Benchmark
+    public void keyset(Blackhole bh) throws SQLException {
+        keysetPage.setLong(1, HOT_CONVERSATION);
+        keysetPage.setLong(2, anchorMessageId);
+        keysetPage.setInt(3, PAGE_SIZE + 1);
+        consume(keysetPage, bh);
+    }
+
+    private static void consume(PreparedStatement page, Blackhole bh) throws SQLException {
+        try (ResultSet rs = page.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getLong(2));
+                bh.consume(rs.getString(6));
+            }
+        }
+    }
+
+    /**
+     * Hot and other messages alternate, so the hot conversation's i-th message id is
+     * {@code messageIdAt(i)} and the others fill the gaps.
+     */
+    private static long messageIdAt(int i) {
+        return 1_000_000L + i * ID_STRIDE * 2;
+    }
+
+    private void populate() throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO im_message "
+                + "(message_id, conversation_id, sender_id, message_type, content, status) VALUES (?, ?, ?, 1, ?, 0)")) {
+            int total = Math.max(HOT_MESSAGES, OTHER_MESSAGES);
+            for (int i = 0; i < total; i++) {
+                if (i < HOT_MESSAGES) {
+                    add(insert, messageIdAt(i), HOT_CONVERSATION, 10 + (i & 1));
+                }
+                if (i < OTHER_MESSAGES) {
+                    add(insert, messageIdAt(i) + ID_STRIDE, 2 + (i % OTHER_CONVERSATIONS), 100 + i % 5000);
+                }
+                if (i % 5_000 == 4_999) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static void add(PreparedStatement insert, long messageId, long conversationId, long senderId)
+            throws SQLException {
+        insert.setLong(1, messageId);
+        insert.setLong(2, conversationId);
+        insert.setLong(3, senderId);
+        insert.setString(4, "message " + messageId + " in conversation " + conversationId);
+        insert.addBatch();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HistoryPaginationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.pot.im.service.benchmark;
+
+import com.pot.im.service.config.ServerConfig;
+import com.pot.im.service.message.AsyncProcessorExecutor;
+import com.pot.im.service.message.KeyedSerialExecutor;
+import com.pot.im.service.message.MessageProcessor;
+import com.pot.im.service.message.MessageProcessorFactory;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import io.netty.channel.ChannelHandlerContext;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame dispatch cost: the table lookup used by {@code IMServerHandler} against the
+ * previous {@code values()} scan plus stream over a {@code ConcurrentHashMap}.
+ * <p>
+ * Run with {@code mvn -pl im/im-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.pot.im.service.benchmark.MessageDispatchBenchmark}, or from the IDE via {@link #main}.
+ * Add {@code -prof gc} to confirm the table path allocates nothing per frame.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageDispatchBenchmark {
+
+    private static final byte[] FRAME_TYPES = {
+            MessageType.HEARTBEAT.getCode(),
+            MessageType.PRIVATE_MESSAGE.getCode(),
+            MessageType.GROUP_MESSAGE.getCode(),
+            MessageType.AUTH_REQUEST.getCode(),
+            MessageType.ERROR.getCode()
+    };
+
+    private MessageProcessorFactory factory;
+    private Map<MessageType, List<MessageProcessor>> legacyMap;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        List<MessageProcessor> processors = List.of(
+                new NoopProcessor(MessageType.HEARTBEAT),
+                new NoopProcessor(MessageType.PRIVATE_MESSAGE),
+                new NoopProcessor(MessageType.GROUP_MESSAGE),
+                new NoopProcessor(MessageType.AUTH_REQUEST),
+                new NoopProcessor(MessageType.ERROR));
+        ServerConfig config = new ServerConfig();
+        AsyncProcessorExecutor executor = new AsyncProcessorExecutor(config.getAsyncExecutor());
+        factory = new MessageProcessorFactory(processors, executor,
+                new KeyedSerialExecutor(executor::tryExecute, 16, 1024));
+        factory.init();
+
+        legacyMap = new ConcurrentHashMap<>();
+        processors.forEach(p -> Arrays.stream(p.getSupportedTypes())
+                .forEach(type -> legacyMap.computeIfAbsent(type, k -> new ArrayList<>()).add(p)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.shutdown();
+    }
+
+    private byte nextType() {
+        int i = cursor;
+        cursor = i + 1 == FRAME_TYPES.length ? 0 : i + 1;
+        return FRAME_TYPES[i];
+    }
+
+    @Benchmark
+    public void tableDispatch(Blackhole bh) {
+        bh.consume(factory.lookupPrimaryProcessor(nextType()));
+    }
+
+    @Benchmark
+    public void legacyDispatch(Blackhole bh) {
+        MessageType type = legacyFromCode(nextType());
+        bh.consume(legacyMap.getOrDefault(type, List.of()).stream().findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No processor found for type: " + type)));
+    }
+
+    private static MessageType legacyFromCode(byte code) {
+        for (MessageType type : MessageType.values()) {
+            if (type.getCode() == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown message type: " + code);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MessageDispatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private record NoopProcessor(MessageType type) implements MessageProcessor {
+
+        @Override
+        public void process(ChannelHandlerContext ctx, ProtocolMessage message) {
+        }
+
+        @Override
+        public MessageType[] getSupportedTypes() {
+            return new MessageType[]{type};
+        }
+    }
+}
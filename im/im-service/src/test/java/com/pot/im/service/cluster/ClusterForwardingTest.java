@@ -0,0 +1,147 @@
+package com.pot.im.service.cluster;
+
+import com.pot.im.service.config.ClusterConfig;
+import com.pot.im.service.protocol.payload.ForwardEnvelope;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.protocol.serializer.SerializerType;
+import com.pot.im.service.server.ConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two nodes in one JVM sharing an {@link InMemoryUserLocationRegistry}, linked
+ * over real sockets.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Cluster forwarding between in-process nodes")
+class ClusterForwardingTest {
+
+    private static final String SECRET = "test-cluster-secret";
+
+    @Mock
+    private ConnectionManager receiverConnections;
+
+    private InMemoryUserLocationRegistry registry;
+    private ClusterServer receiverServer;
+    private NodeLinkManager senderLinks;
+    private ClusterUserRouter senderRouter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        registry = new InMemoryUserLocationRegistry();
+
+        ClusterConfig receiver = nodeConfig("b");
+        receiverServer = new ClusterServer(receiver, receiverConnections);
+        receiverServer.start();
+        registry.heartbeat(new NodeAddress("b", receiver.getAdvertiseHost(), receiver.getPort()), Duration.ofMinutes(1));
+
+        ClusterConfig sender = nodeConfig("a");
+        senderLinks = new NodeLinkManager(sender, registry);
+        senderRouter = new ClusterUserRouter(sender, registry, senderLinks);
+    }
+
+    @AfterEach
+    void tearDown() {
+        senderRouter.shutdown();
+        senderLinks.shutdown();
+        receiverServer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Messages reach users on the other node and offline users are reported back")
+    void forward_mixedUsers_deliversRemoteAndReportsOffline() throws Exception {
+        registry.register("42", "b");
+        when(receiverConnections.serializerOf("42")).thenReturn(SerializerType.JSON);
+        when(receiverConnections.deliverLocal(eq("42"), any())).thenReturn(true);
+
+        CompletableFuture<List<String>> unreachable = new CompletableFuture<>();
+        senderRouter.forward(List.of("42", "7"), message(9L), unreachable::complete);
+
+        assertThat(unreachable.get(5, TimeUnit.SECONDS)).containsExactly("7");
+        verify(receiverConnections, timeout(5_000)).deliverLocal(eq("42"), argThat(delivered ->
+                delivered instanceof ProtocolMessage forwarded
+                        && forwarded.getHeader().getSequence() == 9L
+                        && Arrays.equals(forwarded.getData(), new byte[]{1, 2, 3})));
+    }
+
+    @Test
+    @DisplayName("A user who left the receiving node goes to their offline inbox there")
+    void forward_userGoneFromReceiver_storedOffline() throws Exception {
+        registry.register("42", "b");
+        when(receiverConnections.serializerOf("42")).thenReturn(SerializerType.JSON);
+        when(receiverConnections.deliverLocal(eq("42"), any())).thenReturn(false);
+
+        CompletableFuture<List<String>> unreachable = new CompletableFuture<>();
+        senderRouter.forward(List.of("42"), message(1L), unreachable::complete);
+
+        assertThat(unreachable.get(5, TimeUnit.SECONDS)).isEmpty();
+        verify(receiverConnections, timeout(5_000)).storeOffline(eq("42"), any());
+    }
+
+    @Test
+    @DisplayName("Links from nodes without the shared secret are dropped before any forward")
+    void forward_wrongSecret_notDelivered() {
+        ClusterConfig intruder = nodeConfig("x");
+        intruder.setSharedSecret("guessed");
+        NodeLinkManager intruderLinks = new NodeLinkManager(intruder, registry);
+        try {
+            intruderLinks.send("b", ForwardEnvelope.of("42", message(3L)));
+
+            verify(receiverConnections, after(1_000).never()).deliverLocal(any(), any());
+            verify(receiverConnections, never()).storeOffline(any(), any());
+        } finally {
+            intruderLinks.shutdown();
+        }
+    }
+
+    private static ClusterConfig nodeConfig(String nodeId) {
+        ClusterConfig config = new ClusterConfig();
+        config.setEnabled(true);
+        config.setNodeId(nodeId);
+        config.setSharedSecret(SECRET);
+        config.setPort(freePort());
+        config.setLinkThreads(1);
+        return config;
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ProtocolMessage message(long sequence) {
+        ProtocolMessage message = new ProtocolMessage();
+        message.getHeader().setMsgType(MessageType.PRIVATE_MESSAGE.getCode());
+        message.getHeader().setSequence(sequence);
+        message.setData(new byte[]{1, 2, 3});
+        return message;
+    }
+}
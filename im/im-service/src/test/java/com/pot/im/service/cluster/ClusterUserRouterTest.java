@@ -0,0 +1,118 @@
+package com.pot.im.service.cluster;
+
+import com.pot.im.service.config.ClusterConfig;
+import com.pot.im.service.protocol.payload.ForwardEnvelope;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ClusterUserRouter")
+class ClusterUserRouterTest {
+
+    @Mock
+    private UserLocationRegistry registry;
+    @Mock
+    private NodeLinkManager linkManager;
+
+    private ClusterUserRouter router;
+
+    @BeforeEach
+    void setUp() {
+        ClusterConfig config = new ClusterConfig();
+        config.setNodeId("a");
+        config.setLocationCacheTtlMillis(60_000);
+        config.setLocationMissTtlMillis(60_000);
+        router = new ClusterUserRouter(config, registry, linkManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.shutdown();
+    }
+
+    @Test
+    @DisplayName("Uncached users are resolved in one registry call")
+    void forward_uncachedUsers_resolvedInOneBatch() throws Exception {
+        when(registry.locateAll(List.of("1", "2", "3"))).thenReturn(Arrays.asList("b", null, "a"));
+        when(linkManager.send(eq("b"), any())).thenReturn(true);
+
+        List<String> unreachable = forward("1", "2", "3");
+
+        assertThat(unreachable).containsExactly("2", "3");
+        verify(registry, times(1)).locateAll(anyList());
+        verify(linkManager).send(eq("b"), argThat(envelope -> "1".equals(envelope.getUserId())));
+    }
+
+    @Test
+    @DisplayName("Users reported offline are not looked up again while the miss is cached")
+    void forward_offlineUser_cachesNegativeLookup() throws Exception {
+        when(registry.locateAll(List.of("2"))).thenReturn(Arrays.asList((String) null));
+
+        assertThat(forward("2")).containsExactly("2");
+        assertThat(forward("2")).containsExactly("2");
+
+        verify(registry, times(1)).locateAll(anyList());
+    }
+
+    @Test
+    @DisplayName("A failed lookup is not cached as offline")
+    void forward_registryUnavailable_doesNotCacheMiss() throws Exception {
+        when(registry.locateAll(List.of("2"))).thenReturn(null);
+
+        assertThat(forward("2")).containsExactly("2");
+        assertThat(forward("2")).containsExactly("2");
+
+        verify(registry, times(2)).locateAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Cached locations are sent on the caller's thread without the registry")
+    void forward_cachedLocation_sendsWithoutLookup() throws Exception {
+        when(registry.locateAll(List.of("1"))).thenReturn(List.of("b"));
+        when(linkManager.send(eq("b"), any())).thenReturn(true);
+        forward("1");
+        when(linkManager.trySend(eq("b"), any(ForwardEnvelope.class))).thenReturn(true);
+
+        Thread caller = Thread.currentThread();
+        CompletableFuture<Thread> callbackThread = new CompletableFuture<>();
+        router.forward(List.of("1"), message(), users -> callbackThread.complete(Thread.currentThread()));
+
+        assertThat(callbackThread.get(5, TimeUnit.SECONDS)).isSameAs(caller);
+        verify(registry, times(1)).locateAll(anyList());
+        verify(linkManager, times(1)).send(eq("b"), any());
+    }
+
+    private List<String> forward(String... userIds) throws Exception {
+        CompletableFuture<List<String>> unreachable = new CompletableFuture<>();
+        router.forward(List.of(userIds), message(), unreachable::complete);
+        return unreachable.get(5, TimeUnit.SECONDS);
+    }
+
+    private static ProtocolMessage message() {
+        ProtocolMessage message = new ProtocolMessage();
+        message.getHeader().setMsgType(MessageType.PRIVATE_MESSAGE.getCode());
+        message.setData(new byte[]{1, 2, 3});
+        return message;
+    }
+}
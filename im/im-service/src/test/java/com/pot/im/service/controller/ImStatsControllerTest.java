@@ -0,0 +1,74 @@
+package com.pot.im.service.controller;
+
+import com.pot.im.service.auth.TokenVerifier;
+import com.pot.im.service.conversation.ConversationSummaryCache;
+import com.pot.im.service.conversation.UnreadCounter;
+import com.pot.im.service.file.BlobStore;
+import com.pot.im.service.group.GroupMembershipCache;
+import com.pot.im.service.media.MediaProcessingPipeline;
+import com.pot.im.service.message.MessageProcessorFactory;
+import com.pot.im.service.offline.OfflineInbox;
+import com.pot.im.service.persistence.MessageWriter;
+import com.pot.im.service.persistence.WriteBehindBatcher;
+import com.pot.im.service.receipt.ReadReceiptCoalescer;
+import com.pot.im.service.server.ConnectionManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ImStatsController")
+class ImStatsControllerTest {
+
+    @Mock
+    private ConnectionManager connectionManager;
+    @Mock
+    private MessageProcessorFactory processorFactory;
+    @Mock
+    private MessageWriter messageWriter;
+    @Mock
+    private OfflineInbox offlineInbox;
+    @Mock
+    private UnreadCounter unreadCounter;
+    @Mock
+    private ConversationSummaryCache summaryCache;
+    @Mock
+    private ReadReceiptCoalescer receiptCoalescer;
+    @Mock
+    private GroupMembershipCache membershipCache;
+    @Mock
+    private TokenVerifier tokenVerifier;
+    @Mock
+    private BlobStore blobStore;
+    @Mock
+    private MediaProcessingPipeline mediaPipeline;
+
+    @InjectMocks
+    private ImStatsController controller;
+
+    @Test
+    @DisplayName("Every component's counters are reported under its own key")
+    void stats_allComponents_reported() {
+        WriteBehindBatcher.BatcherStats writer = new WriteBehindBatcher.BatcherStats(1, 2, 3, 0);
+        WriteBehindBatcher.BatcherStats inbox = new WriteBehindBatcher.BatcherStats(4, 5, 6, 1);
+        when(messageWriter.stats()).thenReturn(writer);
+        when(offlineInbox.stats()).thenReturn(inbox);
+        when(membershipCache.cachedGroups()).thenReturn(7L);
+
+        Map<String, Object> stats = controller.stats().getData();
+
+        assertThat(stats).containsOnlyKeys("connections", "processorExecutor", "messageWriter", "offlineInbox",
+                "unread", "conversations", "readReceipts", "cachedGroups", "cachedTokens", "blobs", "media");
+        assertThat(stats).containsEntry("messageWriter", writer)
+                .containsEntry("offlineInbox", inbox)
+                .containsEntry("cachedGroups", 7L);
+    }
+}
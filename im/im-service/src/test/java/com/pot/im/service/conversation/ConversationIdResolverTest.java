@@ -0,0 +1,73 @@
+package com.pot.im.service.conversation;
+
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.id.ImIdAllocator;
+import com.pot.im.service.support.RedisJson;
+import com.pot.zing.framework.starter.redis.service.RedisService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ConversationIdResolver")
+class ConversationIdResolverTest {
+
+    @Mock
+    private RedisService redisService;
+    @Mock
+    private ImIdAllocator idAllocator;
+
+    private ConversationIdResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        MessageConfig config = new MessageConfig();
+        config.setConversationCacheMaxSize(1);
+        resolver = new ConversationIdResolver(redisService, idAllocator, config);
+        resolver.init();
+    }
+
+    @Test
+    @DisplayName("A resolved id is served from memory afterwards")
+    void resolvePrivate_repeated_readsRedisOnce() {
+        when(redisService.hGet(anyString(), eq("1:2"), eq(Number.class))).thenReturn(100L);
+
+        assertThat(resolver.resolvePrivate(1L, 2L)).isEqualTo(100L);
+        assertThat(resolver.resolvePrivate(2L, 1L)).isEqualTo(100L);
+
+        verify(redisService, times(1)).hGet(anyString(), eq("1:2"), eq(Number.class));
+    }
+
+    @Test
+    @DisplayName("Ids the JSON serializer reads back as Integer resolve as Long")
+    void resolvePrivate_idStoredInRedis_readsSmallNumbers() {
+        Object stored = RedisJson.roundTrip(100L);
+        assertThat(stored).isInstanceOf(Integer.class);
+        when(redisService.hGet(anyString(), eq("1:2"), eq(Number.class))).thenAnswer(invocation -> stored);
+
+        assertThat(resolver.resolvePrivate(1L, 2L)).isEqualTo(100L);
+    }
+
+    @Test
+    @DisplayName("A full cache evicts old ids instead of refusing new ones")
+    void resolvePrivate_cacheFull_keepsCachingNewIds() {
+        when(redisService.hGet(anyString(), eq("1:2"), eq(Number.class))).thenReturn(100L);
+        when(redisService.hGet(anyString(), eq("1:3"), eq(Number.class))).thenReturn(101L);
+
+        resolver.resolvePrivate(1L, 2L);
+        resolver.resolvePrivate(1L, 3L);
+        resolver.resolvePrivate(1L, 3L);
+
+        verify(redisService, times(1)).hGet(anyString(), eq("1:3"), eq(Number.class));
+    }
+}
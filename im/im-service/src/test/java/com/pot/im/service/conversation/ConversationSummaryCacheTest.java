@@ -0,0 +1,138 @@
+package com.pot.im.service.conversation;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.entity.Conversation;
+import com.pot.im.service.entity.UserConversation;
+import com.pot.im.service.group.GroupMembershipCache;
+import com.pot.im.service.mapper.ConversationMapper;
+import com.pot.im.service.mapper.UserConversationMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ConversationSummaryCache")
+class ConversationSummaryCacheTest {
+
+    @Mock
+    private ConversationMapper conversationMapper;
+    @Mock
+    private UserConversationMapper userConversationMapper;
+    @Mock
+    private UnreadCounter unreadCounter;
+    @Mock
+    private GroupMembershipCache groupMembershipCache;
+
+    private MessageConfig config;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // Lambda query wrappers resolve column names from MyBatis-Plus table metadata.
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, Conversation.class);
+        TableInfoHelper.initTableInfo(assistant, UserConversation.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        config = new MessageConfig();
+    }
+
+    @Test
+    @DisplayName("Lists read within the reload interval are served from memory")
+    void list_withinReloadInterval_queriesOnce() {
+        config.setConversationReloadMillis(60_000);
+        ConversationSummaryCache cache = newCache();
+        when(unreadCounter.unread(anyLong(), anyCollection())).thenReturn(Map.of());
+        when(userConversationMapper.selectList(any())).thenReturn(List.of(entry(10L, 0)));
+        when(conversationMapper.selectList(any())).thenReturn(List.of(summary(10L, 5L)));
+
+        cache.list(1L, 10);
+        cache.list(1L, 10);
+
+        verify(userConversationMapper, times(1)).selectList(any());
+        verify(conversationMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    @DisplayName("Stale lists pick up pins and messages written by other nodes, however often they are read")
+    void list_afterReloadInterval_mergesDatabaseState() {
+        config.setConversationReloadMillis(0);
+        ConversationSummaryCache cache = newCache();
+        when(unreadCounter.unread(anyLong(), anyCollection())).thenReturn(Map.of());
+        when(userConversationMapper.selectList(any())).thenReturn(List.of(entry(10L, 0)), List.of(entry(10L, 1)));
+        when(conversationMapper.selectList(any())).thenReturn(List.of(summary(10L, 5L)), List.of(summary(10L, 7L)));
+
+        assertThat(cache.list(1L, 10)).singleElement()
+                .satisfies(item -> assertThat(item.isPinned()).isFalse())
+                .satisfies(item -> assertThat(item.getLastMessageId()).isEqualTo(5L));
+        assertThat(cache.list(1L, 10)).singleElement()
+                .satisfies(item -> assertThat(item.isPinned()).isTrue())
+                .satisfies(item -> assertThat(item.getLastMessageId()).isEqualTo(7L));
+    }
+
+    @Test
+    @DisplayName("Only the two users of a private conversation are participants")
+    void isParticipant_privateConversation_checksBothUsers() {
+        ConversationSummaryCache cache = newCache();
+        Conversation row = summary(10L, 5L);
+        row.setType(ConversationSummaryCache.TYPE_PRIVATE);
+        row.setTargetId(null);
+        row.setExtendJson("{\"participants\":[1,2]}");
+        when(conversationMapper.selectList(any())).thenReturn(List.of(row));
+
+        assertThat(cache.isParticipant(1L, 10L)).isTrue();
+        assertThat(cache.isParticipant(2L, 10L)).isTrue();
+        assertThat(cache.isParticipant(3L, 10L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Unknown conversations have no participants")
+    void isParticipant_unknownConversation_false() {
+        ConversationSummaryCache cache = newCache();
+        when(conversationMapper.selectList(any())).thenReturn(List.of());
+
+        assertThat(cache.isParticipant(1L, 10L)).isFalse();
+    }
+
+    private ConversationSummaryCache newCache() {
+        return new ConversationSummaryCache(conversationMapper, userConversationMapper, unreadCounter,
+                groupMembershipCache, config);
+    }
+
+    private static UserConversation entry(long conversationId, int pinned) {
+        UserConversation row = new UserConversation();
+        row.setConversationId(conversationId);
+        row.setIsPinned(pinned);
+        return row;
+    }
+
+    private static Conversation summary(long conversationId, long lastMessageId) {
+        Conversation row = new Conversation();
+        row.setConversationId(conversationId);
+        row.setType(ConversationSummaryCache.TYPE_GROUP);
+        row.setTargetId(99L);
+        row.setLastMessageId(lastMessageId);
+        row.setLastMessageTime(LocalDateTime.now());
+        return row;
+    }
+}
@@ -0,0 +1,90 @@
+package com.pot.im.service.conversation;
+
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.entity.UserConversation;
+import com.pot.im.service.mapper.MessageMapper;
+import com.pot.im.service.mapper.UserConversationMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UnreadCounter")
+class UnreadCounterTest {
+
+    @Mock
+    private UserConversationMapper userConversationMapper;
+    @Mock
+    private MessageMapper messageMapper;
+
+    private UnreadCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        MessageConfig config = new MessageConfig();
+        config.setUnreadFlushIntervalMillis(60_000);
+        counter = new UnreadCounter(userConversationMapper, messageMapper, config);
+        counter.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        counter.shutdown();
+    }
+
+    @Test
+    @DisplayName("Reading up to the newest message clears the count without a query")
+    void markRead_upToLastMessage_zeroes() {
+        counter.increment(1L, 10L);
+        counter.increment(1L, 10L);
+
+        counter.markRead(1L, 10L, 50L, 50L);
+
+        assertThat(counter.unread(1L, 10L)).isZero();
+        verify(messageMapper, never()).countAfter(anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Reading part of the conversation keeps the messages after the cursor unread")
+    void markRead_shortOfLastMessage_recountsFromCursor() {
+        when(messageMapper.countAfter(10L, 40L, 1L)).thenReturn(2L);
+        for (int i = 0; i < 5; i++) {
+            counter.increment(1L, 10L);
+        }
+
+        counter.markRead(1L, 10L, 40L, 50L);
+        counter.increment(1L, 10L);
+
+        assertThat(counter.unread(1L, 10L)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("A partial read is written as the recounted total together with the cursor")
+    void markRead_shortOfLastMessage_flushesRecountedCount() {
+        when(messageMapper.countAfter(10L, 40L, 1L)).thenReturn(2L);
+        counter.increment(1L, 10L);
+
+        counter.markRead(1L, 10L, 40L, 50L);
+        counter.shutdown();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UserConversation>> rows = ArgumentCaptor.forClass(List.class);
+        verify(userConversationMapper).upsertUnread(rows.capture());
+        UserConversation row = rows.getValue().get(0);
+        assertThat(row.getUnreadCount()).isEqualTo(2);
+        assertThat(row.getLastReadMessageId()).isEqualTo(40L);
+    }
+}
@@ -0,0 +1,77 @@
+package com.pot.im.service.file;
+
+import com.pot.im.service.conversation.ConversationSummaryCache;
+import com.pot.im.service.entity.File;
+import com.pot.im.service.mapper.FileShareMapper;
+import com.pot.im.service.service.FileService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FileAccess")
+class FileAccessTest {
+
+    @Mock
+    private FileService fileService;
+    @Mock
+    private FileShareMapper shareMapper;
+    @Mock
+    private ConversationSummaryCache summaryCache;
+
+    @InjectMocks
+    private FileAccess fileAccess;
+
+    @Test
+    @DisplayName("The uploader can read their file without any share")
+    void canRead_uploader_allowed() {
+        assertThat(fileAccess.canRead(1L, file(FileStatus.READY))).isTrue();
+        verify(shareMapper, never()).selectConversationIds(anyLong());
+    }
+
+    @Test
+    @DisplayName("Participants of a conversation the file was sent to can read it")
+    void canRead_participantOfSharedConversation_allowed() {
+        when(shareMapper.selectConversationIds(100L)).thenReturn(List.of(10L, 20L));
+        when(summaryCache.isParticipant(2L, 10L)).thenReturn(false);
+        when(summaryCache.isParticipant(2L, 20L)).thenReturn(true);
+
+        assertThat(fileAccess.canRead(2L, file(FileStatus.READY))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Knowing the file id alone grants nothing")
+    void canRead_stranger_denied() {
+        when(shareMapper.selectConversationIds(100L)).thenReturn(List.of(10L));
+        when(summaryCache.isParticipant(3L, 10L)).thenReturn(false);
+
+        assertThat(fileAccess.canRead(3L, file(FileStatus.READY))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Unfinished uploads cannot be attached to messages")
+    void canShare_uploading_denied() {
+        when(fileService.getByFileId(100L)).thenReturn(file(FileStatus.UPLOADING));
+
+        assertThat(fileAccess.canShare(1L, 100L)).isFalse();
+    }
+
+    private static File file(int status) {
+        File file = new File();
+        file.setFileId(100L);
+        file.setUploaderId(1L);
+        file.setStatus(status);
+        return file;
+    }
+}
@@ -0,0 +1,158 @@
+package com.pot.im.service.file;
+
+import com.pot.im.service.config.FileConfig;
+import com.pot.im.service.entity.File;
+import com.pot.im.service.entity.FileBlob;
+import com.pot.im.service.id.ImIdAllocator;
+import com.pot.im.service.media.MediaProcessingPipeline;
+import com.pot.im.service.protocol.payload.FileUploadRequest;
+import com.pot.im.service.protocol.payload.FileUploadResponse;
+import com.pot.im.service.service.FileService;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FileUploadManager")
+class FileUploadManagerTest {
+
+    private static final byte[] CONTENT = {1, 2, 3};
+
+    @Mock
+    private FileService fileService;
+    @Mock
+    private BlobStore blobStore;
+    @Mock
+    private FileAccess fileAccess;
+    @Mock
+    private MediaProcessingPipeline mediaPipeline;
+    @Mock
+    private ImIdAllocator idAllocator;
+    @TempDir
+    private Path storageDir;
+
+    private FileStorage storage;
+    private FileUploadManager manager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FileConfig config = new FileConfig();
+        config.setStorageDir(storageDir.toString());
+        storage = new FileStorage(config);
+        storage.init();
+        manager = new FileUploadManager(fileService, storage, blobStore, fileAccess, mediaPipeline, idAllocator,
+                config);
+    }
+
+    @Test
+    @DisplayName("Declaring the hash of stored content does not skip the upload")
+    void begin_declaredHashOfStoredContent_stillUploads() throws Exception {
+        when(idAllocator.nextFileId()).thenReturn(100L);
+
+        FileUploadResponse response = manager.begin(1L, request(sha256(CONTENT)), "127.0.0.1");
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(response.isComplete()).isFalse();
+        assertThat(response.getOffset()).isZero();
+        verify(blobStore, never()).acquire(anyString(), anyLong());
+        verify(fileService).createUpload(eq(100L), eq(1L), any(), eq(3L), any(), any(), eq(sha256(CONTENT)));
+    }
+
+    @Test
+    @DisplayName("Received content that is already stored is linked to the stored blob")
+    void append_contentAlreadyStored_linksAfterReceipt() throws Exception {
+        String hash = sha256(CONTENT);
+        when(idAllocator.nextFileId()).thenReturn(100L);
+        FileBlob blob = new FileBlob();
+        blob.setFilePath("2024/01/01/7");
+        when(blobStore.acquire(hash, 3L)).thenReturn(blob);
+        when(fileService.markReady(100L, "2024/01/01/7", hash)).thenReturn(true);
+
+        manager.begin(1L, request(hash), "127.0.0.1");
+        FileUploadResponse response = manager.append(1L, 100L, 0, Unpooled.wrappedBuffer(CONTENT));
+
+        assertThat(response.isComplete()).isTrue();
+        assertThat(Files.exists(storage.partPath(100L))).isFalse();
+    }
+
+    @Test
+    @DisplayName("An upload deleted while completing gives its blob reference back")
+    void append_deletedWhileCompleting_releasesBlob() throws Exception {
+        String hash = sha256(CONTENT);
+        when(idAllocator.nextFileId()).thenReturn(100L);
+        FileBlob blob = new FileBlob();
+        blob.setFilePath("2024/01/01/7");
+        when(blobStore.acquire(hash, 3L)).thenReturn(blob);
+        when(fileService.markReady(100L, "2024/01/01/7", hash)).thenReturn(false);
+
+        manager.begin(1L, request(hash), "127.0.0.1");
+        FileUploadResponse response = manager.append(1L, 100L, 0, Unpooled.wrappedBuffer(CONTENT));
+
+        assertThat(response.isSuccess()).isFalse();
+        verify(blobStore).release(hash);
+    }
+
+    @Test
+    @DisplayName("Deleting a finished file releases its blob and its shares")
+    void delete_readyFile_releasesBlob() throws Exception {
+        File file = new File();
+        file.setFileId(100L);
+        file.setUploaderId(1L);
+        file.setStatus(FileStatus.READY);
+        file.setFileHash("ab");
+        when(fileService.getByFileId(100L)).thenReturn(file);
+        when(fileService.deleteByFileId(100L, FileStatus.READY)).thenReturn(true);
+
+        assertThat(manager.delete(1L, 100L)).isTrue();
+
+        verify(fileAccess).unshareAll(100L);
+        verify(blobStore).release("ab");
+    }
+
+    @Test
+    @DisplayName("Only the uploader can delete a file")
+    void delete_otherUsersFile_refused() throws Exception {
+        File file = new File();
+        file.setFileId(100L);
+        file.setUploaderId(1L);
+        file.setStatus(FileStatus.READY);
+        when(fileService.getByFileId(100L)).thenReturn(file);
+
+        assertThat(manager.delete(2L, 100L)).isFalse();
+
+        verify(fileService, never()).deleteByFileId(anyLong(), anyInt());
+        verify(blobStore, never()).release(anyString());
+    }
+
+    private static FileUploadRequest request(String hash) {
+        FileUploadRequest request = new FileUploadRequest();
+        request.setOriginalName("a.bin");
+        request.setFileSize((long) CONTENT.length);
+        request.setFileHash(hash);
+        return request;
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
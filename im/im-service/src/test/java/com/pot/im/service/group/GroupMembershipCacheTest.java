@@ -0,0 +1,100 @@
+package com.pot.im.service.group;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.entity.Group;
+import com.pot.im.service.entity.GroupMember;
+import com.pot.im.service.mapper.GroupMapper;
+import com.pot.im.service.mapper.GroupMemberMapper;
+import com.pot.im.service.support.RedisJson;
+import com.pot.zing.framework.starter.redis.service.RedisService;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("GroupMembershipCache")
+class GroupMembershipCacheTest {
+
+    private static final String VERSION_KEY = "im:group:member:version:7";
+
+    @Mock
+    private GroupMapper groupMapper;
+    @Mock
+    private GroupMemberMapper groupMemberMapper;
+    @Mock
+    private RedisService redisService;
+
+    private GroupMembershipCache cache;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // Lambda query wrappers resolve column names from MyBatis-Plus table metadata.
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, Group.class);
+        TableInfoHelper.initTableInfo(assistant, GroupMember.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        MessageConfig config = new MessageConfig();
+        // Check the version on every read.
+        config.setGroupVersionCheckIntervalMillis(0);
+        cache = new GroupMembershipCache(groupMapper, groupMemberMapper, redisService, config);
+        cache.init();
+    }
+
+    @Test
+    @DisplayName("A version bumped with INCR is read back and an unchanged one keeps the cached members")
+    void get_versionWrittenByIncr_reusesMembersUntilItMoves() {
+        when(redisService.get(VERSION_KEY, Number.class))
+                .thenAnswer(invocation -> RedisJson.read("3"))
+                .thenAnswer(invocation -> RedisJson.read("3"))
+                .thenAnswer(invocation -> RedisJson.read("4"));
+        when(groupMapper.selectOne(any())).thenReturn(group());
+        when(groupMemberMapper.selectList(any())).thenAnswer(invocation -> members(1L, 2L));
+
+        GroupMembers first = cache.get(7L);
+        GroupMembers second = cache.get(7L);
+        GroupMembers third = cache.get(7L);
+
+        assertThat(first.version()).isEqualTo(3L);
+        assertThat(second).isSameAs(first);
+        assertThat(third.version()).isEqualTo(4L);
+        assertThat(third.isMember(2L)).isTrue();
+        verify(groupMemberMapper, times(2)).selectList(any());
+    }
+
+    private static Group group() {
+        Group group = new Group();
+        group.setGroupId(7L);
+        group.setOwnerId(1L);
+        group.setMuteAll(0);
+        return group;
+    }
+
+    private static List<GroupMember> members(Long... userIds) {
+        List<GroupMember> rows = new ArrayList<>();
+        for (Long userId : userIds) {
+            GroupMember member = new GroupMember();
+            member.setUserId(userId);
+            rows.add(member);
+        }
+        return rows;
+    }
+}
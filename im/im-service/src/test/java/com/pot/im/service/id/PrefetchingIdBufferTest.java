@@ -0,0 +1,69 @@
+package com.pot.im.service.id;
+
+import com.pot.zing.framework.starter.id.service.IdService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PrefetchingIdBuffer")
+class PrefetchingIdBufferTest {
+
+    private static final String REFILL_THREAD = "id-refill";
+
+    private final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, REFILL_THREAD));
+
+    @AfterEach
+    void tearDown() {
+        refillExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Ids keep increasing when a caller runs out while the background refill is in flight")
+    void next_refillInFlight_neverGoesBackwards() {
+        PrefetchingIdBuffer buffer = new PrefetchingIdBuffer(new SlowRefillIdService(), "test", 4, 2, refillExecutor);
+
+        long previous = -1;
+        for (int i = 0; i < 200; i++) {
+            long id = buffer.next();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+    }
+
+    /**
+     * Reserves its range at once but returns slowly on the refill thread, which is
+     * when an overlapping inline fetch would get the later range first.
+     */
+    private static final class SlowRefillIdService implements IdService {
+
+        private final AtomicLong nextId = new AtomicLong(1);
+
+        @Override
+        public Long nextId(String bizType) {
+            return nextId.getAndIncrement();
+        }
+
+        @Override
+        public long[] nextIds(String bizType, int count) {
+            long start = nextId.getAndAdd(count);
+            if (REFILL_THREAD.equals(Thread.currentThread().getName())) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            long[] ids = new long[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = start + i;
+            }
+            return ids;
+        }
+    }
+}
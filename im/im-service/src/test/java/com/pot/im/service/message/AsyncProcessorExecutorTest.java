@@ -0,0 +1,73 @@
+package com.pot.im.service.message;
+
+import com.pot.im.service.config.ServerConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("AsyncProcessorExecutor")
+class AsyncProcessorExecutorTest {
+
+    @Test
+    @DisplayName("Submissions after shutdown are rejected instead of silently dropped")
+    void execute_afterShutdown_throws() {
+        AsyncProcessorExecutor executor = new AsyncProcessorExecutor(config(ServerConfig.AsyncExecutor.Mode.BOUNDED));
+        executor.shutdown();
+
+        assertThatThrownBy(() -> executor.execute(() -> {
+        })).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    @DisplayName("Virtual mode runs overflow on the caller and counts it")
+    void execute_virtualSaturated_runsOnCallerAndCounts() throws Exception {
+        ServerConfig.AsyncExecutor config = config(ServerConfig.AsyncExecutor.Mode.VIRTUAL);
+        config.setMaxConcurrency(1);
+        AsyncProcessorExecutor executor = new AsyncProcessorExecutor(config);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                awaitQuietly(release);
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            AtomicReference<Thread> ranOn = new AtomicReference<>();
+            executor.execute(() -> ranOn.set(Thread.currentThread()));
+
+            assertThat(ranOn.get()).isSameAs(Thread.currentThread());
+            AsyncProcessorExecutor.ExecutorStats stats = executor.stats();
+            assertThat(stats.callerRunsCount()).isEqualTo(1);
+            assertThat(stats.rejectedCount()).isEqualTo(1);
+            assertThat(stats.completedCount()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private static ServerConfig.AsyncExecutor config(ServerConfig.AsyncExecutor.Mode mode) {
+        ServerConfig.AsyncExecutor config = new ServerConfig.AsyncExecutor();
+        config.setMode(mode);
+        config.setCoreThreads(1);
+        config.setMaxThreads(1);
+        config.setQueueCapacity(1);
+        return config;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.pot.im.service.message;
+
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.conversation.ConversationIdResolver;
+import com.pot.im.service.conversation.ConversationSummaryCache;
+import com.pot.im.service.conversation.UnreadCounter;
+import com.pot.im.service.file.FileAccess;
+import com.pot.im.service.group.GroupMembers;
+import com.pot.im.service.group.GroupMembershipCache;
+import com.pot.im.service.id.ImIdAllocator;
+import com.pot.im.service.persistence.MessageWriter;
+import com.pot.im.service.protocol.payload.GroupMessageRequest;
+import com.pot.im.service.protocol.payload.MessageAck;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.protocol.serializer.SerializerType;
+import com.pot.im.service.server.ConnectionManager;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("GroupMessageProcessor")
+class GroupMessageProcessorTest {
+
+    @Mock
+    private ConnectionManager connectionManager;
+    @Mock
+    private GroupMembershipCache membershipCache;
+    @Mock
+    private GroupMembers members;
+    @Mock
+    private ConversationIdResolver conversationResolver;
+    @Mock
+    private MessageWriter messageWriter;
+    @Mock
+    private UnreadCounter unreadCounter;
+    @Mock
+    private ConversationSummaryCache summaryCache;
+    @Mock
+    private FileAccess fileAccess;
+    @Mock
+    private ImIdAllocator idAllocator;
+    @Mock
+    private ChannelHandlerContext ctx;
+
+    private final ExecutorService workers = Executors.newFixedThreadPool(4);
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+    private final AtomicInteger rejections = new AtomicInteger();
+    private KeyedSerialExecutor orderedExecutor;
+    private GroupMessageProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        // A saturated pool: the delegate rejects until rejections runs out, as under ABORT.
+        orderedExecutor = new KeyedSerialExecutor(task -> {
+            if (rejections.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("saturated");
+            }
+            workers.execute(task);
+        }, 4, 100);
+        processor = new GroupMessageProcessor(connectionManager, membershipCache, conversationResolver,
+                messageWriter, unreadCounter, summaryCache, fileAccess, idAllocator, new MessageConfig(),
+                orderedExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        workers.shutdownNow();
+        orderedExecutor.shutdown();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    @DisplayName("Committed group messages are fanned out and ACKed in order, off the writer thread, even when saturated")
+    void process_saturatedExecutor_acksCommittedMessagesInOrder() throws Exception {
+        when(ctx.channel()).thenReturn(channel);
+        when(connectionManager.getChannelUser(channel.id())).thenReturn("1");
+        when(membershipCache.get(7L)).thenReturn(members);
+        when(members.isMember(1L)).thenReturn(true);
+        when(members.canSend(eq(1L), anyLong())).thenReturn(true);
+        when(members.userIds()).thenReturn(new long[]{1L, 2L, 3L});
+        when(members.userKeys()).thenReturn(new String[]{"1", "2", "3"});
+        when(conversationResolver.resolveGroup(7L)).thenReturn(20L);
+        when(idAllocator.nextMessageId()).thenReturn(100L, 101L);
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        CompletableFuture<Void> second = new CompletableFuture<>();
+        when(messageWriter.append(any())).thenReturn(first, second);
+        List<String> acked = new CopyOnWriteArrayList<>();
+        List<Thread> ackThreads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            acked.add(PayloadCodec.decode(invocation.getArgument(0), MessageAck.class).getClientMsgId());
+            ackThreads.add(Thread.currentThread());
+            done.countDown();
+            return null;
+        }).when(ctx).writeAndFlush(any());
+
+        processor.process(ctx, request("a"));
+        processor.process(ctx, request("b"));
+        rejections.set(5);
+        Thread flusher = new Thread(() -> {
+            first.complete(null);
+            second.complete(null);
+        }, "flusher");
+        flusher.start();
+        flusher.join();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(acked).containsExactly("a", "b");
+        assertThat(ackThreads).doesNotContain(flusher);
+        verify(connectionManager, times(2)).multicast(any(), eq("1"), any(ProtocolMessage.class), any());
+    }
+
+    private static ProtocolMessage request(String clientMsgId) throws Exception {
+        GroupMessageRequest request = new GroupMessageRequest();
+        request.setClientMsgId(clientMsgId);
+        request.setGroupId(7L);
+        request.setContent("hello " + clientMsgId);
+        return PayloadCodec.encode(MessageType.GROUP_MESSAGE, request, SerializerType.JSON);
+    }
+}
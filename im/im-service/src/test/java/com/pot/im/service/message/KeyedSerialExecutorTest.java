@@ -0,0 +1,133 @@
+package com.pot.im.service.message;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("KeyedSerialExecutor")
+class KeyedSerialExecutorTest {
+
+    private final ExecutorService workers = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        workers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("A rejected lane keeps its tasks and runs them later, in order, off the caller")
+    void execute_delegateRejects_retriesLaneInOrder() throws Exception {
+        AtomicInteger rejections = new AtomicInteger(2);
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(task -> {
+            if (rejections.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("saturated");
+            }
+            workers.execute(task);
+        }, 4, 100);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+
+        for (int i = 0; i < 3; i++) {
+            int n = i;
+            executor.execute("conn", () -> {
+                order.add(n);
+                threads.add(Thread.currentThread());
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly(0, 1, 2);
+        assertThat(threads).doesNotContain(Thread.currentThread());
+        assertThat(executor.pendingTasks()).isZero();
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Submissions beyond maxPending are rejected so the caller can release them")
+    void execute_backlogFull_throws() {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(task -> {
+            throw new RejectedExecutionException("saturated");
+        }, 4, 1);
+        executor.execute("conn", () -> {
+        });
+
+        assertThatThrownBy(() -> executor.execute("conn", () -> {
+        })).isInstanceOf(RejectedExecutionException.class);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Shutdown runs tasks still waiting in rejected lanes")
+    void shutdown_pendingTasks_drained() {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(task -> {
+            throw new RejectedExecutionException("saturated");
+        }, 4, 10);
+        AtomicInteger ran = new AtomicInteger();
+        executor.execute("a", ran::incrementAndGet);
+        executor.execute("b", ran::incrementAndGet);
+
+        executor.shutdown();
+
+        assertThat(ran.get()).isEqualTo(2);
+        assertThat(executor.pendingTasks()).isZero();
+        assertThatThrownBy(() -> executor.execute("a", ran::incrementAndGet))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    @DisplayName("executeAlways accepts past a full backlog and keeps the key's order")
+    void executeAlways_backlogFull_runsInOrder() throws Exception {
+        AtomicInteger rejections = new AtomicInteger(3);
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(task -> {
+            if (rejections.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("saturated");
+            }
+            workers.execute(task);
+        }, 4, 1);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+
+        executor.execute("conn", () -> {
+            order.add(0);
+            done.countDown();
+        });
+        for (int i = 1; i < 3; i++) {
+            int n = i;
+            executor.executeAlways("conn", () -> {
+                order.add(n);
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly(0, 1, 2);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("executeAlways runs on the caller once shut down instead of dropping the task")
+    void executeAlways_afterShutdown_runsOnCaller() {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(workers, 4, 10);
+        executor.shutdown();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+
+        executor.executeAlways("conn", () -> threads.add(Thread.currentThread()));
+
+        assertThat(threads).containsExactly(Thread.currentThread());
+        assertThat(executor.pendingTasks()).isZero();
+    }
+}
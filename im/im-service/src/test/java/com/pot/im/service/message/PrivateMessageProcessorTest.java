@@ -0,0 +1,159 @@
+package com.pot.im.service.message;
+
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.conversation.ConversationIdResolver;
+import com.pot.im.service.conversation.ConversationSummaryCache;
+import com.pot.im.service.conversation.UnreadCounter;
+import com.pot.im.service.file.FileAccess;
+import com.pot.im.service.id.ImIdAllocator;
+import com.pot.im.service.persistence.MessageWriter;
+import com.pot.im.service.protocol.payload.ChatMessage;
+import com.pot.im.service.protocol.payload.MessageAck;
+import com.pot.im.service.protocol.payload.PrivateMessageRequest;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.protocol.serializer.SerializerType;
+import com.pot.im.service.server.ConnectionManager;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PrivateMessageProcessor")
+class PrivateMessageProcessorTest {
+
+    @Mock
+    private ConnectionManager connectionManager;
+    @Mock
+    private ConversationIdResolver conversationResolver;
+    @Mock
+    private MessageWriter messageWriter;
+    @Mock
+    private UnreadCounter unreadCounter;
+    @Mock
+    private ConversationSummaryCache summaryCache;
+    @Mock
+    private FileAccess fileAccess;
+    @Mock
+    private ImIdAllocator idAllocator;
+    @Mock
+    private ChannelHandlerContext ctx;
+
+    private final ExecutorService workers = Executors.newFixedThreadPool(4);
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+    private final AtomicInteger rejections = new AtomicInteger();
+    private KeyedSerialExecutor orderedExecutor;
+    private PrivateMessageProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        // A saturated pool: the delegate rejects until rejections runs out, as under ABORT.
+        orderedExecutor = new KeyedSerialExecutor(task -> {
+            if (rejections.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("saturated");
+            }
+            workers.execute(task);
+        }, 4, 100);
+        processor = new PrivateMessageProcessor(connectionManager, conversationResolver, messageWriter,
+                unreadCounter, summaryCache, fileAccess, idAllocator, new MessageConfig(), orderedExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        workers.shutdownNow();
+        orderedExecutor.shutdown();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    @DisplayName("Committed messages are pushed and ACKed in order, off the writer thread, even when saturated")
+    void process_saturatedExecutor_acksCommittedMessagesInOrder() throws Exception {
+        when(ctx.channel()).thenReturn(channel);
+        when(connectionManager.getChannelUser(channel.id())).thenReturn("1");
+        when(connectionManager.serializerOf("2")).thenReturn(SerializerType.JSON);
+        when(conversationResolver.resolvePrivate(1L, 2L)).thenReturn(10L);
+        when(idAllocator.nextMessageId()).thenReturn(100L, 101L, 102L);
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        CompletableFuture<Void> second = new CompletableFuture<>();
+        CompletableFuture<Void> third = new CompletableFuture<>();
+        when(messageWriter.append(any())).thenReturn(first, second, third);
+        List<String> acked = new CopyOnWriteArrayList<>();
+        List<Thread> ackThreads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        doAnswer(invocation -> {
+            acked.add(PayloadCodec.decode(invocation.getArgument(0), MessageAck.class).getClientMsgId());
+            ackThreads.add(Thread.currentThread());
+            done.countDown();
+            return null;
+        }).when(ctx).writeAndFlush(any());
+
+        processor.process(ctx, request("a"));
+        processor.process(ctx, request("b"));
+        processor.process(ctx, request("c"));
+        rejections.set(5);
+        Thread flusher = new Thread(() -> {
+            first.complete(null);
+            second.complete(null);
+            third.complete(null);
+        }, "flusher");
+        flusher.start();
+        flusher.join();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(acked).containsExactly("a", "b", "c");
+        assertThat(ackThreads).doesNotContain(flusher);
+        InOrder pushes = inOrder(connectionManager);
+        pushes.verify(connectionManager).sendToUser(eq("2"), messageWithId(100L));
+        pushes.verify(connectionManager).sendToUser(eq("2"), messageWithId(101L));
+        pushes.verify(connectionManager).sendToUser(eq("2"), messageWithId(102L));
+        InOrder reads = inOrder(unreadCounter);
+        reads.verify(unreadCounter).markRead(eq(1L), eq(10L), eq(100L));
+        reads.verify(unreadCounter).markRead(eq(1L), eq(10L), eq(101L));
+        reads.verify(unreadCounter).markRead(eq(1L), eq(10L), eq(102L));
+    }
+
+    private static ProtocolMessage request(String clientMsgId) throws Exception {
+        PrivateMessageRequest request = new PrivateMessageRequest();
+        request.setClientMsgId(clientMsgId);
+        request.setReceiverId(2L);
+        request.setContent("hello " + clientMsgId);
+        return PayloadCodec.encode(MessageType.PRIVATE_MESSAGE, request, SerializerType.JSON);
+    }
+
+    private static Object messageWithId(long messageId) {
+        return argThat(message -> {
+            try {
+                return message instanceof ProtocolMessage push
+                        && PayloadCodec.decode(push, ChatMessage.class).getMessageId() == messageId;
+            } catch (Exception e) {
+                return false;
+            }
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package com.pot.im.service.message;
+
+import com.pot.im.service.conversation.ConversationIdResolver;
+import com.pot.im.service.conversation.ConversationSummaryCache;
+import com.pot.im.service.group.GroupMembers;
+import com.pot.im.service.group.GroupMembershipCache;
+import com.pot.im.service.protocol.payload.ReadReceipt;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.protocol.serializer.SerializerType;
+import com.pot.im.service.receipt.ReadReceiptCoalescer;
+import com.pot.im.service.server.ConnectionManager;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReadReceiptProcessor")
+class ReadReceiptProcessorTest {
+
+    @Mock
+    private ConnectionManager connectionManager;
+    @Mock
+    private ConversationIdResolver conversationResolver;
+    @Mock
+    private GroupMembershipCache membershipCache;
+    @Mock
+    private ConversationSummaryCache summaryCache;
+    @Mock
+    private ReadReceiptCoalescer coalescer;
+    @Mock
+    private GroupMembers members;
+    @Mock
+    private ChannelHandlerContext ctx;
+
+    @InjectMocks
+    private ReadReceiptProcessor processor;
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    @BeforeEach
+    void setUp() {
+        when(ctx.channel()).thenReturn(channel);
+        when(connectionManager.getChannelUser(channel.id())).thenReturn("1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    @DisplayName("A receipt past the newest private message only reads up to that message")
+    void process_privateReceiptBeyondNewest_clamped() throws Exception {
+        when(conversationResolver.findPrivate(1L, 2L)).thenReturn(10L);
+        when(summaryCache.lastMessageId(10L)).thenReturn(500L);
+
+        processor.process(ctx, receipt(new ReadReceipt(2L, null, Long.MAX_VALUE)));
+
+        verify(coalescer).submit(1L, 10L, 500L, 2L);
+    }
+
+    @Test
+    @DisplayName("A group receipt within the timeline is passed on unchanged")
+    void process_groupReceiptWithinTimeline_unchanged() throws Exception {
+        when(membershipCache.get(7L)).thenReturn(members);
+        when(members.isMember(1L)).thenReturn(true);
+        when(conversationResolver.resolveGroup(7L)).thenReturn(20L);
+        when(summaryCache.lastMessageId(20L)).thenReturn(500L);
+
+        processor.process(ctx, receipt(new ReadReceipt(null, 7L, 300L)));
+
+        verify(coalescer).submit(1L, 20L, 300L, null);
+    }
+
+    @Test
+    @DisplayName("Receipts for a conversation without messages are dropped")
+    void process_emptyConversation_dropped() throws Exception {
+        when(conversationResolver.findPrivate(1L, 2L)).thenReturn(10L);
+        when(summaryCache.lastMessageId(10L)).thenReturn(0L);
+
+        processor.process(ctx, receipt(new ReadReceipt(2L, null, 42L)));
+
+        verify(coalescer, never()).submit(anyLong(), anyLong(), anyLong(), any());
+    }
+
+    private static ProtocolMessage receipt(ReadReceipt receipt) throws Exception {
+        return PayloadCodec.encode(MessageType.READ_RECEIPT, receipt, SerializerType.JSON);
+    }
+}
@@ -0,0 +1,103 @@
+package com.pot.im.service.message;
+
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.offline.OfflineInbox;
+import com.pot.im.service.protocol.payload.SyncEntry;
+import com.pot.im.service.protocol.payload.SyncRequest;
+import com.pot.im.service.protocol.payload.SyncResponse;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCodec;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import com.pot.im.service.protocol.serializer.SerializerType;
+import com.pot.im.service.server.ConnectionManager;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SyncProcessor")
+class SyncProcessorTest {
+
+    @Mock
+    private OfflineInbox inbox;
+    @Mock
+    private ConnectionManager connectionManager;
+    @Mock
+    private ChannelHandlerContext ctx;
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+    private SyncProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new SyncProcessor(inbox, connectionManager, new MessageConfig());
+        when(ctx.channel()).thenReturn(channel);
+        when(connectionManager.getChannelUser(channel.id())).thenReturn("1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    @DisplayName("An inbox that expired entirely is reported as truncated")
+    void sync_allEntriesExpired_truncated() throws Exception {
+        when(inbox.lastSeq("1")).thenReturn(8L);
+        when(inbox.fetch(eq("1"), eq(5L), anyInt())).thenReturn(List.of());
+
+        assertThat(sync(5L).isTruncated()).isTrue();
+    }
+
+    @Test
+    @DisplayName("A client that has everything is not told anything was lost")
+    void sync_upToDate_notTruncated() throws Exception {
+        when(inbox.lastSeq("1")).thenReturn(5L);
+        when(inbox.fetch(eq("1"), eq(5L), anyInt())).thenReturn(List.of());
+
+        assertThat(sync(5L).isTruncated()).isFalse();
+    }
+
+    @Test
+    @DisplayName("A gap before the first held entry is reported as truncated")
+    void sync_oldestEntriesTrimmed_truncated() throws Exception {
+        when(inbox.lastSeq("1")).thenReturn(9L);
+        when(inbox.fetch(eq("1"), eq(5L), anyInt())).thenReturn(List.of(entry(8L), entry(9L)));
+
+        SyncResponse response = sync(5L);
+
+        assertThat(response.isTruncated()).isTrue();
+        assertThat(response.getEntries()).extracting(SyncEntry::getSeq).containsExactly(8L, 9L);
+    }
+
+    private SyncResponse sync(long lastSeq) throws Exception {
+        ProtocolMessage request = PayloadCodec.encode(MessageType.SYNC_REQUEST, new SyncRequest(lastSeq),
+                SerializerType.JSON);
+        processor.process(ctx, request);
+
+        ArgumentCaptor<ProtocolMessage> written = ArgumentCaptor.forClass(ProtocolMessage.class);
+        verify(ctx).write(written.capture());
+        verify(inbox).acknowledge("1", lastSeq);
+        return PayloadCodec.decode(written.getValue(), SyncResponse.class);
+    }
+
+    private static SyncEntry entry(long seq) {
+        return new SyncEntry(seq, MessageType.PRIVATE_MESSAGE.getCode(), SerializerType.JSON.getCode(), 0L,
+                new byte[]{1});
+    }
+}
@@ -0,0 +1,51 @@
+package com.pot.im.service.persistence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("WriteBehindBatcher")
+class WriteBehindBatcherTest {
+
+    @Test
+    @DisplayName("A partially failed batch fails only the affected items")
+    void flush_partialFailure_failsOnlyAffectedItems() throws Exception {
+        IllegalStateException failure = new IllegalStateException("rejected");
+        try (WriteBehindBatcher<String> batcher = new WriteBehindBatcher<>("test", 2, 1_000, 16, items -> {
+            Throwable[] causes = new Throwable[items.size()];
+            for (int i = 0; i < items.size(); i++) {
+                causes[i] = "bad".equals(items.get(i)) ? failure : null;
+            }
+            throw new WriteBehindBatcher.BatchWriteException("partial", causes);
+        })) {
+            CompletableFuture<Void> good = batcher.submit("good");
+            CompletableFuture<Void> bad = batcher.submit("bad");
+
+            good.get(5, TimeUnit.SECONDS);
+            assertThatThrownBy(() -> bad.get(5, TimeUnit.SECONDS)).hasCause(failure);
+            WriteBehindBatcher.BatcherStats stats = batcher.stats();
+            assertThat(stats.flushedItems()).isEqualTo(1);
+            assertThat(stats.failedItems()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Any other sink failure fails the whole batch")
+    void flush_sinkThrows_failsWholeBatch() {
+        try (WriteBehindBatcher<String> batcher = new WriteBehindBatcher<>("test", 2, 1_000, 16, items -> {
+            throw new IllegalStateException("down");
+        })) {
+            List<CompletableFuture<Void>> futures = List.of(batcher.submit("a"), batcher.submit("b"));
+
+            for (CompletableFuture<Void> future : futures) {
+                assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("down");
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.pot.im.service.protocol.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ByteBufProtocolMessage")
+class ByteBufProtocolMessageTest {
+
+    @Test
+    @DisplayName("setData replaces the payload and releases the old buffer")
+    void setData_replacesContent_releasesOld() {
+        ByteBuf original = Unpooled.copiedBuffer("old", StandardCharsets.UTF_8);
+        ByteBufProtocolMessage message = new ByteBufProtocolMessage(new ProtocolHeader(), original);
+
+        message.setData("new".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(original.refCnt()).isZero();
+        assertThat(message.content().toString(StandardCharsets.UTF_8)).isEqualTo("new");
+        assertThat(message.getData()).isEqualTo("new".getBytes(StandardCharsets.UTF_8));
+        assertThat(message.release()).isTrue();
+    }
+
+    @Test
+    @DisplayName("setData keeps outstanding retains balanced")
+    void setData_retainedMessage_transfersReferenceCount() {
+        ByteBuf original = Unpooled.copiedBuffer("old", StandardCharsets.UTF_8);
+        ByteBufProtocolMessage message = new ByteBufProtocolMessage(new ProtocolHeader(), original);
+        message.retain();
+
+        message.setData(new byte[]{1, 2});
+
+        assertThat(original.refCnt()).isZero();
+        assertThat(message.refCnt()).isEqualTo(2);
+        assertThat(message.release()).isFalse();
+        assertThat(message.release()).isTrue();
+    }
+
+    @Test
+    @DisplayName("getData copies the inbound payload once")
+    void getData_copiesOnFirstAccess() {
+        ByteBufProtocolMessage message = new ByteBufProtocolMessage(new ProtocolHeader(),
+                Unpooled.wrappedBuffer(new byte[]{7, 8, 9}));
+
+        byte[] first = message.getData();
+
+        assertThat(first).containsExactly(7, 8, 9);
+        assertThat(message.getData()).isSameAs(first);
+        message.release();
+    }
+}
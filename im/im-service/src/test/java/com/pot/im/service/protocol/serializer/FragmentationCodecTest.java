@@ -0,0 +1,98 @@
+package com.pot.im.service.protocol.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("FragmentationCodec")
+class FragmentationCodecTest {
+
+    private static final int FRAGMENT_SIZE = 16;
+
+    @Test
+    @DisplayName("Large payloads are split and reassembled")
+    void roundTrip_largePayload_reassembles() {
+        byte[] payload = payload(100);
+        List<ProtocolMessage> fragments = fragment(message(1, payload));
+
+        assertThat(fragments).hasSize(7).allMatch(f -> f.getHeader().isFragmented());
+
+        EmbeddedChannel inbound = new EmbeddedChannel(codec(30_000));
+        fragments.forEach(inbound::writeInbound);
+        ByteBufProtocolMessage reassembled = inbound.readInbound();
+
+        assertThat(reassembled.getHeader().isFragmented()).isFalse();
+        assertThat(reassembled.getData()).isEqualTo(payload);
+        reassembled.release();
+        inbound.finishAndReleaseAll();
+    }
+
+    @Test
+    @DisplayName("Small payloads pass through unchanged")
+    void encode_smallPayload_notFragmented() {
+        List<ProtocolMessage> out = fragment(message(1, payload(FRAGMENT_SIZE)));
+
+        assertThat(out).hasSize(1);
+        assertThat(out.get(0).getHeader().isFragmented()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Idle fragment sets are dropped when the next fragment arrives")
+    void decode_staleSet_expiredLazily() throws InterruptedException {
+        List<ProtocolMessage> stale = fragment(message(1, payload(40)));
+        List<ProtocolMessage> fresh = fragment(message(2, payload(40)));
+        EmbeddedChannel inbound = new EmbeddedChannel(codec(1));
+
+        inbound.writeInbound(stale.get(0));
+        Thread.sleep(5);
+        fresh.forEach(inbound::writeInbound);
+        // The rest of the expired set is ignored instead of completing it.
+        inbound.writeInbound(stale.get(1));
+        inbound.writeInbound(stale.get(2));
+
+        ByteBufProtocolMessage completed = inbound.readInbound();
+        assertThat(completed.getHeader().getSequence()).isEqualTo(2);
+        assertThat((Object) inbound.readInbound()).isNull();
+        completed.release();
+        inbound.finishAndReleaseAll();
+    }
+
+    private static FragmentationCodec codec(long timeoutMillis) {
+        return new FragmentationCodec(FRAGMENT_SIZE, 1024, 4096, timeoutMillis);
+    }
+
+    private static List<ProtocolMessage> fragment(ProtocolMessage message) {
+        EmbeddedChannel outbound = new EmbeddedChannel(codec(30_000));
+        outbound.writeOutbound(message);
+        List<ProtocolMessage> fragments = new ArrayList<>();
+        ProtocolMessage fragment;
+        while ((fragment = outbound.readOutbound()) != null) {
+            fragments.add(fragment);
+        }
+        outbound.finishAndReleaseAll();
+        return fragments;
+    }
+
+    private static ProtocolMessage message(long sequence, byte[] payload) {
+        ByteBuf content = Unpooled.wrappedBuffer(payload);
+        ProtocolHeader header = new ProtocolHeader();
+        header.setMsgType(MessageType.PRIVATE_MESSAGE.getCode());
+        header.setSequence(sequence);
+        return new ByteBufProtocolMessage(header, content);
+    }
+
+    private static byte[] payload(int length) {
+        byte[] payload = new byte[length];
+        for (int i = 0; i < length; i++) {
+            payload[i] = (byte) i;
+        }
+        return payload;
+    }
+}
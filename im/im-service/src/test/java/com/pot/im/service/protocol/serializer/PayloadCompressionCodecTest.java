@@ -0,0 +1,86 @@
+package com.pot.im.service.protocol.serializer;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PayloadCompressionCodec")
+class PayloadCompressionCodecTest {
+
+    private static final int THRESHOLD = 64;
+
+    @Test
+    @DisplayName("Payloads above the threshold are compressed and inflated back")
+    void roundTrip_largePayload_restored() {
+        PayloadCompressionCodec codec = new PayloadCompressionCodec(THRESHOLD, 6, 4096, 2);
+        byte[] payload = compressible(1024);
+
+        ProtocolMessage compressed = encode(codec, new ProtocolMessage(MessageType.PRIVATE_MESSAGE, payload));
+        assertThat(compressed.getHeader().isCompressed()).isTrue();
+        assertThat(compressed.getData().length).isLessThan(payload.length);
+
+        EmbeddedChannel inbound = new EmbeddedChannel(codec);
+        inbound.writeInbound(compressed);
+        ProtocolMessage restored = inbound.readInbound();
+
+        assertThat(restored.getHeader().isCompressed()).isFalse();
+        assertThat(restored.getData()).isEqualTo(payload);
+        ReferenceCountUtil.release(restored);
+        inbound.finishAndReleaseAll();
+        codec.close();
+    }
+
+    @Test
+    @DisplayName("Payloads below the threshold pass through unchanged")
+    void encode_smallPayload_notCompressed() {
+        PayloadCompressionCodec codec = new PayloadCompressionCodec(THRESHOLD, 6, 4096, 2);
+        byte[] payload = compressible(THRESHOLD - 1);
+
+        ProtocolMessage out = encode(codec, new ProtocolMessage(MessageType.PRIVATE_MESSAGE, payload));
+
+        assertThat(out.getHeader().isCompressed()).isFalse();
+        assertThat(out.getData()).isEqualTo(payload);
+        ReferenceCountUtil.release(out);
+        codec.close();
+    }
+
+    @Test
+    @DisplayName("Compressing from short-lived threads reuses a bounded pool")
+    void compress_offEventLoop_poolBounded() throws InterruptedException {
+        PayloadCompressionCodec codec = new PayloadCompressionCodec(THRESHOLD, 6, 4096, 2);
+        ProtocolMessage message = new ProtocolMessage(MessageType.PRIVATE_MESSAGE, compressible(1024));
+
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = Thread.ofVirtual().start(() ->
+                    ReferenceCountUtil.release(codec.compress(ByteBufAllocator.DEFAULT, message)));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(codec.idleDeflaters()).isBetween(1, 2);
+        codec.close();
+        assertThat(codec.idleDeflaters()).isZero();
+    }
+
+    private static ProtocolMessage encode(PayloadCompressionCodec codec, ProtocolMessage message) {
+        EmbeddedChannel outbound = new EmbeddedChannel(codec);
+        outbound.writeOutbound(message);
+        ProtocolMessage out = outbound.readOutbound();
+        outbound.finishAndReleaseAll();
+        return out;
+    }
+
+    private static byte[] compressible(int length) {
+        byte[] payload = new byte[length];
+        Arrays.fill(payload, (byte) 'a');
+        return payload;
+    }
+}
@@ -0,0 +1,64 @@
+package com.pot.im.service.protocol.serializer;
+
+import com.pot.im.service.protocol.payload.ChatMessage;
+import com.pot.im.service.protocol.payload.ForwardBatch;
+import com.pot.im.service.protocol.payload.ForwardEnvelope;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ProtobufSerializer")
+class ProtobufSerializerTest {
+
+    private final ProtobufSerializer serializer = new ProtobufSerializer();
+
+    @Test
+    @DisplayName("Payloads survive a round trip through bytes and buffers")
+    void roundTrip_chatMessage_equal() throws Exception {
+        ChatMessage message = ChatMessage.builder()
+                .messageId(42L).conversationId(7L).senderId(1L).receiverId(2L)
+                .messageType(1).content("hello").atUsers(List.of(3L, 4L)).timestamp(1_700_000_000_000L)
+                .build();
+
+        byte[] bytes = serializer.serialize(message);
+
+        assertThat(serializer.deserialize(bytes, ChatMessage.class)).isEqualTo(message);
+        assertThat(serializer.deserialize(Unpooled.wrappedBuffer(bytes), ChatMessage.class)).isEqualTo(message);
+        ByteBuf direct = Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+        try {
+            assertThat(serializer.deserialize(direct, ChatMessage.class)).isEqualTo(message);
+            assertThat(direct.readerIndex()).isZero();
+        } finally {
+            direct.release();
+        }
+    }
+
+    @Test
+    @DisplayName("Nested messages use the length-delimited protobuf encoding")
+    void serialize_nestedMessage_lengthDelimited() throws Exception {
+        ForwardEnvelope envelope = new ForwardEnvelope("9", (byte) 1, (byte) 0, (byte) 0, 5L, 6L, new byte[]{1, 2});
+        byte[] bytes = serializer.serialize(new ForwardBatch("n", List.of(envelope)));
+
+        // Field 1: tag 0x0A, length 1, "n". Field 2 must follow as tag 0x12 (wire type 2,
+        // length delimited) rather than the start-group tag 0x13 protostuff would write.
+        assertThat(bytes[0]).isEqualTo((byte) 0x0A);
+        assertThat(bytes[1]).isEqualTo((byte) 1);
+        assertThat(new String(bytes, 2, 1, StandardCharsets.UTF_8)).isEqualTo("n");
+        assertThat(bytes[3]).isEqualTo((byte) 0x12);
+        assertThat(bytes[4]).isEqualTo((byte) (bytes.length - 5));
+
+        ForwardBatch decoded = serializer.deserialize(bytes, ForwardBatch.class);
+        assertThat(decoded.getEnvelopes()).singleElement()
+                .satisfies(e -> {
+                    assertThat(e.getUserId()).isEqualTo("9");
+                    assertThat(e.getSequence()).isEqualTo(5L);
+                    assertThat(e.getData()).containsExactly(1, 2);
+                });
+    }
+}
@@ -0,0 +1,82 @@
+package com.pot.im.service.protocol.serializer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ProtocolDecoder")
+class ProtocolDecoderTest {
+
+    private static final byte[] PAYLOAD = {1, 2, 3, 4};
+
+    @Test
+    @DisplayName("Frames with a valid checksum are decoded")
+    void decode_validChecksum_decoded() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ProtocolDecoder());
+
+        channel.writeInbound(frame(MessageType.PRIVATE_MESSAGE, false));
+
+        ByteBufProtocolMessage message = channel.readInbound();
+        assertThat(message.getData()).isEqualTo(PAYLOAD);
+        message.release();
+        assertThat(channel.isOpen()).isTrue();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    @DisplayName("A server closes connections whose frames omit the checksum, even download chunks")
+    void decode_serverSide_checksumOmittedRejected() {
+        for (MessageType type : new MessageType[]{MessageType.PRIVATE_MESSAGE, MessageType.FILE_DOWNLOAD_CHUNK}) {
+            EmbeddedChannel channel = new EmbeddedChannel(new ProtocolDecoder());
+
+            channel.writeInbound(frame(type, true));
+
+            assertThat((Object) channel.readInbound()).isNull();
+            assertThat(channel.isOpen()).isFalse();
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    @DisplayName("A client accepts streamed download chunks without a checksum")
+    void decode_clientSide_streamedChunkAccepted() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ProtocolDecoder(1024, true));
+
+        channel.writeInbound(frame(MessageType.FILE_DOWNLOAD_CHUNK, true));
+
+        ByteBufProtocolMessage message = channel.readInbound();
+        assertThat(message.getData()).isEqualTo(PAYLOAD);
+        message.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    @DisplayName("A client still rejects other frame types that omit the checksum")
+    void decode_clientSide_otherTypeRejected() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ProtocolDecoder(1024, true));
+
+        channel.writeInbound(frame(MessageType.SYSTEM_MESSAGE, true));
+
+        assertThat((Object) channel.readInbound()).isNull();
+        assertThat(channel.isOpen()).isFalse();
+        channel.finishAndReleaseAll();
+    }
+
+    private static ByteBuf frame(MessageType type, boolean checksumOmitted) {
+        ProtocolHeader header = new ProtocolHeader();
+        header.setMsgType(type.getCode());
+        header.setLength(PAYLOAD.length);
+        if (checksumOmitted) {
+            header.setChecksumOmitted(true);
+        } else {
+            header.setCheckSum(ProtocolChecksum.of(PAYLOAD));
+        }
+        ByteBuf frame = Unpooled.buffer(ProtocolHeader.HEADER_LENGTH + PAYLOAD.length);
+        ProtocolEncoder.writeHeader(header, frame);
+        return frame.writeBytes(PAYLOAD);
+    }
+}
@@ -0,0 +1,81 @@
+package com.pot.im.service.receipt;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.pot.im.service.config.MessageConfig;
+import com.pot.im.service.entity.UserConversation;
+import com.pot.im.service.mapper.UserConversationMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReadCursorStore")
+class ReadCursorStoreTest {
+
+    @Mock
+    private UserConversationMapper userConversationMapper;
+
+    private ReadCursorStore store;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // Lambda query wrappers resolve column names from MyBatis-Plus table metadata.
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), UserConversation.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        MessageConfig config = new MessageConfig();
+        config.setReadCursorCacheMaxSize(1);
+        store = new ReadCursorStore(userConversationMapper, config);
+        store.init();
+    }
+
+    @Test
+    @DisplayName("A full cache evicts old conversations instead of refusing new ones")
+    void readBy_cacheFull_keepsCachingNewConversations() {
+        when(userConversationMapper.selectList(any())).thenReturn(List.of(cursor(2L, 100L)));
+
+        store.readBy(1L, List.of(100L), 1L);
+        store.readBy(2L, List.of(100L), 1L);
+        store.readBy(2L, List.of(100L), 1L);
+
+        verify(userConversationMapper, times(2)).selectList(any());
+    }
+
+    @Test
+    @DisplayName("Readers are everyone whose cursor reached the message, except the caller")
+    void readBy_cursors_countsReadersPastMessage() {
+        when(userConversationMapper.selectList(any()))
+                .thenReturn(List.of(cursor(1L, 100L), cursor(2L, 100L), cursor(3L, 50L)));
+
+        assertThat(store.readBy(1L, List.of(50L, 100L, 101L), 1L))
+                .containsEntry(50L, 2)
+                .containsEntry(100L, 1)
+                .containsEntry(101L, 0);
+
+        store.advance(1L, 3L, 100L);
+        assertThat(store.readBy(1L, List.of(100L), 1L)).containsEntry(100L, 2);
+    }
+
+    private static UserConversation cursor(long userId, long messageId) {
+        UserConversation row = new UserConversation();
+        row.setUserId(userId);
+        row.setLastReadMessageId(messageId);
+        return row;
+    }
+}
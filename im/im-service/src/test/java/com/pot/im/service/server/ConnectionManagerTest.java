@@ -0,0 +1,98 @@
+package com.pot.im.service.server;
+
+import com.pot.im.service.cluster.UserRouter;
+import com.pot.im.service.config.ServerConfig;
+import com.pot.im.service.offline.OfflineMessageStore;
+import com.pot.im.service.protocol.serializer.ByteBufProtocolMessage;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.PayloadCompressionCodec;
+import com.pot.im.service.protocol.serializer.ProtocolHeader;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ConnectionManager")
+class ConnectionManagerTest {
+
+    @Mock
+    private UserRouter userRouter;
+    @Mock
+    private ObjectProvider<OfflineMessageStore> offlineStore;
+
+    private ConnectionManager connectionManager;
+
+    @BeforeEach
+    void setUp() {
+        ServerConfig config = new ServerConfig();
+        config.setFragmentSize(8);
+        // Threshold 0 disables compression, so the payload stays above the fragment size.
+        connectionManager = new ConnectionManager(config, new PayloadCompressionCodec(0, 6, 1024),
+                userRouter, offlineStore);
+    }
+
+    @Test
+    @DisplayName("Oversized broadcasts give every channel its own message and header")
+    void broadcast_oversizedPayload_copiesPerChannel() {
+        EmbeddedChannel first = new EmbeddedChannel();
+        EmbeddedChannel second = new EmbeddedChannel();
+        connectionManager.bindUser("1", first);
+        connectionManager.bindUser("2", second);
+        ProtocolHeader header = new ProtocolHeader();
+        header.setMsgType(MessageType.SYSTEM_MESSAGE.getCode());
+        ByteBufProtocolMessage message = new ByteBufProtocolMessage(header, Unpooled.wrappedBuffer(new byte[64]));
+
+        connectionManager.broadcast(message);
+        first.runPendingTasks();
+        second.runPendingTasks();
+
+        ByteBufProtocolMessage toFirst = first.readOutbound();
+        ByteBufProtocolMessage toSecond = second.readOutbound();
+        assertThat(toFirst).isNotSameAs(message).isNotSameAs(toSecond);
+        assertThat(toFirst.getHeader()).isNotSameAs(header).isNotSameAs(toSecond.getHeader());
+        toFirst.release();
+        toSecond.release();
+        // The caller still owns its reference.
+        assertThat(message.refCnt()).isEqualTo(1);
+        message.release();
+    }
+
+    @Test
+    @DisplayName("Multicast hands every non-local member to the router in one batch")
+    void multicast_remoteMembers_forwardedInOneBatch() {
+        EmbeddedChannel local = new EmbeddedChannel();
+        connectionManager.bindUser("1", local);
+        ProtocolMessage message = new ProtocolMessage();
+        message.getHeader().setMsgType(MessageType.GROUP_MESSAGE.getCode());
+        message.setData(new byte[]{1});
+        doAnswer(invocation -> {
+            invocation.<Consumer<List<String>>>getArgument(2).accept(List.of("3"));
+            return null;
+        }).when(userRouter).forward(eq(List.of("2", "3")), eq(message), any());
+        AtomicReference<List<String>> undelivered = new AtomicReference<>();
+
+        connectionManager.multicast(new String[]{"0", "1", "2", "3"}, "0", message, undelivered::set);
+        local.runPendingTasks();
+
+        verify(userRouter).forward(eq(List.of("2", "3")), eq(message), any());
+        assertThat(undelivered.get()).containsExactly("3");
+        assertThat((Object) local.readOutbound()).isNotNull();
+    }
+}
@@ -0,0 +1,95 @@
+package com.pot.im.service.server;
+
+import com.pot.im.service.config.ServerConfig;
+import com.pot.im.service.protocol.serializer.MessagePriority;
+import com.pot.im.service.protocol.serializer.MessageType;
+import com.pot.im.service.protocol.serializer.ProtocolMessage;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PriorityWriteHandler")
+class PriorityWriteHandlerTest {
+
+    @Mock
+    private SlowConsumerListener listener;
+
+    private PriorityWriteHandler handler;
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        handler = new PriorityWriteHandler(4, ServerConfig.SlowConsumerPolicy.SPILL_OFFLINE,
+                Long.MAX_VALUE, 2, listener);
+        channel = new EmbeddedChannel();
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(1, 2));
+        channel.pipeline().addLast(handler);
+        // Unflushed, this makes the channel unwritable so later writes queue in the handler.
+        channel.write(message(MessageType.SYSTEM_MESSAGE, MessagePriority.NORMAL));
+        assertThat(channel.isWritable()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Only chat messages are spilled, and their promise fails instead of reporting success")
+    void slowConsumer_mixedFrames_spillsOnlyChat() {
+        ProtocolMessage ack = message(MessageType.PRIVATE_MESSAGE_ACK, MessagePriority.HIGH);
+        ProtocolMessage response = message(MessageType.SYNC_RESPONSE, MessagePriority.CRITICAL);
+        ProtocolMessage chat = message(MessageType.PRIVATE_MESSAGE, MessagePriority.NORMAL);
+        when(listener.spill(channel, chat)).thenReturn(true);
+        ChannelPromise ackPromise = channel.newPromise();
+        ChannelPromise chatPromise = channel.newPromise();
+
+        channel.write(ack, ackPromise);
+        channel.write(response);
+        channel.write(chat, chatPromise);
+
+        assertThat(handler.isSlowConsumer()).isTrue();
+        verify(listener).spill(channel, chat);
+        verify(listener, never()).spill(any(), same(ack));
+        verify(listener, never()).spill(any(), same(response));
+        assertThat(chatPromise.isDone()).isTrue();
+        assertThat(chatPromise.isSuccess()).isFalse();
+        assertThat(ackPromise.isDone()).isFalse();
+        assertThat(handler.pendingWrites()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Compressed chat frames are dropped rather than spilled")
+    void slowConsumer_compressedChat_droppedNotSpilled() {
+        ProtocolMessage compressed = message(MessageType.GROUP_MESSAGE, MessagePriority.NORMAL);
+        compressed.getHeader().setCompressed(true);
+        ChannelPromise promise = channel.newPromise();
+
+        channel.write(message(MessageType.PRIVATE_MESSAGE_ACK, MessagePriority.HIGH));
+        channel.write(message(MessageType.PRIVATE_MESSAGE_ACK, MessagePriority.HIGH));
+        channel.write(compressed, promise);
+
+        verify(listener, never()).spill(any(), same(compressed));
+        verify(listener).frameDropped(eq(channel));
+        assertThat(promise.isDone()).isTrue();
+        assertThat(promise.isSuccess()).isFalse();
+    }
+
+    private static ProtocolMessage message(MessageType type, MessagePriority priority) {
+        ProtocolMessage message = new ProtocolMessage();
+        message.getHeader().setMsgType(type.getCode());
+        message.getHeader().setMessagePriority(priority);
+        message.setData(new byte[]{1});
+        return message;
+    }
+}
@@ -0,0 +1,44 @@
+package com.pot.im.service.support;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The value serializer {@code RedisAutoConfiguration} installs on the pot
+ * RedisTemplate, for tests that stub {@code RedisService} with values as Redis
+ * would really return them.
+ */
+public final class RedisJson {
+
+    private static final Jackson2JsonRedisSerializer<Object> SERIALIZER = serializer();
+
+    private RedisJson() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Writes {@code value} as the template would and reads it back.
+     */
+    public static Object roundTrip(Object value) {
+        return SERIALIZER.deserialize(SERIALIZER.serialize(value));
+    }
+
+    /**
+     * Reads a value a raw command stored, such as the decimal string {@code INCR} keeps.
+     */
+    public static Object read(String stored) {
+        return SERIALIZER.deserialize(stored.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Jackson2JsonRedisSerializer<Object> serializer() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        return new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
+    }
+}